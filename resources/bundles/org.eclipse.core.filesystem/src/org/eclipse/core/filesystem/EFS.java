@@ -105,6 +105,17 @@ public class EFS {
 	 */
 	public static final int CACHE = 1 << 12;
 
+	/**
+	 * Option flag constant (value 1 &lt;&lt;13) indicating that the
+	 * information about all children of a store should be fetched in
+	 * a single sweep over the directory, if the file system supports it.
+	 * File systems that do not support bulk fetching ignore this option.
+	 *
+	 * @see IFileStore#childInfos(int, IProgressMonitor)
+	 * @since org.eclipse.core.filesystem 1.10
+	 */
+	public static final int BULK_FETCH = 1 << 13;
+
 	/**
 	 * Attribute constant (value 1 &lt;&lt;1) indicating that a
 	 * file is read only.
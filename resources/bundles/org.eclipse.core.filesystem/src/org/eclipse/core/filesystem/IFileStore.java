@@ -53,8 +53,8 @@ public interface IFileStore extends IAdaptable {
 	 * Returns an {@link IFileInfo} instance for each file and directory contained
 	 * within this store.
 	 *
-	 * @param options bit-wise or of option flag constants (currently only {@link EFS#NONE}
-	 * is applicable).
+	 * @param options bit-wise or of option flag constants ({@link EFS#NONE}
+	 * or {@link EFS#BULK_FETCH}).
 	 * @param monitor a progress monitor, or <code>null</code> if progress
 	 *    reporting and cancellation are not desired
 	 * @return An array of information about the children of this store, or an empty
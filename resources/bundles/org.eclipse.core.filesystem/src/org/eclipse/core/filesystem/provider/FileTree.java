@@ -21,6 +21,11 @@ import org.eclipse.core.filesystem.*;
  * Clients may subclass this class to provide a file tree for their particular
  * file system.
  * </p>
+ * <p>
+ * Implementations that build the tree from the underlying stores should pass
+ * {@link EFS#BULK_FETCH} to {@link IFileStore#childInfos(int, org.eclipse.core.runtime.IProgressMonitor)}
+ * so that each directory is read in a single sweep where possible.
+ * </p>
  *
  * @since org.eclipse.core.filesystem 1.0
  */
@@ -98,6 +98,16 @@ public class LocalFile extends FileStore {
 		}
 	}
 
+	@Override
+	public IFileInfo[] childInfos(int options, IProgressMonitor monitor) throws CoreException {
+		if ((options & EFS.BULK_FETCH) != 0) {
+			IFileInfo[] infos = LocalFileNativesManager.fetchChildInfos(filePath);
+			if (infos != null)
+				return infos;
+		}
+		return super.childInfos(options, monitor);
+	}
+
 	@Override
 	public String[] childNames(int options, IProgressMonitor monitor) {
 		String[] names = file.list();
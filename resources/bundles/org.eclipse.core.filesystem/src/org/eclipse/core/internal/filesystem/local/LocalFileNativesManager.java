@@ -65,6 +65,10 @@ public class LocalFileNativesManager {
 		return HANDLER.fetchFileInfo(fileName);
 	}
 
+	public static FileInfo[] fetchChildInfos(String directoryName) {
+		return HANDLER.fetchChildInfos(directoryName);
+	}
+
 	public static boolean putFileInfo(String fileName, IFileInfo info, int options) {
 		return HANDLER.putFileInfo(fileName, info, options);
 	}
@@ -25,4 +25,18 @@ public abstract class NativeHandler {
 	public abstract FileInfo fetchFileInfo(String fileName);
 
 	public abstract boolean putFileInfo(String fileName, IFileInfo info, int options);
+
+	/**
+	 * Fetches the information about all children of the given directory in a
+	 * single sweep over the directory.
+	 *
+	 * @param directoryName the absolute path of the directory
+	 * @return the information about the children of the directory, or
+	 * <code>null</code> if bulk fetching is not supported by this handler or
+	 * failed, in which case callers should fetch the information for each
+	 * child separately
+	 */
+	public FileInfo[] fetchChildInfos(String directoryName) {
+		return null;
+	}
 }
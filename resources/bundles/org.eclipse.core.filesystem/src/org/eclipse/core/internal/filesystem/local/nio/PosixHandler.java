@@ -18,8 +18,7 @@ package org.eclipse.core.internal.filesystem.local.nio;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.*;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.provider.FileInfo;
@@ -58,21 +57,7 @@ public class PosixHandler extends NativeHandler {
 				attrs = Files.readAttributes(path, PosixFileAttributes.class);
 			}
 
-			info.setExists(true);
-			info.setLastModified(attrs.lastModifiedTime().toMillis());
-			info.setLength(attrs.size());
-			info.setDirectory(attrs.isDirectory());
-
-			Set<PosixFilePermission> perms = attrs.permissions();
-			info.setAttribute(EFS.ATTRIBUTE_OWNER_READ, perms.contains(PosixFilePermission.OWNER_READ));
-			info.setAttribute(EFS.ATTRIBUTE_OWNER_WRITE, perms.contains(PosixFilePermission.OWNER_WRITE));
-			info.setAttribute(EFS.ATTRIBUTE_OWNER_EXECUTE, perms.contains(PosixFilePermission.OWNER_EXECUTE));
-			info.setAttribute(EFS.ATTRIBUTE_GROUP_READ, perms.contains(PosixFilePermission.GROUP_READ));
-			info.setAttribute(EFS.ATTRIBUTE_GROUP_WRITE, perms.contains(PosixFilePermission.GROUP_WRITE));
-			info.setAttribute(EFS.ATTRIBUTE_GROUP_EXECUTE, perms.contains(PosixFilePermission.GROUP_EXECUTE));
-			info.setAttribute(EFS.ATTRIBUTE_OTHER_READ, perms.contains(PosixFilePermission.OTHERS_READ));
-			info.setAttribute(EFS.ATTRIBUTE_OTHER_WRITE, perms.contains(PosixFilePermission.OTHERS_WRITE));
-			info.setAttribute(EFS.ATTRIBUTE_OTHER_EXECUTE, perms.contains(PosixFilePermission.OTHERS_EXECUTE));
+			fillFileInfo(info, attrs);
 		} catch (NoSuchFileException e) {
 			// A non-existing file is not considered an error.
 		} catch (IOException e) {
@@ -82,6 +67,73 @@ public class PosixHandler extends NativeHandler {
 		return info;
 	}
 
+	@Override
+	public FileInfo[] fetchChildInfos(String directoryName) {
+		return fetchChildInfos(directoryName, this);
+	}
+
+	/**
+	 * Fetches the information about all children of the given directory while
+	 * iterating over the directory once. Where the platform supports it the
+	 * attributes of each child are read relative to the open directory,
+	 * avoiding a lookup of the full path for every child. Symbolic links and
+	 * children that cannot be read that way are handed to the given handler.
+	 *
+	 * @param directoryName the absolute path of the directory
+	 * @param handler the handler fetching the information for a single child
+	 * @return the information about the children, or <code>null</code> if the
+	 * directory could not be read
+	 */
+	public static FileInfo[] fetchChildInfos(String directoryName, NativeHandler handler) {
+		List<FileInfo> infos = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(directoryName))) {
+			SecureDirectoryStream<Path> secureStream = stream instanceof SecureDirectoryStream ? (SecureDirectoryStream<Path>) stream : null;
+			for (Path child : stream) {
+				FileInfo info = null;
+				try {
+					PosixFileAttributes attrs;
+					if (secureStream != null)
+						attrs = secureStream.getFileAttributeView(child.getFileName(), PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS).readAttributes();
+					else
+						attrs = Files.readAttributes(child, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+					if (!attrs.isSymbolicLink()) {
+						info = new FileInfo(child.getFileName().toString());
+						fillFileInfo(info, attrs);
+					}
+				} catch (IOException | UnsupportedOperationException e) {
+					// Leave it to the handler to deal with this child.
+				}
+				if (info == null) {
+					info = handler.fetchFileInfo(child.toString());
+					// Handlers fetching a single file leave the name to the caller.
+					info.setName(child.getFileName().toString());
+				}
+				infos.add(info);
+			}
+		} catch (IOException | DirectoryIteratorException e) {
+			return null;
+		}
+		return infos.toArray(new FileInfo[infos.size()]);
+	}
+
+	private static void fillFileInfo(FileInfo info, PosixFileAttributes attrs) {
+		info.setExists(true);
+		info.setLastModified(attrs.lastModifiedTime().toMillis());
+		info.setLength(attrs.size());
+		info.setDirectory(attrs.isDirectory());
+
+		Set<PosixFilePermission> perms = attrs.permissions();
+		info.setAttribute(EFS.ATTRIBUTE_OWNER_READ, perms.contains(PosixFilePermission.OWNER_READ));
+		info.setAttribute(EFS.ATTRIBUTE_OWNER_WRITE, perms.contains(PosixFilePermission.OWNER_WRITE));
+		info.setAttribute(EFS.ATTRIBUTE_OWNER_EXECUTE, perms.contains(PosixFilePermission.OWNER_EXECUTE));
+		info.setAttribute(EFS.ATTRIBUTE_GROUP_READ, perms.contains(PosixFilePermission.GROUP_READ));
+		info.setAttribute(EFS.ATTRIBUTE_GROUP_WRITE, perms.contains(PosixFilePermission.GROUP_WRITE));
+		info.setAttribute(EFS.ATTRIBUTE_GROUP_EXECUTE, perms.contains(PosixFilePermission.GROUP_EXECUTE));
+		info.setAttribute(EFS.ATTRIBUTE_OTHER_READ, perms.contains(PosixFilePermission.OTHERS_READ));
+		info.setAttribute(EFS.ATTRIBUTE_OTHER_WRITE, perms.contains(PosixFilePermission.OTHERS_WRITE));
+		info.setAttribute(EFS.ATTRIBUTE_OTHER_EXECUTE, perms.contains(PosixFilePermission.OTHERS_EXECUTE));
+	}
+
 	@Override
 	public int getSupportedAttributes() {
 		return ATTRIBUTES;
@@ -16,6 +16,7 @@ package org.eclipse.core.internal.filesystem.local.unix;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.provider.FileInfo;
 import org.eclipse.core.internal.filesystem.local.NativeHandler;
+import org.eclipse.core.internal.filesystem.local.nio.PosixHandler;
 
 /**
  * Native handler that delegates to UnixFileNatives
@@ -35,4 +36,12 @@ public class UnixFileHandler extends NativeHandler {
 	public boolean putFileInfo(String fileName, IFileInfo info, int options) {
 		return UnixFileNatives.putFileInfo(fileName, info, options);
 	}
+
+	@Override
+	public FileInfo[] fetchChildInfos(String directoryName) {
+		// immutable flags and second resolution timestamps are only available through natives
+		if (!UnixFileNatives.isNioCompatible())
+			return null;
+		return PosixHandler.fetchChildInfos(directoryName, this);
+	}
 }
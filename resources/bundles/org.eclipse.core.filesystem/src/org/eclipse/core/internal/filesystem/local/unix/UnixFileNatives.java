@@ -161,6 +161,15 @@ public abstract class UnixFileNatives {
 		return code == 0;
 	}
 
+	/**
+	 * Returns whether {@link #fetchFileInfo(String)} yields the same information
+	 * as the Java NIO file attribute API, so that the latter can be used to fetch
+	 * the information about many files at once.
+	 */
+	public static boolean isNioCompatible() {
+		return !isSupported(CHFLAGS_SUPPORTED) && StructStat.USE_MILLISECOND_RESOLUTION;
+	}
+
 	public static boolean isUsingNatives() {
 		return usingNatives;
 	}
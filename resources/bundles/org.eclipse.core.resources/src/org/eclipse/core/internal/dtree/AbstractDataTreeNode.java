@@ -31,9 +31,66 @@ public abstract class AbstractDataTreeNode {
 	 * Singleton indicating no children.
 	 */
 	static final AbstractDataTreeNode[] NO_CHILDREN = new AbstractDataTreeNode[0];
+
+	/**
+	 * The number of children from which their names are hashed to find a child,
+	 * rather than binary searched.
+	 */
+	private static final int MIN_INDEXED_CHILDREN = 32;
+
 	protected AbstractDataTreeNode children[];
 	protected String name;
 
+	/**
+	 * The hash index of the names of the children of this node, or
+	 * <code>null</code>. Built when a child of a node with many children is
+	 * looked up, and rebuilt once the children have been replaced.
+	 */
+	private ChildIndex childIndex;
+
+	/**
+	 * An open addressing hash table of the positions of children, by their
+	 * names. Its fields are final, so that it can be shared between threads
+	 * without synchronization.
+	 */
+	private static final class ChildIndex {
+		final AbstractDataTreeNode[] children;
+		/** the positions of the children, plus one, or zero for free slots */
+		final int[] slots;
+
+		ChildIndex(AbstractDataTreeNode[] children) {
+			this.children = children;
+			int[] table = new int[Integer.highestOneBit(children.length) << 2];
+			int mask = table.length - 1;
+			for (int i = 0; i < children.length; i++) {
+				int slot = hash(children[i].name) & mask;
+				while (table[slot] != 0)
+					slot = (slot + 1) & mask;
+				table[slot] = i + 1;
+			}
+			this.slots = table;
+		}
+
+		int indexOf(String localName) {
+			int[] table = slots;
+			int mask = table.length - 1;
+			for (int slot = hash(localName) & mask;; slot = (slot + 1) & mask) {
+				int position = table[slot];
+				if (position == 0)
+					return -1;
+				String childName = children[position - 1].name;
+				// names are shared, so they are mostly identical rather than just equal
+				if (childName == localName || childName.equals(localName))
+					return position - 1;
+			}
+		}
+
+		private static int hash(String name) {
+			int h = name.hashCode();
+			return h ^ (h >>> 16);
+		}
+	}
+
 	/* Node types for comparison */
 	public static final int T_COMPLETE_NODE = 0;
 	public static final int T_DELTA_NODE = 1;
@@ -462,6 +519,12 @@ public abstract class AbstractDataTreeNode {
 	 */
 	protected int indexOfChild(String localName) {
 		AbstractDataTreeNode[] nodes = this.children;
+		if (nodes.length >= MIN_INDEXED_CHILDREN) {
+			ChildIndex index = childIndex;
+			if (index == null || index.children != nodes)
+				childIndex = index = new ChildIndex(nodes);
+			return index.indexOf(localName);
+		}
 		int left = 0;
 		int right = nodes.length - 1;
 		while (left <= right) {
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.dtree;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Reads a single data tree written by a {@link CompactDataTreeWriter}.
+ * <p>
+ * The sections of the children of the root node are read from the input
+ * first, and then decoded concurrently in a pool of their own. The flattener
+ * must therefore be able to read the data of nodes in different sections
+ * from different threads. Decoded nodes share the name instances of their
+ * section.
+ * </p>
+ */
+public class CompactDataTreeReader extends DataTreeReader {
+	/**
+	 * The name table of the section being read, or <code>null</code>
+	 * outside of sections
+	 */
+	private String[] names;
+
+	/**
+	 * Creates a new CompactDataTreeReader.
+	 */
+	public CompactDataTreeReader(IDataFlattener f) {
+		super(f);
+	}
+
+	@Override
+	protected String readName() throws IOException {
+		if (names == null)
+			return super.readName();
+		int index = readNumber();
+		if (index >= names.length)
+			throw new IOException("Invalid node name index: " + index); //$NON-NLS-1$
+		return names[index];
+	}
+
+	@Override
+	protected AbstractDataTreeNode[] readChildren(IPath path, int childCount, String newProjectName) throws IOException {
+		if (!path.isRoot() || names != null)
+			return super.readChildren(path, childCount, newProjectName);
+		byte[][] sections = new byte[childCount][];
+		for (int i = 0; i < childCount; i++) {
+			sections[i] = new byte[input.readInt()];
+			input.readFully(sections[i]);
+		}
+		if (childCount == 1)
+			return new AbstractDataTreeNode[] {readSection(sections[0], newProjectName)};
+		// never use the shared ForkJoinPool.commonPool(): the flattener may block, and other tasks may be waiting on it
+		ForkJoinPool pool = new ForkJoinPool(Math.min(childCount, ForkJoinPool.getCommonPoolParallelism()));
+		try {
+			return pool.submit(() -> Arrays.stream(sections).parallel().map(section -> {
+				try {
+					return readSection(section, newProjectName);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).toArray(AbstractDataTreeNode[]::new)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof UncheckedIOException)
+				throw ((UncheckedIOException) cause).getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IOException(cause);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Decodes the section of a child of the root node.
+	 */
+	private AbstractDataTreeNode readSection(byte[] section, String newProjectName) throws IOException {
+		CompactDataTreeReader reader = new CompactDataTreeReader(flatener);
+		reader.input = new DataInputStream(new ByteArrayInputStream(section));
+		reader.names = new String[reader.readNumber()];
+		for (int i = 0; i < reader.names.length; i++)
+			reader.names[i] = reader.input.readUTF();
+		return reader.readNode(Path.ROOT, newProjectName);
+	}
+
+	@Override
+	public DeltaDataTree readTree(DeltaDataTree parent, DataInput input, String newProjectName) throws IOException {
+		names = null;
+		return super.readTree(parent, input, newProjectName);
+	}
+}
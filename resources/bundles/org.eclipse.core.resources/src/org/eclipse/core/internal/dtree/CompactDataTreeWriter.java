@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.dtree;
+
+import java.io.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Writes a single data tree in a compact format that splits the tree into
+ * independent sections, one for each child of the root node.
+ * <p>
+ * Each section is prefixed with its length in bytes, so that it can be skipped
+ * or read on its own, and starts with a table of the distinct node names it
+ * contains. The nodes of a section refer to their name by its index in that
+ * table instead of repeating it. Names outside of sections (that is, the name
+ * of the root node) are written as in the format of {@link DataTreeWriter}.
+ * </p>
+ * @see CompactDataTreeReader
+ */
+public class CompactDataTreeWriter extends DataTreeWriter {
+	/**
+	 * The index of each name written to the current section, or
+	 * <code>null</code> if no section is being written
+	 */
+	private Map<String, Integer> names;
+
+	/**
+	 * The output the current section is written to once complete
+	 */
+	private DataOutput sectionOutput;
+
+	/**
+	 * The nodes written to the current section so far
+	 */
+	private ByteArrayOutputStream section;
+
+	/**
+	 * Creates a new CompactDataTreeWriter.
+	 */
+	public CompactDataTreeWriter(IDataFlattener f) {
+		super(f);
+	}
+
+	private void beginSection() {
+		sectionOutput = output;
+		section = new ByteArrayOutputStream();
+		output = new DataOutputStream(section);
+		names = new LinkedHashMap<>();
+	}
+
+	private void endSection() throws IOException {
+		if (sectionOutput == null)
+			return;
+		/* write the name table */
+		ByteArrayOutputStream table = new ByteArrayOutputStream();
+		output = new DataOutputStream(table);
+		writeNumber(names.size());
+		for (String name : names.keySet())
+			output.writeUTF(name);
+
+		output = sectionOutput;
+		output.writeInt(table.size() + section.size());
+		output.write(table.toByteArray());
+		output.write(section.toByteArray());
+		sectionOutput = null;
+		section = null;
+		names = null;
+	}
+
+	@Override
+	protected void writeName(String name) throws IOException {
+		if (names == null) {
+			super.writeName(name);
+			return;
+		}
+		Integer index = names.get(name);
+		if (index == null) {
+			index = names.size();
+			names.put(name, index);
+		}
+		writeNumber(index);
+	}
+
+	@Override
+	protected void writeNode(AbstractDataTreeNode node, IPath path, int depth) throws IOException {
+		if (path.segmentCount() != 1 || sectionOutput != null) {
+			super.writeNode(node, path, depth);
+			return;
+		}
+		beginSection();
+		super.writeNode(node, path, depth);
+		endSection();
+	}
+
+	@Override
+	protected void writeSingleNode(AbstractDataTreeNode node, IPath path) throws IOException {
+		/* a child of the root on the path being tunnelled down starts a section
+		 * that is ended once the whole tree has been written */
+		if (path.segmentCount() == 1 && sectionOutput == null)
+			beginSection();
+		super.writeSingleNode(node, path);
+	}
+
+	@Override
+	public void writeTree(DeltaDataTree tree, IPath path, int depth, DataOutput output) throws IOException {
+		sectionOutput = null;
+		names = null;
+		super.writeTree(tree, path, depth, output);
+		endSection();
+	}
+}
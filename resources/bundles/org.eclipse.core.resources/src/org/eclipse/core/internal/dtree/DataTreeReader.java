@@ -17,6 +17,7 @@ package org.eclipse.core.internal.dtree;
 import java.io.DataInput;
 import java.io.IOException;
 import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.internal.utils.StringPool;
 import org.eclipse.core.runtime.*;
 
 /**
@@ -63,7 +64,7 @@ public class DataTreeReader {
 	 */
 	protected AbstractDataTreeNode readNode(IPath parentPath, String newProjectName) throws IOException {
 		/* read the node name */
-		String name = input.readUTF();
+		String name = readName();
 
 		/* read the node type */
 		int nodeType = readNumber();
@@ -100,10 +101,7 @@ public class DataTreeReader {
 		if (childCount == 0) {
 			children = AbstractDataTreeNode.NO_CHILDREN;
 		} else {
-			children = new AbstractDataTreeNode[childCount];
-			for (int i = 0; i < childCount; i++) {
-				children[i] = readNode(path, newProjectName);
-			}
+			children = readChildren(path, childCount, newProjectName);
 		}
 
 		/* create the appropriate node */
@@ -122,6 +120,24 @@ public class DataTreeReader {
 		}
 	}
 
+	/**
+	 * Reads the given number of children of the node at the given path.
+	 */
+	protected AbstractDataTreeNode[] readChildren(IPath path, int childCount, String newProjectName) throws IOException {
+		AbstractDataTreeNode[] children = new AbstractDataTreeNode[childCount];
+		for (int i = 0; i < childCount; i++) {
+			children[i] = readNode(path, newProjectName);
+		}
+		return children;
+	}
+
+	/**
+	 * Reads the name of a node.
+	 */
+	protected String readName() throws IOException {
+		return StringPool.getShared().add(input.readUTF());
+	}
+
 	/**
 	 * Reads an integer stored in compact format.  Numbers between
 	 * 0 and 254 inclusive occupy 1 byte; other numbers occupy 5 bytes,
@@ -50,34 +50,7 @@ public class DataTreeWriter {
 	 * @param depth The depth of the subtree to write.
 	 */
 	protected void writeNode(AbstractDataTreeNode node, IPath path, int depth) throws IOException {
-		int type = node.type();
-
-		/* write the node name */
-		String name = node.getName();
-		if (name == null) {
-			name = ""; //$NON-NLS-1$
-		}
-		output.writeUTF(name);
-
-		/* write the node type */
-		writeNumber(type);
-
-		/* maybe write the data */
-		if (node.hasData()) {
-			Object data = node.getData();
-
-			/**
-			 * Write a flag indicating whether or not the data field is null.
-			 * Zero means data is null, non-zero means data is present
-			 */
-			if (data == null) {
-				writeNumber(0);
-			} else {
-				writeNumber(1);
-				flatener.writeData(path, node.getData(), output);
-			}
-
-		}
+		writeSingleNode(node, path);
 
 		/* maybe write the children */
 		if (depth > 0 || depth == D_INFINITE) {
@@ -97,6 +70,13 @@ public class DataTreeWriter {
 		}
 	}
 
+	/**
+	 * Writes the name of a node.
+	 */
+	protected void writeName(String name) throws IOException {
+		output.writeUTF(name);
+	}
+
 	/**
 	 * Writes an integer in a compact format biased towards
 	 * small non-negative numbers. Numbers between
@@ -121,7 +101,7 @@ public class DataTreeWriter {
 		if (name == null) {
 			name = ""; //$NON-NLS-1$
 		}
-		output.writeUTF(name);
+		writeName(name);
 
 		/* write the node type */
 		writeNumber(node.type());
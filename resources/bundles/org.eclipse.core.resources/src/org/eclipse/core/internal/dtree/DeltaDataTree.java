@@ -14,6 +14,7 @@
 package org.eclipse.core.internal.dtree;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
 import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.internal.utils.StringPool;
 import org.eclipse.core.runtime.Assert;
@@ -41,6 +42,14 @@ import org.eclipse.core.runtime.IPath;
  */
 
 public class DeltaDataTree extends AbstractDataTree {
+	/**
+	 * The number of lookups done in all delta trees, and the number of tree
+	 * layers they searched, which tell how much lookups cost due to the length
+	 * of the delta chains.
+	 */
+	private static final LongAdder lookupCount = new LongAdder();
+	private static final LongAdder layersSearchedCount = new LongAdder();
+
 	private volatile AbstractDataTreeNode rootNode;
 	private volatile DeltaDataTree parent;
 
@@ -338,7 +347,8 @@ public class DeltaDataTree extends AbstractDataTree {
 	public void createChild(IPath parentKey, String localName, Object data) {
 		if (isImmutable())
 			handleImmutableTree();
-		addChild(parentKey, localName, new DataTreeNode(localName, data));
+		String name = StringPool.getShared().add(localName);
+		addChild(parentKey, name, new DataTreeNode(name, data));
 	}
 
 	/**
@@ -597,6 +607,42 @@ public class DeltaDataTree extends AbstractDataTree {
 		return namesOfChildren;
 	}
 
+	/**
+	 * Returns the number of layers below the complete tree in the delta chain of
+	 * this tree, that is, the number of parents that lookups in this tree may
+	 * have to search. Returns 0 if this tree is complete.
+	 */
+	public int getChainDepth() {
+		int depth = 0;
+		for (DeltaDataTree tree = parent; tree != null; tree = tree.parent)
+			depth++;
+		return depth;
+	}
+
+	/**
+	 * Returns the number of lookups done in delta trees so far.
+	 *
+	 * @see #getLayersSearchedCount()
+	 */
+	public static long getLookupCount() {
+		return lookupCount.sum();
+	}
+
+	/**
+	 * Returns the number of tree layers that the lookups done in delta trees so
+	 * far have searched. Its ratio to {@link #getLookupCount()} is the average
+	 * number of layers searched per lookup, which grows with the length of delta
+	 * chains.
+	 */
+	public static long getLayersSearchedCount() {
+		return layersSearchedCount.sum();
+	}
+
+	private static void recordLookup(int layers) {
+		lookupCount.increment();
+		layersSearchedCount.add(layers);
+	}
+
 	/**
 	 * Returns the parent of the tree.
 	 */
@@ -612,7 +658,7 @@ public class DeltaDataTree extends AbstractDataTree {
 	 * can have different types of root nodes, so this is not enforced as an
 	 * abstract method
 	 */
-	protected AbstractDataTreeNode getRootNode() {
+	public AbstractDataTreeNode getRootNode() {
 		return rootNode;
 	}
 
@@ -655,7 +701,9 @@ public class DeltaDataTree extends AbstractDataTree {
 	@Override
 	public DataTreeLookup lookup(IPath key) {
 		int keyLength = key.segmentCount();
+		int layers = 0;
 		for (DeltaDataTree tree = this; tree != null; tree = tree.parent) {
+			layers++;
 			AbstractDataTreeNode node = tree.rootNode;
 			boolean complete = !node.isDelta();
 			for (int i = 0; i < keyLength; i++) {
@@ -667,6 +715,7 @@ public class DeltaDataTree extends AbstractDataTree {
 			}
 			if (node != null) {
 				if (node.hasData()) {
+					recordLookup(layers);
 					return DataTreeLookup.newLookup(key, true, node.getData(), tree == this);
 				} else if (node.isDeleted()) {
 					break;
@@ -677,6 +726,7 @@ public class DeltaDataTree extends AbstractDataTree {
 				break;
 			}
 		}
+		recordLookup(layers);
 		return DataTreeLookup.newLookup(key, false, null);
 	}
 
@@ -693,7 +743,9 @@ public class DeltaDataTree extends AbstractDataTree {
 	 */
 	public DataTreeLookup lookupIgnoreCase(IPath key) {
 		int keyLength = key.segmentCount();
+		int layers = 0;
 		for (DeltaDataTree tree = this; tree != null; tree = tree.parent) {
+			layers++;
 			AbstractDataTreeNode node = tree.rootNode;
 			boolean complete = !node.isDelta();
 			for (int i = 0; i < keyLength; i++) {
@@ -705,6 +757,7 @@ public class DeltaDataTree extends AbstractDataTree {
 			}
 			if (node != null) {
 				if (node.hasData()) {
+					recordLookup(layers);
 					return DataTreeLookup.newLookup(key, true, node.getData(), tree == this);
 				} else if (node.isDeleted()) {
 					break;
@@ -715,6 +768,7 @@ public class DeltaDataTree extends AbstractDataTree {
 				break;
 			}
 		}
+		recordLookup(layers);
 		return DataTreeLookup.newLookup(key, false, null);
 	}
 
@@ -810,8 +864,10 @@ public class DeltaDataTree extends AbstractDataTree {
 		DeltaDataTree complete = sourceParent.assembleWithForwardDelta(sourceTree);
 		sourceTree.setRootNode(complete.getRootNode());
 		sourceTree.setParent(null);
-		sourceParent.setRootNode(backwardDelta.getRootNode());
+		// give the former parent its new parent before its backward delta, so that
+		// it is never seen as a delta without a parent
 		sourceParent.setParent(sourceTree);
+		sourceParent.setRootNode(backwardDelta.getRootNode());
 	}
 
 	/**
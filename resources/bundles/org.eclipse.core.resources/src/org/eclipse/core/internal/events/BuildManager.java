@@ -244,7 +244,9 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 						currentTree = workspace.getElementTree();
 				}
 				//do the build
+				long start = System.currentTimeMillis();
 				SafeRunner.run(getSafeRunnable(currentBuilder, trigger, args, status, monitor));
+				currentBuilder.setLastBuildDuration(System.currentTimeMillis() - start);
 			} finally {
 				// Re-acquire the WS lock, then release the scheduling rule
 				if (depth >= 0) {
@@ -593,7 +595,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 			} catch (CoreException ex) {
 				status.add(new Status(IStatus.ERROR, ResourcesPlugin.PI_RESOURCES, ex.getMessage(), ex));
 			}
-		}, config -> getRule(config, trigger, null, Collections.emptyMap()), buildJobGroup);
+		}, config -> getRule(config, trigger, null, Collections.emptyMap()), buildJobGroup, this::getLastBuildDuration);
 		graphProcessor.processGraphWithParallelJobs();
 		try {
 			Job.getJobManager().join(graphProcessor, monitor);
@@ -688,6 +690,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 						info = new BuilderPersistentInfo(project.getName(), supportsConfigs ? config.getName() : null, builderName, i);
 						info.setLastBuildTree(oldTree);
 						info.setInterestingProjects(((InternalBuilder) builder).getInterestingProjects());
+						info.setLastBuildDuration(((InternalBuilder) builder).getLastBuildDuration());
 					}
 				}
 				if (info != null)
@@ -859,6 +862,41 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		return (IncrementalProjectBuilder) builder;
 	}
 
+	/**
+	 * Returns the wall time of the last run of all builders of the given build
+	 * configuration, in milliseconds, or 0 if unknown. This is used to build
+	 * first the projects on the longest chain of dependent builds.
+	 */
+	long getLastBuildDuration(IBuildConfiguration buildConfiguration) {
+		IProject project = buildConfiguration.getProject();
+		ProjectDescription description = ((Project) project).internalGetDescription();
+		if (description == null || !project.isAccessible())
+			return 0;
+		ArrayList<BuilderPersistentInfo> infos = null;
+		try {
+			infos = getBuildersPersistentInfo(project);
+		} catch (CoreException e) {
+			// the project is not accessible
+		}
+		long duration = 0;
+		ICommand[] commands = description.getBuildSpec(false);
+		for (int i = 0; i < commands.length; i++) {
+			BuildCommand command = (BuildCommand) commands[i];
+			IncrementalProjectBuilder builder = command.getBuilder(buildConfiguration);
+			long builderDuration = -1;
+			if (builder != null) {
+				builderDuration = ((InternalBuilder) builder).getLastBuildDuration();
+			} else if (infos != null) {
+				BuilderPersistentInfo info = getBuilderInfo(infos, command.getBuilderName(), command.supportsConfigs() ? buildConfiguration.getName() : null, i);
+				if (info != null)
+					builderDuration = info.getLastBuildDuration();
+			}
+			if (builderDuration > 0)
+				duration += builderDuration;
+		}
+		return duration;
+	}
+
 	/**
 	 * Removes the builder persistent info from the map corresponding to the
 	 * given builder name, configuration name and build spec index, or <code>null</code> if not found
@@ -1155,6 +1193,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 				builder.setLastBuiltTree(tree);
 			}
 			builder.setInterestingProjects(info.getInterestingProjects());
+			builder.setLastBuildDuration(info.getLastBuildDuration());
 		}
 		builder.setCommand(command);
 		builder.setBuildConfig(buildConfiguration);
@@ -27,6 +27,11 @@ public class BuilderPersistentInfo {
 	private int buildSpecIndex = -1;
 	protected IProject[] interestingProjects = ICoreConstants.EMPTY_PROJECT_ARRAY;
 	protected ElementTree lastBuildTree;
+	/**
+	 * The wall time of the last run of the builder, in milliseconds. A value of
+	 * -1 indicates that it is unknown.
+	 */
+	private long lastBuildDuration = -1;
 	protected String projectName;
 	protected String configName;
 
@@ -62,6 +67,10 @@ public class BuilderPersistentInfo {
 		return interestingProjects;
 	}
 
+	public long getLastBuildDuration() {
+		return lastBuildDuration;
+	}
+
 	public ElementTree getLastBuiltTree() {
 		return lastBuildTree;
 	}
@@ -78,6 +87,10 @@ public class BuilderPersistentInfo {
 		interestingProjects = projects;
 	}
 
+	public void setLastBuildDuration(long duration) {
+		lastBuildDuration = duration;
+	}
+
 	public void setLastBuildTree(ElementTree tree) {
 		lastBuildTree = tree;
 	}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.resources.IResourceChangeEvent;
+
+/**
+ * Delivers the notifications of a listener registered with
+ * {@link IResourceChangeEvent#CONCURRENT_NOTIFICATION} on a bounded pool of
+ * threads shared by all such listeners. The notifications of a listener are
+ * run one at a time, in the order they were posted. A listener with several
+ * pending notifications yields its thread after each one, so that a slow
+ * listener cannot starve the others.
+ */
+class ConcurrentNotifier {
+	/**
+	 * System property with the number of threads notifying concurrent listeners.
+	 */
+	static final String PROP_THREADS = "org.eclipse.core.resources.notification.threads"; //$NON-NLS-1$
+
+	private static final class Pool {
+		static final ThreadPoolExecutor EXECUTOR;
+		static {
+			int threads = Math.max(1, Integer.getInteger(PROP_THREADS, Math.min(4, Runtime.getRuntime().availableProcessors())).intValue());
+			AtomicInteger count = new AtomicInteger();
+			EXECUTOR = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+				Thread thread = new Thread(runnable, "Resource Change Notification-" + count.incrementAndGet()); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			});
+			EXECUTOR.allowCoreThreadTimeOut(true);
+		}
+	}
+
+	private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	/**
+	 * Discards the notifications that have not been run yet.
+	 */
+	void clear() {
+		pending.clear();
+	}
+
+	/**
+	 * Posts a notification to be run after all previously posted ones.
+	 */
+	void post(Runnable notification) {
+		pending.add(notification);
+		schedule();
+	}
+
+	private void runNext() {
+		try {
+			Runnable notification = pending.poll();
+			if (notification != null)
+				notification.run();
+		} finally {
+			scheduled.set(false);
+			schedule();
+		}
+	}
+
+	private void schedule() {
+		if (!pending.isEmpty() && scheduled.compareAndSet(false, true))
+			Pool.EXECUTOR.execute(this::runNext);
+	}
+}
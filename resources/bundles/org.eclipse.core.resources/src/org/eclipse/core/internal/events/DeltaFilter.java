@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import java.util.*;
+import org.eclipse.core.internal.resources.IMarkerSetElement;
+import org.eclipse.core.internal.resources.MarkerSet;
+import org.eclipse.core.resources.IMarkerDelta;
+import org.eclipse.core.resources.ResourceChangeFilter;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Decides which changed resources a {@link ResourceChangeFilter} selects,
+ * while a filtered resource delta is being built.
+ */
+class DeltaFilter {
+	final ResourceChangeFilter filter;
+	private final IPath[] paths;
+	private final Set<String> extensions;
+	private final String[] markerTypes;
+
+	DeltaFilter(ResourceChangeFilter filter) {
+		this.filter = filter;
+		this.paths = filter.getPaths();
+		this.extensions = new HashSet<>(Arrays.asList(filter.getExtensions()));
+		this.markerTypes = filter.getMarkerTypes();
+	}
+
+	/**
+	 * Returns whether the given resource or one of its descendants may be
+	 * selected, that is whether it is on the way to or below one of the paths.
+	 */
+	boolean isRelevant(IPath path) {
+		if (paths.length == 0)
+			return true;
+		for (IPath prefix : paths)
+			if (prefix.isPrefixOf(path) || path.isPrefixOf(prefix))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns whether the given changed resource is selected.
+	 *
+	 * @param markerDeltas the marker deltas of the resource, or <code>null</code>
+	 */
+	boolean matches(IPath path, MarkerSet markerDeltas) {
+		if (!isBelowPaths(path))
+			return false;
+		if (extensions.isEmpty() && markerTypes.length == 0)
+			return true;
+		String extension = path.getFileExtension();
+		if (extension != null && extensions.contains(extension))
+			return true;
+		if (markerTypes.length == 0 || markerDeltas == null)
+			return false;
+		for (IMarkerSetElement element : markerDeltas.elements()) {
+			IMarkerDelta delta = (IMarkerDelta) element;
+			for (String type : markerTypes)
+				if (delta.isSubtypeOf(type))
+					return true;
+		}
+		return false;
+	}
+
+	private boolean isBelowPaths(IPath path) {
+		if (paths.length == 0)
+			return true;
+		for (IPath prefix : paths)
+			if (prefix.isPrefixOf(path))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns the marker deltas of the selected resources among the given
+	 * marker deltas, or <code>null</code> if there are none.
+	 */
+	Map<IPath, MarkerSet> filterMarkerDeltas(Map<IPath, MarkerSet> markerDeltas) {
+		if (markerDeltas == null)
+			return null;
+		Map<IPath, MarkerSet> result = new HashMap<>();
+		for (Map.Entry<IPath, MarkerSet> entry : markerDeltas.entrySet())
+			if (matches(entry.getKey(), entry.getValue()))
+				result.put(entry.getKey(), entry.getValue());
+		return result;
+	}
+}
@@ -16,15 +16,27 @@ package org.eclipse.core.internal.events;
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import org.eclipse.core.internal.resources.ComputeProjectOrder;
 import org.eclipse.core.internal.resources.ComputeProjectOrder.Digraph;
-import org.eclipse.core.internal.resources.ComputeProjectOrder.Digraph.Edge;
+import org.eclipse.core.internal.resources.ComputeProjectOrder.Digraph.Vertex;
 import org.eclipse.core.internal.resources.ComputeProjectOrder.VertexOrder;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.*;
 
 /**
- *
+ * Processes the vertexes of a graph in parallel jobs, each vertex once all the
+ * vertexes it depends on have been processed.
+ * <p>
+ * The vertexes that are ready are processed in the order of their critical
+ * path: the vertexes with the longest chain of dependent work are started
+ * first, so that the work that cannot be parallelized does not end up last.
+ * The length of a chain is computed from the weights of its vertexes, e.g. the
+ * duration of their last processing. At most as many vertexes as the job group
+ * has threads are processed at the same time. When the graph has cycles, and
+ * no vertex is ready or being processed, the first vertex not yet processed in
+ * the sequential order is processed.
+ * </p>
  */
 class GraphProcessor<T> {
 
@@ -37,7 +49,23 @@ class GraphProcessor<T> {
 	final private BiConsumer<T, GraphProcessor<T>> processor;
 	final private Function<T, ISchedulingRule> ruleFactory;
 
+	/** The number of vertexes each vertex is waiting for. */
+	final private Map<T, Integer> waitingFor;
+
+	/** The length of the critical path starting at each vertex. */
+	final private Map<T, Long> priorities;
+
+	/** The position of each vertex in the sequential order. */
+	final private Map<T, Integer> positions;
+
+	/** The vertexes ready to be processed, the highest priority first. */
+	final private PriorityQueue<T> ready;
+
 	GraphProcessor(Digraph<T> graph1, Class<T> clazz, final BiConsumer<T, GraphProcessor<T>> processor, Function<T, ISchedulingRule> ruleFactory, JobGroup buildJobGroup) {
+		this(graph1, clazz, processor, ruleFactory, buildJobGroup, item -> 1);
+	}
+
+	GraphProcessor(Digraph<T> graph1, Class<T> clazz, final BiConsumer<T, GraphProcessor<T>> processor, Function<T, ISchedulingRule> ruleFactory, JobGroup buildJobGroup, ToLongFunction<T> weight) {
 		this.graph = graph1;
 		this.processor = processor;
 		this.ruleFactory = ruleFactory;
@@ -46,6 +74,30 @@ class GraphProcessor<T> {
 		processing = new HashSet<>();
 		processed = new HashSet<>();
 		sequentialOrder = ComputeProjectOrder.computeVertexOrder(graph, clazz);
+		int size = graph.vertexList.size();
+		waitingFor = new HashMap<>(size);
+		priorities = new HashMap<>(size);
+		positions = new HashMap<>(size);
+		for (int i = 0; i < sequentialOrder.vertexes.length; i++)
+			positions.put(sequentialOrder.vertexes[i], i);
+		for (Vertex<T> vertex : graph.vertexList) {
+			waitingFor.putIfAbsent(vertex.id, 0);
+			for (Vertex<T> adjacent : vertex.adjacent)
+				waitingFor.merge(adjacent.id, 1, Integer::sum);
+		}
+		// the sequential order is a topological order, except for the edges of cycles
+		for (int i = sequentialOrder.vertexes.length; --i >= 0;) {
+			T id = sequentialOrder.vertexes[i];
+			long longest = 0;
+			for (Vertex<T> adjacent : graph.vertexMap.get(id).adjacent)
+				if (positions.get(adjacent.id) > i)
+					longest = Math.max(longest, priorities.get(adjacent.id));
+			priorities.put(id, Math.max(1, weight.applyAsLong(id)) + longest);
+		}
+		ready = new PriorityQueue<>(Math.max(1, size), Comparator.<T> comparingLong(priorities::get).reversed().thenComparing(positions::get));
+		for (Map.Entry<T, Integer> entry : waitingFor.entrySet())
+			if (entry.getValue() == 0)
+				ready.add(entry.getKey());
 	}
 
 	private boolean complete() {
@@ -68,33 +120,35 @@ class GraphProcessor<T> {
 			throw new IllegalArgumentException();
 		}
 		processed.add(item);
+		for (Vertex<T> adjacent : graph.vertexMap.get(item).adjacent) {
+			int count = waitingFor.merge(adjacent.id, -1, Integer::sum);
+			if (count == 0 && toProcess.contains(adjacent.id))
+				ready.add(adjacent.id);
+		}
 	}
 
-	private Set<T> computeReadyVertexes() {
-		Set<T> res = new HashSet<>(toProcess);
-		for (T item : toProcess) {
-			for (Edge<T> edge : graph.getEdges()) {
-				if (edge.to == item && !processed.contains(edge.from)) {
-					res.remove(item);
-				}
-			}
-		}
-		if (res.isEmpty() && !isProcessing()) { // nothing ready, nothing running: a cycle!
+	/**
+	 * Returns the next vertex to process, or <code>null</code> if none is ready.
+	 */
+	private T nextReadyVertex() {
+		T next = ready.poll();
+		if (next == null && !isProcessing()) { // nothing ready, nothing running: a cycle!
 			for (T id : sequentialOrder.vertexes) {
-				if (!isProcessed(id)) {
-					return Collections.singleton(id);
+				if (toProcess.contains(id)) {
+					return id;
 				}
 			}
 		}
-		return res;
+		return next;
 	}
 
 	private boolean isProcessing() {
 		return !processing.isEmpty();
 	}
 
-	private boolean isProcessed(T item) {
-		return processed.contains(item);
+	private int maxProcessing() {
+		int max = buildJobGroup == null ? 0 : buildJobGroup.getMaxThreads();
+		return max <= 0 ? Integer.MAX_VALUE : max;
 	}
 
 	public T[] getSequentialOrder() {
@@ -103,9 +157,12 @@ class GraphProcessor<T> {
 
 	public synchronized void processGraphWithParallelJobs() {
 		if (!complete()) {
-			if (!allTriggered()) {
-				Set<T> readyToBuild = computeReadyVertexes();
-				readyToBuild.forEach(this::triggerJob);
+			int max = maxProcessing();
+			while (!allTriggered() && processing.size() < max) {
+				T next = nextReadyVertex();
+				if (next == null)
+					break;
+				triggerJob(next);
 			}
 		}
 	}
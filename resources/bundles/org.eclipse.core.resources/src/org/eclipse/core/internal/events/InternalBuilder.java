@@ -61,6 +61,12 @@ public abstract class InternalBuilder {
 	 */
 	private boolean callOnEmptyDelta = false;
 
+	/**
+	 * The wall time of the last run of this builder, in milliseconds, or -1 if
+	 * unknown.
+	 */
+	private long lastBuildDuration = -1;
+
 	/*
 	 *  @see IncrementalProjectBuilder#build
 	 */
@@ -131,6 +137,10 @@ public abstract class InternalBuilder {
 		return label;
 	}
 
+	final long getLastBuildDuration() {
+		return lastBuildDuration;
+	}
+
 	final ElementTree getLastBuiltTree() {
 		return oldState;
 	}
@@ -212,6 +222,10 @@ public abstract class InternalBuilder {
 		this.label = value;
 	}
 
+	final void setLastBuildDuration(long value) {
+		lastBuildDuration = value;
+	}
+
 	final void setLastBuiltTree(ElementTree value) {
 		oldState = value;
 	}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import java.util.Map;
+import org.eclipse.core.internal.dtree.*;
+import org.eclipse.core.internal.resources.MarkerSet;
+import org.eclipse.core.internal.resources.Workspace;
+import org.eclipse.core.internal.watson.ElementTree;
+import org.eclipse.core.resources.IResourceDeltaCursorVisitor;
+import org.eclipse.core.runtime.*;
+
+/**
+ * The notification delta between two element trees, whose tree of
+ * {@link ResourceDelta} objects is only created when first requested. Until
+ * then, the delta can be visited with a {@link ResourceDeltaCursor} directly
+ * from the comparison of the trees.
+ * <p>
+ * The delta is computed from the trees only, so it remains valid after the
+ * workspace has changed further, as long as the marker deltas it was created
+ * with are no longer modified.
+ * </p>
+ */
+public class LazyResourceDelta {
+	final Workspace workspace;
+	final ElementTree oldTree;
+	final ElementTree newTree;
+	/** the reverse comparison of the trees */
+	final DeltaDataTree comparison;
+	/** the marker deltas of all resources, or <code>null</code> */
+	final Map<IPath, MarkerSet> markerDeltas;
+	private ResourceDelta delta;
+
+	public LazyResourceDelta(Workspace workspace, ElementTree oldTree, ElementTree newTree, long markerGeneration) {
+		this.workspace = workspace;
+		this.oldTree = oldTree;
+		this.newTree = newTree;
+		this.comparison = ResourceDeltaFactory.compareTrees(oldTree, newTree, Path.ROOT, ResourceComparator.getNotificationComparator());
+		this.markerDeltas = workspace.getMarkerManager().getMarkerDeltas(markerGeneration);
+	}
+
+	/**
+	 * Visits the delta with the given visitor, without creating the tree of
+	 * delta objects if it has not been created yet.
+	 */
+	public void accept(IResourceDeltaCursorVisitor visitor, int memberFlags) throws CoreException {
+		ResourceDelta created = peekDelta();
+		if (created != null)
+			created.accept(visitor, memberFlags);
+		else
+			new ResourceDeltaCursor(this).accept(visitor, memberFlags);
+	}
+
+	/**
+	 * Returns the delta, creating it if needed.
+	 */
+	public synchronized ResourceDelta getDelta() {
+		if (delta == null)
+			delta = ResourceDeltaFactory.createDelta(workspace, oldTree, newTree, comparison, Path.ROOT, markerDeltas, ResourceComparator.getNotificationComparator());
+		return delta;
+	}
+
+	/**
+	 * Returns whether the delta does not contain any change, which is the case
+	 * if the kind of its root delta is 0.
+	 */
+	boolean isEmpty() {
+		AbstractDataTreeNode root = comparison.getRootNode();
+		if (root.getChildren().length > 0)
+			return false;
+		NodeComparison rootComparison = (NodeComparison) ((DataTreeNode) root).getData();
+		if ((rootComparison.getUserComparison() & ResourceDelta.KIND_MASK) != 0)
+			return false;
+		MarkerSet rootMarkers = markerDeltas == null ? null : markerDeltas.get(Path.ROOT);
+		return rootMarkers == null || rootMarkers.size() == 0;
+	}
+
+	/**
+	 * Returns the delta if it has already been created, or <code>null</code>.
+	 */
+	synchronized ResourceDelta peekDelta() {
+		return delta;
+	}
+}
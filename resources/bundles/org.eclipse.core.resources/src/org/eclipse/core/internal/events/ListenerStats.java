@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.core.resources.IResourceChangeListener;
+
+/**
+ * Accumulates the time a resource change listener spent handling events,
+ * to find the listeners that slow down notification.
+ */
+public class ListenerStats {
+	private final IResourceChangeListener listener;
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalTime = new AtomicLong();
+	private final AtomicLong maxTime = new AtomicLong();
+
+	ListenerStats(IResourceChangeListener listener) {
+		this.listener = listener;
+	}
+
+	void record(long nanos) {
+		count.incrementAndGet();
+		totalTime.addAndGet(nanos);
+		maxTime.accumulateAndGet(nanos, Math::max);
+	}
+
+	public IResourceChangeListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Returns the number of events the listener has been notified of.
+	 */
+	public long getNotificationCount() {
+		return count.get();
+	}
+
+	/**
+	 * Returns the total time spent notifying the listener, in nanoseconds.
+	 */
+	public long getTotalTime() {
+		return totalTime.get();
+	}
+
+	/**
+	 * Returns the longest time spent notifying the listener of a single
+	 * event, in nanoseconds.
+	 */
+	public long getMaxTime() {
+		return maxTime.get();
+	}
+
+	@Override
+	public String toString() {
+		return listener + ": " + count + " notifications, " + totalTime.get() / 1000000 + "ms total, " + maxTime.get() / 1000000 + "ms max"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+}
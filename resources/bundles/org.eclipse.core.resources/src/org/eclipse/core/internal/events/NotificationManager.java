@@ -14,9 +14,9 @@
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.core.internal.dtree.DeltaDataTree;
 import org.eclipse.core.internal.events.ResourceChangeListenerList.ListenerEntry;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.internal.utils.Messages;
@@ -56,6 +56,45 @@ public class NotificationManager implements IManager, ILifecycleListener {
 		}
 	}
 
+	/**
+	 * The deltas of the listeners registered with a filter for one event,
+	 * computed from a single comparison of the trees on demand.
+	 */
+	private class FilteredDeltas {
+		private final ElementTree newTree;
+		private final int type;
+		private LazyResourceDelta comparison;
+		private final Map<ResourceChangeFilter, ResourceDelta> deltas = new HashMap<>();
+
+		/**
+		 * @param comparison the comparison of the trees for the event if it
+		 * has already been computed, or <code>null</code>
+		 */
+		FilteredDeltas(ElementTree newTree, int type, LazyResourceDelta comparison) {
+			this.newTree = newTree;
+			this.type = type;
+			this.comparison = comparison;
+		}
+
+		/**
+		 * Returns the event to notify a listener with the given filter of
+		 * instead of the given event, or <code>null</code> if the listener
+		 * must not be notified.
+		 */
+		ResourceChangeEvent getEvent(DeltaFilter filter, ResourceChangeEvent event) {
+			ResourceDelta delta = deltas.get(filter.filter);
+			if (delta == null) {
+				if (comparison == null)
+					comparison = createLazyDelta(newTree, type);
+				delta = ResourceDeltaFactory.computeFilteredDelta(workspace, comparison.oldTree, newTree, comparison.comparison, comparison.markerDeltas, filter);
+				deltas.put(filter.filter, delta);
+			}
+			if (delta.getKind() == 0 && isSkippedWhenEmpty(event))
+				return null;
+			return new ResourceChangeEvent(event.getSource(), event.getType(), event.getBuildKind(), delta);
+		}
+	}
+
 	private static final long NOTIFICATION_DELAY = 1500;
 	/**
 	 * The Threads that are currently avoiding notification.
@@ -116,7 +155,15 @@ public class NotificationManager implements IManager, ILifecycleListener {
 	}
 
 	public void addListener(IResourceChangeListener listener, int eventMask) {
-		listeners.add(listener, eventMask);
+		addListener(listener, eventMask, null);
+	}
+
+	/**
+	 * Adds a listener that is only notified of the changes selected by the
+	 * given filter, or of all changes if the filter is <code>null</code>.
+	 */
+	public void addListener(IResourceChangeListener listener, int eventMask, ResourceChangeFilter filter) {
+		listeners.add(listener, eventMask, filter);
 		if (ResourceStats.TRACE_LISTENERS)
 			ResourceStats.listenerAdded(listener);
 	}
@@ -148,16 +195,26 @@ public class NotificationManager implements IManager, ILifecycleListener {
 			if (!listeners.hasListenerFor(type))
 				return;
 			isNotifying = true;
-			ResourceDelta delta = getDelta(lastState, type);
-			//don't broadcast POST_CHANGE or autobuild events if the delta is empty
-			if (delta == null || delta.getKind() == 0) {
-				int trigger = event.getBuildKind();
-				if (trigger == IncrementalProjectBuilder.AUTO_BUILD || trigger == 0)
-					return;
+			ListenerEntry[] entries = getListeners();
+			LazyResourceDelta postChangeDelta = null;
+			// the full delta is only needed by the listeners without a filter
+			if (hasUnfilteredListenerFor(entries, type)) {
+				if (type == IResourceChangeEvent.POST_CHANGE) {
+					// the delta objects are only created if a listener asks for them
+					postChangeDelta = createLazyDelta(lastState, type);
+					if (postChangeDelta.isEmpty())
+						return;
+					event.setDelta(postChangeDelta);
+				} else {
+					ResourceDelta delta = getDelta(lastState, type);
+					//don't broadcast autobuild events if the delta is empty
+					if ((delta == null || delta.getKind() == 0) && isSkippedWhenEmpty(event))
+						return;
+					event.setDelta(delta);
+				}
 			}
-			event.setDelta(delta);
 			long start = System.currentTimeMillis();
-			notify(getListeners(), event, lockTree);
+			notify(entries, event, lockTree, new FilteredDeltas(lastState, type, postChangeDelta));
 			lastNotifyDuration = System.currentTimeMillis() - start;
 		} finally {
 			// Update the state regardless of whether people are listening.
@@ -166,6 +223,33 @@ public class NotificationManager implements IManager, ILifecycleListener {
 		}
 	}
 
+	/**
+	 * Returns the notification delta between the last notified state for
+	 * events of the given type and the given tree.
+	 */
+	private LazyResourceDelta createLazyDelta(ElementTree tree, int type) {
+		boolean postChange = type == IResourceChangeEvent.POST_CHANGE;
+		ElementTree oldTree = postChange ? lastPostChangeTree : lastPostBuildTree;
+		long markerId = postChange ? lastPostChangeId : lastPostBuildId;
+		return new LazyResourceDelta(workspace, oldTree, tree, markerId + 1);
+	}
+
+	private static boolean hasUnfilteredListenerFor(ListenerEntry[] entries, int type) {
+		for (ListenerEntry entry : entries)
+			if ((type & entry.eventMask) != 0 && entry.filter == null)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns whether the given event is not broadcast if its delta is empty,
+	 * which is the case for POST_CHANGE and autobuild events.
+	 */
+	static boolean isSkippedWhenEmpty(ResourceChangeEvent event) {
+		int trigger = event.getBuildKind();
+		return trigger == IncrementalProjectBuilder.AUTO_BUILD || trigger == 0;
+	}
+
 	/**
 	 * Performs cleanup at the end of a resource change notification
 	 */
@@ -194,7 +278,7 @@ public class NotificationManager implements IManager, ILifecycleListener {
 	public void broadcastChanges(IResourceChangeListener listener, int type, IResourceDelta delta) {
 		ResourceChangeListenerList.ListenerEntry[] entries;
 		entries = new ResourceChangeListenerList.ListenerEntry[] {new ResourceChangeListenerList.ListenerEntry(listener, type)};
-		notify(entries, new ResourceChangeEvent(workspace, type, 0, delta), false);
+		notify(entries, new ResourceChangeEvent(workspace, type, 0, delta), false, null);
 	}
 
 	/**
@@ -258,7 +342,7 @@ public class NotificationManager implements IManager, ILifecycleListener {
 				if (!listeners.hasListenerFor(IResourceChangeEvent.PRE_CLOSE))
 					return;
 				IProject project = (IProject) event.resource;
-				notify(getListeners(), new ResourceChangeEvent(workspace, IResourceChangeEvent.PRE_CLOSE, project), true);
+				notify(getListeners(), new ResourceChangeEvent(workspace, IResourceChangeEvent.PRE_CLOSE, project), true, null);
 				break;
 			case LifecycleEvent.PRE_PROJECT_MOVE :
 				//only notify deletion on move if old project handle is going
@@ -270,20 +354,26 @@ public class NotificationManager implements IManager, ILifecycleListener {
 				if (!listeners.hasListenerFor(IResourceChangeEvent.PRE_DELETE))
 					return;
 				project = (IProject) event.resource;
-				notify(getListeners(), new ResourceChangeEvent(workspace, IResourceChangeEvent.PRE_DELETE, project), true);
+				notify(getListeners(), new ResourceChangeEvent(workspace, IResourceChangeEvent.PRE_DELETE, project), true, null);
 				break;
 			case LifecycleEvent.PRE_REFRESH :
 				if (!listeners.hasListenerFor(IResourceChangeEvent.PRE_REFRESH))
 					return;
 				if (event.resource.getType() == IResource.PROJECT)
-					notify(getListeners(), new ResourceChangeEvent(event.resource, IResourceChangeEvent.PRE_REFRESH, event.resource), true);
+					notify(getListeners(), new ResourceChangeEvent(event.resource, IResourceChangeEvent.PRE_REFRESH, event.resource), true, null);
 				else if (event.resource.getType() == IResource.ROOT)
-					notify(getListeners(), new ResourceChangeEvent(workspace, IResourceChangeEvent.PRE_REFRESH, null), true);
+					notify(getListeners(), new ResourceChangeEvent(workspace, IResourceChangeEvent.PRE_REFRESH, null), true, null);
 				break;
 		}
 	}
 
-	private void notify(ResourceChangeListenerList.ListenerEntry[] resourceListeners, final ResourceChangeEvent event, final boolean lockTree) {
+	/**
+	 * Notifies the given listeners of an event.
+	 *
+	 * @param filteredDeltas the deltas of the listeners registered with a
+	 * filter, or <code>null</code> if the event does not carry a delta
+	 */
+	private void notify(ResourceChangeListenerList.ListenerEntry[] resourceListeners, final ResourceChangeEvent event, final boolean lockTree, FilteredDeltas filteredDeltas) {
 		int type = event.getType();
 		boolean oldLock = workspace.isTreeLocked();
 		if (lockTree)
@@ -291,22 +381,21 @@ public class NotificationManager implements IManager, ILifecycleListener {
 		try {
 			for (ListenerEntry resourceListener : resourceListeners) {
 				if ((type & resourceListener.eventMask) != 0) {
+					ResourceChangeEvent listenerEvent = event;
+					if (resourceListener.filter != null && filteredDeltas != null) {
+						listenerEvent = filteredDeltas.getEvent(resourceListener.filter, event);
+						if (listenerEvent == null)
+							continue;
+					}
+					if (resourceListener.notifier != null && type == IResourceChangeEvent.POST_CHANGE) {
+						final ResourceChangeEvent postedEvent = listenerEvent;
+						resourceListener.notifier.post(() -> notify(resourceListener, postedEvent));
+						continue;
+					}
 					final IResourceChangeListener listener = resourceListener.listener;
 					if (ResourceStats.TRACE_LISTENERS)
 						ResourceStats.startNotify(listener);
-					SafeRunner.run(new ISafeRunnable() {
-						@Override
-						public void handleException(Throwable e) {
-							// exception logged in SafeRunner#run
-						}
-
-						@Override
-						public void run() throws Exception {
-							if (Policy.DEBUG_NOTIFICATIONS)
-								Policy.debug("Notifying " + listener.getClass().getName() + " about resource change event" + event.toDebugString()); //$NON-NLS-1$ //$NON-NLS-2$
-							listener.resourceChanged(event);
-						}
-					});
+					notify(resourceListener, listenerEvent);
 					if (ResourceStats.TRACE_LISTENERS)
 						ResourceStats.endNotify();
 				}
@@ -317,6 +406,46 @@ public class NotificationManager implements IManager, ILifecycleListener {
 		}
 	}
 
+	/**
+	 * Notifies a single listener of the given event, and records the time
+	 * it took. Concurrent notifications are not traced by {@link ResourceStats},
+	 * which only tracks one event at a time.
+	 */
+	private void notify(ListenerEntry resourceListener, final ResourceChangeEvent event) {
+		final IResourceChangeListener listener = resourceListener.listener;
+		long start = System.nanoTime();
+		SafeRunner.run(new ISafeRunnable() {
+			@Override
+			public void handleException(Throwable e) {
+				// exception logged in SafeRunner#run
+			}
+
+			@Override
+			public void run() throws Exception {
+				if (Policy.DEBUG_NOTIFICATIONS)
+					Policy.debug("Notifying " + listener.getClass().getName() + " about resource change event" + event.toDebugString()); //$NON-NLS-1$ //$NON-NLS-2$
+				listener.resourceChanged(event);
+			}
+		});
+		long duration = System.nanoTime() - start;
+		resourceListener.stats.record(duration);
+		if (Policy.DEBUG_NOTIFICATIONS)
+			Policy.debug("Notified " + listener.getClass().getName() + " in " + duration / 1000000 + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * Returns the notification statistics of the registered listeners, the
+	 * listeners that took the most time first.
+	 */
+	public ListenerStats[] getListenerStats() {
+		ListenerEntry[] entries = getListeners();
+		ListenerStats[] result = new ListenerStats[entries.length];
+		for (int i = 0; i < entries.length; i++)
+			result[i] = entries[i].stats;
+		Arrays.sort(result, Comparator.comparingLong(ListenerStats::getTotalTime).reversed());
+		return result;
+	}
+
 	public void removeListener(IResourceChangeListener listener) {
 		listeners.remove(listener);
 		if (ResourceStats.TRACE_LISTENERS)
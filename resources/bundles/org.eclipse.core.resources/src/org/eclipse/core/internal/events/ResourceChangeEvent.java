@@ -18,12 +18,17 @@ package org.eclipse.core.internal.events;
 import java.util.*;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 
 public class ResourceChangeEvent extends EventObject implements IResourceChangeEvent {
 	private static final IMarkerDelta[] NO_MARKER_DELTAS = new IMarkerDelta[0];
 	private static final long serialVersionUID = 1L;
 	IResourceDelta delta;
+	/**
+	 * The delta of the event until it is requested, or <code>null</code>
+	 */
+	private LazyResourceDelta lazyDelta;
 	IResource resource;
 
 	/**
@@ -50,13 +55,18 @@ public class ResourceChangeEvent extends EventObject implements IResourceChangeE
 	 */
 	@Override
 	public IMarkerDelta[] findMarkerDeltas(String findType, boolean includeSubtypes) {
-		if (delta == null)
-			return NO_MARKER_DELTAS;
-		ResourceDeltaInfo info = ((ResourceDelta) delta).getDeltaInfo();
-		if (info == null)
-			return NO_MARKER_DELTAS;
 		//Map of IPath -> MarkerSet containing MarkerDelta objects
-		Map<IPath, MarkerSet> markerDeltas = info.getMarkerDeltas();
+		Map<IPath, MarkerSet> markerDeltas;
+		if (delta != null) {
+			ResourceDeltaInfo info = ((ResourceDelta) delta).getDeltaInfo();
+			if (info == null)
+				return NO_MARKER_DELTAS;
+			markerDeltas = info.getMarkerDeltas();
+		} else if (lazyDelta != null) {
+			markerDeltas = lazyDelta.markerDeltas;
+		} else {
+			return NO_MARKER_DELTAS;
+		}
 		if (markerDeltas == null || markerDeltas.isEmpty())
 			return NO_MARKER_DELTAS;
 		ArrayList<IMarkerDelta> matching = new ArrayList<>();
@@ -87,6 +97,8 @@ public class ResourceChangeEvent extends EventObject implements IResourceChangeE
 	 */
 	@Override
 	public IResourceDelta getDelta() {
+		if (delta == null && lazyDelta != null)
+			delta = lazyDelta.getDelta();
 		return delta;
 	}
 
@@ -108,6 +120,26 @@ public class ResourceChangeEvent extends EventObject implements IResourceChangeE
 
 	public void setDelta(IResourceDelta value) {
 		delta = value;
+		lazyDelta = null;
+	}
+
+	/**
+	 * Sets the delta of this event, which is created if requested.
+	 */
+	void setDelta(LazyResourceDelta value) {
+		delta = null;
+		lazyDelta = value;
+	}
+
+	/**
+	 * @see IResourceChangeEvent#visitDelta(IResourceDeltaCursorVisitor, int)
+	 */
+	@Override
+	public void visitDelta(IResourceDeltaCursorVisitor visitor, int memberFlags) throws CoreException {
+		if (delta != null)
+			((ResourceDelta) delta).accept(visitor, memberFlags);
+		else if (lazyDelta != null)
+			lazyDelta.accept(visitor, memberFlags);
 	}
 
 	public String toDebugString() {
@@ -153,7 +185,8 @@ public class ResourceChangeEvent extends EventObject implements IResourceChangeE
 				break;
 		}
 		output.append("\nResource: " + (resource == null ? "null" : resource)); //$NON-NLS-1$ //$NON-NLS-2$
-		output.append("\nDelta:" + (delta == null ? " null" : ((ResourceDelta) delta).toDeepDebugString())); //$NON-NLS-1$ //$NON-NLS-2$
+		IResourceDelta debugDelta = getDelta();
+		output.append("\nDelta:" + (debugDelta == null ? " null" : ((ResourceDelta) debugDelta).toDeepDebugString())); //$NON-NLS-1$ //$NON-NLS-2$
 		return output.toString();
 	}
 }
@@ -15,7 +15,7 @@ package org.eclipse.core.internal.events;
 
 import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
-import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.*;
 
 /**
  * This class is used to maintain a list of listeners. It is a fairly lightweight object,
@@ -36,10 +36,35 @@ public class ResourceChangeListenerList {
 	static final class ListenerEntry {
 		final int eventMask;
 		final IResourceChangeListener listener;
+		final ListenerStats stats;
+		/**
+		 * The notifier of a listener registered for concurrent notification,
+		 * or <code>null</code>
+		 */
+		final ConcurrentNotifier notifier;
+		/**
+		 * The filter of the deltas the listener is notified of, or
+		 * <code>null</code> if it is notified of all changes
+		 */
+		final DeltaFilter filter;
 
 		ListenerEntry(IResourceChangeListener listener, int eventMask) {
+			this(listener, eventMask, null, null);
+		}
+
+		/**
+		 * Creates an entry that keeps the statistics and pending notifications
+		 * of the given previous entry of the same listener, if any.
+		 */
+		ListenerEntry(IResourceChangeListener listener, int eventMask, ResourceChangeFilter filter, ListenerEntry previous) {
 			this.listener = listener;
 			this.eventMask = eventMask;
+			this.filter = filter == null ? null : new DeltaFilter(filter);
+			this.stats = previous == null ? new ListenerStats(listener) : previous.stats;
+			if ((eventMask & IResourceChangeEvent.CONCURRENT_NOTIFICATION) == 0)
+				this.notifier = null;
+			else
+				this.notifier = previous == null || previous.notifier == null ? new ConcurrentNotifier() : previous.notifier;
 		}
 
 		@Override
@@ -49,6 +74,10 @@ public class ResourceChangeListenerList {
 			sb.append(eventMask);
 			sb.append(", "); //$NON-NLS-1$
 			sb.append(listener);
+			if (filter != null) {
+				sb.append(", "); //$NON-NLS-1$
+				sb.append(filter.filter);
+			}
 			sb.append("]"); //$NON-NLS-1$
 			return sb.toString();
 		}
@@ -73,13 +102,25 @@ public class ResourceChangeListenerList {
 	 * @param listener the listener
 	 * @param mask     event types
 	 */
-	public synchronized void add(IResourceChangeListener listener, int mask) {
+	public void add(IResourceChangeListener listener, int mask) {
+		add(listener, mask, null);
+	}
+
+	/**
+	 * Adds the given listener to this list. If an identical listener is already
+	 * registered the mask and filter are updated.
+	 *
+	 * @param listener the listener
+	 * @param mask     event types
+	 * @param filter   the filter of the deltas the listener is notified of, or
+	 *                 <code>null</code> to notify it of all changes
+	 */
+	public synchronized void add(IResourceChangeListener listener, int mask, ResourceChangeFilter filter) {
 		Objects.requireNonNull(listener);
 		if (mask == 0) {
 			remove(listener);
 			return;
 		}
-		ResourceChangeListenerList.ListenerEntry entry = new ResourceChangeListenerList.ListenerEntry(listener, mask);
 		final int oldSize = listeners.size();
 		// check for duplicates using identity
 		for (int i = 0; i < oldSize; ++i) {
@@ -87,12 +128,12 @@ public class ResourceChangeListenerList {
 			if (oldEntry.listener == listener) {
 				removing(oldEntry.eventMask);
 				adding(mask);
-				listeners.set(i, entry);
+				listeners.set(i, new ListenerEntry(listener, mask, filter, oldEntry));
 				return;
 			}
 		}
 		adding(mask);
-		listeners.add(entry);
+		listeners.add(new ListenerEntry(listener, mask, filter, null));
 	}
 
 	private void adding(int mask) {
@@ -151,12 +192,18 @@ public class ResourceChangeListenerList {
 			if (oldEntry.listener == listener) {
 				removing(oldEntry.eventMask);
 				listeners.remove(i);
+				// a removed listener is not notified of pending events
+				if (oldEntry.notifier != null)
+					oldEntry.notifier.clear();
 				return;
 			}
 		}
 	}
 
 	public synchronized void clear() {
+		for (ListenerEntry entry : listeners)
+			if (entry.notifier != null)
+				entry.notifier.clear();
 		listeners.clear();
 		count1 = 0;
 		count2 = 0;
@@ -27,7 +27,7 @@ import org.eclipse.core.runtime.*;
  * object represents changes that have occurred between two states of the
  * resource tree.
  */
-public class ResourceDelta extends PlatformObject implements IResourceDelta {
+public class ResourceDelta extends PlatformObject implements IResourceDelta, IResourceDeltaCursor {
 	protected IPath path;
 	protected ResourceDeltaInfo deltaInfo;
 	protected int status;
@@ -78,6 +78,31 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 		}
 	}
 
+	/**
+	 * Visits this delta and its children like {@link #accept(IResourceDeltaVisitor, int)},
+	 * each delta being its own cursor.
+	 */
+	public void accept(IResourceDeltaCursorVisitor visitor, int memberFlags) throws CoreException {
+		final boolean includePhantoms = (memberFlags & IContainer.INCLUDE_PHANTOMS) != 0;
+		final boolean includeTeamPrivate = (memberFlags & IContainer.INCLUDE_TEAM_PRIVATE_MEMBERS) != 0;
+		final boolean includeHidden = (memberFlags & IContainer.INCLUDE_HIDDEN) != 0;
+		int mask = includePhantoms ? ALL_WITH_PHANTOMS : REMOVED | ADDED | CHANGED;
+		if ((getKind() & mask) == 0)
+			return;
+		if (!visitor.visit(this))
+			return;
+		for (ResourceDelta childDelta : children) {
+			// quietly exclude team-private, hidden and phantom members unless explicitly included
+			if (!includeTeamPrivate && childDelta.isTeamPrivate())
+				continue;
+			if (!includePhantoms && childDelta.isPhantom())
+				continue;
+			if (!includeHidden && childDelta.isHidden())
+				continue;
+			childDelta.accept(visitor, memberFlags);
+		}
+	}
+
 	/**
 	 * Check for marker deltas, and set the appropriate change flag if there are any.
 	 */
@@ -99,6 +124,24 @@ public class ResourceDelta extends PlatformObject implements IResourceDelta {
 		}
 	}
 
+	@Override
+	public int getDepth() {
+		return path.segmentCount();
+	}
+
+	@Override
+	public String getName() {
+		return path.lastSegment();
+	}
+
+	@Override
+	public int getResourceType() {
+		if (path.isRoot())
+			return IResource.ROOT;
+		ResourceInfo info = (getKind() & (REMOVED | REMOVED_PHANTOM)) != 0 ? oldInfo : newInfo;
+		return info.getType();
+	}
+
 	@Override
 	public IResourceDelta findMember(IPath path) {
 		int segmentCount = path.segmentCount();
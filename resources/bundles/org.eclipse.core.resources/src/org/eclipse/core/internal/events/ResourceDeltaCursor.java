@@ -0,0 +1,371 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import java.util.*;
+import org.eclipse.core.internal.dtree.*;
+import org.eclipse.core.internal.resources.*;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+
+/**
+ * Visits a {@link LazyResourceDelta} without creating {@link ResourceDelta}
+ * objects. The cursor walks the nodes of the comparison tree directly, and
+ * computes the kind and flags of each delta the same way
+ * {@link ResourceDeltaFactory} and {@link ResourceDelta} do.
+ * <p>
+ * Paths are only created on request, and to report moves: the node ids of the
+ * added and removed resources are collected first, and the paths of the
+ * resources are only recorded for the ids found on both sides.
+ * </p>
+ */
+class ResourceDeltaCursor implements IResourceDeltaCursor {
+	private static final long[] NO_IDS = new long[0];
+
+	/**
+	 * A node of the tree of the paths that have marker deltas.
+	 */
+	private static final class MarkerNode {
+		final Map<String, MarkerNode> children = new HashMap<>(4);
+		MarkerSet deltas;
+	}
+
+	private final LazyResourceDelta source;
+
+	/** the nodes from the root to the current node */
+	private AbstractDataTreeNode[] nodes = new AbstractDataTreeNode[16];
+	/** the marker nodes of the nodes, or <code>null</code> where no marker changed below */
+	private MarkerNode[] markerNodes = new MarkerNode[16];
+	/** the number of segments of the path of the current node */
+	private int depth;
+
+	private int status;
+	private ResourceInfo oldInfo;
+	private ResourceInfo newInfo;
+
+	/** the old and new paths of moved resources, or <code>null</code> if nothing moved */
+	private NodeIDMap nodeIDMap;
+
+	ResourceDeltaCursor(LazyResourceDelta source) {
+		this.source = source;
+	}
+
+	void accept(IResourceDeltaCursorVisitor visitor, int memberFlags) throws CoreException {
+		nodes[0] = source.comparison.getRootNode();
+		markerNodes[0] = createMarkerTree(source.markerDeltas);
+		depth = 0;
+		nodeIDMap = computeMoves();
+		update();
+		visit(visitor, memberFlags);
+	}
+
+	/**
+	 * Visits the current node and its children, like {@link ResourceDelta#accept(IResourceDeltaCursorVisitor, int)}.
+	 */
+	private void visit(IResourceDeltaCursorVisitor visitor, int memberFlags) throws CoreException {
+		final boolean includePhantoms = (memberFlags & IContainer.INCLUDE_PHANTOMS) != 0;
+		int mask = includePhantoms ? IResourceDelta.ALL_WITH_PHANTOMS : IResourceDelta.REMOVED | IResourceDelta.ADDED | IResourceDelta.CHANGED;
+		if ((getKind() & mask) == 0)
+			return;
+		if (!visitor.visit(this))
+			return;
+		AbstractDataTreeNode[] children = nodes[depth].getChildren();
+		if (children.length == 0)
+			return;
+		MarkerNode markerNode = markerNodes[depth];
+		depth++;
+		if (depth == nodes.length) {
+			nodes = Arrays.copyOf(nodes, depth * 2);
+			markerNodes = Arrays.copyOf(markerNodes, depth * 2);
+		}
+		try {
+			for (AbstractDataTreeNode child : children) {
+				nodes[depth] = child;
+				markerNodes[depth] = markerNode == null ? null : markerNode.children.get(child.getName());
+				update();
+				// quietly exclude team-private, hidden and phantom members unless explicitly included
+				if ((memberFlags & IContainer.INCLUDE_TEAM_PRIVATE_MEMBERS) == 0 && isSet(ICoreConstants.M_TEAM_PRIVATE_MEMBER))
+					continue;
+				if (!includePhantoms && isSet(ICoreConstants.M_PHANTOM))
+					continue;
+				if ((memberFlags & IContainer.INCLUDE_HIDDEN) == 0 && isSet(ICoreConstants.M_HIDDEN))
+					continue;
+				visit(visitor, memberFlags);
+			}
+		} finally {
+			nodes[depth] = null;
+			markerNodes[depth] = null;
+			depth--;
+		}
+	}
+
+	/**
+	 * Computes the status and infos of the current node.
+	 */
+	private void update() {
+		AbstractDataTreeNode node = nodes[depth];
+		NodeComparison compare = (NodeComparison) ((DataTreeNode) node).getData();
+		int comparison = compare.getUserComparison();
+		status = comparison;
+		if (depth == 0) {
+			oldInfo = newInfo = (ResourceInfo) source.newTree.getTreeData();
+		} else if (comparison == IResourceDelta.NO_CHANGE) {
+			// the comparison of an unchanged node holds its data in the new tree
+			Object data = compare.getNewData() == null ? compare.getOldData() : compare.getNewData();
+			oldInfo = newInfo = (ResourceInfo) data;
+		} else {
+			oldInfo = (ResourceInfo) compare.getOldData();
+			newInfo = (ResourceInfo) compare.getNewData();
+		}
+		// if this delta has children but no other changes, mark it as changed
+		if ((status & IResourceDelta.ALL_WITH_PHANTOMS) == 0 && node.getChildren().length != 0)
+			status |= IResourceDelta.CHANGED;
+		int kind = getKind();
+		if (depth > 0 && nodeIDMap != null)
+			updateMoves(kind);
+		// marker changes on added and removed resources, and on the workspace
+		if (depth == 0 || kind == IResourceDelta.ADDED || kind == IResourceDelta.REMOVED) {
+			MarkerNode markerNode = markerNodes[depth];
+			if (markerNode != null && markerNode.deltas != null && markerNode.deltas.size() > 0) {
+				status |= IResourceDelta.MARKERS;
+				if (kind == 0)
+					status |= IResourceDelta.CHANGED;
+			}
+		}
+		// added projects that are open are also opened
+		if (depth == 1 && getKind() == IResourceDelta.ADDED && newInfo.isSet(ICoreConstants.M_OPEN))
+			status |= IResourceDelta.OPEN;
+	}
+
+	/**
+	 * Sets the move flags of the current node, as {@link ResourceDelta#fixMovesAndMarkers}.
+	 */
+	private void updateMoves(int kind) {
+		switch (kind) {
+			case IResourceDelta.CHANGED :
+			case IResourceDelta.ADDED :
+				IPath oldPath = nodeIDMap.getOldPath(newInfo.getNodeId());
+				if (oldPath != null && !oldPath.equals(getFullPath())) {
+					ResourceInfo actualOldInfo = (ResourceInfo) source.oldTree.getElementData(oldPath);
+					status = (status & ResourceDelta.KIND_MASK) | (ResourceComparator.getNotificationComparator().compare(actualOldInfo, newInfo) & ~ResourceDelta.KIND_MASK);
+					status |= IResourceDelta.MOVED_FROM;
+					if (kind == IResourceDelta.CHANGED)
+						status = status | IResourceDelta.REPLACED | IResourceDelta.CONTENT;
+					if (oldInfo != null && newInfo != null && oldInfo.getType() != newInfo.getType())
+						status |= IResourceDelta.TYPE;
+				}
+		}
+		switch (kind) {
+			case IResourceDelta.REMOVED :
+			case IResourceDelta.CHANGED :
+				IPath newPath = nodeIDMap.getNewPath(oldInfo.getNodeId());
+				if (newPath != null && !newPath.equals(getFullPath())) {
+					status |= IResourceDelta.MOVED_TO;
+					if (kind == IResourceDelta.CHANGED)
+						status = status | IResourceDelta.REPLACED | IResourceDelta.CONTENT;
+				}
+		}
+	}
+
+	private boolean isSet(int flag) {
+		ResourceInfo info = (status & (IResourceDelta.REMOVED | IResourceDelta.REMOVED_PHANTOM)) != 0 ? oldInfo : newInfo;
+		return ResourceInfo.isSet(info.getFlags(), flag);
+	}
+
+	/**
+	 * Returns the tree of the paths of the given marker deltas, or
+	 * <code>null</code> if there are none.
+	 */
+	private static MarkerNode createMarkerTree(Map<IPath, MarkerSet> markerDeltas) {
+		if (markerDeltas == null || markerDeltas.isEmpty())
+			return null;
+		MarkerNode root = new MarkerNode();
+		for (Map.Entry<IPath, MarkerSet> entry : markerDeltas.entrySet()) {
+			MarkerNode node = root;
+			IPath path = entry.getKey();
+			for (int i = 0; i < path.segmentCount(); i++)
+				node = node.children.computeIfAbsent(path.segment(i), name -> new MarkerNode());
+			node.deltas = entry.getValue();
+		}
+		return root;
+	}
+
+	/**
+	 * Returns the paths of the resources that moved, as a map from node id to
+	 * path like the one {@link ResourceDeltaFactory} computes for all
+	 * resources, or <code>null</code> if nothing moved.
+	 */
+	private NodeIDMap computeMoves() {
+		IdSet oldIds = new IdSet();
+		IdSet newIds = new IdSet();
+		collectIds(nodes[0], oldIds, newIds);
+		oldIds.sort();
+		newIds.sort();
+		IdSet moved = new IdSet();
+		for (int i = 0; i < newIds.size; i++)
+			if (oldIds.contains(newIds.ids[i]))
+				moved.add(newIds.ids[i]);
+		if (moved.size == 0)
+			return null;
+		moved.sort();
+		NodeIDMap result = new NodeIDMap();
+		collectPaths(nodes[0], Path.ROOT, moved, result);
+		return result;
+	}
+
+	/**
+	 * Collects the ids of the nodes that {@link ResourceDeltaFactory#computeNodeIDMap}
+	 * records below the given node.
+	 */
+	private static void collectIds(AbstractDataTreeNode parent, IdSet oldIds, IdSet newIds) {
+		for (AbstractDataTreeNode child : parent.getChildren()) {
+			NodeComparison compare = (NodeComparison) ((DataTreeNode) child).getData();
+			switch (compare.getUserComparison() & ResourceDelta.KIND_MASK) {
+				case IResourceDelta.ADDED :
+					newIds.add(((ResourceInfo) compare.getNewData()).getNodeId());
+					break;
+				case IResourceDelta.REMOVED :
+					oldIds.add(((ResourceInfo) compare.getOldData()).getNodeId());
+					break;
+				case IResourceDelta.CHANGED :
+					long oldID = ((ResourceInfo) compare.getOldData()).getNodeId();
+					long newID = ((ResourceInfo) compare.getNewData()).getNodeId();
+					if (oldID != newID) {
+						oldIds.add(oldID);
+						newIds.add(newID);
+					}
+					break;
+			}
+			collectIds(child, oldIds, newIds);
+		}
+	}
+
+	/**
+	 * Records the paths of the moved nodes below the given node.
+	 */
+	private static void collectPaths(AbstractDataTreeNode parent, IPath parentPath, IdSet moved, NodeIDMap map) {
+		for (AbstractDataTreeNode child : parent.getChildren()) {
+			NodeComparison compare = (NodeComparison) ((DataTreeNode) child).getData();
+			int kind = compare.getUserComparison() & ResourceDelta.KIND_MASK;
+			long oldID = kind == IResourceDelta.REMOVED || kind == IResourceDelta.CHANGED ? ((ResourceInfo) compare.getOldData()).getNodeId() : -1;
+			long newID = kind == IResourceDelta.ADDED || kind == IResourceDelta.CHANGED ? ((ResourceInfo) compare.getNewData()).getNodeId() : -1;
+			if (kind == IResourceDelta.CHANGED && oldID == newID)
+				oldID = newID = -1;
+			boolean recordOld = oldID != -1 && moved.contains(oldID);
+			boolean recordNew = newID != -1 && moved.contains(newID);
+			IPath path = recordOld || recordNew || child.getChildren().length > 0 ? parentPath.append(child.getName()) : null;
+			if (recordOld)
+				map.putOldPath(oldID, path);
+			if (recordNew)
+				map.putNewPath(newID, path);
+			if (path != null)
+				collectPaths(child, path, moved, map);
+		}
+	}
+
+	/**
+	 * A set of node ids that can be searched once sorted.
+	 */
+	private static final class IdSet {
+		long[] ids = NO_IDS;
+		int size;
+
+		void add(long id) {
+			if (size == ids.length)
+				ids = Arrays.copyOf(ids, Math.max(16, size * 2));
+			ids[size++] = id;
+		}
+
+		boolean contains(long id) {
+			return Arrays.binarySearch(ids, 0, size, id) >= 0;
+		}
+
+		void sort() {
+			Arrays.sort(ids, 0, size);
+		}
+	}
+
+	@Override
+	public int getKind() {
+		return status & ResourceDelta.KIND_MASK;
+	}
+
+	@Override
+	public int getFlags() {
+		return status & ~ResourceDelta.KIND_MASK;
+	}
+
+	@Override
+	public String getName() {
+		return depth == 0 ? null : nodes[depth].getName();
+	}
+
+	@Override
+	public int getResourceType() {
+		if (depth == 0)
+			return IResource.ROOT;
+		return ((status & (IResourceDelta.REMOVED | IResourceDelta.REMOVED_PHANTOM)) != 0 ? oldInfo : newInfo).getType();
+	}
+
+	@Override
+	public int getDepth() {
+		return depth;
+	}
+
+	@Override
+	public IPath getFullPath() {
+		IPath path = Path.ROOT;
+		for (int i = 1; i <= depth; i++)
+			path = path.append(nodes[i].getName());
+		return path;
+	}
+
+	@Override
+	public IResource getResource() {
+		if (depth == 0)
+			return source.workspace.getRoot();
+		return source.workspace.newResource(getFullPath(), getResourceType());
+	}
+
+	@Override
+	public IPath getMovedFromPath() {
+		if ((status & IResourceDelta.MOVED_FROM) != 0)
+			return nodeIDMap.getOldPath(newInfo.getNodeId());
+		return null;
+	}
+
+	@Override
+	public IPath getMovedToPath() {
+		if ((status & IResourceDelta.MOVED_TO) != 0)
+			return nodeIDMap.getNewPath(oldInfo.getNodeId());
+		return null;
+	}
+
+	@Override
+	public IMarkerDelta[] getMarkerDeltas() {
+		MarkerNode markerNode = markerNodes[depth];
+		if (markerNode == null || markerNode.deltas == null)
+			return new IMarkerDelta[0];
+		IMarkerSetElement[] elements = markerNode.deltas.elements();
+		IMarkerDelta[] result = new IMarkerDelta[elements.length];
+		for (int i = 0; i < elements.length; i++)
+			result[i] = (IMarkerDelta) elements[i];
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "ResourceDeltaCursor(" + getFullPath() + ')'; //$NON-NLS-1$
+	}
+}
@@ -14,6 +14,7 @@
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
+import java.util.Arrays;
 import java.util.Map;
 import org.eclipse.core.internal.dtree.DeltaDataTree;
 import org.eclipse.core.internal.dtree.NodeComparison;
@@ -43,25 +44,31 @@ public class ResourceDeltaFactory {
 	public static ResourceDelta computeDelta(Workspace workspace, ElementTree oldTree, ElementTree newTree, IPath root, long markerGeneration) {
 		//compute the underlying delta tree.
 		ResourceComparator comparator = markerGeneration >= 0 ? ResourceComparator.getNotificationComparator() : ResourceComparator.getBuildComparator();
-		newTree.immutable();
-		DeltaDataTree delta = null;
-		if (Path.ROOT.equals(root))
-			delta = newTree.getDataTree().compareWith(oldTree.getDataTree(), comparator);
-		else
-			delta = newTree.getDataTree().compareWith(oldTree.getDataTree(), comparator, root);
-
-		delta = delta.asReverseComparisonTree(comparator);
-		IPath pathInTree = root.isRoot() ? Path.ROOT : root;
-		IPath pathInDelta = Path.ROOT;
+		DeltaDataTree delta = compareTrees(oldTree, newTree, root, comparator);
 
 		// get the marker deltas for the delta info object....if needed
 		Map<IPath, MarkerSet> allMarkerDeltas = null;
 		if (markerGeneration >= 0)
 			allMarkerDeltas = workspace.getMarkerManager().getMarkerDeltas(markerGeneration);
+		return createDelta(workspace, oldTree, newTree, delta, root, allMarkerDeltas, comparator);
+	}
+
+	/**
+	 * Returns the resource delta for the given comparison of the given trees,
+	 * starting from the given root element.
+	 *
+	 * @param delta the comparison of the trees, as returned by
+	 * {@link #compareTrees(ElementTree, ElementTree, IPath, ResourceComparator)}
+	 * @param allMarkerDeltas the marker deltas of all resources, or <code>null</code>
+	 * if marker deltas should not be provided
+	 */
+	static ResourceDelta createDelta(Workspace workspace, ElementTree oldTree, ElementTree newTree, DeltaDataTree delta, IPath root, Map<IPath, MarkerSet> allMarkerDeltas, ResourceComparator comparator) {
+		IPath pathInTree = root.isRoot() ? Path.ROOT : root;
+		IPath pathInDelta = Path.ROOT;
 
 		//recursively walk the delta and create a tree of ResourceDelta objects.
 		ResourceDeltaInfo deltaInfo = new ResourceDeltaInfo(workspace, allMarkerDeltas, comparator);
-		ResourceDelta result = createDelta(workspace, delta, deltaInfo, pathInTree, pathInDelta);
+		ResourceDelta result = createDelta(newTree, delta, deltaInfo, pathInTree, pathInDelta);
 
 		//compute node ID map and fix up moves
 		deltaInfo.setNodeIDMap(computeNodeIDMap(result, new NodeIDMap()));
@@ -75,6 +82,42 @@ public class ResourceDeltaFactory {
 		return result;
 	}
 
+	/**
+	 * Returns the resource delta representing the changes made between the
+	 * given old and new trees that are selected by the given filter, rooted at
+	 * the workspace root. Only the changes on the way to the paths of the
+	 * filter are visited, and deltas are only created for the selected
+	 * resources and their parents.
+	 *
+	 * @param comparison the notification comparison of the two trees, as
+	 * returned by {@link #compareTrees(ElementTree, ElementTree, IPath, ResourceComparator)}
+	 * @param allMarkerDeltas the marker deltas of all resources, or <code>null</code>
+	 */
+	static ResourceDelta computeFilteredDelta(Workspace workspace, ElementTree oldTree, ElementTree newTree, DeltaDataTree comparison, Map<IPath, MarkerSet> allMarkerDeltas, DeltaFilter filter) {
+		Map<IPath, MarkerSet> markerDeltas = filter.filterMarkerDeltas(allMarkerDeltas);
+		ResourceDeltaInfo deltaInfo = new ResourceDeltaInfo(workspace, markerDeltas, ResourceComparator.getNotificationComparator());
+		ResourceDelta result = createFilteredDelta(newTree, comparison, deltaInfo, filter, Path.ROOT);
+		deltaInfo.setNodeIDMap(computeNodeIDMap(result, new NodeIDMap()));
+		result.fixMovesAndMarkers(oldTree);
+		checkForOpen(result, 0);
+		return result;
+	}
+
+	/**
+	 * Returns the comparison of the given trees starting from the given root
+	 * element, as a reverse comparison tree suitable for creating resource
+	 * deltas.
+	 */
+	static DeltaDataTree compareTrees(ElementTree oldTree, ElementTree newTree, IPath root, ResourceComparator comparator) {
+		newTree.immutable();
+		DeltaDataTree delta = null;
+		if (Path.ROOT.equals(root))
+			delta = newTree.getDataTree().compareWith(oldTree.getDataTree(), comparator);
+		else
+			delta = newTree.getDataTree().compareWith(oldTree.getDataTree(), comparator, root);
+		return delta.asReverseComparisonTree(comparator);
+	}
+
 	/**
 	 * Checks to see if added projects were also opens and tweaks the flags
 	 * accordingly. Should only be called for root and projects. Pass the segment count
@@ -129,7 +172,7 @@ public class ResourceDeltaFactory {
 	 * Recursively creates the tree of ResourceDelta objects rooted at
 	 * the given path.
 	 */
-	protected static ResourceDelta createDelta(Workspace workspace, DeltaDataTree delta, ResourceDeltaInfo deltaInfo, IPath pathInTree, IPath pathInDelta) {
+	protected static ResourceDelta createDelta(ElementTree newTree, DeltaDataTree delta, ResourceDeltaInfo deltaInfo, IPath pathInTree, IPath pathInDelta) {
 		// create the delta and fill it with information
 		ResourceDelta result = new ResourceDelta(pathInTree, deltaInfo);
 
@@ -138,7 +181,7 @@ public class ResourceDeltaFactory {
 		int comparison = compare.getUserComparison();
 		result.setStatus(comparison);
 		if (comparison == IResourceDelta.NO_CHANGE || Path.ROOT.equals(pathInTree)) {
-			ResourceInfo info = workspace.getResourceInfo(pathInTree, true, false);
+			ResourceInfo info = getResourceInfo(newTree, pathInTree);
 			result.setOldInfo(info);
 			result.setNewInfo(info);
 		} else {
@@ -155,7 +198,7 @@ public class ResourceDeltaFactory {
 			for (int i = 0; i < numChildren; i++) {
 				//reuse the delta path if tree-relative and delta-relative are the same
 				IPath newTreePath = pathInTree == pathInDelta ? childKeys[i] : pathInTree.append(childKeys[i].lastSegment());
-				children[i] = createDelta(workspace, delta, deltaInfo, newTreePath, childKeys[i]);
+				children[i] = createDelta(newTree, delta, deltaInfo, newTreePath, childKeys[i]);
 			}
 			result.setChildren(children);
 		}
@@ -169,6 +212,63 @@ public class ResourceDeltaFactory {
 		return result;
 	}
 
+	/**
+	 * Recursively creates the tree of ResourceDelta objects rooted at the
+	 * given path for the changes selected by the given filter. Returns
+	 * <code>null</code> if neither the resource at the given path nor any of
+	 * its descendants are selected, except for the workspace root whose delta
+	 * is always created.
+	 */
+	private static ResourceDelta createFilteredDelta(ElementTree newTree, DeltaDataTree delta, ResourceDeltaInfo deltaInfo, DeltaFilter filter, IPath path) {
+		// first find the selected children, so that no delta is created for
+		// resources that are not selected and have no selected descendants
+		IPath[] childKeys = delta.getChildren(path);
+		ResourceDelta[] children = NO_CHILDREN;
+		int numChildren = 0;
+		for (IPath childKey : childKeys) {
+			if (!filter.isRelevant(childKey))
+				continue;
+			ResourceDelta child = createFilteredDelta(newTree, delta, deltaInfo, filter, childKey);
+			if (child == null)
+				continue;
+			if (numChildren == children.length)
+				children = Arrays.copyOf(children, Math.max(4, numChildren * 2));
+			children[numChildren++] = child;
+		}
+		boolean isRoot = path.isRoot();
+		Map<IPath, MarkerSet> markerDeltas = deltaInfo.getMarkerDeltas();
+		if (numChildren == 0 && !isRoot && !filter.matches(path, markerDeltas == null ? null : markerDeltas.get(path)))
+			return null;
+
+		ResourceDelta result = new ResourceDelta(path, deltaInfo);
+		NodeComparison compare = (NodeComparison) delta.getData(path);
+		int comparison = compare.getUserComparison();
+		result.setStatus(comparison);
+		if (comparison == IResourceDelta.NO_CHANGE || isRoot) {
+			ResourceInfo info = getResourceInfo(newTree, path);
+			result.setOldInfo(info);
+			result.setNewInfo(info);
+		} else {
+			result.setOldInfo((ResourceInfo) compare.getOldData());
+			result.setNewInfo((ResourceInfo) compare.getNewData());
+		}
+		result.setChildren(numChildren == children.length ? children : Arrays.copyOf(children, numChildren));
+
+		// if this delta has children but no other changes, mark it as changed
+		int status = result.status;
+		if ((status & IResourceDelta.ALL_WITH_PHANTOMS) == 0 && numChildren != 0)
+			result.setStatus(status | IResourceDelta.CHANGED);
+		return result;
+	}
+
+	/**
+	 * Returns the info of the resource at the given path in the given tree,
+	 * which must contain it.
+	 */
+	static ResourceInfo getResourceInfo(ElementTree tree, IPath path) {
+		return (ResourceInfo) (path.isRoot() ? tree.getTreeData() : tree.getElementData(path));
+	}
+
 	/**
 	 * Returns an empty build delta describing the fact that no
 	 * changes occurred in the given project.  The returned delta
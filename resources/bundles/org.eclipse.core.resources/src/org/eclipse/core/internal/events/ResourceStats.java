@@ -25,6 +25,11 @@ public class ResourceStats {
 	 * The event that is currently occurring, maybe <code>null</code>
 	 */
 	private static PerformanceStats currentStats;
+	/**
+	 * The builder that is currently running in each thread, as builders of
+	 * different projects may run concurrently
+	 */
+	private static final ThreadLocal<PerformanceStats> currentBuildStats = new ThreadLocal<>();
 	//performance event names
 	public static final String EVENT_BUILDERS = ResourcesPlugin.PI_RESOURCES + "/perf/builders"; //$NON-NLS-1$
 	public static final String EVENT_LISTENERS = ResourcesPlugin.PI_RESOURCES + "/perf/listeners"; //$NON-NLS-1$
@@ -38,9 +43,10 @@ public class ResourceStats {
 	public static boolean TRACE_SNAPSHOT = PerformanceStats.isEnabled(ResourceStats.EVENT_SNAPSHOT);
 
 	public static void endBuild() {
-		if (currentStats != null)
-			currentStats.endRun();
-		currentStats = null;
+		PerformanceStats stats = currentBuildStats.get();
+		if (stats != null)
+			stats.endRun();
+		currentBuildStats.remove();
 	}
 
 	public static void endNotify() {
@@ -78,8 +84,9 @@ public class ResourceStats {
 	}
 
 	public static void startBuild(IncrementalProjectBuilder builder) {
-		currentStats = PerformanceStats.getStats(EVENT_BUILDERS, builder);
-		currentStats.startRun(builder.getProject().getName());
+		PerformanceStats stats = PerformanceStats.getStats(EVENT_BUILDERS, builder);
+		currentBuildStats.set(stats);
+		stats.startRun(builder.getProject().getName());
 	}
 
 	public static void startNotify(IResourceChangeListener listener) {
@@ -0,0 +1,469 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.localstore;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.InflaterInputStream;
+import org.eclipse.core.internal.resources.ResourceException;
+import org.eclipse.core.internal.resources.ResourceStatus;
+import org.eclipse.core.internal.utils.*;
+import org.eclipse.core.resources.IResourceStatus;
+import org.eclipse.core.runtime.*;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Compressed blobs appended to rolling pack files. Blobs are only appended to
+ * the newest pack, and the space of deleted blobs is reclaimed by compacting
+ * the packs that mostly hold deleted blobs, that is by moving the blobs they
+ * still hold to a newer pack and deleting them.
+ * <p>
+ * The location of the blobs is kept in memory, and saved to an index file when
+ * the packs are closed. The index file is deleted when the packs are opened, so
+ * that after a crash the location of the blobs is found again by scanning the
+ * packs. The deleted blobs are appended to a deletions file, which is replayed
+ * after the packs are scanned so that they do not reappear, and which is
+ * deleted once the index has been saved.
+ * </p>
+ * <pre>
+ * PACK ::= RECORD*
+ * RECORD ::= UUID LENGTH DATA_LENGTH DATA
+ * UUID ::= byte[16]
+ * LENGTH ::= long (the length of the uncompressed contents)
+ * DATA_LENGTH ::= int
+ * DATA ::= byte[DATA_LENGTH] (the deflated contents)
+ *
+ * INDEX ::= VERSION LOCATION_COUNT LOCATION*
+ * VERSION ::= byte
+ * LOCATION_COUNT ::= int
+ * LOCATION ::= UUID PACK_NUMBER OFFSET DATA_LENGTH
+ * PACK_NUMBER ::= int
+ * OFFSET ::= long (the offset of the record in the pack)
+ *
+ * DELETIONS ::= DELETION*
+ * DELETION ::= UUID PACK_NUMBER OFFSET (the record of the deleted blob)
+ * </pre>
+ */
+class BlobPacks {
+	private static final String INDEX_FILE = "packs.index"; //$NON-NLS-1$
+	private static final byte INDEX_VERSION = 1;
+	private static final String DELETIONS_FILE = "packs.deleted"; //$NON-NLS-1$
+	private static final int DELETION_LENGTH = UniversalUniqueIdentifier.BYTES_SIZE + 4 + 8;
+	private static final String PACK_EXTENSION = ".pack"; //$NON-NLS-1$
+	private static final int HEADER_LENGTH = UniversalUniqueIdentifier.BYTES_SIZE + 8 + 4;
+
+	/** The size above which a new pack is started. */
+	static final long MAX_PACK_SIZE = 8 * 1024 * 1024;
+
+	/** The fraction of deleted bytes above which a pack is compacted. */
+	static final double COMPACTION_THRESHOLD = 0.5;
+
+	private static final class Location {
+		final Pack pack;
+		final long offset;
+		final int dataLength;
+
+		Location(Pack pack, long offset, int dataLength) {
+			this.pack = pack;
+			this.offset = offset;
+			this.dataLength = dataLength;
+		}
+
+		int recordLength() {
+			return HEADER_LENGTH + dataLength;
+		}
+	}
+
+	private static final class Pack {
+		final int number;
+		final File file;
+		long size;
+		/** the size of the records of the blobs that have not been deleted */
+		long liveSize;
+
+		Pack(int number, File file, long size) {
+			this.number = number;
+			this.file = file;
+			this.size = size;
+		}
+	}
+
+	private final File directory;
+	private final Map<UniversalUniqueIdentifier, Location> locations = new HashMap<>();
+	/** The packs by number. The newest pack is the last one. */
+	private final TreeMap<Integer, Pack> packs = new TreeMap<>();
+	/** The stream appending to the newest pack, or <code>null</code> */
+	private OutputStream output;
+	/** The stream appending to the deletions file, or <code>null</code> */
+	private OutputStream deletions;
+	private boolean closed;
+
+	BlobPacks(File directory) {
+		this.directory = directory;
+		directory.mkdirs();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (!name.endsWith(PACK_EXTENSION))
+					continue;
+				try {
+					int number = Integer.parseInt(name.substring(0, name.length() - PACK_EXTENSION.length()), 16);
+					packs.put(number, new Pack(number, file, file.length()));
+				} catch (NumberFormatException e) {
+					// not one of our packs
+				}
+			}
+		}
+		File indexFile = new File(directory, INDEX_FILE);
+		if (!readIndex(indexFile)) {
+			locations.clear();
+			for (Pack pack : packs.values())
+				scan(pack);
+		}
+		// the index may also have been saved before the deletions file could be deleted
+		readDeletions(new File(directory, DELETIONS_FILE));
+		// the index is only valid until the packs are modified
+		indexFile.delete();
+		for (Location location : locations.values())
+			location.pack.liveSize += location.recordLength();
+	}
+
+	/**
+	 * Adds a blob with the given deflated contents to the newest pack.
+	 */
+	synchronized void add(UniversalUniqueIdentifier uuid, byte[] data, long length) throws CoreException {
+		Pack pack = getNewestPack();
+		byte[] record = new byte[HEADER_LENGTH + data.length];
+		System.arraycopy(uuid.toBytes(), 0, record, 0, UniversalUniqueIdentifier.BYTES_SIZE);
+		writeLong(record, UniversalUniqueIdentifier.BYTES_SIZE, length);
+		writeInt(record, UniversalUniqueIdentifier.BYTES_SIZE + 8, data.length);
+		System.arraycopy(data, 0, record, HEADER_LENGTH, data.length);
+		append(pack, uuid, record);
+	}
+
+	private void append(Pack pack, UniversalUniqueIdentifier uuid, byte[] record) throws CoreException {
+		try {
+			if (output == null)
+				output = new FileOutputStream(pack.file, true);
+			output.write(record);
+		} catch (IOException e) {
+			// discard what may have been written of the record
+			FileUtil.safeClose(output);
+			output = null;
+			try (RandomAccessFile file = new RandomAccessFile(pack.file, "rw")) { //$NON-NLS-1$
+				file.setLength(pack.size);
+			} catch (IOException e2) {
+				// the record will be discarded when the pack is scanned
+			}
+			String message = NLS.bind(Messages.localstore_couldNotWrite, pack.file.getAbsolutePath());
+			throw new ResourceException(IResourceStatus.FAILED_WRITE_LOCAL, null, message, e);
+		}
+		Location location = new Location(pack, pack.size, record.length - HEADER_LENGTH);
+		pack.size += record.length;
+		pack.liveSize += record.length;
+		Location previous = locations.put(uuid, location);
+		if (previous != null)
+			previous.pack.liveSize -= previous.recordLength();
+	}
+
+	/**
+	 * Closes the packs, and saves the location of their blobs.
+	 */
+	synchronized void close() throws CoreException {
+		if (closed)
+			return;
+		closed = true;
+		FileUtil.safeClose(output);
+		output = null;
+		FileUtil.safeClose(deletions);
+		deletions = null;
+		File indexFile = new File(directory, INDEX_FILE);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile), 8192))) {
+			out.writeByte(INDEX_VERSION);
+			out.writeInt(locations.size());
+			for (Map.Entry<UniversalUniqueIdentifier, Location> entry : locations.entrySet()) {
+				Location location = entry.getValue();
+				out.write(entry.getKey().toBytes());
+				out.writeInt(location.pack.number);
+				out.writeLong(location.offset);
+				out.writeInt(location.dataLength);
+			}
+		} catch (IOException e) {
+			indexFile.delete();
+			String message = NLS.bind(Messages.resources_writeMeta, indexFile.getAbsolutePath());
+			throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, null, message, e);
+		}
+		// the index does not hold the deleted blobs
+		new File(directory, DELETIONS_FILE).delete();
+	}
+
+	/**
+	 * Moves the blobs of the packs that mostly hold deleted blobs to the
+	 * newest pack, and deletes these packs. The packs are compacted one at a
+	 * time, so that the blobs remain available in between. When the newest
+	 * pack itself is compacted, its blobs are moved to a new pack.
+	 */
+	void compact(IProgressMonitor monitor) throws CoreException {
+		List<Pack> candidates = new ArrayList<>();
+		synchronized (this) {
+			if (closed)
+				return;
+			for (Pack pack : packs.values())
+				if (needsCompaction(pack))
+					candidates.add(pack);
+		}
+		SubMonitor subMonitor = SubMonitor.convert(monitor, candidates.size());
+		for (Pack pack : candidates) {
+			if (subMonitor.isCanceled())
+				return;
+			synchronized (this) {
+				if (closed)
+					return;
+				compact(pack);
+			}
+			subMonitor.worked(1);
+		}
+	}
+
+	private void compact(Pack pack) throws CoreException {
+		if (pack.number == packs.lastKey()) {
+			// the new pack is created right away, so that the number of the deleted pack is never reused
+			Pack newest = startPack(pack.number + 1);
+			try {
+				output = new FileOutputStream(newest.file, true);
+			} catch (IOException e) {
+				String message = NLS.bind(Messages.localstore_couldNotWrite, newest.file.getAbsolutePath());
+				throw new ResourceException(IResourceStatus.FAILED_WRITE_LOCAL, null, message, e);
+			}
+		}
+		if (pack.liveSize > 0) {
+			List<Map.Entry<UniversalUniqueIdentifier, Location>> live = new ArrayList<>();
+			for (Map.Entry<UniversalUniqueIdentifier, Location> entry : locations.entrySet())
+				if (entry.getValue().pack == pack)
+					live.add(entry);
+			try (RandomAccessFile in = new RandomAccessFile(pack.file, "r")) { //$NON-NLS-1$
+				for (Map.Entry<UniversalUniqueIdentifier, Location> entry : live) {
+					Location location = entry.getValue();
+					byte[] record = new byte[location.recordLength()];
+					in.seek(location.offset);
+					in.readFully(record);
+					append(getNewestPack(), entry.getKey(), record);
+				}
+			} catch (IOException e) {
+				String message = NLS.bind(Messages.localstore_couldNotRead, pack.file.getAbsolutePath());
+				throw new ResourceException(IResourceStatus.FAILED_READ_LOCAL, null, message, e);
+			}
+		}
+		packs.remove(pack.number);
+		pack.file.delete();
+	}
+
+	/**
+	 * Returns whether some of the packs mostly hold deleted blobs.
+	 */
+	synchronized boolean needsCompaction() {
+		if (closed)
+			return false;
+		for (Pack pack : packs.values())
+			if (needsCompaction(pack))
+				return true;
+		return false;
+	}
+
+	private static boolean needsCompaction(Pack pack) {
+		return pack.size > 0 && pack.size - pack.liveSize > pack.size * COMPACTION_THRESHOLD;
+	}
+
+	synchronized boolean contains(UniversalUniqueIdentifier uuid) {
+		return locations.containsKey(uuid);
+	}
+
+	/**
+	 * Returns the total size of the packs.
+	 */
+	synchronized long getSize() {
+		long size = 0;
+		for (Pack pack : packs.values())
+			size += pack.size;
+		return size;
+	}
+
+	private Pack getNewestPack() {
+		Pack newest = packs.isEmpty() ? null : packs.lastEntry().getValue();
+		if (newest != null && newest.size < MAX_PACK_SIZE)
+			return newest;
+		return startPack(newest == null ? 1 : newest.number + 1);
+	}
+
+	/**
+	 * Starts a new pack with the given number, to which the next blobs are appended.
+	 */
+	private Pack startPack(int number) {
+		FileUtil.safeClose(output);
+		output = null;
+		Pack pack = new Pack(number, new File(directory, String.format("%08x", number) + PACK_EXTENSION), 0); //$NON-NLS-1$
+		packs.put(number, pack);
+		return pack;
+	}
+
+	/**
+	 * Returns the contents of the given blob, or <code>null</code> if it is not
+	 * in these packs.
+	 */
+	InputStream open(UniversalUniqueIdentifier uuid) throws CoreException {
+		byte[] data;
+		synchronized (this) {
+			Location location = locations.get(uuid);
+			if (location == null)
+				return null;
+			data = new byte[location.dataLength];
+			try (RandomAccessFile in = new RandomAccessFile(location.pack.file, "r")) { //$NON-NLS-1$
+				in.seek(location.offset + HEADER_LENGTH);
+				in.readFully(data);
+			} catch (IOException e) {
+				String message = NLS.bind(Messages.localstore_couldNotRead, location.pack.file.getAbsolutePath());
+				throw new ResourceException(IResourceStatus.FAILED_READ_LOCAL, null, message, e);
+			}
+		}
+		return new InflaterInputStream(new ByteArrayInputStream(data));
+	}
+
+	private boolean readIndex(File indexFile) {
+		if (!indexFile.isFile())
+			return false;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), 8192))) {
+			if (in.readByte() != INDEX_VERSION)
+				return false;
+			int count = in.readInt();
+			byte[] uuid = new byte[UniversalUniqueIdentifier.BYTES_SIZE];
+			for (int i = 0; i < count; i++) {
+				in.readFully(uuid);
+				Pack pack = packs.get(in.readInt());
+				long offset = in.readLong();
+				int dataLength = in.readInt();
+				if (pack == null || offset + HEADER_LENGTH + dataLength > pack.size)
+					return false;
+				locations.put(new UniversalUniqueIdentifier(uuid), new Location(pack, offset, dataLength));
+			}
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Replays the given deletions file over the location of the blobs. A
+	 * deletion only applies to the record it was made for, since the blob may
+	 * have been added again since.
+	 */
+	private void readDeletions(File deletionsFile) {
+		if (!deletionsFile.isFile())
+			return;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(deletionsFile), 8192))) {
+			byte[] uuid = new byte[UniversalUniqueIdentifier.BYTES_SIZE];
+			// a deletion that was not completely written is ignored
+			for (long remaining = deletionsFile.length(); remaining >= DELETION_LENGTH; remaining -= DELETION_LENGTH) {
+				in.readFully(uuid);
+				int packNumber = in.readInt();
+				long offset = in.readLong();
+				UniversalUniqueIdentifier id = new UniversalUniqueIdentifier(uuid);
+				Location location = locations.get(id);
+				if (location != null && location.pack.number == packNumber && location.offset == offset)
+					locations.remove(id);
+			}
+		} catch (IOException e) {
+			String message = NLS.bind(Messages.localstore_couldNotRead, deletionsFile.getAbsolutePath());
+			Policy.log(new ResourceStatus(IResourceStatus.FAILED_READ_LOCAL, null, message, e));
+		}
+	}
+
+	/**
+	 * Removes the given blob, and records its deletion so that it does not
+	 * reappear after a crash. Its space is reclaimed when its pack is
+	 * compacted. Returns whether the blob was in these packs.
+	 */
+	synchronized boolean remove(UniversalUniqueIdentifier uuid) {
+		Location location = locations.remove(uuid);
+		if (location == null)
+			return false;
+		location.pack.liveSize -= location.recordLength();
+		byte[] deletion = new byte[DELETION_LENGTH];
+		System.arraycopy(uuid.toBytes(), 0, deletion, 0, UniversalUniqueIdentifier.BYTES_SIZE);
+		writeInt(deletion, UniversalUniqueIdentifier.BYTES_SIZE, location.pack.number);
+		writeLong(deletion, UniversalUniqueIdentifier.BYTES_SIZE + 4, location.offset);
+		File deletionsFile = new File(directory, DELETIONS_FILE);
+		try {
+			if (deletions == null)
+				deletions = new FileOutputStream(deletionsFile, true);
+			deletions.write(deletion);
+		} catch (IOException e) {
+			// the blob reappears after a crash, but it is not referenced anymore
+			FileUtil.safeClose(deletions);
+			deletions = null;
+			String message = NLS.bind(Messages.localstore_couldNotWrite, deletionsFile.getAbsolutePath());
+			Policy.log(new ResourceStatus(IResourceStatus.FAILED_WRITE_LOCAL, null, message, e));
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the blobs of the given pack. A record that was not completely
+	 * written is discarded, with the rest of the pack.
+	 */
+	private void scan(Pack pack) {
+		byte[] header = new byte[HEADER_LENGTH];
+		long offset = 0;
+		try (RandomAccessFile in = new RandomAccessFile(pack.file, "rw")) { //$NON-NLS-1$
+			while (offset + HEADER_LENGTH <= pack.size) {
+				in.seek(offset);
+				in.readFully(header);
+				int dataLength = readInt(header, UniversalUniqueIdentifier.BYTES_SIZE + 8);
+				if (dataLength < 0 || offset + HEADER_LENGTH + dataLength > pack.size)
+					break;
+				Location location = new Location(pack, offset, dataLength);
+				locations.put(new UniversalUniqueIdentifier(header), location);
+				offset += location.recordLength();
+			}
+			if (offset < pack.size) {
+				in.setLength(offset);
+				pack.size = offset;
+			}
+		} catch (IOException e) {
+			String message = NLS.bind(Messages.localstore_couldNotRead, pack.file.getAbsolutePath());
+			Policy.log(new ResourceStatus(IResourceStatus.FAILED_READ_LOCAL, null, message, e));
+		}
+	}
+
+	private static int readInt(byte[] bytes, int offset) {
+		int value = 0;
+		for (int i = 0; i < 4; i++)
+			value = (value << 8) | (bytes[offset + i] & 0xFF);
+		return value;
+	}
+
+	private static void writeInt(byte[] bytes, int offset, int value) {
+		for (int i = 3; i >= 0; i--) {
+			bytes[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+
+	private static void writeLong(byte[] bytes, int offset, long value) {
+		for (int i = 7; i >= 0; i--) {
+			bytes[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+}
@@ -13,22 +13,63 @@
  *******************************************************************************/
 package org.eclipse.core.internal.localstore;
 
-import java.io.InputStream;
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.internal.resources.ResourceException;
+import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.internal.utils.UniversalUniqueIdentifier;
+import org.eclipse.core.resources.IResourceStatus;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.osgi.util.NLS;
 
 /**
  * Blob store which maps UUIDs to blobs on disk. The UUID is mapped
  * to a file in the file-system and the blob is the file contents. For scalability,
  * the blobs are split among 255 directories with the names 00 to FF.
+ * <p>
+ * A store can also be content-addressed, in which case the identifier of a
+ * blob is derived from a hash of its contents, and adding contents that are
+ * already stored returns the identifier of the existing blob. The blobs of
+ * such a store can be shared by several references, so their owner must make
+ * sure that a blob is no longer referenced before deleting it.
+ * </p>
+ * <p>
+ * A store can also be packed, in which case new blobs are compressed and
+ * appended to pack files instead of being stored as separate files.
+ * </p>
+ * @see BlobPacks
  */
 public class BlobStore {
+	/**
+	 * Name of the file marking a content-addressed store. Once marked, a store
+	 * remains content-addressed, since its blobs may be shared.
+	 */
+	private static final String CONTENT_ADDRESSED_MARKER = "content-addressed"; //$NON-NLS-1$
+
+	/**
+	 * Name of the directory holding the packs of a packed store. Once it
+	 * exists, a store remains packed.
+	 */
+	public static final String PACKS_DIRECTORY = "packs"; //$NON-NLS-1$
+
+	/** Suffix of the files holding contents that are being added. */
+	private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+
 	protected IFileStore localStore;
 
+	/** Whether the blobs are identified by the hash of their contents. */
+	private final boolean contentAddressed;
+
+	/** The packs of a packed store, or <code>null</code> */
+	private final BlobPacks packs;
+
 	/** Limits the range of directories' names. */
 	protected byte mask;
 
@@ -42,14 +83,56 @@ public class BlobStore {
 	 * should be an existing valid directory.
 	 */
 	public BlobStore(IFileStore store, int limit) {
+		this(store, limit, false);
+	}
+
+	/**
+	 * Creates a blob store that is content-addressed if requested, or if the
+	 * given location already holds a content-addressed store.
+	 *
+	 * @see #BlobStore(IFileStore, int)
+	 */
+	public BlobStore(IFileStore store, int limit, boolean contentAddressed) {
+		this(store, limit, contentAddressed, false);
+	}
+
+	/**
+	 * Creates a blob store that is content-addressed and packed if requested,
+	 * or if the given location already holds such a store.
+	 *
+	 * @see #BlobStore(IFileStore, int)
+	 */
+	public BlobStore(IFileStore store, int limit, boolean contentAddressed, boolean packed) {
 		Assert.isNotNull(store);
 		localStore = store;
 		Assert.isTrue(localStore.fetchInfo().isDirectory());
 		Assert.isTrue(limit == 256 || limit == 128 || limit == 64 || limit == 32 || limit == 16 || limit == 8 || limit == 4 || limit == 2 || limit == 1);
 		mask = (byte) (limit - 1);
+		IFileStore marker = localStore.getChild(CONTENT_ADDRESSED_MARKER);
+		if (contentAddressed && !marker.fetchInfo().exists()) {
+			try {
+				marker.openOutputStream(EFS.NONE, null).close();
+			} catch (CoreException | IOException e) {
+				// the store cannot be marked, so it remains a store of unique blobs
+			}
+		}
+		this.contentAddressed = marker.fetchInfo().exists();
+		File packsDirectory = null;
+		try {
+			File location = localStore.toLocalFile(EFS.NONE, null);
+			if (location != null)
+				packsDirectory = new File(location, PACKS_DIRECTORY);
+		} catch (CoreException e) {
+			// not a local store, so it cannot be packed
+		}
+		this.packs = packsDirectory != null && (packed || packsDirectory.isDirectory()) ? new BlobPacks(packsDirectory) : null;
 	}
 
 	public UniversalUniqueIdentifier addBlob(IFileStore target, boolean moveContents) throws CoreException {
+		if (packs != null)
+			return addPackedBlob(target, moveContents);
+		if (contentAddressed)
+			return addSharedBlob(target, moveContents);
 		UniversalUniqueIdentifier uuid = new UniversalUniqueIdentifier();
 		folderFor(uuid).mkdir(EFS.NONE, null);
 		IFileStore destination = fileFor(uuid);
@@ -60,6 +143,87 @@ public class BlobStore {
 		return uuid;
 	}
 
+	/**
+	 * Adds the contents of the given file to this content-addressed store, and
+	 * returns the identifier of the blob with these contents.
+	 */
+	private UniversalUniqueIdentifier addSharedBlob(IFileStore target, boolean moveContents) throws CoreException {
+		// hash the contents once they are stored, so that they cannot change in between
+		IFileStore temp = localStore.getChild(bytesToHexString(new UniversalUniqueIdentifier().toBytes()) + TEMP_SUFFIX);
+		try {
+			if (moveContents)
+				target.move(temp, EFS.NONE, null);
+			else
+				target.copy(temp, EFS.NONE, null);
+			UniversalUniqueIdentifier uuid = new UniversalUniqueIdentifier(hashContents(temp));
+			IFileStore destination = fileFor(uuid);
+			if (!destination.fetchInfo().exists()) {
+				folderFor(uuid).mkdir(EFS.NONE, null);
+				temp.move(destination, EFS.NONE, null);
+			}
+			return uuid;
+		} finally {
+			// the contents were already stored, or could not be added
+			if (temp.fetchInfo().exists())
+				temp.delete(EFS.NONE, null);
+		}
+	}
+
+	/**
+	 * Compresses the contents of the given file into the packs of this store,
+	 * and returns the identifier of the blob with these contents.
+	 */
+	private UniversalUniqueIdentifier addPackedBlob(IFileStore target, boolean moveContents) throws CoreException {
+		MessageDigest digest = contentAddressed ? newDigest() : null;
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		long length = 0;
+		try (InputStream in = target.openInputStream(EFS.NONE, null); DeflaterOutputStream out = new DeflaterOutputStream(data)) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+				if (digest != null)
+					digest.update(buffer, 0, read);
+				length += read;
+			}
+		} catch (IOException e) {
+			throw new ResourceException(IResourceStatus.FAILED_READ_LOCAL, null, NLS.bind(Messages.localstore_couldNotRead, target.toString()), e);
+		}
+		UniversalUniqueIdentifier uuid = digest == null ? new UniversalUniqueIdentifier() : new UniversalUniqueIdentifier(digest.digest());
+		// the same contents may already be stored
+		if (digest == null || !packs.contains(uuid))
+			packs.add(uuid, data.toByteArray(), length);
+		if (moveContents)
+			target.delete(EFS.NONE, null);
+		return uuid;
+	}
+
+	/**
+	 * Returns the hash of the contents of the given file.
+	 */
+	private static byte[] hashContents(IFileStore file) throws CoreException {
+		MessageDigest digest = newDigest();
+		try (InputStream in = file.openInputStream(EFS.NONE, null)) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) >= 0)
+				digest.update(buffer, 0, read);
+		} catch (IOException e) {
+			throw new ResourceException(IResourceStatus.FAILED_READ_LOCAL, null, NLS.bind(Messages.localstore_couldNotRead, file.toString()), e);
+		}
+		// the identifier only keeps the first bytes of the hash
+		return digest.digest();
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
 	/**
 	 * @see UniversalUniqueIdentifier#appendByteString(StringBuilder, byte)
 	 */
@@ -92,6 +256,9 @@ public class BlobStore {
 	 */
 	public void deleteBlob(UniversalUniqueIdentifier uuid) {
 		Assert.isNotNull(uuid);
+		if (packs != null)
+			packs.remove(uuid);
+		// the blob may also have been added before the store was packed
 		try {
 			fileFor(uuid).delete(EFS.NONE, null);
 		} catch (CoreException e) {
@@ -107,6 +274,40 @@ public class BlobStore {
 			deleteBlob(id);
 	}
 
+	/**
+	 * Closes this store. Blobs can no longer be added once it is closed.
+	 */
+	public void close() throws CoreException {
+		if (packs != null)
+			packs.close();
+	}
+
+	/**
+	 * Reclaims the space of the deleted blobs of a packed store.
+	 *
+	 * @see BlobPacks#compact(IProgressMonitor)
+	 */
+	public void compact(IProgressMonitor monitor) throws CoreException {
+		if (packs != null)
+			packs.compact(monitor);
+	}
+
+	/**
+	 * Returns whether a packed store holds enough deleted blobs to be compacted.
+	 */
+	public boolean needsCompaction() {
+		return packs != null && packs.needsCompaction();
+	}
+
+	/**
+	 * Returns whether the given blob exists in this store.
+	 */
+	public boolean exists(UniversalUniqueIdentifier uuid) {
+		if (packs != null && packs.contains(uuid))
+			return true;
+		return fileFor(uuid).fetchInfo().exists();
+	}
+
 	public IFileStore fileFor(UniversalUniqueIdentifier uuid) {
 		IFileStore root = folderFor(uuid);
 		return root.getChild(bytesToHexString(uuid.toBytes()));
@@ -122,7 +323,28 @@ public class BlobStore {
 		return localStore.getChild(dirName);
 	}
 
+	/**
+	 * Returns whether the blobs of this store are identified by the hash of
+	 * their contents, and may thus be shared.
+	 */
+	public boolean isContentAddressed() {
+		return contentAddressed;
+	}
+
+	/**
+	 * Returns whether the new blobs of this store are compressed into packs.
+	 */
+	public boolean isPacked() {
+		return packs != null;
+	}
+
 	public InputStream getBlob(UniversalUniqueIdentifier uuid) throws CoreException {
+		if (packs != null) {
+			InputStream packed = packs.open(uuid);
+			if (packed != null)
+				return packed;
+		}
+		// the blobs added before the store was packed are separate files
 		IFileStore blobFile = fileFor(uuid);
 		return blobFile.openInputStream(EFS.NONE, null);
 	}
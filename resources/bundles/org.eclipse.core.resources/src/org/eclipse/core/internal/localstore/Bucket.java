@@ -122,7 +122,9 @@ public abstract class Bucket {
 		public final static int RETURN = 2;
 
 		/**
-		 * Called after the bucket has been visited and saved.
+		 * Called after the bucket has been visited and saved. When visiting a
+		 * {@link BucketTree}, this is called once the bucket is no longer
+		 * locked, so that the changes to other buckets can be made here.
 		 *
 		 * @throws CoreException allows implementation to throw on error
 		 */
@@ -184,7 +186,8 @@ public abstract class Bucket {
 	}
 
 	/**
-	 * Applies the given visitor to this bucket index and save changes.
+	 * Applies the given visitor to this bucket index and save changes. Does not
+	 * call {@link Visitor#afterSaving(Bucket)}, which is left to the caller.
 	 *
 	 * @param visitor the processor for the bucket entries
 	 * @param filter  a filter to skip bucket entries
@@ -224,7 +227,6 @@ public abstract class Bucket {
 		} finally {
 			visitor.beforeSaving(this);
 			save();
-			visitor.afterSaving(this);
 		}
 	}
 
@@ -15,6 +15,11 @@
 package org.eclipse.core.internal.localstore;
 
 import java.io.*;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import org.eclipse.core.internal.localstore.Bucket.Visitor;
 import org.eclipse.core.internal.resources.ResourceException;
 import org.eclipse.core.internal.resources.Workspace;
@@ -24,6 +29,14 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.osgi.util.NLS;
 
 /**
+ * A tree of buckets, one per directory of the workspace.
+ * <p>
+ * The tree is safe for concurrent use. Each bucket is held by a single object,
+ * which is only accessed while holding its own lock, so that threads working on
+ * different buckets proceed in parallel. Changes to a bucket may be kept in
+ * memory until the bucket is evicted from the tree, flushed or the tree is
+ * closed. Evicted buckets are softly kept, to avoid reading them again.
+ * </p>
  * @since 3,1
  */
 public class BucketTree {
@@ -33,6 +46,11 @@ public class BucketTree {
 
 	private final static int SEGMENT_QUOTA = 256; //two hex characters
 
+	/**
+	 * The number of buckets strongly kept in memory.
+	 */
+	private final static int MAX_LOADED_BUCKETS = 16;
+
 	/**
 	 * Store all bucket names to avoid creating garbage when traversing the tree
 	 */
@@ -44,17 +62,77 @@ public class BucketTree {
 			HEX_STRINGS[i] = Integer.toHexString(i).toCharArray();
 	}
 
-	protected Bucket current;
+	/**
+	 * A function applied to a bucket while holding its lock.
+	 */
+	@FunctionalInterface
+	public interface BucketFunction<T> {
+		T apply(Bucket bucket) throws CoreException;
+	}
+
+	/**
+	 * A bucket of this tree and its lock.
+	 */
+	private static final class Slot {
+		final File directory;
+		final Bucket bucket;
+		final ReentrantLock lock = new ReentrantLock();
+		/** Whether this slot has been dropped from the tree, guarded by the lock */
+		boolean discarded;
+
+		Slot(File directory, Bucket bucket) {
+			this.directory = directory;
+			this.bucket = bucket;
+		}
+	}
+
+	/**
+	 * A soft reference to an evicted slot, which remembers its directory.
+	 */
+	private static final class SlotReference extends SoftReference<Slot> {
+		final File directory;
+
+		SlotReference(Slot slot, ReferenceQueue<Slot> queue) {
+			super(slot, queue);
+			this.directory = slot.directory;
+		}
+	}
+
+	private final Supplier<? extends Bucket> bucketFactory;
+
+	/**
+	 * A bucket only used to get the file names and version of the buckets.
+	 */
+	private final Bucket prototype;
+
+	/**
+	 * The most recently used slots, by bucket directory. Guarded by itself,
+	 * together with {@link #evicted}.
+	 */
+	private final LinkedHashMap<File, Slot> loaded = new LinkedHashMap<>(MAX_LOADED_BUCKETS * 2, 0.75f, true);
+
+	/**
+	 * The slots evicted from {@link #loaded}, by bucket directory.
+	 */
+	private final Map<File, SlotReference> evicted = new HashMap<>();
+
+	private final ReferenceQueue<Slot> evictedQueue = new ReferenceQueue<>();
 
 	private Workspace workspace;
 
-	public BucketTree(Workspace workspace, Bucket bucket) {
-		this.current = bucket;
+	/**
+	 * Creates a tree whose buckets are created by the given factory.
+	 */
+	public BucketTree(Workspace workspace, Supplier<? extends Bucket> bucketFactory) {
+		this.bucketFactory = bucketFactory;
+		this.prototype = bucketFactory.get();
 		this.workspace = workspace;
 	}
 
 	/**
-	 * From a starting point in the tree, visit all nodes under it.
+	 * From a starting point in the tree, visit all nodes under it. Each bucket
+	 * is locked while it is visited, and
+	 * {@link Bucket.Visitor#afterSaving(Bucket)} is called once it is unlocked.
 	 *
 	 * @param visitor the processor for the bucket entries
 	 * @param base    the base path to start the tree at
@@ -65,8 +143,7 @@ public class BucketTree {
 	 */
 	public void accept(Bucket.Visitor visitor, IPath base, int depth) throws CoreException {
 		if (Path.ROOT.equals(base)) {
-			current.load(null, locationFor(Path.ROOT));
-			if (current.accept(visitor, base, DEPTH_ZERO) != Visitor.CONTINUE)
+			if (visit(visitor, null, locationFor(Path.ROOT), base, DEPTH_ZERO) != Visitor.CONTINUE)
 				return;
 			if (depth == DEPTH_ZERO)
 				return;
@@ -81,17 +158,174 @@ public class BucketTree {
 			internalAccept(visitor, base, locationFor(base), depth, 0);
 	}
 
+	/**
+	 * Applies the given function to the bucket for the given path, while
+	 * holding the lock of the bucket. The function must not access other
+	 * buckets of this tree.
+	 *
+	 * @exception CoreException thrown by the function or failure to load/save
+	 *                          the bucket
+	 */
+	public <T> T applyToBucketFor(IPath path, BucketFunction<T> function) throws CoreException {
+		Slot slot = acquire(Path.ROOT.equals(path) ? null : path.segment(0), locationFor(path));
+		try {
+			return function.apply(slot.bucket);
+		} finally {
+			release(slot);
+		}
+	}
+
+	/**
+	 * Saves all buckets and the version file.
+	 */
 	public void close() throws CoreException {
-		current.save();
+		save();
 		saveVersion();
 	}
 
-	public Bucket getCurrent() {
-		return current;
+	/**
+	 * Saves all buckets and drops them from memory, so that they are read again
+	 * when next accessed.
+	 */
+	public void flush() throws CoreException {
+		List<Slot> slots = getLoaded();
+		synchronized (loaded) {
+			for (SlotReference reference : evicted.values()) {
+				Slot slot = reference.get();
+				if (slot != null)
+					slots.add(slot);
+			}
+		}
+		for (Slot slot : slots) {
+			slot.lock.lock();
+			try {
+				if (slot.discarded)
+					continue;
+				slot.bucket.save();
+				discard(slot);
+				slot.bucket.flush();
+			} finally {
+				slot.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Saves the changes made to the buckets in memory.
+	 */
+	public void save() throws CoreException {
+		for (Slot slot : getLoaded()) {
+			slot.lock.lock();
+			try {
+				if (!slot.discarded)
+					slot.bucket.save();
+			} finally {
+				slot.lock.unlock();
+			}
+		}
 	}
 
 	public File getVersionFile() {
-		return new File(locationFor(Path.ROOT), current.getVersionFileName());
+		return new File(locationFor(Path.ROOT), prototype.getVersionFileName());
+	}
+
+	/**
+	 * Returns the slot of the bucket in the given directory, locked and loaded.
+	 */
+	private Slot acquire(String projectName, File bucketDir) throws CoreException {
+		while (true) {
+			Slot slot;
+			synchronized (loaded) {
+				slot = loaded.get(bucketDir);
+				if (slot == null) {
+					SlotReference reference = evicted.remove(bucketDir);
+					slot = reference == null ? null : reference.get();
+					if (slot == null)
+						slot = new Slot(bucketDir, bucketFactory.get());
+					loaded.put(bucketDir, slot);
+				}
+			}
+			slot.lock.lock();
+			if (slot.discarded || !isLoaded(slot)) {
+				// dropped or evicted while we were waiting: changes made to it
+				// now would not be saved, try again
+				slot.lock.unlock();
+				continue;
+			}
+			try {
+				slot.bucket.load(projectName, bucketDir);
+			} catch (CoreException | RuntimeException e) {
+				// do not keep a bucket that could not be read
+				discard(slot);
+				slot.lock.unlock();
+				throw e;
+			}
+			return slot;
+		}
+	}
+
+	/**
+	 * Drops the given slot from the tree. Must be called while holding the lock
+	 * of the slot.
+	 */
+	private void discard(Slot slot) {
+		slot.discarded = true;
+		synchronized (loaded) {
+			if (loaded.get(slot.directory) == slot)
+				loaded.remove(slot.directory);
+			SlotReference reference = evicted.get(slot.directory);
+			if (reference != null && reference.get() == slot)
+				evicted.remove(slot.directory);
+		}
+	}
+
+	/**
+	 * Evicts the least recently used buckets beyond {@link #MAX_LOADED_BUCKETS},
+	 * saving them first. Buckets that are in use are left for later.
+	 */
+	private void evict() throws CoreException {
+		List<Slot> candidates;
+		synchronized (loaded) {
+			// forget the evicted buckets that have been garbage collected
+			for (SlotReference reference; (reference = (SlotReference) evictedQueue.poll()) != null;)
+				if (evicted.get(reference.directory) == reference)
+					evicted.remove(reference.directory);
+			int excess = loaded.size() - MAX_LOADED_BUCKETS;
+			if (excess <= 0)
+				return;
+			candidates = new ArrayList<>(excess);
+			for (Iterator<Slot> i = loaded.values().iterator(); candidates.size() < excess && i.hasNext();)
+				candidates.add(i.next());
+		}
+		for (Slot slot : candidates) {
+			if (!slot.lock.tryLock())
+				continue;
+			try {
+				if (slot.discarded)
+					continue;
+				slot.bucket.save();
+				synchronized (loaded) {
+					if (loaded.get(slot.directory) == slot) {
+						loaded.remove(slot.directory);
+						evicted.put(slot.directory, new SlotReference(slot, evictedQueue));
+					}
+				}
+			} finally {
+				slot.lock.unlock();
+			}
+		}
+	}
+
+	private boolean isLoaded(Slot slot) {
+		synchronized (loaded) {
+			return loaded.get(slot.directory) == slot;
+		}
+	}
+
+	private List<Slot> getLoaded() {
+		synchronized (loaded) {
+			return new ArrayList<>(loaded.values());
+		}
 	}
 
 	/**
@@ -100,8 +334,7 @@ public class BucketTree {
 	 * @return whether to continue visiting other branches
 	 */
 	private boolean internalAccept(Bucket.Visitor visitor, IPath base, File bucketDir, int depthRequested, int currentDepth) throws CoreException {
-		current.load(base.segment(0), bucketDir);
-		int outcome = current.accept(visitor, base, depthRequested);
+		int outcome = visit(visitor, base.segment(0), bucketDir, base, depthRequested);
 		if (outcome != Visitor.CONTINUE)
 			return outcome == Visitor.RETURN;
 		if (depthRequested <= currentDepth)
@@ -119,8 +352,24 @@ public class BucketTree {
 		return true;
 	}
 
-	public void loadBucketFor(IPath path) throws CoreException {
-		current.load(Path.ROOT.equals(path) ? null : path.segment(0), locationFor(path));
+	private void release(Slot slot) throws CoreException {
+		slot.lock.unlock();
+		evict();
+	}
+
+	/**
+	 * Visits the bucket in the given directory while holding its lock.
+	 */
+	private int visit(Bucket.Visitor visitor, String projectName, File bucketDir, IPath filter, int depth) throws CoreException {
+		Slot slot = acquire(projectName, bucketDir);
+		int outcome;
+		try {
+			outcome = slot.bucket.accept(visitor, filter, depth);
+		} finally {
+			release(slot);
+		}
+		visitor.afterSaving(slot.bucket);
+		return outcome;
 	}
 
 	private File locationFor(IPath resourcePath) {
@@ -149,7 +398,7 @@ public class BucketTree {
 		if (!versionFile.getParentFile().exists())
 			versionFile.getParentFile().mkdirs();
 		try (FileOutputStream stream = new FileOutputStream(versionFile)) {
-			stream.write(current.getVersion());
+			stream.write(prototype.getVersion());
 		} catch (IOException e) {
 			String message = NLS.bind(Messages.resources_writeWorkspaceMeta, versionFile.getAbsolutePath());
 			throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, null, message, e);
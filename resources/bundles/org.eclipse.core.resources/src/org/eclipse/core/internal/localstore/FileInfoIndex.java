@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.localstore;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.core.filesystem.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Remembers the state of the local directories whose children were last
+ * synchronized with the workspace tree by a refresh. The refresh performed on
+ * startup uses it to take the children of directories that have not changed
+ * since then from the workspace tree instead of the file system.
+ * <p>
+ * A directory is considered unchanged if its modification time, size and file
+ * key (device and inode on Unix) are the same as when its children were
+ * listed. Adding, removing or renaming an entry changes these values, but
+ * modifying the content of a file in place does not. The index is therefore
+ * only maintained when enabled with the {@link #PROP_ENABLED} system property,
+ * and only consulted by the refresh requested on startup. Directories
+ * containing symbolic links are never recorded.
+ * </p>
+ * <p>
+ * The index is saved with each full save of the workspace tree and tagged
+ * with the tree's sequence number. It is discarded on startup if it does
+ * not belong to the restored tree, or if the workspace crashed.
+ * </p>
+ */
+public class FileInfoIndex {
+
+	/**
+	 * System property enabling the index.
+	 */
+	public static final String PROP_ENABLED = "org.eclipse.core.resources.refresh.fileInfoIndex"; //$NON-NLS-1$
+
+	private static final int VERSION = 1;
+
+	/**
+	 * Directories modified less than this many milliseconds before they are
+	 * listed are not recorded, since a later change might not alter their
+	 * modification time on file systems with a coarse timestamp resolution.
+	 */
+	private static final long RACY_INTERVAL = 2000;
+
+	/**
+	 * The state of a directory at the time its children were listed.
+	 */
+	static final class DirectoryState {
+		final long lastModified;
+		final long length;
+		final String fileKey;
+
+		DirectoryState(long lastModified, long length, String fileKey) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.fileKey = fileKey;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof DirectoryState))
+				return false;
+			DirectoryState other = (DirectoryState) obj;
+			return lastModified == other.lastModified && length == other.length && Objects.equals(fileKey, other.fileKey);
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(lastModified) * 31 + Long.hashCode(length);
+		}
+	}
+
+	/** The recorded directory states, by absolute directory path */
+	private final Map<String, DirectoryState> states = new ConcurrentHashMap<>();
+
+	/** Whether the next refresh of the workspace root is the one requested on startup */
+	private final AtomicBoolean startupRefresh = new AtomicBoolean();
+
+	/**
+	 * Returns whether the index is enabled.
+	 */
+	public static boolean isEnabled() {
+		return Boolean.getBoolean(PROP_ENABLED);
+	}
+
+	/**
+	 * Returns the key of the given store in the index, or <code>null</code> if
+	 * the store is not a local directory.
+	 */
+	static String keyFor(IFileStore store) {
+		try {
+			File file = store.toLocalFile(EFS.NONE, null);
+			return file == null ? null : file.getAbsolutePath();
+		} catch (CoreException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the current state of the directory with the given key, or returns
+	 * <code>null</code> if it cannot be read.
+	 */
+	static DirectoryState readState(String key) {
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(Paths.get(key), BasicFileAttributes.class);
+			if (!attributes.isDirectory())
+				return null;
+			Object fileKey = attributes.fileKey();
+			return new DirectoryState(attributes.lastModifiedTime().toMillis(), attributes.size(), fileKey == null ? null : fileKey.toString());
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the state of the directory with the given key before its children
+	 * are listed, or returns <code>null</code> if the directory cannot be
+	 * recorded because its state cannot be read or it has just been modified.
+	 */
+	static DirectoryState readStableState(String key) {
+		DirectoryState state = readState(key);
+		if (state == null || System.currentTimeMillis() - state.lastModified < RACY_INTERVAL)
+			return null;
+		return state;
+	}
+
+	/**
+	 * Returns whether the directory with the given key has not changed since
+	 * its children were last listed. A recorded state that no longer matches
+	 * is dropped from the index.
+	 */
+	boolean isUnchanged(String key) {
+		DirectoryState recorded = states.get(key);
+		if (recorded == null)
+			return false;
+		if (recorded.equals(readState(key)))
+			return true;
+		states.remove(key, recorded);
+		return false;
+	}
+
+	/**
+	 * Records the states of the directories that have been listed by a
+	 * completed refresh.
+	 *
+	 * @param listed the state of each listed directory before it was listed,
+	 * or <code>null</code> if the directory must not be recorded, by key
+	 */
+	void record(Map<String, DirectoryState> listed) {
+		for (Map.Entry<String, DirectoryState> entry : listed.entrySet()) {
+			if (entry.getValue() == null)
+				states.remove(entry.getKey());
+			else
+				states.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Returns whether the given children of a directory prevent it from being
+	 * recorded.
+	 */
+	static boolean containsSymbolicLink(IFileInfo[] children) {
+		for (IFileInfo child : children)
+			if (child.getAttribute(EFS.ATTRIBUTE_SYMLINK))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Marks the next refresh of the workspace root as the one requested on
+	 * startup.
+	 */
+	public void requestStartupRefresh() {
+		startupRefresh.set(true);
+	}
+
+	/**
+	 * Returns whether a refresh of the workspace root is the one requested on
+	 * startup, and clears the request.
+	 */
+	public boolean takeStartupRefresh() {
+		return startupRefresh.getAndSet(false);
+	}
+
+	/**
+	 * Returns the number of recorded directories.
+	 */
+	public int size() {
+		return states.size();
+	}
+
+	/**
+	 * Restores the index from the given location, provided that it was saved
+	 * together with the workspace tree of the given sequence number.
+	 */
+	public void restore(IPath location, String treeSequenceNumber) {
+		states.clear();
+		File file = location.toFile();
+		if (treeSequenceNumber == null || !file.exists())
+			return;
+		Map<String, DirectoryState> restored = new HashMap<>();
+		try (DataInputStream input = new DataInputStream(new SafeFileInputStream(file))) {
+			if (input.readInt() != VERSION || !treeSequenceNumber.equals(input.readUTF()))
+				return;
+			int count = input.readInt();
+			for (int i = 0; i < count; i++) {
+				String key = input.readUTF();
+				long lastModified = input.readLong();
+				long length = input.readLong();
+				String fileKey = input.readBoolean() ? input.readUTF() : null;
+				restored.put(key, new DirectoryState(lastModified, length, fileKey));
+			}
+		} catch (IOException e) {
+			// the index is only an optimization, start over with an empty one
+			return;
+		}
+		states.putAll(restored);
+	}
+
+	/**
+	 * Saves the index to the given location, tagged with the sequence number
+	 * of the workspace tree it belongs to.
+	 */
+	public void save(IPath location, String treeSequenceNumber) throws IOException {
+		Map<String, DirectoryState> snapshot = new HashMap<>(states);
+		try (DataOutputStream output = new DataOutputStream(new SafeFileOutputStream(location.toFile()))) {
+			output.writeInt(VERSION);
+			output.writeUTF(treeSequenceNumber);
+			output.writeInt(snapshot.size());
+			for (Map.Entry<String, DirectoryState> entry : snapshot.entrySet()) {
+				DirectoryState state = entry.getValue();
+				output.writeUTF(entry.getKey());
+				output.writeLong(state.lastModified);
+				output.writeLong(state.length);
+				output.writeBoolean(state.fileKey != null);
+				if (state.fileKey != null)
+					output.writeUTF(state.fileKey);
+			}
+		}
+	}
+}
@@ -46,6 +46,12 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 	protected IHistoryStore _historyStore;
 	protected Workspace workspace;
 
+	/**
+	 * The state of the directories synchronized by refreshes, or <code>null</code>
+	 * if the index is disabled.
+	 */
+	private FileInfoIndex fileInfoIndex;
+
 	private volatile boolean lightweightAutoRefreshEnabled;
 
 	public FileSystemResourceManager(Workspace workspace) {
@@ -501,6 +507,14 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 		return doGetEncoding(store);
 	}
 
+	/**
+	 * Returns the index of the directories synchronized by refreshes, or
+	 * <code>null</code> if the index is disabled.
+	 */
+	public FileInfoIndex getFileInfoIndex() {
+		return fileInfoIndex;
+	}
+
 	public IHistoryStore getHistoryStore() {
 		if (_historyStore == null) {
 			IPath location = getWorkspace().getMetaArea().getHistoryStoreLocation();
@@ -958,12 +972,18 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 				//fall through
 			case IResource.FOLDER :
 			case IResource.FILE :
-				return refreshResource(target, depth, updateAliases, monitor);
+				return refreshResource(target, depth, updateAliases, false, monitor);
 		}
 		return false;
 	}
 
-	protected boolean refreshResource(IResource target, int depth, boolean updateAliases, IProgressMonitor monitor) throws CoreException {
+	/**
+	 * Synchronizes the given resource with the local file system.
+	 *
+	 * @param pruneUnchanged whether directories that have not changed since
+	 * they were last synchronized are taken from the workspace tree
+	 */
+	protected boolean refreshResource(IResource target, int depth, boolean updateAliases, boolean pruneUnchanged, IProgressMonitor monitor) throws CoreException {
 		String title = NLS.bind(Messages.localstore_refreshing, target.getFullPath());
 		SubMonitor subMonitor = SubMonitor.convert(monitor, title, 100);
 		IFileTree fileTree = null;
@@ -973,6 +993,7 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 			fileTree = fileStore.getFileSystem().fetchFileTree(fileStore, subMonitor.newChild(2));
 		}
 		UnifiedTree tree = fileTree == null ? new UnifiedTree(target) : new UnifiedTree(target, fileTree);
+		tree.setFileInfoIndex(fileInfoIndex, pruneUnchanged);
 		SubMonitor refreshMonitor = subMonitor.newChild(98);
 		RefreshLocalVisitor visitor = updateAliases ? new RefreshLocalAliasVisitor(refreshMonitor) : new RefreshLocalVisitor(refreshMonitor);
 		tree.accept(visitor, depth);
@@ -999,8 +1020,13 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 		boolean changed = false;
 		// drop the depth by one level since processing the root counts as one level.
 		depth = depth == IResource.DEPTH_ONE ? IResource.DEPTH_ZERO : depth;
+		// only the refresh requested on startup trusts the recorded directory states
+		boolean pruneUnchanged = fileInfoIndex != null && fileInfoIndex.takeStartupRefresh();
 		for (IProject project : projects) {
-			changed |= refresh(project, depth, updateAliases, subMonitor.newChild(1));
+			if (pruneUnchanged && project.isAccessible())
+				changed |= refreshResource(project, depth, updateAliases, true, subMonitor.newChild(1));
+			else
+				changed |= refresh(project, depth, updateAliases, subMonitor.newChild(1));
 		}
 		return changed;
 	}
@@ -1085,6 +1111,8 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 		Preferences preferences = ResourcesPlugin.getPlugin().getPluginPreferences();
 		preferences.addPropertyChangeListener(this);
 		lightweightAutoRefreshEnabled = preferences.getBoolean(ResourcesPlugin.PREF_LIGHTWEIGHT_AUTO_REFRESH);
+		if (FileInfoIndex.isEnabled())
+			fileInfoIndex = new FileInfoIndex();
 	}
 
 	/**
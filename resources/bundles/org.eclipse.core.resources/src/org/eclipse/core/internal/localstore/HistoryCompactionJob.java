@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.localstore;
+
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Compacts the packs of a packed history store in the background, once
+ * states have been removed from the history.
+ * @see HistoryStore2#PROP_PACKED
+ */
+public class HistoryCompactionJob extends Job {
+
+	private final BlobStore blobStore;
+
+	public HistoryCompactionJob(BlobStore blobStore) {
+		super(Messages.history_compacting);
+		this.blobStore = blobStore;
+		setPriority(DECORATE);
+		setSystem(true);
+	}
+
+	@Override
+	public IStatus run(IProgressMonitor monitor) {
+		try {
+			blobStore.compact(monitor);
+		} catch (CoreException e) {
+			return e.getStatus();
+		}
+		return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+	}
+}
@@ -16,6 +16,9 @@ package org.eclipse.core.internal.localstore;
 
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.eclipse.core.filesystem.*;
 import org.eclipse.core.internal.localstore.Bucket.Entry;
 import org.eclipse.core.internal.localstore.HistoryBucket.HistoryEntry;
@@ -24,8 +27,38 @@ import org.eclipse.core.internal.utils.*;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
 
+/**
+ * A history store keeping the states of each file in the bucket for its parent
+ * directory.
+ * <p>
+ * States are added, read and copied concurrently, locking only the buckets
+ * they are in. The maintenance operations ({@link #clean(IProgressMonitor)},
+ * {@link #remove(IPath, IProgressMonitor)} and {@link #removeGarbage()}) are
+ * serialized. While they collect the blobs to remove, the blobs referenced by
+ * new states are recorded, so that they are not removed.
+ * </p>
+ */
 public class HistoryStore2 implements IHistoryStore {
 
+	/**
+	 * System property enabling content-addressed history blobs, which store the
+	 * same contents only once and are shared by all states with these contents.
+	 * Once enabled, the history store remains content-addressed.
+	 * @see BlobStore#isContentAddressed()
+	 */
+	public static final String PROP_CONTENT_ADDRESSED = "org.eclipse.core.resources.history.contentAddressed"; //$NON-NLS-1$
+
+	/**
+	 * System property enabling packed history blobs, which are compressed into
+	 * pack files instead of being stored as separate files. Once enabled, the
+	 * history store remains packed.
+	 * @see BlobStore#isPacked()
+	 */
+	public static final String PROP_PACKED = "org.eclipse.core.resources.history.packed"; //$NON-NLS-1$
+
+	/** Delay before compacting the packs after states have been removed. */
+	private static final long COMPACTION_DELAY = 5000;
+
 	class HistoryCopyVisitor extends Bucket.Visitor {
 		private List<HistoryEntry> changes = new ArrayList<>();
 		private IPath destination;
@@ -46,14 +79,20 @@ public class HistoryStore2 implements IHistoryStore {
 			if (changes.isEmpty())
 				return;
 			// make effective all changes collected
-			Iterator<HistoryEntry> i = changes.iterator();
-			HistoryEntry entry = i.next();
-			tree.loadBucketFor(entry.getPath());
-			HistoryBucket bucket = (HistoryBucket) tree.getCurrent();
-			bucket.addBlobs(entry);
-			while (i.hasNext())
-				bucket.addBlobs(i.next());
-			bucket.save();
+			referencesLock.readLock().lock();
+			try {
+				tree.applyToBucketFor(changes.get(0).getPath(), bucket -> {
+					for (HistoryEntry entry : changes)
+						((HistoryBucket) bucket).addBlobs(entry);
+					bucket.save();
+					return null;
+				});
+				for (HistoryEntry entry : changes)
+					for (int i = 0; i < entry.getOccurrences(); i++)
+						referenced(entry.getUUID(i));
+			} finally {
+				referencesLock.readLock().unlock();
+			}
 		}
 
 		@Override
@@ -68,7 +107,28 @@ public class HistoryStore2 implements IHistoryStore {
 	}
 
 	private BlobStore blobStore;
-	private Set<UniversalUniqueIdentifier> blobsToRemove = new HashSet<>();
+	private final HistoryCompactionJob compactionJob;
+	private final Set<UniversalUniqueIdentifier> blobsToRemove = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Guards the removal of blobs against new references to them. States are
+	 * added and copied holding the read lock, blobs are removed holding the
+	 * write lock.
+	 */
+	final ReadWriteLock referencesLock = new ReentrantReadWriteLock();
+
+	/**
+	 * Whether a maintenance operation is collecting the blobs to remove. Guarded
+	 * by {@link #referencesLock}.
+	 */
+	private boolean collecting;
+
+	/**
+	 * The blobs referenced by the states added or copied while collecting the
+	 * blobs to remove, which must not be removed.
+	 */
+	private final Set<UniversalUniqueIdentifier> referencedBlobs = ConcurrentHashMap.newKeySet();
+
 	final BucketTree tree;
 	private Workspace workspace;
 
@@ -80,35 +140,41 @@ public class HistoryStore2 implements IHistoryStore {
 			//ignore the failure here because there is no way to surface it.
 			//any attempt to write to the store will throw an appropriate exception
 		}
-		this.blobStore = new BlobStore(store, limit);
-		this.tree = new BucketTree(workspace, new HistoryBucket());
+		this.blobStore = new BlobStore(store, limit, Boolean.getBoolean(PROP_CONTENT_ADDRESSED), Boolean.getBoolean(PROP_PACKED));
+		this.compactionJob = new HistoryCompactionJob(blobStore);
+		this.tree = new BucketTree(workspace, HistoryBucket::new);
 	}
 
 	/**
 	 * @see IHistoryStore#addState(IPath, IFileStore, IFileInfo, boolean)
 	 */
 	@Override
-	public synchronized IFileState addState(IPath key, IFileStore localFile, IFileInfo info, boolean moveContents) {
+	public IFileState addState(IPath key, IFileStore localFile, IFileInfo info, boolean moveContents) {
 		long lastModified = info.getLastModified();
 		if (Policy.DEBUG_HISTORY)
 			Policy.debug("History: Adding state for key: " + key + ", file: " + localFile + ", timestamp: " + lastModified + ", size: " + localFile.fetchInfo().getLength()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 		if (!isValid(localFile, info))
 			return null;
 		UniversalUniqueIdentifier uuid = null;
+		referencesLock.readLock().lock();
 		try {
 			uuid = blobStore.addBlob(localFile, moveContents);
-			tree.loadBucketFor(key);
-			HistoryBucket currentBucket = (HistoryBucket) tree.getCurrent();
-			currentBucket.addBlob(key, uuid, lastModified);
-			//			currentBucket.save();
+			UniversalUniqueIdentifier addedBlob = uuid;
+			tree.applyToBucketFor(key, bucket -> {
+				((HistoryBucket) bucket).addBlob(key, addedBlob, lastModified);
+				return null;
+			});
+			referenced(uuid);
 		} catch (CoreException e) {
 			log(e);
+		} finally {
+			referencesLock.readLock().unlock();
 		}
 		return new FileState(this, key, lastModified, uuid);
 	}
 
 	@Override
-	public synchronized Set<IPath> allFiles(IPath root, int depth, IProgressMonitor monitor) {
+	public Set<IPath> allFiles(IPath root, int depth, IProgressMonitor monitor) {
 		final Set<IPath> allFiles = new HashSet<>();
 		try {
 			tree.accept(new Bucket.Visitor() {
@@ -152,7 +218,16 @@ public class HistoryStore2 implements IHistoryStore {
 				return CONTINUE;
 			}
 		}, root, BucketTree.DEPTH_INFINITE);
-		tree.getCurrent().save();
+	}
+
+	/**
+	 * Adds the blobs still referenced by the given entry to the given set.
+	 */
+	private static void addReferencedBlobs(HistoryEntry fileEntry, Set<UniversalUniqueIdentifier> referenced) {
+		for (byte[] state : fileEntry.getData())
+			// the occurrences deleted by the policy are null until the entry is compacted
+			if (state != null)
+				referenced.add(new UniversalUniqueIdentifier(state));
 	}
 
 	@Override
@@ -164,6 +239,9 @@ public class HistoryStore2 implements IHistoryStore {
 			final long minimumTimestamp = System.currentTimeMillis() - description.getFileStateLongevity();
 			final int maxStates = description.getMaxFileStates();
 			final int[] entryCount = new int[1];
+			// shared blobs can only be removed once all their references are known
+			final Set<UniversalUniqueIdentifier> referenced = blobStore.isContentAddressed() ? new HashSet<>() : null;
+			setCollecting(true);
 			if (description.isApplyFileStatePolicy()) {
 				tree.accept(new Bucket.Visitor() {
 					@Override
@@ -172,10 +250,19 @@ public class HistoryStore2 implements IHistoryStore {
 							return STOP;
 						entryCount[0] += fileEntry.getOccurrences();
 						applyPolicy((HistoryEntry) fileEntry, maxStates, minimumTimestamp);
-						// remove unreferenced blobs, when blobsToRemove size is greater than 100
-						removeUnreferencedBlobs(100);
+						if (referenced != null)
+							addReferencedBlobs((HistoryEntry) fileEntry, referenced);
 						return monitor.isCanceled() ? STOP : CONTINUE;
 					}
+
+					@Override
+					public void afterSaving(Bucket bucket) {
+						// the bucket is unlocked by now, so blobs can be removed without
+						// taking the references lock while holding a bucket lock
+						if (referenced == null)
+							// remove unreferenced blobs, when blobsToRemove size is greater than 100
+							removeUnreferencedBlobs(100);
+					}
 				}, Path.ROOT, BucketTree.DEPTH_INFINITE);
 			}
 			if (Policy.DEBUG_HISTORY) {
@@ -183,12 +270,18 @@ public class HistoryStore2 implements IHistoryStore {
 				Policy.debug("Total number of history store entries: " + entryCount[0]); //$NON-NLS-1$
 			}
 			// remove all remaining unreferenced blobs
-			removeUnreferencedBlobs(0);
+			if (referenced == null)
+				removeUnreferencedBlobs(0);
+			else if (description.isApplyFileStatePolicy() && !monitor.isCanceled()) {
+				blobsToRemove.removeAll(referenced);
+				removeUnreferencedBlobs(0);
+			}
 		} catch (Exception e) {
 			String message = Messages.history_problemsCleaning;
 			ResourceStatus status = new ResourceStatus(IResourceStatus.FAILED_DELETE_LOCAL, null, message, e);
 			Policy.log(status);
 		} finally {
+			setCollecting(false);
 			monitor.done();
 		}
 	}
@@ -196,31 +289,61 @@ public class HistoryStore2 implements IHistoryStore {
 	/*
 	 * Remove blobs from the blobStore. When the size of blobsToRemove exceeds the limit,
 	 * remove the given blobs from blobStore. If the limit is zero or negative, remove blobs
-	 * regardless of the limit.
+	 * regardless of the limit. Must not be called while holding the lock of a bucket, since
+	 * states are added holding the references lock first and a bucket lock second.
 	 */
 	void removeUnreferencedBlobs(int limit) {
 		if (limit <= 0 || limit <= blobsToRemove.size()) {
 			long start = System.currentTimeMillis();
+			Set<UniversalUniqueIdentifier> blobs = new HashSet<>(blobsToRemove);
+			blobsToRemove.removeAll(blobs);
 			// remove unreferenced blobs
-			blobStore.deleteBlobs(blobsToRemove);
+			referencesLock.writeLock().lock();
+			try {
+				blobs.removeAll(referencedBlobs);
+				blobStore.deleteBlobs(blobs);
+			} finally {
+				referencesLock.writeLock().unlock();
+			}
+			scheduleCompaction();
 			if (Policy.DEBUG_HISTORY)
-				Policy.debug("Time to remove " + blobsToRemove.size() + " unreferenced blobs: " + (System.currentTimeMillis() - start) + "ms."); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$
-			blobsToRemove = new HashSet<>();
+				Policy.debug("Time to remove " + blobs.size() + " unreferenced blobs: " + (System.currentTimeMillis() - start) + "ms."); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+
+	/**
+	 * Records that a new state references the given blob. Must be called while
+	 * holding the read lock of {@link #referencesLock}.
+	 */
+	void referenced(UniversalUniqueIdentifier uuid) {
+		if (collecting)
+			referencedBlobs.add(uuid);
+	}
+
+	/**
+	 * Starts or stops recording the blobs referenced by new states.
+	 */
+	private void setCollecting(boolean value) {
+		referencesLock.writeLock().lock();
+		try {
+			collecting = value;
+			referencedBlobs.clear();
+		} finally {
+			referencesLock.writeLock().unlock();
 		}
 	}
 
 	@Override
 	public void closeHistoryStore(IResource resource) {
 		try {
-			tree.getCurrent().save();
-			tree.getCurrent().flush();
+			tree.flush();
 		} catch (CoreException e) {
 			log(e);
 		}
 	}
 
 	@Override
-	public synchronized void copyHistory(IResource sourceResource, IResource destinationResource, boolean moving) {
+	public void copyHistory(IResource sourceResource, IResource destinationResource, boolean moving) {
 		// return early if either of the paths are null or if the source and
 		// destination are the same.
 		if (sourceResource == null || destinationResource == null) {
@@ -246,14 +369,19 @@ public class HistoryStore2 implements IHistoryStore {
 			// special case: we are moving a project
 			if (moving && sourceResource.getType() == IResource.PROJECT) {
 				// flush the tree to avoid confusion if another project is created with the same name
-				final Bucket bucket = tree.getCurrent();
-				bucket.save();
-				bucket.flush();
+				tree.flush();
 				return;
 			}
 			// copy history by visiting the source tree
 			HistoryCopyVisitor copyVisitor = new HistoryCopyVisitor(source, destination);
-			tree.accept(copyVisitor, source, BucketTree.DEPTH_INFINITE);
+			// the blobs of the copied states must not be removed before the
+			// copies are recorded as referencing them
+			referencesLock.readLock().lock();
+			try {
+				tree.accept(copyVisitor, source, BucketTree.DEPTH_INFINITE);
+			} finally {
+				referencesLock.readLock().unlock();
+			}
 			// apply clean-up policy to the destination tree
 			applyPolicy(destinationResource.getFullPath());
 		} catch (CoreException e) {
@@ -263,7 +391,7 @@ public class HistoryStore2 implements IHistoryStore {
 
 	@Override
 	public boolean exists(IFileState target) {
-		return blobStore.fileFor(((FileState) target).getUUID()).fetchInfo().exists();
+		return blobStore.exists(((FileState) target).getUUID());
 	}
 
 	@Override
@@ -276,17 +404,17 @@ public class HistoryStore2 implements IHistoryStore {
 	}
 
 	@Override
-	public synchronized IFileState[] getStates(IPath filePath, IProgressMonitor monitor) {
+	public IFileState[] getStates(IPath filePath, IProgressMonitor monitor) {
 		try {
-			tree.loadBucketFor(filePath);
-			HistoryBucket currentBucket = (HistoryBucket) tree.getCurrent();
-			HistoryEntry fileEntry = currentBucket.getEntry(filePath);
-			if (fileEntry == null || fileEntry.isEmpty())
-				return new IFileState[0];
-			IFileState[] states = new IFileState[fileEntry.getOccurrences()];
-			for (int i = 0; i < states.length; i++)
-				states[i] = new FileState(this, fileEntry.getPath(), fileEntry.getTimestamp(i), fileEntry.getUUID(i));
-			return states;
+			return tree.applyToBucketFor(filePath, bucket -> {
+				HistoryEntry fileEntry = ((HistoryBucket) bucket).getEntry(filePath);
+				if (fileEntry == null || fileEntry.isEmpty())
+					return new IFileState[0];
+				IFileState[] states = new IFileState[fileEntry.getOccurrences()];
+				for (int i = 0; i < states.length; i++)
+					states[i] = new FileState(this, fileEntry.getPath(), fileEntry.getTimestamp(i), fileEntry.getUUID(i));
+				return states;
+			});
 		} catch (CoreException ce) {
 			log(ce);
 			return new IFileState[0];
@@ -333,13 +461,12 @@ public class HistoryStore2 implements IHistoryStore {
 	@Override
 	public synchronized void remove(IPath root, IProgressMonitor monitor) {
 		try {
-			final Set<UniversalUniqueIdentifier> tmpBlobsToRemove = blobsToRemove;
 			tree.accept(new Bucket.Visitor() {
 				@Override
 				public int visit(Entry fileEntry) {
 					for (int i = 0; i < fileEntry.getOccurrences(); i++)
 						// remember we need to delete the files later
-						tmpBlobsToRemove.add(((HistoryEntry) fileEntry).getUUID(i));
+						blobsToRemove.add(((HistoryEntry) fileEntry).getUUID(i));
 					fileEntry.delete();
 					return CONTINUE;
 				}
@@ -354,33 +481,47 @@ public class HistoryStore2 implements IHistoryStore {
 	 */
 	@Override
 	public synchronized void removeGarbage() {
+		setCollecting(true);
 		try {
-			final Set<UniversalUniqueIdentifier> tmpBlobsToRemove = blobsToRemove;
 			tree.accept(new Bucket.Visitor() {
 				@Override
 				public int visit(Entry fileEntry) {
 					for (int i = 0; i < fileEntry.getOccurrences(); i++)
-						// remember we need to delete the files later
-						tmpBlobsToRemove.remove(((HistoryEntry) fileEntry).getUUID(i));
+						// the blobs still referenced are not garbage
+						blobsToRemove.remove(((HistoryEntry) fileEntry).getUUID(i));
 					return CONTINUE;
 				}
 			}, Path.ROOT, BucketTree.DEPTH_INFINITE);
-			blobStore.deleteBlobs(blobsToRemove);
-			blobsToRemove = new HashSet<>();
+			removeUnreferencedBlobs(0);
 		} catch (Exception e) {
 			String message = Messages.history_problemsCleaning;
 			ResourceStatus status = new ResourceStatus(IResourceStatus.FAILED_DELETE_LOCAL, null, message, e);
 			Policy.log(status);
+		} finally {
+			setCollecting(false);
 		}
 	}
 
+	/**
+	 * Schedules the compaction of the packs of a packed store once they
+	 * mostly hold blobs that have been removed, to reclaim their space.
+	 */
+	private void scheduleCompaction() {
+		if (blobStore.needsCompaction())
+			compactionJob.schedule(COMPACTION_DELAY);
+	}
+
 	@Override
 	public synchronized void shutdown(IProgressMonitor monitor) throws CoreException {
 		tree.close();
+		// a running compaction stops once the store is closed
+		compactionJob.cancel();
+		blobStore.close();
 	}
 
 	@Override
 	public void startup(IProgressMonitor monitor) {
-		// nothing to be done
+		// the blobs removed before a crash may have left packs to compact
+		scheduleCompaction();
 	}
 }
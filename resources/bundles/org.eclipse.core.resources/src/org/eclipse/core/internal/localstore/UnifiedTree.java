@@ -23,8 +23,12 @@ package org.eclipse.core.internal.localstore;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.regex.Pattern;
 import org.eclipse.core.filesystem.*;
+import org.eclipse.core.filesystem.provider.FileInfo;
 import org.eclipse.core.internal.refresh.RefreshJob;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.resources.IContainer;
@@ -40,6 +44,19 @@ public class UnifiedTree {
 	/** Skip advanced link checking, see bug 537449 */
 	private static boolean disable_advanced_recursive_link_checks = System.getProperty("org.eclipse.core.resources.disable_advanced_recursive_link_checks") != null; //$NON-NLS-1$
 
+	/**
+	 * System property controlling the number of worker threads used to fetch
+	 * directory listings ahead of the traversal. Values smaller than 2 disable
+	 * the parallel mode.
+	 */
+	public static final String PROP_PARALLELISM = "org.eclipse.core.resources.refresh.parallelism"; //$NON-NLS-1$
+
+	/** Maximum number of directory listings fetched ahead of the traversal */
+	private static final int MAX_PREFETCHED = 4096;
+
+	/** Worker pools for the parallel mode, by parallelism */
+	private static final Map<Integer, ForkJoinPool> pools = new ConcurrentHashMap<>();
+
 	/** special node to mark the separation of a node's children */
 	protected static final UnifiedTreeNode childrenMarker = new UnifiedTreeNode(null, null, null, null, false);
 
@@ -53,6 +70,25 @@ public class UnifiedTree {
 	/** Singleton to indicate no local children */
 	private static final IResource[] NO_RESOURCES = {};
 
+	/**
+	 * The sorted children of a directory, together with the state of the
+	 * directory before it was listed.
+	 */
+	private static final class LocalList {
+		/** Singleton to indicate a directory that has not changed since it was recorded */
+		static final LocalList UNCHANGED = new LocalList(NO_CHILDREN, null, null);
+
+		final IFileInfo[] list;
+		final String key;
+		final FileInfoIndex.DirectoryState state;
+
+		LocalList(IFileInfo[] list, String key, FileInfoIndex.DirectoryState state) {
+			this.list = list;
+			this.key = key;
+			this.state = state;
+		}
+	}
+
 	/**
 	 * True if the level of the children of the current node are valid according
 	 * to the requested refresh depth, false otherwise
@@ -66,6 +102,18 @@ public class UnifiedTree {
 	protected ArrayList<UnifiedTreeNode> freeNodes = new ArrayList<>();
 	/** tree's actual level */
 	protected int level;
+	/** the depth requested for the current traversal */
+	private int depth = IResource.DEPTH_INFINITE;
+	/** number of worker threads fetching directory listings, or 1 for sequential traversal */
+	private int parallelism = Integer.getInteger(PROP_PARALLELISM, 1).intValue();
+	/** directory listings that are being fetched ahead of the traversal, by directory */
+	private Map<IFileStore, ForkJoinTask<LocalList>> prefetched;
+	/** index recording the state of the listed directories, or <code>null</code> */
+	private FileInfoIndex fileInfoIndex;
+	/** whether directories the index reports as unchanged are taken from the workspace tree */
+	private boolean pruneUnchanged;
+	/** the states of the directories listed by the current traversal, by index key */
+	private Map<String, FileInfoIndex.DirectoryState> listedStates;
 	/** our queue */
 	protected LinkedList<UnifiedTreeNode> queue;
 
@@ -106,28 +154,41 @@ public class UnifiedTree {
 	public void accept(IUnifiedTreeVisitor visitor, int depth) throws CoreException {
 		Assert.isNotNull(root);
 		initializeQueue();
+		this.depth = depth;
 		setLevel(0, depth);
-		while (!queue.isEmpty()) {
-			UnifiedTreeNode node = queue.remove();
-			if (isChildrenMarker(node))
-				continue;
-			if (isLevelMarker(node)) {
-				if (!setLevel(getLevel() + 1, depth))
-					break;
-				continue;
-			}
-			if (visitor.visit(node))
-				addNodeChildrenToQueue(node);
-			else
-				removeNodeChildrenFromQueue(node);
-			//allow reuse of the node, but don't let the freeNodes list grow infinitely
-			if (freeNodes.size() < 32767) {
-				//free memory-consuming elements of the node for garbage collection
-				node.releaseForGc();
-				freeNodes.add(node);
+		if (fileInfoIndex != null)
+			listedStates = new HashMap<>();
+		try {
+			while (!queue.isEmpty()) {
+				UnifiedTreeNode node = queue.remove();
+				if (isChildrenMarker(node))
+					continue;
+				if (isLevelMarker(node)) {
+					if (!setLevel(getLevel() + 1, depth))
+						break;
+					continue;
+				}
+				if (visitor.visit(node)) {
+					addNodeChildrenToQueue(node);
+				} else {
+					removeNodeChildrenFromQueue(node);
+					discardPrefetchedList(node);
+				}
+				//allow reuse of the node, but don't let the freeNodes list grow infinitely
+				if (freeNodes.size() < 32767) {
+					//free memory-consuming elements of the node for garbage collection
+					node.releaseForGc();
+					freeNodes.add(node);
+				}
+				//else, the whole node will be garbage collected since there is no
+				//reference to it any more.
 			}
-			//else, the whole node will be garbage collected since there is no
-			//reference to it any more.
+			// the children of all listed directories have been visited
+			if (fileInfoIndex != null)
+				fileInfoIndex.record(listedStates);
+		} finally {
+			discardPrefetchedLists();
+			listedStates = null;
 		}
 	}
 
@@ -240,6 +301,7 @@ public class UnifiedTree {
 		if (node.getFirstChild() == null)
 			node.setFirstChild(child);
 		addElementToQueue(child);
+		prefetchLocalList(child);
 	}
 
 	protected void addElementToQueue(UnifiedTreeNode target) {
@@ -354,24 +416,194 @@ public class UnifiedTree {
 		try {
 			final IFileStore store = node.getStore();
 			IFileInfo[] list;
-			if (fileTree != null && (fileTree.getTreeRoot().equals(store) || fileTree.getTreeRoot().isParentOf(store)))
+			if (isInFileTree(store)) {
 				list = fileTree.getChildInfos(store);
-			else
-				list = store.childInfos(EFS.NONE, null);
-
-			if (list == null || list.length == 0)
+				if (list == null || list.length == 0)
+					return NO_CHILDREN;
+				list = ((Resource) node.getResource()).filterChildren(list, false);
+				int size = list.length;
+				if (size > 1)
+					quickSort(list, 0, size - 1);
+				return list;
+			}
+			// lists fetched ahead of the traversal are already sorted
+			LocalList local = takePrefetchedList(store);
+			if (local == null)
+				local = fetchLocalList(store, pruneUnchanged);
+			if (local == LocalList.UNCHANGED) {
+				list = getWorkspaceList(node);
+				if (list != null)
+					return list;
+				// the workspace tree cannot stand in for the directory
+				local = fetchLocalList(store, false);
+			}
+			if (local == null)
+				return NO_CHILDREN;
+			if (listedStates != null && local.key != null)
+				listedStates.put(local.key, FileInfoIndex.containsSymbolicLink(local.list) ? null : local.state);
+			if (local.list.length == 0)
 				return NO_CHILDREN;
-			list = ((Resource) node.getResource()).filterChildren(list, false);
-			int size = list.length;
-			if (size > 1)
-				quickSort(list, 0, size - 1);
-			return list;
+			return ((Resource) node.getResource()).filterChildren(local.list, false);
 		} catch (CoreException e) {
 			//treat failure to access the directory as a non-existent directory
 			return NO_CHILDREN;
 		}
 	}
 
+	/**
+	 * Lists and sorts the children of the given directory. This is called on
+	 * the visiting thread or on a worker of the parallel mode, so it must not
+	 * access the workspace tree. Returns <code>null</code> if the directory
+	 * could not be listed.
+	 *
+	 * @param prune whether to skip directories the file info index reports as
+	 * unchanged
+	 */
+	private LocalList fetchLocalList(IFileStore store, boolean prune) {
+		String key = null;
+		FileInfoIndex.DirectoryState state = null;
+		if (fileInfoIndex != null && (key = FileInfoIndex.keyFor(store)) != null) {
+			if (prune && fileInfoIndex.isUnchanged(key))
+				return LocalList.UNCHANGED;
+			// read the state first, so that changes made while listing are detected later
+			state = FileInfoIndex.readStableState(key);
+		}
+		try {
+			IFileInfo[] list = store.childInfos(EFS.BULK_FETCH, null);
+			if (list == null || list.length == 0)
+				list = NO_CHILDREN;
+			else if (list.length > 1)
+				quickSort(list, 0, list.length - 1);
+			return new LocalList(list, key, state);
+		} catch (CoreException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the children of the given node as recorded in the workspace
+	 * tree, for a directory that has not changed since its children were last
+	 * synchronized, or <code>null</code> if the directory has to be listed.
+	 * Linked resources are left out, as they are not part of the directory.
+	 */
+	private IFileInfo[] getWorkspaceList(UnifiedTreeNode node) {
+		Resource parent = (Resource) node.getResource();
+		if (parent.getType() == IResource.FILE)
+			return null;
+		ResourceInfo parentInfo = parent.getResourceInfo(false, false);
+		if (parentInfo == null || parentInfo.isSet(ICoreConstants.M_CHILDREN_UNKNOWN))
+			return null;
+		IResource[] members;
+		try {
+			members = ((IContainer) parent).members(IContainer.INCLUDE_TEAM_PRIVATE_MEMBERS | IContainer.INCLUDE_HIDDEN);
+		} catch (CoreException e) {
+			return null;
+		}
+		List<IFileInfo> list = new ArrayList<>(members.length);
+		for (IResource member : members) {
+			if (member.isLinked())
+				continue;
+			ResourceInfo info = ((Resource) member).getResourceInfo(false, false);
+			if (info == null)
+				return null;
+			FileInfo fileInfo = new FileInfo(member.getName());
+			fileInfo.setExists(true);
+			if (member.getType() == IResource.FILE) {
+				// files that are not local have to be looked at
+				if (!info.isSet(ICoreConstants.M_LOCAL_EXISTS))
+					return null;
+				fileInfo.setLastModified(info.getLocalSyncInfo());
+			} else {
+				fileInfo.setDirectory(true);
+			}
+			list.add(fileInfo);
+		}
+		return list.toArray(new IFileInfo[list.size()]);
+	}
+
+	/**
+	 * Returns the worker pool of the parallel mode, or <code>null</code> if
+	 * the tree is traversed sequentially.
+	 */
+	private ForkJoinPool getPool() {
+		if (parallelism < 2)
+			return null;
+		return pools.computeIfAbsent(parallelism, ForkJoinPool::new);
+	}
+
+	/**
+	 * Returns the number of worker threads fetching directory listings ahead
+	 * of the traversal, or 1 if the tree is traversed sequentially.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	private boolean isInFileTree(IFileStore store) {
+		return fileTree != null && (fileTree.getTreeRoot().equals(store) || fileTree.getTreeRoot().isParentOf(store));
+	}
+
+	/**
+	 * Starts fetching the directory listing of the given node on the worker
+	 * pool if the tree is traversed in parallel and the children of the node
+	 * will be visited. Listing and sorting of sibling directories then
+	 * overlaps with the visitor working through the queue, while the workspace
+	 * tree is still only modified by the visiting thread in the usual order.
+	 */
+	private void prefetchLocalList(UnifiedTreeNode node) {
+		ForkJoinPool pool = getPool();
+		if (pool == null || !node.existsInFileSystem() || !node.isFolder())
+			return;
+		// the node is on the next level, its children on the one after
+		if (!isValidLevel(level + 2, depth))
+			return;
+		if (prefetched == null)
+			prefetched = new HashMap<>();
+		if (prefetched.size() >= MAX_PREFETCHED)
+			return;
+		final IFileStore store = node.getStore();
+		if (store == null || prefetched.containsKey(store) || isInFileTree(store))
+			return;
+		// a failed listing is fetched again by the visiting thread
+		final boolean prune = pruneUnchanged;
+		prefetched.put(store, pool.submit(() -> fetchLocalList(store, prune)));
+	}
+
+	/**
+	 * Returns the sorted directory listing that has been fetched ahead for the
+	 * given store, or <code>null</code> if the listing has to be fetched by the
+	 * caller.
+	 */
+	private LocalList takePrefetchedList(IFileStore store) {
+		if (prefetched == null)
+			return null;
+		ForkJoinTask<LocalList> task = prefetched.remove(store);
+		if (task == null)
+			return null;
+		try {
+			return task.join();
+		} catch (RuntimeException e) {
+			// fetch it again on the visiting thread
+			return null;
+		}
+	}
+
+	private void discardPrefetchedList(UnifiedTreeNode node) {
+		if (prefetched == null || prefetched.isEmpty() || node.store == null)
+			return;
+		ForkJoinTask<LocalList> task = prefetched.remove(node.store);
+		if (task != null)
+			task.cancel(false);
+	}
+
+	private void discardPrefetchedLists() {
+		if (prefetched == null)
+			return;
+		for (ForkJoinTask<LocalList> task : prefetched.values())
+			task.cancel(false);
+		prefetched.clear();
+	}
+
 	protected Workspace getWorkspace() {
 		return (Workspace) root.getWorkspace();
 	}
@@ -606,6 +838,31 @@ public class UnifiedTree {
 		return isValidLevel(level, depth);
 	}
 
+	/**
+	 * Sets the number of worker threads used to fetch directory listings
+	 * ahead of the traversal. Values smaller than 2 make the traversal
+	 * sequential. The default is taken from the {@link #PROP_PARALLELISM}
+	 * system property.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Sets the index recording the state of the directories listed by this
+	 * tree. The states are recorded once a traversal has visited all children
+	 * of the listed directories.
+	 *
+	 * @param index the index, or <code>null</code> to record nothing
+	 * @param pruneUnchanged whether the children of directories the index
+	 * reports as unchanged are taken from the workspace tree instead of the
+	 * file system
+	 */
+	public void setFileInfoIndex(FileInfoIndex index, boolean pruneUnchanged) {
+		this.fileInfoIndex = index;
+		this.pruneUnchanged = index != null && pruneUnchanged;
+	}
+
 	private void setRoot(IResource root) {
 		this.root = root;
 	}
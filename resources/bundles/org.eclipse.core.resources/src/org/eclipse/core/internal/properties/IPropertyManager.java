@@ -49,6 +49,11 @@ public interface IPropertyManager extends IManager {
 	 */
 	void deleteResource(IResource target) throws CoreException;
 
+	/**
+	 * Writes the property changes that are only kept in memory, if any.
+	 */
+	void flush() throws CoreException;
+
 	/**
 	 * Returns the value of the identified property on the given resource as
 	 * maintained by this store.
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.properties;
+
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Writes the pending property changes of a property manager shortly after
+ * they have been made. When they cannot be written, the job tries again
+ * later, waiting longer after each failure.
+ */
+class PropertyFlushJob extends Job {
+
+	/** Delay before writing the changes made outside of operations. */
+	private static final long FLUSH_DELAY = 1000;
+
+	/** The longest delay before trying again after failures. */
+	private static final long MAX_RETRY_DELAY = 60 * 1000;
+
+	private final PropertyManager2 propertyManager;
+
+	/** The delay before trying again after the last failure, or 0. */
+	private long retryDelay;
+
+	PropertyFlushJob(PropertyManager2 propertyManager) {
+		super(Messages.properties_saving);
+		this.propertyManager = propertyManager;
+		setPriority(DECORATE);
+		setSystem(true);
+	}
+
+	/**
+	 * Makes sure the changes made so far are written. A job that is waiting
+	 * writes them too. A running job may have missed them, so it runs again
+	 * once it is done.
+	 */
+	void scheduleFlush() {
+		int state = getState();
+		if (state != WAITING && state != SLEEPING)
+			schedule(FLUSH_DELAY);
+	}
+
+	@Override
+	public IStatus run(IProgressMonitor monitor) {
+		try {
+			propertyManager.flush();
+		} catch (CoreException e) {
+			if (monitor.isCanceled())
+				return Status.CANCEL_STATUS;
+			// the changes are kept, try again later
+			retryDelay = retryDelay == 0 ? FLUSH_DELAY : Math.min(retryDelay * 2, MAX_RETRY_DELAY);
+			schedule(retryDelay);
+			return e.getStatus();
+		}
+		retryDelay = 0;
+		return Status.OK_STATUS;
+	}
+}
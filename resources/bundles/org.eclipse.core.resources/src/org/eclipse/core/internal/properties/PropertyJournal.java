@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.properties;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.core.internal.localstore.SafeChunkyInputStream;
+import org.eclipse.core.internal.localstore.SafeChunkyOutputStream;
+import org.eclipse.core.internal.resources.ResourceException;
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.resources.IResourceStatus;
+import org.eclipse.core.runtime.*;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * A journal of the property changes that have been made to the buckets in
+ * memory, but not saved yet.
+ * <p>
+ * The changes are first kept in memory, and then appended to the journal file
+ * in batches. Each batch is written as a chunk of a
+ * {@link SafeChunkyOutputStream}, so that a batch is either entirely read back
+ * after a crash, or skipped. Once the buckets have been saved, the journal is
+ * deleted.
+ * </p>
+ * <pre> {@code
+ * JOURNAL ::= CHUNK*
+ * CHUNK ::= CHANGE+
+ * CHANGE ::= PATH QUALIFIER LOCAL_NAME HAS_VALUE VALUE?
+ * PATH, QUALIFIER, LOCAL_NAME, VALUE ::= string
+ * HAS_VALUE ::= boolean
+ * }</pre>
+ */
+class PropertyJournal {
+	static final class Change {
+		final IPath path;
+		final QualifiedName name;
+		/** the new value, or <code>null</code> if the property was removed */
+		final String value;
+
+		Change(IPath path, QualifiedName name, String value) {
+			this.path = path;
+			this.name = name;
+			this.value = value;
+		}
+	}
+
+	private final File file;
+
+	/**
+	 * The changes not yet appended to the journal file. Guarded by itself.
+	 */
+	private final List<Change> pending = new ArrayList<>();
+
+	PropertyJournal(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Records a change that has been made to a bucket in memory.
+	 */
+	void add(Change change) {
+		synchronized (pending) {
+			pending.add(change);
+		}
+	}
+
+	/**
+	 * Appends the pending changes to the journal file, in a single chunk.
+	 */
+	void append() throws CoreException {
+		List<Change> changes = takePending();
+		if (changes.isEmpty())
+			return;
+		File parent = file.getParentFile();
+		if (!parent.exists())
+			parent.mkdirs();
+		try {
+			SafeChunkyOutputStream safeStream = new SafeChunkyOutputStream(file);
+			try (DataOutputStream output = new DataOutputStream(safeStream)) {
+				for (Change change : changes) {
+					output.writeUTF(change.path.toPortableString());
+					output.writeUTF(change.name.getQualifier());
+					output.writeUTF(change.name.getLocalName());
+					output.writeBoolean(change.value != null);
+					if (change.value != null)
+						output.writeUTF(change.value);
+				}
+				output.flush();
+				safeStream.succeed();
+			}
+		} catch (IOException e) {
+			// keep the changes for the next attempt
+			restorePending(changes);
+			String message = NLS.bind(Messages.resources_writeMeta, file.getAbsolutePath());
+			throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, null, message, e);
+		}
+	}
+
+	/**
+	 * Deletes the journal file, once the changes it records have been saved.
+	 */
+	void delete() {
+		file.delete();
+	}
+
+	boolean exists() {
+		return file.exists();
+	}
+
+	long length() {
+		return file.length();
+	}
+
+	/**
+	 * Reads back the changes recorded in the journal file. The chunks that
+	 * cannot be read are skipped.
+	 */
+	List<Change> read() throws CoreException {
+		List<Change> changes = new ArrayList<>();
+		if (!file.exists())
+			return changes;
+		try (DataInputStream input = new DataInputStream(new SafeChunkyInputStream(file))) {
+			while (true) {
+				IPath path = Path.fromPortableString(input.readUTF());
+				QualifiedName name = new QualifiedName(input.readUTF(), input.readUTF());
+				String value = input.readBoolean() ? input.readUTF() : null;
+				changes.add(new Change(path, name, value));
+			}
+		} catch (EOFException eof) {
+			// ignore end of file -- proceed with what we successfully read
+		} catch (IOException e) {
+			String message = NLS.bind(Messages.resources_readMeta, file.getAbsolutePath());
+			throw new ResourceException(IResourceStatus.FAILED_READ_METADATA, null, message, e);
+		}
+		return changes;
+	}
+
+	/**
+	 * Puts back changes taken from the pending changes, before the changes
+	 * added since.
+	 */
+	void restorePending(List<Change> changes) {
+		synchronized (pending) {
+			pending.addAll(0, changes);
+		}
+	}
+
+	/**
+	 * Removes and returns the pending changes.
+	 */
+	List<Change> takePending() {
+		synchronized (pending) {
+			List<Change> changes = new ArrayList<>(pending);
+			pending.clear();
+			return changes;
+		}
+	}
+}
@@ -23,17 +23,36 @@ import org.eclipse.core.internal.localstore.BucketTree;
 import org.eclipse.core.internal.properties.PropertyBucket.PropertyEntry;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.internal.utils.Policy;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceStatus;
 import org.eclipse.core.runtime.*;
 import org.eclipse.osgi.util.NLS;
 
 /**
+ * A property manager keeping the properties of each resource in the bucket for
+ * its parent directory. Properties are read and written concurrently, locking
+ * only the buckets they are in.
+ * <p>
+ * Property changes are made to the buckets in memory, and written behind: they
+ * are appended in batches to a {@link PropertyJournal} at the end of each
+ * top-level workspace operation, or shortly after they have been made outside
+ * of operations. The buckets themselves are saved when the journal grows too
+ * large, before properties are copied or deleted, and on shutdown. On startup,
+ * the changes recorded in the journal are applied again.
+ * </p>
+ *
  * @see org.eclipse.core.internal.properties.IPropertyManager
  */
 public class PropertyManager2 implements IPropertyManager {
 	private static final int MAX_VALUE_SIZE = 2 * 1024;
 
+	/** Name of the journal file, stored next to the version file. */
+	private static final String JOURNAL_FILE = "properties.journal"; //$NON-NLS-1$
+
+	/** Size of the journal beyond which the buckets are saved. */
+	private static final long MAX_JOURNAL_SIZE = 1024 * 1024;
+
 	class PropertyCopyVisitor extends Bucket.Visitor {
 		private List<PropertyEntry> changes = new ArrayList<>();
 		private IPath destination;
@@ -46,21 +65,20 @@ public class PropertyManager2 implements IPropertyManager {
 
 		@Override
 		public void afterSaving(Bucket bucket) throws CoreException {
-			saveChanges((PropertyBucket) bucket);
+			saveChanges();
 			changes.clear();
 		}
 
-		private void saveChanges(PropertyBucket bucket) throws CoreException {
+		private void saveChanges() throws CoreException {
 			if (changes.isEmpty())
 				return;
 			// make effective all changes collected
-			Iterator<PropertyEntry> i = changes.iterator();
-			PropertyEntry entry = i.next();
-			tree.loadBucketFor(entry.getPath());
-			bucket.setProperties(entry);
-			while (i.hasNext())
-				bucket.setProperties(i.next());
-			bucket.save();
+			tree.applyToBucketFor(changes.get(0).getPath(), bucket -> {
+				for (PropertyEntry entry : changes)
+					((PropertyBucket) bucket).setProperties(entry);
+				bucket.save();
+				return null;
+			});
 		}
 
 		@Override
@@ -74,22 +92,33 @@ public class PropertyManager2 implements IPropertyManager {
 	}
 
 	BucketTree tree;
+	private final Workspace workspace;
+	private final PropertyJournal journal;
+	private final PropertyFlushJob flushJob;
+
+	/**
+	 * Serializes the writing of the journal and the saving of the buckets.
+	 */
+	private final Object saveLock = new Object();
 
 	public PropertyManager2(Workspace workspace) {
-		this.tree = new BucketTree(workspace, new PropertyBucket());
+		this.workspace = workspace;
+		this.tree = new BucketTree(workspace, PropertyBucket::new);
+		this.journal = new PropertyJournal(new File(tree.getVersionFile().getParentFile(), JOURNAL_FILE));
+		this.flushJob = new PropertyFlushJob(this);
 	}
 
 	@Override
 	public void closePropertyStore(IResource target) throws CoreException {
-		// ensure any uncommitted are written to disk
-		tree.getCurrent().save();
-		// flush in-memory state to avoid confusion if another project is later
-		// created with the same name
-		tree.getCurrent().flush();
+		// ensure any uncommitted are written to disk, and flush in-memory state
+		// to avoid confusion if another project is later created with the same name
+		save();
+		tree.flush();
 	}
 
 	@Override
-	public synchronized void copy(IResource source, IResource destination, int depth) throws CoreException {
+	public void copy(IResource source, IResource destination, int depth) throws CoreException {
+		save();
 		copyProperties(source.getFullPath(), destination.getFullPath());
 	}
 
@@ -107,7 +136,9 @@ public class PropertyManager2 implements IPropertyManager {
 	}
 
 	@Override
-	public synchronized void deleteProperties(IResource target, int depth) throws CoreException {
+	public void deleteProperties(IResource target, int depth) throws CoreException {
+		// the journal must not bring the deleted properties back
+		save();
 		tree.accept(new PropertyBucket.Visitor() {
 			@Override
 			public int visit(Entry entry) {
@@ -123,7 +154,16 @@ public class PropertyManager2 implements IPropertyManager {
 	}
 
 	@Override
-	public synchronized Map<QualifiedName, String> getProperties(IResource target) throws CoreException {
+	public void flush() throws CoreException {
+		synchronized (saveLock) {
+			journal.append();
+			if (journal.length() > MAX_JOURNAL_SIZE)
+				save();
+		}
+	}
+
+	@Override
+	public Map<QualifiedName, String> getProperties(IResource target) throws CoreException {
 		final Map<QualifiedName, String> result = new HashMap<>();
 		tree.accept(new PropertyBucket.Visitor() {
 			@Override
@@ -139,15 +179,13 @@ public class PropertyManager2 implements IPropertyManager {
 	}
 
 	@Override
-	public synchronized String getProperty(IResource target, QualifiedName name) throws CoreException {
+	public String getProperty(IResource target, QualifiedName name) throws CoreException {
 		if (name.getQualifier() == null) {
 			String message = Messages.properties_qualifierIsNull;
 			throw new ResourceException(IResourceStatus.FAILED_READ_METADATA, target.getFullPath(), message, null);
 		}
 		IPath resourcePath = target.getFullPath();
-		PropertyBucket current = (PropertyBucket) tree.getCurrent();
-		tree.loadBucketFor(resourcePath);
-		return current.getProperty(resourcePath, name);
+		return tree.applyToBucketFor(resourcePath, bucket -> ((PropertyBucket) bucket).getProperty(resourcePath, name));
 	}
 
 	public BucketTree getTree() {
@@ -159,37 +197,86 @@ public class PropertyManager2 implements IPropertyManager {
 	}
 
 	@Override
-	public synchronized void setProperty(IResource target, QualifiedName name, String value) throws CoreException {
-		//resource may have been deleted concurrently
-		//must check for existence within synchronized method
-		Resource resource = (Resource) target;
-		ResourceInfo info = resource.getResourceInfo(false, false);
-		int flags = resource.getFlags(info);
-		resource.checkAccessible(flags);
-		// enforce the limit stated by the spec
-		if (value != null && value.length() > MAX_VALUE_SIZE) {
-			String message = NLS.bind(Messages.properties_valueTooLong, new Object[] {name.getQualifier(), name.getLocalName(), Integer.toString(MAX_VALUE_SIZE)});
-			throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, target.getFullPath(), message, null);
-		}
-		if (name.getQualifier() == null) {
-			String message = Messages.properties_qualifierIsNull;
-			throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, target.getFullPath(), message, null);
-		}
-
+	public void setProperty(IResource target, QualifiedName name, String value) throws CoreException {
 		IPath resourcePath = target.getFullPath();
-		tree.loadBucketFor(resourcePath);
-		PropertyBucket current = (PropertyBucket) tree.getCurrent();
-		current.setProperty(resourcePath, name, value);
-		current.save();
+		tree.applyToBucketFor(resourcePath, bucket -> {
+			//resource may have been deleted concurrently
+			//must check for existence while holding the bucket
+			Resource resource = (Resource) target;
+			ResourceInfo info = resource.getResourceInfo(false, false);
+			int flags = resource.getFlags(info);
+			resource.checkAccessible(flags);
+			// enforce the limit stated by the spec
+			if (value != null && value.length() > MAX_VALUE_SIZE) {
+				String message = NLS.bind(Messages.properties_valueTooLong, new Object[] {name.getQualifier(), name.getLocalName(), Integer.toString(MAX_VALUE_SIZE)});
+				throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, target.getFullPath(), message, null);
+			}
+			if (name.getQualifier() == null) {
+				String message = Messages.properties_qualifierIsNull;
+				throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, target.getFullPath(), message, null);
+			}
+			((PropertyBucket) bucket).setProperty(resourcePath, name, value);
+			// record the change in the same order as it is made to the bucket
+			journal.add(new PropertyJournal.Change(resourcePath, name, value));
+			flushJob.scheduleFlush();
+			return null;
+		});
+	}
+
+	/**
+	 * Saves the buckets changed in memory, and deletes the journal once they
+	 * are saved.
+	 */
+	private void save() throws CoreException {
+		synchronized (saveLock) {
+			// the pending changes have already been made to the buckets
+			List<PropertyJournal.Change> saved = journal.takePending();
+			if (saved.isEmpty() && !journal.exists())
+				return;
+			try {
+				tree.save();
+			} catch (CoreException e) {
+				journal.restorePending(saved);
+				throw e;
+			}
+			journal.delete();
+		}
 	}
 
 	@Override
 	public void shutdown(IProgressMonitor monitor) throws CoreException {
-		tree.close();
+		flushJob.cancel();
+		// a running flush must be done before the buckets are closed
+		try {
+			flushJob.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// a flush that failed while running has scheduled a retry
+		flushJob.cancel();
+		synchronized (saveLock) {
+			journal.takePending();
+			tree.close();
+			journal.delete();
+		}
 	}
 
 	@Override
 	public void startup(IProgressMonitor monitor) {
-		// nothing to do
+		// apply again the changes that may not have been saved in the buckets
+		try {
+			for (PropertyJournal.Change change : journal.read()) {
+				if (change.path.segmentCount() > 0 && !workspace.getRoot().getProject(change.path.segment(0)).exists())
+					continue;
+				tree.applyToBucketFor(change.path, bucket -> {
+					((PropertyBucket) bucket).setProperty(change.path, change.name, change.value);
+					return null;
+				});
+			}
+			save();
+		} catch (CoreException e) {
+			// only log the exception, we should not fail restoring the properties
+			Policy.log(e.getStatus());
+		}
 	}
 }
@@ -20,8 +20,8 @@ package org.eclipse.core.internal.resources;
 
 import java.net.URI;
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
@@ -109,21 +109,172 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 	/**
 	 * Maintains a mapping of FileStore-&gt;IResource, such that multiple resources
 	 * mapped from the same location are tolerated.
+	 * <p>
+	 * The locations are kept in a trie of their normalized URI path segments,
+	 * with one root per scheme, authority and query. Locations are equal if
+	 * their file stores compare equal, and the resources at a location, under
+	 * a location or above a location are found by walking down the segments of
+	 * its path, without creating the file stores or URIs of its parents.
+	 * </p>
 	 */
-	class LocationMap {
+	static class LocationMap {
 		/**
-		 * Map of FileStore-&gt;IResource OR FileStore-&gt;ArrayList of (IResource)
+		 * A node of the trie, for a location segment.
 		 */
-		private final SortedMap<IFileStore, Object> map = new TreeMap<>(IFileStore::compareTo);
+		private static class Node {
+			private static final Node[] NO_CHILDREN = new Node[0];
+
+			final String name;
+			/** The children of this node, sorted by name. */
+			Node[] children = NO_CHILDREN;
+			/** The resource at this location, or an ArrayList of resources, or null */
+			Object value;
+
+			Node(String name) {
+				this.name = name;
+			}
+
+			/**
+			 * Returns the index of the child whose name is the given segment of
+			 * the given path, or <code>-(insertion point + 1)</code> if there is
+			 * none.
+			 */
+			int indexOf(String path, int start, int end) {
+				int low = 0;
+				int high = children.length - 1;
+				while (low <= high) {
+					int mid = (low + high) >>> 1;
+					int compare = compare(children[mid].name, path, start, end);
+					if (compare < 0)
+						low = mid + 1;
+					else if (compare > 0)
+						high = mid - 1;
+					else
+						return mid;
+				}
+				return -(low + 1);
+			}
+
+			private static int compare(String name, String path, int start, int end) {
+				int length = Math.min(name.length(), end - start);
+				for (int i = 0; i < length; i++) {
+					int compare = name.charAt(i) - path.charAt(start + i);
+					if (compare != 0)
+						return compare;
+				}
+				return name.length() - (end - start);
+			}
+
+			boolean isEmpty() {
+				return value == null && children.length == 0;
+			}
+		}
+
+		/**
+		 * The root of the trie for the locations with a given scheme, authority
+		 * and query.
+		 */
+		private static final class Root extends Node {
+			final String scheme;
+			final String authority;
+			final String query;
+
+			Root(URI uri) {
+				super(null);
+				this.scheme = uri == null ? null : uri.getScheme();
+				this.authority = uri == null ? null : uri.getAuthority();
+				this.query = uri == null ? null : uri.getQuery();
+			}
+
+			boolean matches(URI uri) {
+				if (uri == null)
+					return scheme == null && authority == null && query == null;
+				return Objects.equals(scheme, uri.getScheme()) && Objects.equals(authority, uri.getAuthority()) && Objects.equals(query, uri.getQuery());
+			}
+		}
+
+		private final List<Root> roots = new ArrayList<>(2);
+
+		/**
+		 * Returns the normalized URI of the given location, or null if it
+		 * cannot be computed.
+		 */
+		private static URI toURI(IFileStore location) {
+			try {
+				// note: if the URI is already normal this just returns it
+				return location.toURI().normalize();
+			} catch (Exception e) {
+				// protect against misbehaving 3rd party code in file system implementations
+				return null;
+			}
+		}
+
+		private static String pathOf(URI uri) {
+			String path = uri == null ? null : uri.getPath();
+			return path == null ? "" : path; //$NON-NLS-1$
+		}
+
+		/**
+		 * Returns the end of the path segment starting at the given index.
+		 */
+		private static int segmentEnd(String path, int start) {
+			int end = path.indexOf('/', start);
+			return end < 0 ? path.length() : end;
+		}
+
+		private Root findRoot(URI uri, boolean create) {
+			for (Root root : roots)
+				if (root.matches(uri))
+					return root;
+			if (!create)
+				return null;
+			Root root = new Root(uri);
+			roots.add(root);
+			return root;
+		}
+
+		/**
+		 * Returns the node for the given location, or null if there is none and
+		 * it is not to be created.
+		 */
+		private Node findNode(IFileStore location, boolean create) {
+			URI uri = toURI(location);
+			Node node = findRoot(uri, create);
+			String path = pathOf(uri);
+			for (int start = 0, length = path.length(); node != null && start < length;) {
+				int end = segmentEnd(path, start);
+				if (end > start)
+					node = findChild(node, path, start, end, create);
+				start = end + 1;
+			}
+			return node;
+		}
+
+		private static Node findChild(Node node, String path, int start, int end, boolean create) {
+			int index = node.indexOf(path, start, end);
+			if (index >= 0)
+				return node.children[index];
+			if (!create)
+				return null;
+			index = -index - 1;
+			Node child = new Node(path.substring(start, end));
+			Node[] children = new Node[node.children.length + 1];
+			System.arraycopy(node.children, 0, children, 0, index);
+			children[index] = child;
+			System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+			node.children = children;
+			return child;
+		}
 
 		/**
 		 * Adds the given resource to the map, keyed by the given location.
 		 * Returns true if a new entry was added, and false otherwise.
 		 */
 		public boolean add(IFileStore location, IResource resource) {
-			Object oldValue = map.get(location);
+			Node node = findNode(location, true);
+			Object oldValue = node.value;
 			if (oldValue == null) {
-				map.put(location, resource);
+				node.value = resource;
 				return true;
 			}
 			if (oldValue instanceof IResource) {
@@ -132,7 +283,7 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 				ArrayList<Object> newValue = new ArrayList<>(2);
 				newValue.add(oldValue);
 				newValue.add(resource);
-				map.put(location, newValue);
+				node.value = newValue;
 				return true;
 			}
 			@SuppressWarnings("unchecked")
@@ -147,7 +298,27 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		 * Method clear.
 		 */
 		public void clear() {
-			map.clear();
+			roots.clear();
+		}
+
+		private static void valueDo(Object value, Consumer<IResource> doit) {
+			if (value == null)
+				return;
+			if (value instanceof List) {
+				for (Object element : ((List<?>) value)) {
+					if (element instanceof IResource) {
+						doit.accept((IResource) element);
+					}
+				}
+			} else {
+				doit.accept((IResource) value);
+			}
+		}
+
+		private static void subtreeDo(Node node, Consumer<IResource> doit) {
+			valueDo(node.value, doit);
+			for (Node child : node.children)
+				subtreeDo(child, doit);
 		}
 
 		/**
@@ -155,29 +326,9 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		 * given location as a prefix.
 		 */
 		public void matchingPrefixDo(IFileStore prefix, Consumer<IResource> doit) {
-			SortedMap<IFileStore, Object> matching;
-			IFileStore prefixParent = prefix.getParent();
-			if (prefixParent != null) {
-				//endPoint is the smallest possible path greater than the prefix that doesn't
-				//match the prefix
-				IFileStore endPoint = prefixParent.getChild(prefix.getName() + "\0"); //$NON-NLS-1$
-				matching = map.subMap(prefix, endPoint);
-			} else {
-				matching = map;
-			}
-			for (Object value : matching.values()) {
-				if (value == null)
-					return;
-				if (value instanceof List) {
-					for (Object element : ((List<?>) value)) {
-						if (element instanceof IResource) {
-							doit.accept((IResource) element);
-						}
-					}
-				} else {
-					doit.accept((IResource) value);
-				}
-			}
+			Node node = findNode(prefix, false);
+			if (node != null)
+				subtreeDo(node, doit);
 		}
 
 		/**
@@ -185,17 +336,32 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		 * location.
 		 */
 		public void matchingResourcesDo(IFileStore location, Consumer<IResource> doit) {
-			Object value = map.get(location);
-			if (value == null)
-				return;
-			if (value instanceof List) {
-				for (Object element : ((List<?>) value)) {
-					if (element instanceof IResource) {
-						doit.accept((IResource) element);
-					}
+			Node node = findNode(location, false);
+			if (node != null)
+				valueDo(node.value, doit);
+		}
+
+		/**
+		 * Invoke the given doit for every resource whose location is the given
+		 * location or one of its parents, along with the path of the given
+		 * location relative to the location of the resource.
+		 */
+		public void matchingParentsDo(IFileStore location, BiConsumer<IResource, IPath> doit) {
+			URI uri = toURI(location);
+			Node node = findRoot(uri, false);
+			String path = pathOf(uri);
+			for (int start = 0, length = path.length(); node != null;) {
+				while (start < length && path.charAt(start) == '/')
+					start++;
+				if (node.value != null) {
+					IPath suffix = start < length ? new Path(path.substring(start)) : Path.EMPTY;
+					valueDo(node.value, resource -> doit.accept(resource, suffix));
 				}
-			} else {
-				doit.accept((IResource) value);
+				if (start >= length)
+					return;
+				int end = segmentEnd(path, start);
+				node = findChild(node, path, start, end, false);
+				start = end + 1;
 			}
 		}
 
@@ -204,43 +370,26 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		 * whose location overlaps another resource in the map.
 		 */
 		public void overLappingResourcesDo(Consumer<IResource> doit) {
-			IFileStore previousStore = null;
-			IResource previousResource = null;
-			for (Entry<IFileStore, Object> current : map.entrySet()) {
-				//value is either single resource or List of resources
-				IFileStore currentStore = current.getKey();
-				IResource currentResource = null;
-				Object value = current.getValue();
-				if (value instanceof List) {
-					for (Object element : ((List<?>) value)) {
-						if (element instanceof IResource) {
-							doit.accept(((IResource) element).getProject());
-						}
-					}
-				} else {
-					//value is a single resource
-					currentResource = (IResource) value;
-				}
-				if (previousStore != null) {
-					//check for overlap with previous
-					//Note: previous is always shorter due to map sorting rules
-					if (previousStore.isParentOf(currentStore)) {
-						//resources will be null if they were in a list, in which case
-						//they've already been passed to the doit
-						if (previousResource != null) {
-							doit.accept(previousResource.getProject());
-							//null out previous resource so we don't call doit twice with same resource
-							previousResource = null;
-						}
-						if (currentResource != null)
-							doit.accept(currentResource.getProject());
-						//keep iterating with the same previous store because there may be more overlaps
-						continue;
-					}
-				}
-				previousStore = currentStore;
-				previousResource = currentResource;
-			}
+			for (Root root : roots)
+				overLappingResourcesDo(root, false, doit);
+		}
+
+		/**
+		 * Calls the given doit with the project of every resource in the
+		 * subtree of the given node whose location overlaps another resource
+		 * in the map, and returns whether the subtree has any resource.
+		 *
+		 * @param underResource whether a parent of the node has a resource
+		 */
+		private static boolean overLappingResourcesDo(Node node, boolean underResource, Consumer<IResource> doit) {
+			boolean hasResource = node.value != null;
+			boolean childrenHaveResource = false;
+			for (Node child : node.children)
+				childrenHaveResource |= overLappingResourcesDo(child, underResource || hasResource, doit);
+			//a list means several resources at the same location
+			if (hasResource && (underResource || childrenHaveResource || node.value instanceof List))
+				valueDo(node.value, resource -> doit.accept(resource.getProject()));
+			return hasResource || childrenHaveResource;
 		}
 
 		/**
@@ -248,22 +397,55 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		 * was actually removed, and false otherwise.
 		 */
 		public boolean remove(IFileStore location, IResource resource) {
-			Object oldValue = map.get(location);
-			if (oldValue == null)
+			URI uri = toURI(location);
+			Root root = findRoot(uri, false);
+			if (root == null)
 				return false;
-			if (oldValue instanceof IResource) {
-				if (resource.equals(oldValue)) {
-					map.remove(location);
-					return true;
+			boolean removed = remove(root, pathOf(uri), 0, resource);
+			if (root.isEmpty())
+				roots.remove(root);
+			return removed;
+		}
+
+		/**
+		 * Removes the given resource from the node for the given path, starting
+		 * at the given index, under the given node, and removes the nodes that
+		 * become empty.
+		 */
+		private static boolean remove(Node node, String path, int start, IResource resource) {
+			while (start < path.length() && path.charAt(start) == '/')
+				start++;
+			if (start >= path.length()) {
+				Object oldValue = node.value;
+				if (oldValue == null)
+					return false;
+				if (oldValue instanceof IResource) {
+					if (resource.equals(oldValue)) {
+						node.value = null;
+						return true;
+					}
+					return false;
 				}
+				@SuppressWarnings("unchecked")
+				ArrayList<IResource> list = (ArrayList<IResource>) oldValue;
+				boolean wasRemoved = list.remove(resource);
+				if (list.isEmpty())
+					node.value = null;
+				return wasRemoved;
+			}
+			int end = segmentEnd(path, start);
+			int index = node.indexOf(path, start, end);
+			if (index < 0)
 				return false;
+			Node child = node.children[index];
+			boolean removed = remove(child, path, end + 1, resource);
+			if (child.isEmpty()) {
+				Node[] children = new Node[node.children.length - 1];
+				System.arraycopy(node.children, 0, children, 0, index);
+				System.arraycopy(node.children, index + 1, children, index, children.length - index);
+				node.children = children;
 			}
-			@SuppressWarnings("unchecked")
-			ArrayList<IResource> list = (ArrayList<IResource>) oldValue;
-			boolean wasRemoved = list.remove(resource);
-			if (list.isEmpty())
-				map.remove(location);
-			return wasRemoved;
+			return removed;
 		}
 	}
 
@@ -519,18 +701,16 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		if (searchLocation == null)
 			return;
 
-		suffix = Path.EMPTY;
 		FindAliasesDoit findAliases = new FindAliasesDoit(resource);
 		/*
-		 * Walk up the location segments for this resource, looking for a
+		 * Walk down the location segments for this resource, looking for a
 		 * resource with a matching location.  All matches are then added to the
 		 * "aliases" set.
 		 */
-		do {
-			locationsMap.matchingResourcesDo(searchLocation, findAliases);
-			suffix = new Path(searchLocation.getName()).append(suffix);
-			searchLocation = searchLocation.getParent();
-		} while (searchLocation != null);
+		locationsMap.matchingParentsDo(searchLocation, (match, matchSuffix) -> {
+			suffix = matchSuffix;
+			findAliases.accept(match);
+		});
 	}
 
 	private void removeFromLocationsMap(IResource link, IFileStore location) {
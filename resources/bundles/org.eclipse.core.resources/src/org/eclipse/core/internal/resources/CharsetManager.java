@@ -23,6 +23,7 @@ import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.internal.utils.Policy;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.content.IContentDescription;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
@@ -298,6 +299,71 @@ public class CharsetManager implements IManager {
 		return internalGetCharsetFor(prefs, derivedPrefs, resourcePath, recurse);
 	}
 
+	/**
+	 * Returns the charsets of the local files in the given container, as
+	 * {@link IFile#getCharset()} would. The preferences are looked up once per
+	 * folder, and the files whose charset depends on their contents are
+	 * described all at once.
+	 *
+	 * @see IContainer#getCharsets(int, IProgressMonitor)
+	 */
+	public Map<IFile, String> getCharsetsFor(IContainer container, int depth, IProgressMonitor monitor) throws CoreException {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 10);
+		// the local files, by parent
+		Map<IPath, List<File>> filesByParent = new LinkedHashMap<>();
+		Map<File, ResourceInfo> infos = new HashMap<>();
+		container.accept((IResourceVisitor) resource -> {
+			if (resource.getType() != IResource.FILE)
+				return true;
+			File file = (File) resource;
+			ResourceInfo info = file.getResourceInfo(false, false);
+			if (file.isLocal(file.getFlags(info), IResource.DEPTH_ZERO)) {
+				filesByParent.computeIfAbsent(file.getFullPath().removeLastSegments(1), parent -> new ArrayList<>()).add(file);
+				infos.put(file, info);
+			}
+			return false;
+		}, depth, IContainer.INCLUDE_TEAM_PRIVATE_MEMBERS | IContainer.INCLUDE_HIDDEN);
+		subMonitor.worked(1);
+
+		Map<IFile, String> result = new HashMap<>(infos.size());
+		// the files whose charset depends on their contents, with the charset of their parent
+		Map<File, ResourceInfo> toDescribe = new HashMap<>();
+		Map<File, String> parentCharsets = new HashMap<>();
+		Map<String, Preferences[]> preferencesByProject = new HashMap<>();
+		String workspaceCharset = ResourcesPlugin.getEncoding();
+		for (Map.Entry<IPath, List<File>> entry : filesByParent.entrySet()) {
+			IPath parent = entry.getKey();
+			Preferences[] preferences = preferencesByProject.computeIfAbsent(parent.segment(0), name -> {
+				IProject project = workspace.getRoot().getProject(name);
+				Preferences prefs = getPreferences(project, false, false);
+				Preferences derivedPrefs = getPreferences(project, false, true);
+				// no preferences found - for performance reasons, short-circuit lookups
+				return prefs == null && derivedPrefs == null ? null : new Preferences[] {prefs, derivedPrefs};
+			});
+			String parentCharset = preferences == null ? workspaceCharset : internalGetCharsetFor(preferences[0], preferences[1], parent, true);
+			for (File file : entry.getValue()) {
+				// if there is a file-specific user setting, use it
+				String charset = preferences == null ? null : internalGetCharsetFor(preferences[0], preferences[1], file.getFullPath(), false);
+				if (charset != null) {
+					result.put(file, charset);
+					continue;
+				}
+				toDescribe.put(file, infos.get(file));
+				parentCharsets.put(file, parentCharset);
+			}
+		}
+
+		// tries to obtain descriptions for the file contents
+		Map<File, IContentDescription> descriptions = workspace.getContentDescriptionManager().getDescriptionsFor(toDescribe, subMonitor.split(9));
+		for (File file : toDescribe.keySet()) {
+			IContentDescription description = descriptions.get(file);
+			String charset = description == null ? null : description.getCharset();
+			// could not find out the encoding based on the contents... default to parent's
+			result.put(file, charset != null ? charset : parentCharsets.get(file));
+		}
+		return result;
+	}
+
 	static String getKeyFor(IPath resourcePath) {
 		return resourcePath.segmentCount() > 1 ? resourcePath.removeFirstSegments(1).toString() : PROJECT_KEY;
 	}
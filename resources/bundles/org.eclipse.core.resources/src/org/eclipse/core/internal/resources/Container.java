@@ -289,6 +289,13 @@ public abstract class Container extends Resource implements IContainer {
 		}
 	}
 
+	@Override
+	public Map<IFile, String> getCharsets(int depth, IProgressMonitor monitor) throws CoreException {
+		ResourceInfo info = getResourceInfo(false, false);
+		checkAccessible(getFlags(info));
+		return workspace.getCharsetManager().getCharsetsFor(this, depth, monitor);
+	}
+
 	@Override
 	public String getDefaultCharset() throws CoreException {
 		return getDefaultCharset(true);
@@ -19,6 +19,7 @@ package org.eclipse.core.internal.resources;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.internal.events.ILifecycleListener;
@@ -35,7 +36,9 @@ import org.eclipse.osgi.util.NLS;
 import org.osgi.framework.Bundle;
 
 /**
- * Keeps a cache of recently read content descriptions.
+ * Keeps a cache of recently read content descriptions. The descriptions that
+ * had to be obtained by reading the contents of files are also kept per project
+ * across sessions, see {@link ProjectDescriptionCache}.
  *
  * @since 3.0
  * @see IFile#getContentDescription()
@@ -43,11 +46,18 @@ import org.osgi.framework.Bundle;
 public class ContentDescriptionManager implements IManager, IRegistryChangeListener, IContentTypeManager.IContentTypeChangeListener, ILifecycleListener {
 	/**
 	 * This job causes the content description cache and the related flags
-	 * in the resource tree to be flushed.
+	 * in the resource tree to be flushed, either for the whole workspace or
+	 * only for the files of some projects or content types.
 	 */
 	private class FlushJob extends InternalWorkspaceJob {
 		private final Set<IPath> toFlush;
+		private final Set<IContentType> typesToFlush;
 		private boolean fullFlush;
+		/**
+		 * Whether the files of some projects or content types are waiting
+		 * for their cached information to be flushed.
+		 */
+		private volatile boolean pending;
 
 		public FlushJob(Workspace workspace) {
 			super(Messages.resources_flushingContentDescriptionCache, workspace);
@@ -56,6 +66,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 			setPriority(LONG);
 			setRule(workspace.getRoot());
 			toFlush = new LinkedHashSet<>(5);
+			typesToFlush = new LinkedHashSet<>(5);
 		}
 
 		@Override
@@ -78,7 +89,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 					//don't do anything if the system is shutting down or has been shut down
 					//it is too late to change the workspace at this point anyway
 					if (systemBundle.getState() != Bundle.STOPPING)
-						doFlushCache(monitor, getPathsToFlush());
+						flushPending(monitor);
 				} finally {
 					workspace.endOperation(rule, false);
 				}
@@ -92,17 +103,47 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 			return Status.OK_STATUS;
 		}
 
-		private Set<IPath> getPathsToFlush() {
+		private void flushPending(IProgressMonitor monitor) throws CoreException {
+			Set<IPath> paths;
+			Set<IContentType> types;
 			synchronized (toFlush) {
-				try {
-					if (fullFlush) {
-						return Collections.EMPTY_SET;
-					}
-					return new LinkedHashSet<>(toFlush);
-				} finally {
+				if (fullFlush) {
+					// everything is going to be flushed
 					fullFlush = false;
 					toFlush.clear();
+					typesToFlush.clear();
+					pending = false;
 				}
+				paths = new LinkedHashSet<>(toFlush);
+				types = new LinkedHashSet<>(typesToFlush);
+			}
+			try {
+				doFlushCache(monitor, paths, types);
+			} finally {
+				// the flags of pending files must not be trusted until they are actually cleared
+				synchronized (ContentDescriptionManager.this) {
+					synchronized (toFlush) {
+						toFlush.removeAll(paths);
+						typesToFlush.removeAll(types);
+						pending = !toFlush.isEmpty() || !typesToFlush.isEmpty();
+					}
+					if (!pending && (!paths.isEmpty() || !types.isEmpty()))
+						restoreCacheState();
+				}
+			}
+		}
+
+		/**
+		 * Returns whether the cached information about the given file is
+		 * waiting to be flushed.
+		 */
+		boolean isPending(File file) {
+			if (!pending)
+				return false;
+			synchronized (toFlush) {
+				if (toFlush.contains(file.getFullPath().uptoSegment(1)))
+					return true;
+				return isAssociatedWithAny(file.getName(), typesToFlush);
 			}
 		}
 
@@ -116,8 +157,25 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 				if (!fullFlush)
 					if (project == null)
 						fullFlush = true;
-					else
+					else {
 						toFlush.add(project.getFullPath());
+						pending = true;
+					}
+			}
+			schedule(1000);
+		}
+
+		/**
+		 * @param contentTypes content types whose files have to be flushed
+		 */
+		void flush(Collection<IContentType> contentTypes) {
+			if (Policy.DEBUG_CONTENT_TYPE_CACHE)
+				Policy.debug("Scheduling flushing of content type cache for " + contentTypes); //$NON-NLS-1$
+			synchronized (toFlush) {
+				if (!fullFlush) {
+					typesToFlush.addAll(contentTypes);
+					pending = true;
+				}
 			}
 			schedule(1000);
 		}
@@ -184,7 +242,74 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		}
 	}
 
+	/**
+	 * A content description kept in the cache of a project since an earlier
+	 * session. It knows the content type, charset and byte order mark of the
+	 * file it describes, and reads the file again for any other property.
+	 * @see ProjectDescriptionCache
+	 */
+	private class SavedContentDescription implements IContentDescription {
+		private final File file;
+		private final IContentType contentType;
+		private final ProjectDescriptionCache.Entry saved;
+		private IContentDescription actual;
+
+		SavedContentDescription(File file, IContentType contentType, ProjectDescriptionCache.Entry saved) {
+			this.file = file;
+			this.contentType = contentType;
+			this.saved = saved;
+		}
+
+		@Override
+		public boolean isRequested(QualifiedName key) {
+			return true;
+		}
+
+		@Override
+		public String getCharset() {
+			return saved.getCharset();
+		}
+
+		@Override
+		public IContentType getContentType() {
+			return contentType;
+		}
+
+		@Override
+		public Object getProperty(QualifiedName key) {
+			if (CHARSET.equals(key))
+				return saved.getCharsetProperty();
+			if (BYTE_ORDER_MARK.equals(key)) {
+				byte[] byteOrderMark = saved.getByteOrderMark();
+				// clients may compare byte order marks by identity
+				for (byte[] known : new byte[][] {BOM_UTF_8, BOM_UTF_16BE, BOM_UTF_16LE})
+					if (Arrays.equals(known, byteOrderMark))
+						return known;
+				return byteOrderMark;
+			}
+			IContentDescription description = getActual();
+			return description == null ? null : description.getProperty(key);
+		}
+
+		private synchronized IContentDescription getActual() {
+			if (actual == null) {
+				try {
+					actual = readDescription(file);
+				} catch (CoreException e) {
+					Policy.log(e.getStatus());
+				}
+			}
+			return actual;
+		}
+
+		@Override
+		public void setProperty(QualifiedName key, Object value) {
+			throw new IllegalStateException();
+		}
+	}
+
 	private static final QualifiedName CACHE_STATE = new QualifiedName(ResourcesPlugin.PI_RESOURCES, "contentCacheState"); //$NON-NLS-1$
+	private static final QualifiedName CACHE_GENERATION = new QualifiedName(ResourcesPlugin.PI_RESOURCES, "contentCacheGeneration"); //$NON-NLS-1$
 	private static final QualifiedName CACHE_TIMESTAMP = new QualifiedName(ResourcesPlugin.PI_RESOURCES, "contentCacheTimestamp"); //$NON-NLS-1$\
 
 	public static final String FAMILY_DESCRIPTION_CACHE_FLUSH = ResourcesPlugin.PI_RESOURCES + ".contentDescriptionCacheFamily"; //$NON-NLS-1$
@@ -201,11 +326,53 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 
 	private static final String PT_CONTENTTYPES = "contentTypes"; //$NON-NLS-1$
 
+	/**
+	 * Marks a file whose description has to be read, as opposed to a file known
+	 * to have no description.
+	 */
+	private static final Object NOT_CACHED = new Object();
+
+	/**
+	 * The number of files whose contents are read at the same time when
+	 * describing many files at once.
+	 */
+	private static final int DESCRIBE_PARALLELISM = Integer.getInteger("org.eclipse.core.resources.content.parallelism", Runtime.getRuntime().availableProcessors()).intValue(); //$NON-NLS-1$
+
 	private Cache cache;
 
 	private volatile byte cacheState;
 
+	/**
+	 * The maximum number of project caches kept in memory. The least recently
+	 * used one is saved and dropped when another one is needed.
+	 */
+	private static final int MAX_LOADED_PROJECT_CACHES = 16;
+
+	/**
+	 * The generation of the cached information, which changes each time all
+	 * of it is flushed and each time the settings of a content type change.
+	 * Project caches saved for an older generation are obsolete.
+	 */
+	private long cacheGeneration;
+
+	/**
+	 * The caches of the projects whose files were described since the last save,
+	 * by project path, in access order.
+	 */
+	private final Map<IPath, ProjectDescriptionCache> projectCaches = new LinkedHashMap<IPath, ProjectDescriptionCache>(MAX_LOADED_PROJECT_CACHES, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IPath, ProjectDescriptionCache> eldest) {
+			if (size() <= MAX_LOADED_PROJECT_CACHES)
+				return false;
+			writeProjectCache(eldest.getKey(), eldest.getValue());
+			return true;
+		}
+	};
+
 	private FlushJob flushJob;
+	private ForkJoinPool describePool;
 	private ProjectContentTypes projectContentTypes;
 
 	private final Workspace workspace;
@@ -222,32 +389,42 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 	public void contentTypeChanged(ContentTypeChangeEvent event) {
 		if (Policy.DEBUG_CONTENT_TYPE)
 			Policy.debug("Content type settings changed for " + event.getContentType()); //$NON-NLS-1$
-		invalidateCache(true, null);
+		IContentType contentType = event.getContentType();
+		if (contentType == null)
+			invalidateCache(true, null);
+		else
+			invalidateCache(contentType);
 	}
 
-	synchronized void doFlushCache(final IProgressMonitor monitor, Set<IPath> toClean) throws CoreException {
-		// nothing to be done if no information cached
+	synchronized void doFlushCache(final IProgressMonitor monitor, Set<IPath> toClean, Set<IContentType> typesToClean) throws CoreException {
 		if (getCacheState() != INVALID_CACHE && getCacheState() != ABOUT_TO_FLUSH) {
-			if (Policy.DEBUG_CONTENT_TYPE_CACHE)
-				Policy.debug("Content type cache flush not performed"); //$NON-NLS-1$
+			// the cache is still valid, only some of its information may be stale
+			if (toClean.isEmpty() && typesToClean.isEmpty()) {
+				// nothing to be done if no information cached
+				if (Policy.DEBUG_CONTENT_TYPE_CACHE)
+					Policy.debug("Content type cache flush not performed"); //$NON-NLS-1$
+				return;
+			}
+			try {
+				clearContentFlags(monitor, toClean, typesToClean);
+			} catch (RuntimeException e) {
+				// some stale flags may be left, the whole cache must go
+				setCacheState(INVALID_CACHE);
+				throw e;
+			}
 			return;
 		}
 		try {
 			setCacheState(FLUSHING_CACHE);
 			// flush the MRU cache
 			cache.discardAll();
-			SubMonitor subMonitor = SubMonitor.convert(monitor);
-			if (toClean.isEmpty()) {
+			// the descriptions saved in the project caches are obsolete as well
+			startNewGeneration();
+			if (toClean.isEmpty())
 				// no project was added, must be a global flush
-				clearContentFlags(Path.ROOT, subMonitor.split(1));
-			} else {
-				subMonitor.setWorkRemaining(toClean.size());
-				// flush a project at a time
-				for (IPath element : toClean) {
-					subMonitor.subTask("Clear content flags for project '" + element.lastSegment() + "'"); //$NON-NLS-1$ //$NON-NLS-2$
-					clearContentFlags(element, subMonitor.split(1));
-				}
-			}
+				clearContentFlags(Path.ROOT, null, SubMonitor.convert(monitor).split(1));
+			else
+				clearContentFlags(monitor, toClean, typesToClean);
 		} catch (CoreException ce) {
 			setCacheState(INVALID_CACHE);
 			throw ce;
@@ -256,10 +433,25 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		setCacheState(EMPTY_CACHE);
 	}
 
+	private void clearContentFlags(IProgressMonitor monitor, Set<IPath> toClean, Set<IContentType> typesToClean) {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, toClean.size() + 1);
+		// flush a project at a time
+		for (IPath element : toClean) {
+			subMonitor.subTask("Clear content flags for project '" + element.lastSegment() + "'"); //$NON-NLS-1$ //$NON-NLS-2$
+			clearContentFlags(element, null, subMonitor.split(1));
+		}
+		if (typesToClean.isEmpty())
+			return;
+		// flush the files the changed content types may apply to, given their names
+		subMonitor.subTask("Clear content flags for content types " + typesToClean); //$NON-NLS-1$
+		clearContentFlags(Path.ROOT, typesToClean, subMonitor.split(1));
+	}
+
 	/**
-	 * Clears the content related flags for every file under the given root.
+	 * Clears the content related flags for every file under the given root, or only
+	 * for the files associated with any of the given content types.
 	 */
-	private void clearContentFlags(IPath root, final IProgressMonitor monitor) {
+	private void clearContentFlags(IPath root, Collection<IContentType> contentTypes, final IProgressMonitor monitor) {
 		long flushStart = System.currentTimeMillis();
 		if (Policy.DEBUG_CONTENT_TYPE_CACHE)
 			Policy.debug("Flushing content type cache for " + root); //$NON-NLS-1$
@@ -272,6 +464,8 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 			ResourceInfo info = (ResourceInfo) elementContents;
 			if (info.getType() != IResource.FILE)
 				return true;
+			if (contentTypes != null && !isAssociatedWithAny(requestor.requestPath().lastSegment(), contentTypes))
+				return true;
 			info = workspace.getResourceInfo(requestor.requestPath(), false, true);
 			if (info == null)
 				return false;
@@ -336,6 +530,67 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		if (ProjectContentTypes.usesContentTypePreferences(file.getFullPath().segment(0)))
 			// caching for project containing project specific settings is not supported
 			return readDescription(file);
+		checkCacheState();
+		if (inSync) {
+			if (info == null)
+				return null;
+			Object cached = getCachedDescription(file, info);
+			if (cached != NOT_CACHED)
+				return (IContentDescription) cached;
+		}
+
+		// either we didn't find a description in the cache, or it was not up-to-date - has to be read again
+		// reading description can call 3rd party code, so don't synchronize it
+		IContentDescription newDescription = readDescription(file);
+		return cacheDescription(file, info, inSync, newDescription);
+	}
+
+	/**
+	 * Discovers, and caches, the content descriptions of the given files, which
+	 * must all be in sync. The contents of the files whose descriptions are not
+	 * cached are read in parallel, and the descriptions read are all cached at once.
+	 * @param files files to discover the content descriptions for, with their ResourceInfo
+	 * @param monitor a progress monitor, or <code>null</code>
+	 * @return the content descriptions by file, <code>null</code> for files with
+	 * no content description. Files that do not exist locally are omitted.
+	 * @throws CoreException if the contents of a file could not be described
+	 * @see #getDescriptionFor(File, ResourceInfo, boolean)
+	 */
+	public Map<File, IContentDescription> getDescriptionsFor(Map<File, ResourceInfo> files, IProgressMonitor monitor) throws CoreException {
+		Map<File, IContentDescription> result = new HashMap<>(files.size());
+		List<File> toRead = new ArrayList<>();
+		Map<String, Boolean> usesPreferences = new HashMap<>();
+		checkCacheState();
+		synchronized (this) {
+			for (Map.Entry<File, ResourceInfo> each : files.entrySet()) {
+				File file = each.getKey();
+				String projectName = file.getFullPath().segment(0);
+				if (!usesPreferences.computeIfAbsent(projectName, ProjectContentTypes::usesContentTypePreferences)) {
+					Object cached = getCachedDescription(file, each.getValue());
+					if (cached != NOT_CACHED) {
+						result.put(file, (IContentDescription) cached);
+						continue;
+					}
+				}
+				toRead.add(file);
+			}
+		}
+		// reading description can call 3rd party code, so don't synchronize it
+		Map<File, IContentDescription> read = readDescriptions(toRead, monitor);
+		synchronized (this) {
+			for (Map.Entry<File, IContentDescription> each : read.entrySet()) {
+				File file = each.getKey();
+				if (usesPreferences.get(file.getFullPath().segment(0)))
+					// caching for project containing project specific settings is not supported
+					result.put(file, each.getValue());
+				else
+					result.put(file, cacheDescription(file, files.get(file), true, each.getValue()));
+			}
+		}
+		return result;
+	}
+
+	private void checkCacheState() throws CoreException {
 		if (getCacheState() == INVALID_CACHE) {
 			// discard the cache, so it can be used before the flush job starts
 			setCacheState(ABOUT_TO_FLUSH);
@@ -343,15 +598,22 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 			// the cache is not good, flush it
 			flushJob.schedule(1000);
 		}
-		if (inSync && getCacheState() != ABOUT_TO_FLUSH) {
+	}
+
+	/**
+	 * Returns the cached description of the given file, which is in sync, or
+	 * {@link #NOT_CACHED} if its description has to be read.
+	 */
+	private Object getCachedDescription(File file, ResourceInfo info) {
+		if (getCacheState() != ABOUT_TO_FLUSH) {
 			// first look for the flags in the resource info to avoid looking in the cache
 			// don't need to copy the info because the modified bits are not in the deltas
-			if (info == null)
-				return null;
-			if (info.isSet(ICoreConstants.M_NO_CONTENT_DESCRIPTION))
+			// the flags of a file waiting to be flushed may be stale
+			boolean pending = flushJob.isPending(file);
+			if (!pending && info.isSet(ICoreConstants.M_NO_CONTENT_DESCRIPTION))
 				// presumably, this file has no known content type
 				return null;
-			if (info.isSet(ICoreConstants.M_DEFAULT_CONTENT_DESCRIPTION)) {
+			if (!pending && info.isSet(ICoreConstants.M_DEFAULT_CONTENT_DESCRIPTION)) {
 				// this file supposedly has a default content description for an "obvious" content type
 				IContentTypeManager contentTypeManager = Platform.getContentTypeManager();
 				// try to find the obvious content type matching its name
@@ -364,58 +626,195 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 				info.clear(ICoreConstants.M_CONTENT_CACHE);
 			}
 		}
-		if (inSync) {
-			// tries to get a description from the cache
-			synchronized (this) {
-				Cache.Entry entry = cache.getEntry(file.getFullPath());
-				if (entry != null && entry.getTimestamp() == getTimestamp(info))
-					// there was a description in the cache, and it was up to date
-					return (IContentDescription) entry.getCached();
-			}
-		}
-
-		// either we didn't find a description in the cache, or it was not up-to-date - has to be read again
-		// reading description can call 3rd party code, so don't synchronize it
-		IContentDescription newDescription = readDescription(file);
-
+		// tries to get a description from the cache
 		synchronized (this) {
-			// tries to get a description from the cache
 			Cache.Entry entry = cache.getEntry(file.getFullPath());
-			if (entry != null && inSync && entry.getTimestamp() == getTimestamp(info))
+			if (entry != null && entry.getTimestamp() == getTimestamp(info))
 				// there was a description in the cache, and it was up to date
-				return (IContentDescription) entry.getCached();
-
-			if (getCacheState() != ABOUT_TO_FLUSH) {
-				// we are going to add an entry to the cache or update the resource info - remember that
-				setCacheState(USED_CACHE);
-				if (newDescription == null) {
-					// no content type exists for this file name/contents - remember this
-					info.set(ICoreConstants.M_NO_CONTENT_DESCRIPTION);
-					return null;
+				return entry.getCached();
+			// the description may have been saved in an earlier session
+			IContentDescription saved = getSavedDescription(file, info);
+			if (saved != null) {
+				if (entry == null)
+					cache.addEntry(file.getFullPath(), saved, getTimestamp(info));
+				else {
+					entry.setTimestamp(getTimestamp(info));
+					entry.setCached(saved);
 				}
-				if (newDescription.getContentType().getDefaultDescription().equals(newDescription)) {
-					// we got a default description
-					IContentType defaultForName = Platform.getContentTypeManager().findContentTypeFor(file.getName());
-					if (newDescription.getContentType().equals(defaultForName)) {
-						// it is a default description for the obvious content type given its file name, we don't have to cache
-						info.set(ICoreConstants.M_DEFAULT_CONTENT_DESCRIPTION);
-						return newDescription;
-					}
+				return saved;
+			}
+		}
+		return NOT_CACHED;
+	}
+
+	/**
+	 * Caches the description just read for the given file, unless another thread
+	 * cached one in the meantime, and returns the description to use.
+	 */
+	private synchronized IContentDescription cacheDescription(File file, ResourceInfo info, boolean inSync, IContentDescription newDescription) throws CoreException {
+		// tries to get a description from the cache
+		Cache.Entry entry = cache.getEntry(file.getFullPath());
+		if (entry != null && inSync && entry.getTimestamp() == getTimestamp(info))
+			// there was a description in the cache, and it was up to date
+			return (IContentDescription) entry.getCached();
+
+		if (getCacheState() != ABOUT_TO_FLUSH) {
+			// we are going to add an entry to the cache or update the resource info - remember that
+			setCacheState(USED_CACHE);
+			if (newDescription == null) {
+				// no content type exists for this file name/contents - remember this
+				info.set(ICoreConstants.M_NO_CONTENT_DESCRIPTION);
+				return null;
+			}
+			if (newDescription.getContentType().getDefaultDescription().equals(newDescription)) {
+				// we got a default description
+				IContentType defaultForName = Platform.getContentTypeManager().findContentTypeFor(file.getName());
+				if (newDescription.getContentType().equals(defaultForName)) {
+					// it is a default description for the obvious content type given its file name, we don't have to cache
+					info.set(ICoreConstants.M_DEFAULT_CONTENT_DESCRIPTION);
+					return newDescription;
 				}
 			}
-			// we actually got a description filled by a describer (or a default description for a non-obvious type)
-			if (entry == null)
-				// there was no entry before - create one
-				entry = cache.addEntry(file.getFullPath(), newDescription, getTimestamp(info));
-			else {
-				// just update the existing entry
-				entry.setTimestamp(getTimestamp(info));
-				entry.setCached(newDescription);
+		}
+		// we actually got a description filled by a describer (or a default description for a non-obvious type)
+		if (entry == null)
+			// there was no entry before - create one
+			entry = cache.addEntry(file.getFullPath(), newDescription, getTimestamp(info));
+		else {
+			// just update the existing entry
+			entry.setTimestamp(getTimestamp(info));
+			entry.setCached(newDescription);
+		}
+		if (inSync && getCacheState() != ABOUT_TO_FLUSH)
+			// it was expensive to obtain, keep it for the next sessions
+			saveDescription(file, info, newDescription);
+		return newDescription;
+	}
+
+
+	/**
+	 * Returns the cache of the given project, reading the descriptions saved in
+	 * an earlier session the first time.
+	 */
+	private ProjectDescriptionCache getProjectCache(IProject project) {
+		IPath path = project.getFullPath();
+		ProjectDescriptionCache projectCache = projectCaches.get(path);
+		if (projectCache == null) {
+			projectCache = new ProjectDescriptionCache(path);
+			java.io.File location = workspace.getMetaArea().getContentDescriptionsLocationFor(project).toFile();
+			try {
+				projectCache.read(location, cacheGeneration);
+			} catch (IOException e) {
+				// start over with an empty cache
+				String message = NLS.bind(Messages.resources_readMeta, location.getAbsolutePath());
+				Policy.log(new ResourceStatus(IResourceStatus.FAILED_READ_METADATA, path, message, e));
 			}
-			return newDescription;
+			projectCaches.put(path, projectCache);
+		}
+		return projectCache;
+	}
+
+	/**
+	 * Returns the description of the given file saved in the cache of its
+	 * project, or <code>null</code> if there is none for its current contents.
+	 */
+	private IContentDescription getSavedDescription(File file, ResourceInfo info) {
+		byte state = getCacheState();
+		if ((state != USED_CACHE && state != EMPTY_CACHE) || flushJob.isPending(file))
+			return null;
+		ProjectDescriptionCache.Entry saved = getProjectCache(file.getProject()).get(file.getFullPath(), getTimestamp(info), info.getLocalSyncInfo());
+		if (saved == null)
+			return null;
+		IContentType contentType = Platform.getContentTypeManager().getContentType(saved.getContentTypeId());
+		if (contentType == null)
+			// no longer there
+			return null;
+		return new SavedContentDescription(file, contentType, saved);
+	}
+
+	private void saveDescription(File file, ResourceInfo info, IContentDescription description) {
+		if (description instanceof SavedContentDescription || flushJob.isPending(file))
+			return;
+		byte[] byteOrderMark = (byte[]) description.getProperty(IContentDescription.BYTE_ORDER_MARK);
+		Object charsetProperty = description.getProperty(IContentDescription.CHARSET);
+		ProjectDescriptionCache.Entry saved = new ProjectDescriptionCache.Entry(getTimestamp(info), info.getLocalSyncInfo(), description.getContentType().getId(), description.getCharset(), charsetProperty instanceof String ? (String) charsetProperty : null, byteOrderMark);
+		getProjectCache(file.getProject()).put(file.getFullPath(), saved);
+	}
+
+	/**
+	 * Forgets the descriptions saved for the files of the given project.
+	 */
+	private void discardProjectCache(IProject project) {
+		projectCaches.remove(project.getFullPath());
+		Workspace.clear(workspace.getMetaArea().getContentDescriptionsLocationFor(project).toFile());
+	}
+
+	/**
+	 * Makes the descriptions saved in all project caches obsolete.
+	 */
+	private void startNewGeneration() throws CoreException {
+		projectCaches.clear();
+		newGeneration();
+	}
+
+	/**
+	 * Makes the project caches that are not loaded obsolete. The loaded ones
+	 * will be saved again for the new generation.
+	 */
+	private void newGeneration() throws CoreException {
+		cacheGeneration++;
+		workspace.getRoot().setPersistentProperty(CACHE_GENERATION, Long.toString(cacheGeneration));
+		for (ProjectDescriptionCache projectCache : projectCaches.values())
+			projectCache.setDirty();
+	}
+
+	private long getCacheGeneration() throws CoreException {
+		try {
+			return Long.parseLong(workspace.getRoot().getPersistentProperty(CACHE_GENERATION));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Saves the project caches whose descriptions changed in this session.
+	 */
+	synchronized void saveProjectCaches() {
+		for (Map.Entry<IPath, ProjectDescriptionCache> entry : projectCaches.entrySet())
+			writeProjectCache(entry.getKey(), entry.getValue());
+		// they are read again when needed
+		projectCaches.clear();
+	}
+
+	/**
+	 * Saves the given project cache if its descriptions changed.
+	 */
+	private void writeProjectCache(IPath projectPath, ProjectDescriptionCache projectCache) {
+		byte state = getCacheState();
+		if (state != USED_CACHE && state != EMPTY_CACHE)
+			// the saved descriptions will be obsolete anyway
+			return;
+		IProject project = workspace.getRoot().getProject(projectPath.lastSegment());
+		if (!projectCache.isDirty() || !project.exists())
+			return;
+		// forget the files that are gone
+		projectCache.retainPaths(path -> workspace.getResourceInfo(path, false, false) != null);
+		java.io.File location = workspace.getMetaArea().getContentDescriptionsLocationFor(project).toFile();
+		try {
+			projectCache.write(location, cacheGeneration);
+		} catch (IOException e) {
+			String message = NLS.bind(Messages.resources_writeMeta, location.getAbsolutePath());
+			Policy.log(new ResourceStatus(IResourceStatus.FAILED_WRITE_METADATA, project.getFullPath(), message, e));
 		}
 	}
 
+	private static boolean isAssociatedWithAny(String fileName, Collection<IContentType> contentTypes) {
+		for (IContentType contentType : contentTypes)
+			if (contentType.isAssociatedWith(fileName))
+				return true;
+		return false;
+	}
+
 	/**
 	 * Returns a timestamp that uniquely identifies a particular content state
 	 * of a particular resource. For use as a key in a content type cache.
@@ -429,12 +828,24 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 	 * Optionally causes the cached information to be actually flushed.
 	 *
 	 * @param flush whether the cached information should be flushed
-	 * @see #doFlushCache(IProgressMonitor, Set)
+	 * @see #doFlushCache(IProgressMonitor, Set, Set)
 	 */
 	public synchronized void invalidateCache(boolean flush, IProject project) {
+		if (project != null)
+			// the project may be gone or have other natures, its saved descriptions are obsolete
+			discardProjectCache(project);
 		if (getCacheState() == EMPTY_CACHE)
 			// cache has not been touched, nothing to do
 			return;
+		if (flush && project != null && getCacheState() == USED_CACHE) {
+			// only the information about the files of the project is stale
+			if (Policy.DEBUG_CONTENT_TYPE_CACHE)
+				Policy.debug("Invalidated cache for " + project.getFullPath()); //$NON-NLS-1$
+			cache.discardAll();
+			flushIncrementally();
+			flushJob.flush(project);
+			return;
+		}
 		// mark the cache as invalid
 		try {
 			setCacheState(INVALID_CACHE);
@@ -456,6 +867,64 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		}
 	}
 
+	/**
+	 * Invalidates the cached information about the files that the given content
+	 * type, or any of its descendants, applies or may now apply to. The rest of
+	 * the cache remains valid.
+	 */
+	synchronized void invalidateCache(IContentType contentType) {
+		if (getCacheState() == EMPTY_CACHE)
+			// cache has not been touched, nothing to do
+			return;
+		if (getCacheState() != USED_CACHE) {
+			// the whole cache is going to be flushed anyway
+			invalidateCache(true, null);
+			return;
+		}
+		if (Policy.DEBUG_CONTENT_TYPE_CACHE)
+			Policy.debug("Invalidated cache for " + contentType); //$NON-NLS-1$
+		List<IContentType> affected = new ArrayList<>();
+		Set<String> affectedIds = new HashSet<>();
+		for (IContentType each : Platform.getContentTypeManager().getAllContentTypes())
+			if (each.isKindOf(contentType)) {
+				affected.add(each);
+				affectedIds.add(each.getId());
+			}
+		// descriptions may be cached by the MRU cache for any file name
+		cache.discardAll();
+		for (ProjectDescriptionCache projectCache : projectCaches.values())
+			projectCache.removeIf(saved -> affectedIds.contains(saved.getContentTypeId()));
+		try {
+			// the saved caches that are not loaded may describe files with the changed types
+			newGeneration();
+		} catch (CoreException e) {
+			Policy.log(e.getStatus());
+		}
+		flushIncrementally();
+		flushJob.flush(affected);
+	}
+
+	/**
+	 * Makes sure the whole cache is flushed in the next session, in case this
+	 * one ends before the pending incremental flushes are done.
+	 * @see #restoreCacheState()
+	 */
+	private void flushIncrementally() {
+		try {
+			workspace.getRoot().setPersistentProperty(CACHE_STATE, Byte.toString(INVALID_CACHE));
+		} catch (CoreException e) {
+			Policy.log(e.getStatus());
+		}
+	}
+
+	/**
+	 * Persists the state of the cache again, once the incremental flushes are done.
+	 * @see #flushIncrementally()
+	 */
+	synchronized void restoreCacheState() throws CoreException {
+		workspace.getRoot().setPersistentProperty(CACHE_STATE, Byte.toString(getCacheState()));
+	}
+
 	/**
 	 * Tries to obtain a content description for the given file.
 	 */
@@ -477,6 +946,73 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		}
 	}
 
+	/**
+	 * Tries to obtain content descriptions for the given files, reading their
+	 * contents in parallel. Files that do not exist locally are omitted.
+	 */
+	private Map<File, IContentDescription> readDescriptions(List<File> files, IProgressMonitor monitor) throws CoreException {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, files.size());
+		Map<File, IContentDescription> result = new HashMap<>(files.size());
+		ForkJoinPool pool = files.size() > 1 ? getDescribePool() : null;
+		if (pool == null) {
+			for (File file : files) {
+				readDescription(file, result);
+				subMonitor.split(1);
+			}
+			return result;
+		}
+		List<ForkJoinTask<IContentDescription>> tasks = new ArrayList<>(files.size());
+		for (File file : files)
+			tasks.add(pool.submit(() -> readDescription(file)));
+		try {
+			for (int i = 0; i < files.size(); i++) {
+				File file = files.get(i);
+				try {
+					result.put(file, tasks.get(i).get());
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof CoreException) {
+						if (((CoreException) cause).getStatus().getCode() != IResourceStatus.RESOURCE_NOT_FOUND)
+							throw (CoreException) cause;
+					} else if (cause instanceof RuntimeException)
+						throw (RuntimeException) cause;
+					else
+						throw new IllegalStateException(cause);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new OperationCanceledException();
+				}
+				subMonitor.split(1);
+			}
+		} finally {
+			// do not leave files being read if we failed or were canceled
+			for (ForkJoinTask<IContentDescription> task : tasks)
+				task.cancel(false);
+		}
+		return result;
+	}
+
+	private void readDescription(File file, Map<File, IContentDescription> result) throws CoreException {
+		try {
+			result.put(file, readDescription(file));
+		} catch (CoreException e) {
+			if (e.getStatus().getCode() != IResourceStatus.RESOURCE_NOT_FOUND)
+				throw e;
+		}
+	}
+
+	/**
+	 * Returns the pool reading the contents of files in parallel, or
+	 * <code>null</code> if they are not to be read in parallel.
+	 */
+	private synchronized ForkJoinPool getDescribePool() {
+		if (DESCRIBE_PARALLELISM < 2)
+			return null;
+		if (describePool == null)
+			describePool = new ForkJoinPool(DESCRIBE_PARALLELISM);
+		return describePool;
+	}
+
 	/**
 	 * @see IRegistryChangeListener#registryChanged(IRegistryChangeEvent)
 	 */
@@ -521,6 +1057,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		if (getCacheState() != INVALID_CACHE)
 			// remember the platform timestamp for which we have a valid cache
 			setCacheTimeStamp(Platform.getStateStamp());
+		saveProjectCaches();
 		IContentTypeManager contentTypeManager = Platform.getContentTypeManager();
 		//tolerate missing services during shutdown because they might be already gone
 		if (contentTypeManager != null)
@@ -532,6 +1069,11 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		cache = null;
 		flushJob.cancel();
 		flushJob = null;
+		synchronized (this) {
+			if (describePool != null)
+				describePool.shutdownNow();
+			describePool = null;
+		}
 		projectContentTypes = null;
 	}
 
@@ -540,6 +1082,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		cache = new Cache(100, 1000, 0.1);
 		projectContentTypes = new ProjectContentTypes(workspace);
 		getCacheState();
+		cacheGeneration = getCacheGeneration();
 		if (cacheState == FLUSHING_CACHE || cacheState == ABOUT_TO_FLUSH)
 			// in case we died before completing the last flushing
 			setCacheState(INVALID_CACHE);
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Restores the markers and sync info of the projects whose restore was
+ * deferred on startup, one project at a time.
+ * @see SaveManager#PROP_DEFER_PROJECT_STATE
+ */
+public class DeferredRestoreJob extends Job {
+
+	private final SaveManager saveManager;
+	private final Workspace workspace;
+
+	public DeferredRestoreJob(SaveManager manager, Workspace workspace) {
+		super(Messages.resources_restoringDeferred);
+		this.saveManager = manager;
+		this.workspace = workspace;
+		setPriority(DECORATE);
+		setSystem(true);
+	}
+
+	@Override
+	public IStatus run(IProgressMonitor monitor) {
+		for (IProject project : saveManager.getDeferredProjects()) {
+			if (monitor.isCanceled())
+				return Status.CANCEL_STATUS;
+			if (!workspace.isOpen())
+				return Status.OK_STATUS;
+			try {
+				// the state is restored when the operation is prepared
+				workspace.run((ICoreRunnable) m -> {
+					// nothing else to do
+				}, project, IWorkspace.AVOID_UPDATE, monitor);
+			} catch (CoreException e) {
+				return e.getStatus();
+			}
+		}
+		return Status.OK_STATUS;
+	}
+}
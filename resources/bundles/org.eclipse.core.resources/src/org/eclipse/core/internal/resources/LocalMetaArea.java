@@ -34,8 +34,11 @@ import org.eclipse.osgi.util.NLS;
 
 public class LocalMetaArea implements ICoreConstants {
 	/* package */static final String F_BACKUP_FILE_EXTENSION = ".bak"; //$NON-NLS-1$
+	/* package */static final String F_CONTENT_DESCRIPTIONS = ".contentdescriptions"; //$NON-NLS-1$
 	/* package */static final String F_DESCRIPTION = ".workspace"; //$NON-NLS-1$
+	/* package */static final String F_FILE_INFO_INDEX = ".fileindex"; //$NON-NLS-1$
 
+	/* package */static final String F_JOURNAL_EXTENSION = "journal"; //$NON-NLS-1$
 	/* package */static final String F_HISTORY_STORE = ".history"; //$NON-NLS-1$
 	/* package */static final String F_MARKERS = ".markers"; //$NON-NLS-1$
 	/* package */static final String F_OLD_PROJECT = ".prj"; //$NON-NLS-1$
@@ -116,6 +119,19 @@ public class LocalMetaArea implements ICoreConstants {
 		return file.removeLastSegments(1).append(file.lastSegment() + F_BACKUP_FILE_EXTENSION);
 	}
 
+	/**
+	 * Returns the path of the file in which to save the content descriptions
+	 * read from the files of the given project.
+	 */
+	public IPath getContentDescriptionsLocationFor(IProject project) {
+		Assert.isNotNull(project);
+		return locationFor(project).append(F_CONTENT_DESCRIPTIONS);
+	}
+
+	public IPath getFileInfoIndexLocation() {
+		return metaAreaLocation.append(F_FILE_INFO_INDEX);
+	}
+
 	public IPath getHistoryStoreLocation() {
 		return metaAreaLocation.append(F_HISTORY_STORE);
 	}
@@ -146,6 +162,15 @@ public class LocalMetaArea implements ICoreConstants {
 		return getMarkersLocationFor(resource).addFileExtension(F_SNAP_EXTENSION);
 	}
 
+	/**
+	 * Returns the path of the file in which to journal the markers changed since
+	 * the markers were last saved for the given resource. Should only be called
+	 * for the workspace root and projects.
+	 */
+	public IPath getMarkersJournalLocationFor(IResource resource) {
+		return getMarkersLocationFor(resource).addFileExtension(F_JOURNAL_EXTENSION);
+	}
+
 	/**
 	 * The project description file is the only metadata file stored outside
 	 * the metadata area. It is stored as a file directly under the project
@@ -118,10 +118,7 @@ public class Marker extends PlatformObject implements IMarker {
 		MarkerInfo info = getInfo();
 		if (info == null)
 			return defaultValue;
-		Object value = info.getAttribute(attributeName);
-		if (value instanceof Integer)
-			return ((Integer) value).intValue();
-		return defaultValue;
+		return info.getAttribute(attributeName, defaultValue);
 	}
 
 	/**
@@ -148,10 +145,7 @@ public class Marker extends PlatformObject implements IMarker {
 		MarkerInfo info = getInfo();
 		if (info == null)
 			return defaultValue;
-		Object value = info.getAttribute(attributeName);
-		if (value instanceof Boolean)
-			return ((Boolean) value).booleanValue();
-		return defaultValue;
+		return info.getAttribute(attributeName, defaultValue);
 	}
 
 	/**
@@ -264,6 +258,7 @@ public class Marker extends PlatformObject implements IMarker {
 			MarkerInfo oldInfo = needDelta ? (MarkerInfo) markerInfo.clone() : null;
 			boolean validate = manager.isPersistentType(markerInfo.getType());
 			markerInfo.setAttribute(attributeName, value, validate);
+			manager.attributesChanged(resource, markerInfo);
 			if (manager.isPersistent(markerInfo))
 				((Resource) resource).getResourceInfo(false, true).set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
 			if (needDelta) {
@@ -304,6 +299,7 @@ public class Marker extends PlatformObject implements IMarker {
 			MarkerInfo oldInfo = needDelta ? (MarkerInfo) markerInfo.clone() : null;
 			boolean validate = manager.isPersistentType(markerInfo.getType());
 			markerInfo.addAttributes(attributeNames, values, validate);
+			manager.attributesChanged(resource, markerInfo);
 			if (manager.isPersistent(markerInfo))
 				((Resource) resource).getResourceInfo(false, true).set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
 			if (needDelta) {
@@ -334,6 +330,7 @@ public class Marker extends PlatformObject implements IMarker {
 			MarkerInfo oldInfo = needDelta ? (MarkerInfo) markerInfo.clone() : null;
 			boolean validate = manager.isPersistentType(markerInfo.getType());
 			markerInfo.setAttributes(values, validate);
+			manager.attributesChanged(resource, markerInfo);
 			if (manager.isPersistent(markerInfo))
 				((Resource) resource).getResourceInfo(false, true).set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
 			if (needDelta) {
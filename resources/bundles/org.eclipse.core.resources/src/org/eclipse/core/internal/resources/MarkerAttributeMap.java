@@ -17,32 +17,200 @@
 package org.eclipse.core.internal.resources;
 
 import java.util.*;
-import java.util.Map.Entry;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.internal.utils.IStringPoolParticipant;
 import org.eclipse.core.internal.utils.StringPool;
+import org.eclipse.core.resources.IMarker;
 
 /**
  * A specialized Map<String,Object> implementation that is optimized for a small
  * set of strings as keys. The keys will be interned() on insert.
  *
  * Unlike a java.util.HashMap nulls are neither allowed for key or value.
+ *
+ * The integer values of the well known attributes (severity, priority, line
+ * number, character start and end), and the boolean values of the transient,
+ * user editable and done attributes, are stored in primitive slots, and only
+ * boxed when asked as objects. The other attributes are stored in an array of
+ * values, along with an array of sorted keys that is shared by the maps having
+ * the same keys, such as the maps of the markers of a same type.
  */
 // the Map interface is not implemented as it would allow to insert null key or values
 // or non interned keys via the iterator if not a specific entrySet is implemented.
 public class MarkerAttributeMap implements IStringPoolParticipant {
-	// This implementation is a copy on write map.
-	private final AtomicReference<Map<String, Object>> mapRef;
+	/**
+	 * Receives the attributes of a map, without boxing the values stored in
+	 * primitive slots.
+	 *
+	 * @see MarkerAttributeMap#accept(IAttributeVisitor)
+	 */
+	public interface IAttributeVisitor<E extends Exception> {
+		void visitInt(String key, int value) throws E;
+
+		void visitBoolean(String key, boolean value) throws E;
+
+		/**
+		 * Visits an attribute which is not stored in a primitive slot.
+		 */
+		void visitObject(String key, Object value) throws E;
+	}
+
+	/**
+	 * Collects attributes to create a map, without boxing the values stored in
+	 * primitive slots.
+	 */
+	public static final class Builder {
+		private int present;
+		private int booleans;
+		private int[] ints;
+		private final TreeMap<String, Object> others = new TreeMap<>();
+
+		public Builder() {
+			super();
+		}
+
+		Builder(State state) {
+			present = state.present;
+			booleans = state.booleans;
+			ints = state.ints == null ? null : state.ints.clone();
+			for (int i = 0; i < state.keys.length; i++)
+				others.put(state.keys[i], state.values[i]);
+		}
+
+		/**
+		 * like {@link java.util.Map#put(Object, Object)} but null keys or values are
+		 * not allowed
+		 */
+		public Builder put(String key, Object value) {
+			Objects.requireNonNull(key, "insert of null key not allowed"); //$NON-NLS-1$
+			Objects.requireNonNull(value, "insert of null value not allowed"); //$NON-NLS-1$
+			if (value instanceof Integer)
+				return putInt(key, ((Integer) value).intValue());
+			if (value instanceof Boolean)
+				return putBoolean(key, ((Boolean) value).booleanValue());
+			remove(key);
+			if (value instanceof String)
+				value = StringPool.getShared().add((String) value);
+			others.put(key.intern(), value);
+			return this;
+		}
+
+		public Builder putInt(String key, int value) {
+			remove(key);
+			int slot = intSlot(key);
+			if (slot < 0) {
+				others.put(key.intern(), Integer.valueOf(value));
+			} else {
+				if (ints == null)
+					ints = new int[INT_KEYS.length];
+				ints[slot] = value;
+				present |= 1 << slot;
+			}
+			return this;
+		}
+
+		public Builder putBoolean(String key, boolean value) {
+			remove(key);
+			int slot = booleanSlot(key);
+			if (slot < 0) {
+				others.put(key.intern(), Boolean.valueOf(value));
+			} else {
+				int bit = 1 << (INT_KEYS.length + slot);
+				present |= bit;
+				booleans = value ? booleans | bit : booleans & ~bit;
+			}
+			return this;
+		}
+
+		Builder remove(Object key) {
+			int slot = intSlot(key);
+			if (slot >= 0)
+				present &= ~(1 << slot);
+			slot = booleanSlot(key);
+			if (slot >= 0) {
+				int bit = 1 << (INT_KEYS.length + slot);
+				present &= ~bit;
+				booleans &= ~bit;
+			}
+			others.remove(key);
+			return this;
+		}
+
+		State toState() {
+			if (present == 0 && others.isEmpty())
+				return State.EMPTY;
+			// only keep the integer slots if some are used
+			int[] slots = (present & INT_MASK) == 0 ? null : ints;
+			if (others.isEmpty())
+				return new State(present, booleans, slots, NO_KEYS, NO_VALUES);
+			String[] keys = others.keySet().toArray(new String[others.size()]);
+			return new State(present, booleans, slots, shareKeys(keys), others.values().toArray());
+		}
+
+		public MarkerAttributeMap build() {
+			return new MarkerAttributeMap(toState());
+		}
+	}
+
+	/**
+	 * An immutable content of a map.
+	 */
+	private static final class State {
+		static final State EMPTY = new State(0, 0, null, NO_KEYS, NO_VALUES);
+
+		/**
+		 * The slots having a value: bit <code>i</code> for <code>INT_KEYS[i]</code>,
+		 * bit <code>INT_KEYS.length + j</code> for <code>BOOLEAN_KEYS[j]</code>.
+		 */
+		final int present;
+		/** The values of the boolean slots, at the same bits. */
+		final int booleans;
+		/** The values of the integer slots, or <code>null</code> if none is used. */
+		final int[] ints;
+		/** The sorted keys of the other attributes, possibly shared. */
+		final String[] keys;
+		/** The values of the other attributes. */
+		final Object[] values;
+
+		State(int present, int booleans, int[] ints, String[] keys, Object[] values) {
+			this.present = present;
+			this.booleans = booleans;
+			this.ints = ints;
+			this.keys = keys;
+			this.values = values;
+		}
+
+		int size() {
+			return Integer.bitCount(present) + keys.length;
+		}
+	}
+
+	/** The attributes whose integer values are stored in primitive slots. */
+	static final String[] INT_KEYS = {IMarker.SEVERITY, IMarker.PRIORITY, IMarker.LINE_NUMBER, IMarker.CHAR_START, IMarker.CHAR_END};
+
+	/** The attributes whose boolean values are stored in primitive slots. */
+	static final String[] BOOLEAN_KEYS = {IMarker.TRANSIENT, IMarker.USER_EDITABLE, IMarker.DONE};
+
+	private static final int INT_MASK = (1 << INT_KEYS.length) - 1;
 
-	// Typically contains 9 keys:
-	// "severity","sourceId","charStart","charEnd","arguments","id","message","lineNumber","categoryId"
-	protected static final int DEFAULT_SIZE = 9;
+	private static final String[] NO_KEYS = new String[0];
+	private static final Object[] NO_VALUES = new Object[0];
+
+	/**
+	 * The shared arrays of keys. The number of distinct arrays is bounded, in
+	 * case clients use unusual keys.
+	 */
+	private static final Map<List<String>, String[]> KEYS = new ConcurrentHashMap<>();
+	private static final int MAX_SHARED_KEYS = 1024;
+
+	// This implementation is a copy on write map, modified while synchronized on this map.
+	private volatile State state;
 
 	/**
 	 * Creates a new marker attribute map of default size
 	 */
 	public MarkerAttributeMap() {
-		this(DEFAULT_SIZE);
+		this(State.EMPTY);
 	}
 
 	/**
@@ -53,7 +221,7 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 */
 	public MarkerAttributeMap(int initialCapacity) {
 		// ignore initialCapacity - a copy on write datastructure will be copied anyway.
-		mapRef = new AtomicReference<>(Map.of());
+		this(State.EMPTY);
 	}
 
 	/**
@@ -61,7 +229,8 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 * contain null keys or null values, or keys that are not interned.
 	 */
 	public MarkerAttributeMap(MarkerAttributeMap m) {
-		mapRef = new AtomicReference<>(copy(m.getMap()));
+		// the content is immutable, so it can be shared
+		this(m.state);
 	}
 
 	/**
@@ -69,40 +238,62 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 * values are silently ignored.
 	 */
 	public MarkerAttributeMap(Map<String, ? extends Object> map, boolean validate) {
-		mapRef = new AtomicReference<>(copy(map, validate));
+		this(putAll(new Builder(), map, validate).toState());
+	}
+
+	private MarkerAttributeMap(State state) {
+		this.state = state;
+	}
+
+	private static int intSlot(Object key) {
+		for (int i = 0; i < INT_KEYS.length; i++)
+			if (INT_KEYS[i].equals(key))
+				return i;
+		return -1;
+	}
+
+	private static int booleanSlot(Object key) {
+		for (int i = 0; i < BOOLEAN_KEYS.length; i++)
+			if (BOOLEAN_KEYS[i].equals(key))
+				return i;
+		return -1;
 	}
 
 	/**
-	 * delete all previous values and replace with given map. Entries with null keys
-	 * are not allowed. Entries with null values are silently ignored.
+	 * Returns a shared array equal to the given array of sorted keys, if possible.
 	 */
-	public void setAttributes(Map<String, ? extends Object> map, boolean validate) {
-		mapRef.set(copy(map, validate));
+	static String[] shareKeys(String[] keys) {
+		List<String> list = Arrays.asList(keys);
+		String[] shared = KEYS.get(list);
+		if (shared != null)
+			return shared;
+		if (KEYS.size() >= MAX_SHARED_KEYS)
+			return keys;
+		shared = KEYS.putIfAbsent(list, keys);
+		return shared == null ? keys : shared;
 	}
 
-	private Map<String, Object> copy(Map<String, ? extends Object> map, boolean validate) {
-		Map<String, Object> target = new HashMap<>();
-		putAll(target, map, validate);
-		return target;
+	/**
+	 * delete all previous values and replace with given map. Entries with null keys
+	 * are not allowed. Entries with null values are silently ignored.
+	 */
+	public synchronized void setAttributes(Map<String, ? extends Object> map, boolean validate) {
+		state = putAll(new Builder(), map, validate).toState();
 	}
 
 	/**
 	 * puts all entries of the given map. Entries with null keys are not allowed.
 	 * Entries with null values are silently ignored.
 	 */
-	public void putAll(Map<String, ? extends Object> map, boolean validate) {
-		mapRef.getAndUpdate(old -> {
-			Map<String, Object> copy = copy(old);
-			putAll(copy, map, validate);
-			return copy;
-		});
+	public synchronized void putAll(Map<String, ? extends Object> map, boolean validate) {
+		state = putAll(new Builder(state), map, validate).toState();
 	}
 
-	private void putAll(Map<String, Object> target, Map<String, ? extends Object> source, boolean validate) {
+	private static Builder putAll(Builder target, Map<String, ? extends Object> source, boolean validate) {
 		if (source == null) {
-			return;
+			return target;
 		}
-		for (Entry<String, ? extends Object> e : source.entrySet()) {
+		for (Map.Entry<String, ? extends Object> e : source.entrySet()) {
 			String key = e.getKey();
 			Objects.requireNonNull(key, "insert of null key not allowed"); //$NON-NLS-1$
 			Object value = e.getValue();
@@ -110,50 +301,73 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 				value = MarkerInfo.checkValidAttribute(value);
 			}
 			if (value != null) { // null values => ignore
-				target.put(e.getKey().intern(), value);
+				target.put(key, value);
 			}
 		}
+		return target;
 	}
 
-	private Map<String, Object> copy(Map<String, ? extends Object> map) {
-		return new HashMap<>(map);
-	}
-
-	private Map<String, Object> getMap() {
-		return mapRef.get();
+	/**
+	 * Visits the attributes of this map.
+	 */
+	public <E extends Exception> void accept(IAttributeVisitor<E> visitor) throws E {
+		State current = state;
+		for (int i = 0; i < INT_KEYS.length; i++)
+			if ((current.present & (1 << i)) != 0)
+				visitor.visitInt(INT_KEYS[i], current.ints[i]);
+		for (int i = 0; i < BOOLEAN_KEYS.length; i++) {
+			int bit = 1 << (INT_KEYS.length + i);
+			if ((current.present & bit) != 0)
+				visitor.visitBoolean(BOOLEAN_KEYS[i], (current.booleans & bit) != 0);
+		}
+		for (int i = 0; i < current.keys.length; i++)
+			visitor.visitObject(current.keys[i], current.values[i]);
 	}
 
 	/** creates a copy that fulfills the java.util.Map interface **/
 	public Map<String, Object> toMap() {
-		return copy(this.getMap());
+		State current = state;
+		Map<String, Object> result = new HashMap<>(current.size() * 4 / 3 + 1);
+		accept(new IAttributeVisitor<RuntimeException>() {
+			@Override
+			public void visitInt(String key, int value) {
+				result.put(key, Integer.valueOf(value));
+			}
+
+			@Override
+			public void visitBoolean(String key, boolean value) {
+				result.put(key, Boolean.valueOf(value));
+			}
+
+			@Override
+			public void visitObject(String key, Object value) {
+				result.put(key, value);
+			}
+		});
+		return result;
 	}
 
 	/** @see java.util.Map#entrySet **/
 	public Set<Map.Entry<String, Object>> entrySet() {
-		return getMap().entrySet();
+		return toMap().entrySet();
 	}
 
 	/**
 	 * like {@link java.util.Map#put(Object, Object)} but null keys or values are
 	 * not allowed
 	 */
-	public void put(String k, Object value) {
-		Objects.requireNonNull(k, "insert of null key not allowed"); //$NON-NLS-1$
-		Objects.requireNonNull(value, "insert of null value not allowed"); //$NON-NLS-1$
-		mapRef.getAndUpdate(map -> {
-			Map<String, Object> m = copy(map);
-			m.put(k.intern(), value);
-			return m;
-		});
+	public synchronized void put(String k, Object value) {
+		state = new Builder(state).put(k, value).toState();
 	}
 
 	@Override
 	public void shareStrings(StringPool set) {
 		// don't share keys because they are already interned
-		for (java.util.Map.Entry<String, Object> e : getMap().entrySet()) {
-			Object o = e.getValue();
+		Object[] values = state.values;
+		for (int i = 0; i < values.length; i++) {
+			Object o = values[i];
 			if (o instanceof String) {
-				e.setValue(set.add((String) o));
+				values[i] = set.add((String) o);
 			} else if (o instanceof IStringPoolParticipant) {
 				((IStringPoolParticipant) o).shareStrings(set);
 			}
@@ -162,22 +376,75 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 
 	/** @see java.util.Map#isEmpty **/
 	public boolean isEmpty() {
-		return getMap().isEmpty();
+		return state.size() == 0;
 	}
 
 	/** @see java.util.Map#remove **/
-	public Object remove(Object key) {
-		return getMap().remove(key);
+	public synchronized Object remove(Object key) {
+		Object value = get(key);
+		if (value != null)
+			state = new Builder(state).remove(key).toState();
+		return value;
 	}
 
 	/** @see java.util.Map#get **/
 	public Object get(Object key) {
-		return getMap().get(key);
+		State current = state;
+		int slot = intSlot(key);
+		if (slot >= 0 && (current.present & (1 << slot)) != 0)
+			return Integer.valueOf(current.ints[slot]);
+		slot = booleanSlot(key);
+		if (slot >= 0) {
+			int bit = 1 << (INT_KEYS.length + slot);
+			if ((current.present & bit) != 0)
+				return Boolean.valueOf((current.booleans & bit) != 0);
+		}
+		int index = indexOf(current, key);
+		return index < 0 ? null : current.values[index];
+	}
+
+	/**
+	 * Returns the value of the given attribute if it is an integer, and the given
+	 * default value otherwise.
+	 */
+	public int getInt(String key, int defaultValue) {
+		State current = state;
+		int slot = intSlot(key);
+		if (slot >= 0 && (current.present & (1 << slot)) != 0)
+			return current.ints[slot];
+		int index = indexOf(current, key);
+		if (index >= 0 && current.values[index] instanceof Integer)
+			return ((Integer) current.values[index]).intValue();
+		return defaultValue;
+	}
+
+	/**
+	 * Returns the value of the given attribute if it is a boolean, and the given
+	 * default value otherwise.
+	 */
+	public boolean getBoolean(String key, boolean defaultValue) {
+		State current = state;
+		int slot = booleanSlot(key);
+		if (slot >= 0) {
+			int bit = 1 << (INT_KEYS.length + slot);
+			if ((current.present & bit) != 0)
+				return (current.booleans & bit) != 0;
+		}
+		int index = indexOf(current, key);
+		if (index >= 0 && current.values[index] instanceof Boolean)
+			return ((Boolean) current.values[index]).booleanValue();
+		return defaultValue;
+	}
+
+	private static int indexOf(State state, Object key) {
+		if (state.keys.length == 0 || !(key instanceof String))
+			return -1;
+		return Arrays.binarySearch(state.keys, key);
 	}
 
 	/** @see java.util.Map#size **/
 	public int size() {
-		return getMap().size();
+		return state.size();
 	}
 
 }
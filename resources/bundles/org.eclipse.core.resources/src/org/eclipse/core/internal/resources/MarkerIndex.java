@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import org.eclipse.core.internal.watson.ElementTreeIterator;
+import org.eclipse.core.internal.watson.IElementContentVisitor;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * A secondary index of the markers in the workspace, used to find the
+ * resources that may have markers of a given type, or markers with a given
+ * value of an indexed attribute, without walking the resource tree.
+ * <p>
+ * The index maps each marker type to the paths of the resources that have
+ * markers of exactly that type, and, for each indexed attribute, each pair of
+ * a marker type and an attribute value to the paths of the resources that have
+ * such markers. The index may contain paths that no longer have such markers,
+ * so callers must check the markers found at the paths it returns; but it
+ * always contains the paths that have them.
+ * </p>
+ * <p>
+ * The index is updated by the marker manager as markers are added, changed and
+ * removed, which happens while holding the workspace lock. It is built by
+ * walking the workspace tree the first time it is asked, and built again after
+ * it has been invalidated, e.g. when markers are restored from disk. Queries
+ * may run concurrently with updates.
+ * </p>
+ */
+class MarkerIndex {
+	private static final class AttributeKey {
+		final String type;
+		final Object value;
+
+		AttributeKey(String type, Object value) {
+			this.type = type;
+			this.value = value;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof AttributeKey))
+				return false;
+			AttributeKey other = (AttributeKey) obj;
+			return type.equals(other.type) && value.equals(other.value);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * type.hashCode() + value.hashCode();
+		}
+	}
+
+	/**
+	 * Orders paths the way the resource tree is visited: parents before their
+	 * children, and siblings by name.
+	 */
+	private static final Comparator<IPath> TREE_ORDER = (path1, path2) -> {
+		int count1 = path1.segmentCount();
+		int count2 = path2.segmentCount();
+		for (int i = 0, count = Math.min(count1, count2); i < count; i++) {
+			int compare = path1.segment(i).compareTo(path2.segment(i));
+			if (compare != 0)
+				return compare;
+		}
+		return count1 - count2;
+	};
+
+	private final Workspace workspace;
+
+	/** The paths of the resources having markers, by marker type. */
+	private final Map<String, Set<IPath>> pathsByType = new ConcurrentHashMap<>();
+
+	/** The paths of the resources having markers, by indexed attribute. */
+	private final Map<String, Map<AttributeKey, Set<IPath>>> pathsByAttribute = new ConcurrentHashMap<>();
+
+	/** Incremented each time this index is invalidated. */
+	private final AtomicInteger generation = new AtomicInteger();
+
+	/** The generation this index has been built for. */
+	private volatile int builtGeneration = -1;
+
+	MarkerIndex(Workspace workspace, String... attributes) {
+		this.workspace = workspace;
+		for (String attribute : attributes)
+			pathsByAttribute.put(attribute, new ConcurrentHashMap<>());
+	}
+
+	/**
+	 * Indexes the markers by the value of the given attribute, in addition to the
+	 * attributes already indexed.
+	 */
+	void addAttribute(String attribute) {
+		if (pathsByAttribute.putIfAbsent(attribute, new ConcurrentHashMap<>()) == null)
+			invalidate();
+	}
+
+	/**
+	 * Builds this index from the workspace tree, unless it is up to date.
+	 */
+	private void ensureBuilt() {
+		if (builtGeneration == generation.get())
+			return;
+		synchronized (this) {
+			int current = generation.get();
+			if (builtGeneration == current)
+				return;
+			IElementContentVisitor visitor = (tree, requestor, elementContents) -> {
+				ResourceInfo info = (ResourceInfo) elementContents;
+				if (info == null)
+					return false;
+				MarkerSet markers = info.getMarkers(false);
+				if (markers != null) {
+					IPath path = requestor.requestPath();
+					for (IMarkerSetElement element : markers.elements())
+						markerChanged(path, (MarkerInfo) element);
+				}
+				return true;
+			};
+			new ElementTreeIterator(workspace.getElementTree(), Path.ROOT).iterate(visitor);
+			// if invalidated meanwhile, the next query builds this index again
+			builtGeneration = current;
+		}
+	}
+
+	/**
+	 * Returns the paths of the resources in the given scope that may have markers
+	 * whose type matches the given predicate, in the order the resource tree is
+	 * visited. If the given attribute is indexed, only the paths that may have
+	 * such markers with the given value of that attribute are returned.
+	 *
+	 * @param types the predicate matching marker types
+	 * @param attribute the attribute name, or <code>null</code>
+	 * @param value the attribute value, ignored if the attribute is <code>null</code>
+	 * @param root the path of the resource at the root of the scope
+	 * @param depth the depth of the scope
+	 */
+	List<IPath> findPaths(Predicate<String> types, String attribute, Object value, IPath root, int depth) {
+		ensureBuilt();
+		Set<IPath> result = new HashSet<>();
+		Map<AttributeKey, Set<IPath>> byValue = attribute == null ? null : pathsByAttribute.get(attribute);
+		if (byValue == null) {
+			for (Map.Entry<String, Set<IPath>> entry : pathsByType.entrySet())
+				if (types.test(entry.getKey()))
+					findPaths(entry.getValue(), root, depth, result);
+		} else if (value != null) {
+			for (Map.Entry<AttributeKey, Set<IPath>> entry : byValue.entrySet()) {
+				AttributeKey key = entry.getKey();
+				if (key.value.equals(value) && types.test(key.type))
+					findPaths(entry.getValue(), root, depth, result);
+			}
+		}
+		List<IPath> sorted = new ArrayList<>(result);
+		sorted.sort(TREE_ORDER);
+		return sorted;
+	}
+
+	private static void findPaths(Set<IPath> paths, IPath root, int depth, Set<IPath> result) {
+		int rootCount = root.segmentCount();
+		for (IPath path : paths) {
+			int levels = path.segmentCount() - rootCount;
+			if (levels < 0 || (levels > 0 && depth == IResource.DEPTH_ZERO) || (levels > 1 && depth == IResource.DEPTH_ONE))
+				continue;
+			if (root.isPrefixOf(path))
+				result.add(path);
+		}
+	}
+
+	/**
+	 * Forgets the content of this index, so that it is built again from the
+	 * workspace tree when next asked.
+	 */
+	void invalidate() {
+		pathsByType.clear();
+		for (Map<AttributeKey, Set<IPath>> byValue : pathsByAttribute.values())
+			byValue.clear();
+		generation.incrementAndGet();
+	}
+
+	/**
+	 * Records that the resource at the given path has the given marker, with its
+	 * current attribute values.
+	 */
+	void markerChanged(IPath path, MarkerInfo marker) {
+		String type = marker.getType();
+		pathsByType.computeIfAbsent(type, k -> ConcurrentHashMap.newKeySet()).add(path);
+		for (Map.Entry<String, Map<AttributeKey, Set<IPath>>> entry : pathsByAttribute.entrySet()) {
+			Object value = marker.getAttribute(entry.getKey());
+			if (value != null)
+				entry.getValue().computeIfAbsent(new AttributeKey(type, value), k -> ConcurrentHashMap.newKeySet()).add(path);
+		}
+	}
+
+	/**
+	 * Records that markers of the given types have been removed from the resource
+	 * at the given path, which now has the given markers.
+	 *
+	 * @param path the path of the resource
+	 * @param types the types of the removed markers
+	 * @param remaining the markers of the resource, or <code>null</code>
+	 */
+	void markersRemoved(IPath path, Set<String> types, MarkerSet remaining) {
+		if (remaining != null) {
+			types = new HashSet<>(types);
+			for (IMarkerSetElement element : remaining.elements())
+				types.remove(((MarkerInfo) element).getType());
+		}
+		for (String type : types) {
+			Set<IPath> paths = pathsByType.get(type);
+			if (paths != null)
+				paths.remove(path);
+			for (Map<AttributeKey, Set<IPath>> byValue : pathsByAttribute.values())
+				for (Map.Entry<AttributeKey, Set<IPath>> entry : byValue.entrySet())
+					if (entry.getKey().type.equals(type))
+						entry.getValue().remove(path);
+		}
+	}
+}
@@ -81,7 +81,7 @@ public class MarkerInfo implements IMarkerSetElement, Cloneable, IStringPoolPart
 		attributes = map;
 		this.id = id;
 		this.creationTime = creationTime;
-		this.type = type;
+		this.type = StringPool.getShared().add(type);
 	}
 
 	/** clone constructor **/
@@ -112,6 +112,22 @@ public class MarkerInfo implements IMarkerSetElement, Cloneable, IStringPoolPart
 		return attributes.get(attributeName);
 	}
 
+	/**
+	 * Returns the value of the given attribute if it is an integer, and the given
+	 * default value otherwise.
+	 */
+	public int getAttribute(String attributeName, int defaultValue) {
+		return attributes.getInt(attributeName, defaultValue);
+	}
+
+	/**
+	 * Returns the value of the given attribute if it is a boolean, and the given
+	 * default value otherwise.
+	 */
+	public boolean getAttribute(String attributeName, boolean defaultValue) {
+		return attributes.getBoolean(attributeName, defaultValue);
+	}
+
 	public Map<String, Object> getAttributes() {
 		if (attributes.isEmpty())
 			return null;
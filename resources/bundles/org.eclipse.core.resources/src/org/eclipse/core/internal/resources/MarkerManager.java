@@ -17,8 +17,11 @@ package org.eclipse.core.internal.resources;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import org.eclipse.core.internal.localstore.SafeChunkyInputStream;
+import org.eclipse.core.internal.localstore.SafeChunkyOutputStream;
 import org.eclipse.core.internal.localstore.SafeFileInputStream;
 import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.internal.utils.Policy;
@@ -39,6 +42,21 @@ public class MarkerManager implements IManager {
 	private final AtomicLong changeId = new AtomicLong();
 	protected volatile Map<IPath, MarkerSet> currentDeltas = null;
 	protected final MarkerDeltaManager deltaManager = new MarkerDeltaManager();
+	protected final MarkerIndex index;
+
+	/**
+	 * The paths of the resources whose markers have changed since they were last
+	 * saved, by project name, or by the empty string for the workspace root.
+	 */
+	private final Map<String, Set<IPath>> unsavedPaths = new ConcurrentHashMap<>();
+
+	/**
+	 * The number of the save that wrote the saved markers, by project name, or by
+	 * the empty string for the workspace root. The marker journal starts with the
+	 * number of the saved markers it applies to, so that a journal that could not
+	 * be deleted after the markers were all saved is not applied to them.
+	 */
+	private final Map<String, Long> saveNumbers = new ConcurrentHashMap<>();
 
 	protected final Workspace workspace;
 	protected final MarkerWriter writer = new MarkerWriter(this);
@@ -48,6 +66,25 @@ public class MarkerManager implements IManager {
 	 */
 	public MarkerManager(Workspace workspace) {
 		this.workspace = workspace;
+		this.index = new MarkerIndex(workspace, IMarker.SEVERITY);
+	}
+
+	/**
+	 * Indexes the markers by the value of the given attribute, so that finding
+	 * the markers with a given value of that attribute does not need to look at
+	 * the other markers. The markers are always indexed by type and severity.
+	 */
+	public void addAttributeIndex(String attributeName) {
+		index.addAttribute(attributeName);
+	}
+
+	/**
+	 * The attributes of the given marker of the given resource have changed.
+	 */
+	public void attributesChanged(IResource resource, MarkerInfo marker) {
+		IPath path = resource.getFullPath();
+		index.markerChanged(path, marker);
+		unsavedPaths.computeIfAbsent(getSaveKey(path), k -> ConcurrentHashMap.newKeySet()).add(path);
 	}
 
 	/**
@@ -56,6 +93,7 @@ public class MarkerManager implements IManager {
 	 * @see IResource#createMarker(String)
 	 */
 	public void add(IResource resource, MarkerInfo newMarker) throws CoreException {
+		workspace.getSaveManager().restoreDeferredState(resource);
 		Resource target = (Resource) resource;
 		ResourceInfo info = workspace.getResourceInfo(target.getFullPath(), false, false);
 		target.checkExists(target.getFlags(info), false);
@@ -146,12 +184,7 @@ public class MarkerManager implements IManager {
 	}
 
 	private int getSeverity(MarkerInfo marker) {
-		Object o = marker.getAttribute(IMarker.SEVERITY);
-		if (o instanceof Integer) {
-			Integer i = (Integer) o;
-			return i.intValue();
-		}
-		return -1;
+		return marker.getAttribute(IMarker.SEVERITY, -1);
 	}
 
 	/**
@@ -235,6 +268,8 @@ public class MarkerManager implements IManager {
 		ResourceInfo info = workspace.getResourceInfo(path, false, true);
 		if (info != null)
 			info.incrementMarkerGenerationCount();
+		updateIndex(path, info, changes);
+		unsavedPaths.computeIfAbsent(getSaveKey(path), k -> ConcurrentHashMap.newKeySet()).add(path);
 	}
 
 	/**
@@ -249,6 +284,7 @@ public class MarkerManager implements IManager {
 	 * Returns the marker with the given id or <code>null</code> if none is found.
 	 */
 	public MarkerInfo findMarkerInfo(IResource resource, long id) {
+		workspace.getSaveManager().restoreDeferredState(resource);
 		ResourceInfo info = workspace.getResourceInfo(resource.getFullPath(), false, false);
 		if (info == null)
 			return null;
@@ -279,24 +315,71 @@ public class MarkerManager implements IManager {
 	 */
 	public void doFindMarkers(IResource target, ArrayList<IMarker> result, final String type,
 			final boolean includeSubtypes, int depth) {
+		workspace.getSaveManager().restoreDeferredState(target);
+		// answer the searches for a type from the index, rather than walking the tree
+		if (type != null && depth != IResource.DEPTH_ZERO && target.getType() != IResource.FILE)
+			indexFindMarkers(target.getFullPath(), result, type, includeSubtypes, null, null, depth);
 		// optimize the deep searches with an element tree visitor
-		if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
+		else if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
 			visitorFindMarkers(target.getFullPath(), result, type, includeSubtypes);
 		else
 			recursiveFindMarkers(target.getFullPath(), result, type, includeSubtypes, depth);
 	}
 
+	/**
+	 * Returns all markers of the specified type on the given target, whose given
+	 * attribute has the given value, with option to search the target's children.
+	 * Passing <code>null</code> for the type specifies a match for all types (i.e.,
+	 * <code>null</code> is a wildcard. The search is faster if the markers are
+	 * indexed by the given attribute.
+	 *
+	 * @see #addAttributeIndex(String)
+	 */
+	public IMarker[] findMarkers(IResource target, String type, boolean includeSubtypes, String attributeName,
+			Object value, int depth) {
+		workspace.getSaveManager().restoreDeferredState(target);
+		ArrayList<IMarker> result = new ArrayList<>();
+		indexFindMarkers(target.getFullPath(), result, type, includeSubtypes, attributeName, value, depth);
+		if (result.isEmpty())
+			return NO_MARKERS;
+		return result.toArray(new IMarker[result.size()]);
+	}
+
 	/**
 	 * Finds the max severity across all problem markers on the given target, with
 	 * option to search the target's children.
 	 */
 	public int findMaxProblemSeverity(IResource target, String type, boolean includeSubtypes, int depth) {
+		workspace.getSaveManager().restoreDeferredState(target);
+		// answer the searches for a type from the index, rather than walking the tree
+		if (type != null && depth != IResource.DEPTH_ZERO && target.getType() != IResource.FILE)
+			return indexFindMaxSeverity(target.getFullPath(), type, includeSubtypes, depth);
 		// optimize the deep searches with an element tree visitor
 		if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
 			return visitorFindMaxSeverity(target.getFullPath(), type, includeSubtypes);
 		return recursiveFindMaxSeverity(target.getFullPath(), type, includeSubtypes, depth);
 	}
 
+	/**
+	 * Returns the key of the unsaved paths of the markers saved with the given
+	 * path, which are saved with the project or the workspace root.
+	 */
+	/**
+	 * The given project has been closed or deleted. Its markers have been removed,
+	 * but that need not be saved: they are restored from the saved markers when
+	 * the project is opened again, and the saved markers of a deleted project are
+	 * deleted with it.
+	 */
+	public void forgetProject(IProject project) {
+		String key = getSaveKey(project.getFullPath());
+		unsavedPaths.remove(key);
+		saveNumbers.remove(key);
+	}
+
+	private static String getSaveKey(IPath path) {
+		return path.segmentCount() == 0 ? "" : path.segment(0); //$NON-NLS-1$
+	}
+
 	public long getChangeId() {
 		return changeId.get();
 	}
@@ -321,14 +404,62 @@ public class MarkerManager implements IManager {
 		return set.get(id) != null;
 	}
 
+	/**
+	 * Adds the markers of the resources found in the index to the list.
+	 */
+	private void indexFindMarkers(IPath root, ArrayList<IMarker> list, String type, boolean includeSubtypes,
+			String attributeName, Object value, int depth) {
+		for (IPath path : index.findPaths(typeMatcher(type, includeSubtypes), attributeName, value, root, depth)) {
+			ResourceInfo info = workspace.getResourceInfo(path, false, false);
+			if (info == null)
+				continue;
+			MarkerSet markers = info.getMarkers(false);
+			if (markers == null)
+				continue;
+			IMarkerSetElement[] matching = basicFindMatching(markers, type, includeSubtypes);
+			if (attributeName != null) {
+				List<IMarkerSetElement> withValue = new ArrayList<>(matching.length);
+				for (IMarkerSetElement marker : matching)
+					if (Objects.equals(((MarkerInfo) marker).getAttribute(attributeName), value))
+						withValue.add(marker);
+				matching = withValue.toArray(new IMarkerSetElement[withValue.size()]);
+			}
+			buildMarkers(matching, path, info.getType(), list);
+		}
+	}
+
+	/**
+	 * Finds the max severity across the problem markers of the resources found in
+	 * the index.
+	 */
+	private int indexFindMaxSeverity(IPath root, String type, boolean includeSubtypes, int depth) {
+		Predicate<String> types = typeMatcher(type, includeSubtypes);
+		// look first at the resources that may have errors, which are enough
+		Integer error = Integer.valueOf(IMarker.SEVERITY_ERROR);
+		for (IPath path : index.findPaths(types, IMarker.SEVERITY, error, root, depth))
+			if (findMaxSeverity(path, type, includeSubtypes) >= IMarker.SEVERITY_ERROR)
+				return IMarker.SEVERITY_ERROR;
+		int max = -1;
+		for (IPath path : index.findPaths(types, null, null, root, depth))
+			max = Math.max(max, findMaxSeverity(path, type, includeSubtypes));
+		return max;
+	}
+
+	private int findMaxSeverity(IPath path, String type, boolean includeSubtypes) {
+		ResourceInfo info = workspace.getResourceInfo(path, false, false);
+		if (info == null)
+			return -1;
+		MarkerSet markers = info.getMarkers(false);
+		return markers == null ? -1 : basicFindMaxSeverity(markers, type, includeSubtypes);
+	}
+
 	/**
 	 * Returns true if the given marker is persistent, and false otherwise.
 	 */
 	public boolean isPersistent(MarkerInfo info) {
 		if (!cache.isPersistent(info.getType()))
 			return false;
-		Object isTransient = info.getAttribute(IMarker.TRANSIENT);
-		return isTransient == null || !(isTransient instanceof Boolean) || !((Boolean) isTransient).booleanValue();
+		return !info.getAttribute(IMarker.TRANSIENT, false);
 	}
 
 	/**
@@ -506,6 +637,7 @@ public class MarkerManager implements IManager {
 	 * <code>null</code> is a wildcard.
 	 */
 	public void removeMarkers(IResource target, final String type, final boolean includeSubtypes, int depth) {
+		workspace.getSaveManager().restoreDeferredState(target);
 		if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
 			visitorRemoveMarkers(target.getFullPath(), type, includeSubtypes);
 		else
@@ -523,7 +655,11 @@ public class MarkerManager implements IManager {
 	public void restore(IResource resource, boolean generateDeltas, IProgressMonitor monitor) throws CoreException {
 		// first try and load the last saved file, then apply the snapshots
 		restoreFromSave(resource, generateDeltas);
+		restoreFromJournal(resource);
 		restoreFromSnap(resource);
+		// the restored markers have not been indexed, and need not be saved again
+		index.invalidate();
+		unsavedPaths.remove(getSaveKey(resource.getFullPath()));
 	}
 
 	protected void restoreFromSave(IResource resource, boolean generateDeltas) throws CoreException {
@@ -531,12 +667,16 @@ public class MarkerManager implements IManager {
 		IPath tempLocation = workspace.getMetaArea().getBackupLocationFor(sourceLocation);
 		java.io.File sourceFile = new java.io.File(sourceLocation.toOSString());
 		java.io.File tempFile = new java.io.File(tempLocation.toOSString());
+		String key = getSaveKey(resource.getFullPath());
+		saveNumbers.remove(key);
 		if (!sourceFile.exists() && !tempFile.exists())
 			return;
 		try (DataInputStream input = new DataInputStream(
 				new SafeFileInputStream(sourceLocation.toOSString(), tempLocation.toOSString()))) {
 			MarkerReader reader = new MarkerReader(workspace);
 			reader.read(input, generateDeltas);
+			if (reader.getSaveNumber() != 0)
+				saveNumbers.put(key, reader.getSaveNumber());
 		} catch (Exception e) {
 			// don't let runtime exceptions such as ArrayIndexOutOfBounds prevent startup
 			String msg = NLS.bind(Messages.resources_readMeta, sourceLocation);
@@ -544,11 +684,51 @@ public class MarkerManager implements IManager {
 		}
 	}
 
+	/**
+	 * Applies the marker journal to the saved markers, if it was written for them.
+	 * Otherwise the journal is left over from before the markers were all saved,
+	 * and is deleted.
+	 */
+	protected void restoreFromJournal(IResource resource) {
+		IPath location = workspace.getMetaArea().getMarkersJournalLocationFor(resource);
+		java.io.File journal = location.toFile();
+		if (!journal.exists())
+			return;
+		Long saveNumber = saveNumbers.get(getSaveKey(resource.getFullPath()));
+		if (saveNumber != null && saveNumber.equals(readJournalNumber(journal))) {
+			restoreFromSnap(location, true);
+			return;
+		}
+		journal.delete();
+		if (journal.exists()) {
+			String msg = Messages.resources_resetMarkers;
+			Policy.log(new ResourceStatus(IResourceStatus.FAILED_DELETE_METADATA, resource.getFullPath(), msg, null));
+		}
+	}
+
+	/**
+	 * Returns the number of the saved markers the given marker journal applies
+	 * to, or <code>null</code> if it cannot be read.
+	 */
+	private static Long readJournalNumber(java.io.File journal) {
+		try (DataInputStream input = new DataInputStream(new SafeChunkyInputStream(journal))) {
+			return input.readLong();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
 	protected void restoreFromSnap(IResource resource) {
-		IPath sourceLocation = workspace.getMetaArea().getMarkersSnapshotLocationFor(resource);
+		restoreFromSnap(workspace.getMetaArea().getMarkersSnapshotLocationFor(resource), false);
+	}
+
+	private void restoreFromSnap(IPath sourceLocation, boolean journal) {
 		if (!sourceLocation.toFile().exists())
 			return;
 		try (DataInputStream input = new DataInputStream(new SafeChunkyInputStream(sourceLocation.toFile()))) {
+			// skip the number of the saved markers the journal applies to
+			if (journal)
+				input.readLong();
 			MarkerSnapshotReader reader = new MarkerSnapshotReader(workspace);
 			while (true)
 				reader.read(input);
@@ -561,9 +741,80 @@ public class MarkerManager implements IManager {
 		}
 	}
 
-	public void save(ResourceInfo info, IPathRequestor requestor, DataOutputStream output, List<String> list)
-			throws IOException {
-		writer.save(info, requestor, output, list);
+	public void save(ResourceInfo info, IPathRequestor requestor, DataOutputStream output, List<String> list,
+			long saveNumber) throws IOException {
+		writer.save(info, requestor, output, list, saveNumber);
+	}
+
+	/**
+	 * Returns the number of a new save of all the markers of the given project or
+	 * workspace root. The numbers come from the clock, so that they are not reused
+	 * by a later session.
+	 */
+	public long newSaveNumber(IResource root) {
+		Long last = saveNumbers.get(getSaveKey(root.getFullPath()));
+		return Math.max(System.currentTimeMillis(), last == null ? 1 : last.longValue() + 1);
+	}
+
+	/**
+	 * Saves the markers of the given project or workspace root incrementally, if
+	 * possible: the markers of the resources whose markers have changed since the
+	 * last save are appended to the marker journal, in a single chunk. Returns
+	 * <code>false</code> if all the markers should be saved instead, because
+	 * there are no saved markers, because the journal was not written for them, or
+	 * because the journal has grown large compared to them. In that case, {@link #markersSaved(IResource, long)} must be called
+	 * once all the markers have been saved.
+	 */
+	public boolean saveJournal(IResource root) throws CoreException {
+		java.io.File saved = workspace.getMetaArea().getMarkersLocationFor(root).toFile();
+		java.io.File journal = workspace.getMetaArea().getMarkersJournalLocationFor(root).toFile();
+		String key = getSaveKey(root.getFullPath());
+		Long saveNumber = saveNumbers.get(key);
+		// fold the journal into the saved markers once it is half their size
+		if (saveNumber == null || !saved.exists() || journal.length() > saved.length() / 2)
+			return false;
+		boolean newJournal = !journal.exists();
+		// a journal that was written for other saved markers is replaced by a full save
+		if (!newJournal && !saveNumber.equals(readJournalNumber(journal)))
+			return false;
+		Set<IPath> paths = unsavedPaths.remove(key);
+		if (paths == null || paths.isEmpty())
+			return true;
+		try {
+			SafeChunkyOutputStream safeStream = new SafeChunkyOutputStream(journal);
+			try (DataOutputStream output = new DataOutputStream(safeStream)) {
+				if (newJournal)
+					output.writeLong(saveNumber.longValue());
+				for (IPath path : paths)
+					writer.journal(workspace.getResourceInfo(path, false, false), path, output);
+				output.flush();
+				safeStream.succeed();
+			}
+		} catch (IOException e) {
+			// keep the paths for the next save
+			unsavedPaths.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).addAll(paths);
+			String msg = NLS.bind(Messages.resources_writeMeta, root.getFullPath());
+			throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, root.getFullPath(), msg, e);
+		}
+		return true;
+	}
+
+	/**
+	 * All the markers of the given project or workspace root have been saved with
+	 * the given save number, so the marker journal is not needed anymore. The
+	 * journal does not apply to the new saved markers even if it cannot be deleted.
+	 */
+	public void markersSaved(IResource root, long saveNumber) throws CoreException {
+		String key = getSaveKey(root.getFullPath());
+		saveNumbers.put(key, saveNumber);
+		unsavedPaths.remove(key);
+		java.io.File journal = workspace.getMetaArea().getMarkersJournalLocationFor(root).toFile();
+		if (journal.exists())
+			journal.delete();
+		if (journal.exists()) {
+			String msg = Messages.resources_resetMarkers;
+			throw new ResourceException(IResourceStatus.FAILED_DELETE_METADATA, root.getFullPath(), msg, null);
+		}
 	}
 
 	@Override
@@ -580,6 +831,34 @@ public class MarkerManager implements IManager {
 		// do nothing
 	}
 
+	private Predicate<String> typeMatcher(String type, boolean includeSubtypes) {
+		if (type == null)
+			return markerType -> true;
+		if (includeSubtypes)
+			return markerType -> cache.isSubtype(markerType, type);
+		return type::equals;
+	}
+
+	/**
+	 * Updates the marker index for the given changes to the markers of the
+	 * resource at the given path, which has the given info.
+	 */
+	private void updateIndex(IPath path, ResourceInfo info, IMarkerSetElement[] changes) {
+		Set<String> removedTypes = null;
+		for (IMarkerSetElement change : changes) {
+			MarkerDelta delta = (MarkerDelta) change;
+			if (delta.getKind() == IResourceDelta.ADDED)
+				index.markerChanged(path, delta.info);
+			else if (delta.getKind() == IResourceDelta.REMOVED) {
+				if (removedTypes == null)
+					removedTypes = new HashSet<>();
+				removedTypes.add(delta.getType());
+			}
+		}
+		if (removedTypes != null)
+			index.markersRemoved(path, removedTypes, info == null ? null : info.getMarkers(false));
+	}
+
 	/**
 	 * Adds the markers for a subtree of resources to the list.
 	 */
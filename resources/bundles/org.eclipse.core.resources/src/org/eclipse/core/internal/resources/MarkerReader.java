@@ -26,6 +26,8 @@ import org.eclipse.osgi.util.NLS;
  */
 public class MarkerReader {
 	protected Workspace workspace;
+	/** The number of the save that wrote the markers, or 0 if unknown */
+	protected long saveNumber;
 
 	public MarkerReader(Workspace workspace) {
 		super();
@@ -43,6 +45,8 @@ public class MarkerReader {
 				return new MarkerReader_2(workspace);
 			case 3 :
 				return new MarkerReader_3(workspace);
+			case 4 :
+				return new MarkerReader_4(workspace);
 			default :
 				throw new IOException(NLS.bind(Messages.resources_format, formatVersion));
 		}
@@ -52,6 +56,15 @@ public class MarkerReader {
 		int formatVersion = readVersionNumber(input);
 		MarkerReader reader = getReader(formatVersion);
 		reader.read(input, generateDeltas);
+		saveNumber = reader.saveNumber;
+	}
+
+	/**
+	 * Returns the number of the save that wrote the markers that have been read,
+	 * or 0 if their format does not record it.
+	 */
+	public long getSaveNumber() {
+		return saveNumber;
 	}
 
 	protected static int readVersionNumber(DataInputStream input) throws IOException {
@@ -100,35 +100,28 @@ public class MarkerReader_3 extends MarkerReader {
 		}
 	}
 
-	private Map<String, Object> readAttributes(DataInputStream input) throws IOException {
+	private MarkerAttributeMap readAttributes(DataInputStream input) throws IOException {
 		int attributesSize = input.readShort();
-		if (attributesSize == 0)
-			return null;
-		Map<String, Object> result = new HashMap<>(attributesSize);
+		MarkerAttributeMap.Builder result = new MarkerAttributeMap.Builder();
 		for (int j = 0; j < attributesSize; j++) {
 			String key = input.readUTF();
 			byte type = input.readByte();
-			Object value = null;
 			switch (type) {
 				case ATTRIBUTE_INTEGER :
-					//canonicalize well known values (marker severity, task priority)
-					value = Integer.valueOf(input.readInt());
+					result.putInt(key, input.readInt());
 					break;
 				case ATTRIBUTE_BOOLEAN :
-					value = Boolean.valueOf(input.readBoolean());
+					result.putBoolean(key, input.readBoolean());
 					break;
 				case ATTRIBUTE_STRING :
-					value = input.readUTF();
+					result.put(key, input.readUTF());
 					break;
 				case ATTRIBUTE_NULL :
 					// do nothing
 					break;
 			}
-			if (value != null) {
-				result.put(key, value);
-			}
 		}
-		return result.isEmpty() ? null : result;
+		return result.build();
 	}
 
 	private MarkerInfo readMarkerInfo(DataInputStream input, List<String> readTypes) throws IOException, CoreException {
@@ -148,8 +141,8 @@ public class MarkerReader_3 extends MarkerReader {
 				String msg = Messages.resources_readMarkers;
 				throw new ResourceException(IResourceStatus.FAILED_READ_METADATA, null, msg, null);
 		}
-		Map<String, Object> map = readAttributes(input);
+		MarkerAttributeMap attributes = readAttributes(input);
 		long creationTime = input.readLong();
-		return new MarkerInfo(map, false, creationTime, type, id);
+		return new MarkerInfo(attributes, creationTime, type, id);
 	}
 }
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * This class is used to read markers from disk. This is for version 4, which
+ * starts with the number of the save that wrote the markers, and is otherwise
+ * the same as version 3.
+ */
+public class MarkerReader_4 extends MarkerReader_3 {
+
+	public MarkerReader_4(Workspace workspace) {
+		super(workspace);
+	}
+
+	/**
+	 * <pre> {@code
+	 * SAVE_FILE -> VERSION_ID SAVE_NUMBER RESOURCE+
+	 * VERSION_ID -> int
+	 * SAVE_NUMBER -> long
+	 * RESOURCE -> (see version 3)
+	 * }</pre>
+	 */
+	@Override
+	public void read(DataInputStream input, boolean generateDeltas) throws IOException, CoreException {
+		saveNumber = input.readLong();
+		super.read(input, generateDeltas);
+	}
+}
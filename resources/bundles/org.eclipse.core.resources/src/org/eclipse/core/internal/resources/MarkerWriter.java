@@ -20,6 +20,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.*;
 import org.eclipse.core.internal.watson.IPathRequestor;
+import org.eclipse.core.runtime.IPath;
 
 //
 public class MarkerWriter {
@@ -27,7 +28,7 @@ public class MarkerWriter {
 	protected MarkerManager manager;
 
 	// version numbers
-	public static final int MARKERS_SAVE_VERSION = 3;
+	public static final int MARKERS_SAVE_VERSION = 4;
 	public static final int MARKERS_SNAP_VERSION = 2;
 
 	// type constants
@@ -68,8 +69,9 @@ public class MarkerWriter {
 
 	/**
 	 * <pre> {@code
-	 * SAVE_FILE -> VERSION_ID RESOURCE+
+	 * SAVE_FILE -> VERSION_ID SAVE_NUMBER RESOURCE+
 	 * VERSION_ID -> int
+	 * SAVE_NUMBER -> long
 	 * RESOURCE -> RESOURCE_PATH MARKERS_SIZE MARKER+
 	 * RESOURCE_PATH -> String
 	 * MARKERS_SIZE -> int
@@ -89,7 +91,7 @@ public class MarkerWriter {
 	 * CREATION_TIME -> long
 	 * }</pre>
 	 */
-	public void save(ResourceInfo info, IPathRequestor requestor, DataOutputStream output, List<String> writtenTypes) throws IOException {
+	public void save(ResourceInfo info, IPathRequestor requestor, DataOutputStream output, List<String> writtenTypes, long saveNumber) throws IOException {
 		// phantom resources don't have markers
 		if (info.isSet(ICoreConstants.M_PHANTOM))
 			return;
@@ -103,9 +105,11 @@ public class MarkerWriter {
 		if (count == 0)
 			return;
 		// if this is the first set of markers that we have written, then
-		// write the version id for the file.
-		if (output.size() == 0)
+		// write the version id and the save number for the file.
+		if (output.size() == 0) {
 			output.writeInt(MARKERS_SAVE_VERSION);
+			output.writeLong(saveNumber);
+		}
 		boolean[] isPersistent = (boolean[]) result[1];
 		output.writeUTF(requestor.requestPath().toString());
 		output.writeInt(count);
@@ -148,14 +152,34 @@ public class MarkerWriter {
 		MarkerSet markers = info.getMarkers(false);
 		if (markers == null)
 			return;
-		IMarkerSetElement[] elements = markers.elements();
+		snap(markers.elements(), requestor.requestPath(), output);
+		info.clear(ICoreConstants.M_MARKERS_SNAP_DIRTY);
+	}
+
+	/**
+	 * Appends the markers of the resource at the given path to a marker journal,
+	 * in the snapshot format. Unlike a snapshot, the markers are written even if
+	 * they have not changed since the last snapshot, and an empty set of markers
+	 * is written if the resource does not exist anymore, so that the markers saved
+	 * before for that path are not restored.
+	 *
+	 * @param info the resource info, or <code>null</code> if the resource does not exist
+	 * @param path the path of the resource
+	 * @param output the journal output stream
+	 */
+	public void journal(ResourceInfo info, IPath path, DataOutputStream output) throws IOException {
+		MarkerSet markers = info == null || info.isSet(ICoreConstants.M_PHANTOM) ? null : info.getMarkers(false);
+		snap(markers == null ? new IMarkerSetElement[0] : markers.elements(), path, output);
+	}
+
+	private void snap(IMarkerSetElement[] elements, IPath path, DataOutputStream output) throws IOException {
 		// filter out the markers...determine if there are any persistent ones
 		Object[] result = filterMarkers(elements);
 		int count = ((Integer) result[0]).intValue();
 		// write the version id for the snapshot.
 		output.writeInt(MARKERS_SNAP_VERSION);
 		boolean[] isPersistent = (boolean[]) result[1];
-		output.writeUTF(requestor.requestPath().toString());
+		output.writeUTF(path.toString());
 		// always write out the count...even if its zero. this will help
 		// use pick up marker deletions from our snapshot.
 		output.writeInt(count);
@@ -163,37 +187,53 @@ public class MarkerWriter {
 		for (int i = 0; i < elements.length; i++)
 			if (isPersistent[i])
 				write((MarkerInfo) elements[i], output, writtenTypes);
-		info.clear(ICoreConstants.M_MARKERS_SNAP_DIRTY);
 	}
 
 	/*
 	 * Write out the given marker attributes to the given output stream.
 	 */
 	private void write(MarkerAttributeMap markerAttributeMap, DataOutputStream output) throws IOException {
-		output.writeShort(markerAttributeMap.size());
-		for (Map.Entry<String, Object> e : markerAttributeMap.entrySet()) {
-			String key = e.getKey();
-			output.writeUTF(key);
-			Object value = e.getValue();
-			if (value instanceof Integer) {
+		// write a snapshot, so that the size matches the attributes written
+		MarkerAttributeMap attributes = new MarkerAttributeMap(markerAttributeMap);
+		output.writeShort(attributes.size());
+		attributes.accept(new MarkerAttributeMap.IAttributeVisitor<IOException>() {
+			@Override
+			public void visitInt(String key, int value) throws IOException {
+				output.writeUTF(key);
 				output.writeByte(ATTRIBUTE_INTEGER);
-				output.writeInt(((Integer) value).intValue());
-				continue;
+				output.writeInt(value);
 			}
-			if (value instanceof Boolean) {
+
+			@Override
+			public void visitBoolean(String key, boolean value) throws IOException {
+				output.writeUTF(key);
 				output.writeByte(ATTRIBUTE_BOOLEAN);
-				output.writeBoolean(((Boolean) value).booleanValue());
-				continue;
+				output.writeBoolean(value);
 			}
-			if (value instanceof String) {
-				output.writeByte(ATTRIBUTE_STRING);
-				output.writeUTF((String) value);
-				continue;
+
+			@Override
+			public void visitObject(String key, Object value) throws IOException {
+				output.writeUTF(key);
+				if (value instanceof Integer) {
+					output.writeByte(ATTRIBUTE_INTEGER);
+					output.writeInt(((Integer) value).intValue());
+					return;
+				}
+				if (value instanceof Boolean) {
+					output.writeByte(ATTRIBUTE_BOOLEAN);
+					output.writeBoolean(((Boolean) value).booleanValue());
+					return;
+				}
+				if (value instanceof String) {
+					output.writeByte(ATTRIBUTE_STRING);
+					output.writeUTF((String) value);
+					return;
+				}
+				// otherwise we came across an attribute of an unknown type
+				// so just write out null since we don't know how to marshal it.
+				output.writeByte(ATTRIBUTE_NULL);
 			}
-			// otherwise we came across an attribute of an unknown type
-			// so just write out null since we don't know how to marshal it.
-			output.writeByte(ATTRIBUTE_NULL);
-		}
+		});
 	}
 
 	private void write(MarkerInfo info, DataOutputStream output, List<String> writtenTypes) throws IOException {
@@ -339,6 +339,7 @@ public class Project extends Container implements IProject {
 		clearHistory(null);
 		// Delete the project metadata.
 		workspace.getMetaArea().delete(this);
+		getMarkerManager().forgetProject(this);
 	}
 
 	@Override
@@ -628,6 +629,7 @@ public class Project extends Container implements IProject {
 			workspace.deleteResource(member);
 			subMonitor.worked(1);
 		}
+		getMarkerManager().forgetProject(this);
 		// finally mark the project as closed.
 		ResourceInfo info = getResourceInfo(false, true);
 		info.clear(M_OPEN);
@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Predicate;
+import org.eclipse.core.internal.localstore.SafeFileInputStream;
+import org.eclipse.core.internal.localstore.SafeFileOutputStream;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * The content descriptions of the files of one project that had to be
+ * obtained by reading the contents of the files. Unlike the in-memory cache
+ * of the content description manager, these survive restarts: they are
+ * saved in the meta area of the project and read back the first time a
+ * description of one of its files is requested.
+ * <p>
+ * An entry is only valid for the content it was read from, which is
+ * identified by the timestamp the content description manager keys its
+ * cache with, and by the local sync info of the file. The whole store is
+ * only valid for the generation of the content description cache it was
+ * written for; the content description manager starts a new generation
+ * each time it flushes all of its cached information, and each time the
+ * settings of a content type change.
+ * </p><p>
+ * At most {@link #MAX_ENTRIES} entries are kept, the least recently used
+ * ones are dropped first.
+ * </p>
+ *
+ * @see ContentDescriptionManager
+ */
+public class ProjectDescriptionCache {
+	private static final int VERSION = 1;
+
+	/**
+	 * The maximum number of entries kept, the least recently used ones are
+	 * dropped first.
+	 */
+	static final int MAX_ENTRIES = 10000;
+
+	/**
+	 * The content type, charset and byte order mark of one file.
+	 */
+	public static final class Entry {
+		private final long timestamp;
+		private final long localInfo;
+		private final String contentTypeId;
+		private final String charset;
+		private final String charsetProperty;
+		private final byte[] byteOrderMark;
+
+		public Entry(long timestamp, long localInfo, String contentTypeId, String charset, String charsetProperty, byte[] byteOrderMark) {
+			this.timestamp = timestamp;
+			this.localInfo = localInfo;
+			this.contentTypeId = contentTypeId;
+			this.charset = charset;
+			this.charsetProperty = charsetProperty;
+			this.byteOrderMark = byteOrderMark;
+		}
+
+		public byte[] getByteOrderMark() {
+			return byteOrderMark;
+		}
+
+		/**
+		 * Returns the charset of the file, as returned by
+		 * <code>IContentDescription#getCharset()</code>.
+		 */
+		public String getCharset() {
+			return charset;
+		}
+
+		/**
+		 * Returns the value of the <code>IContentDescription#CHARSET</code>
+		 * property of the description of the file.
+		 */
+		public String getCharsetProperty() {
+			return charsetProperty;
+		}
+
+		public String getContentTypeId() {
+			return contentTypeId;
+		}
+
+		public long getLocalInfo() {
+			return localInfo;
+		}
+
+		public long getTimestamp() {
+			return timestamp;
+		}
+	}
+
+	private final IPath projectPath;
+	private final Map<IPath, Entry> entries = new LinkedHashMap<IPath, Entry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IPath, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	private boolean dirty;
+
+	public ProjectDescriptionCache(IPath projectPath) {
+		this.projectPath = projectPath;
+	}
+
+	/**
+	 * Returns the entry for the file with the given path, if it is still valid
+	 * for the given content timestamp and local sync info, and
+	 * <code>null</code> otherwise.
+	 */
+	public synchronized Entry get(IPath path, long timestamp, long localInfo) {
+		Entry entry = entries.get(path);
+		if (entry == null || entry.timestamp != timestamp || entry.localInfo != localInfo)
+			return null;
+		return entry;
+	}
+
+	public synchronized boolean isDirty() {
+		return dirty;
+	}
+
+	/**
+	 * Makes sure the entries are written again, for instance because the file
+	 * they were read from is obsolete.
+	 */
+	public synchronized void setDirty() {
+		dirty = true;
+	}
+
+	public synchronized boolean isEmpty() {
+		return entries.isEmpty();
+	}
+
+	public synchronized void put(IPath path, Entry entry) {
+		entries.put(path, entry);
+		dirty = true;
+	}
+
+	public synchronized void remove(IPath path) {
+		if (entries.remove(path) != null)
+			dirty = true;
+	}
+
+	/**
+	 * Removes the entries matching the given predicate.
+	 */
+	public synchronized void removeIf(Predicate<Entry> filter) {
+		if (entries.values().removeIf(filter))
+			dirty = true;
+	}
+
+	/**
+	 * Removes the entries of the files whose path does not match the given
+	 * predicate.
+	 */
+	public synchronized void retainPaths(Predicate<IPath> filter) {
+		if (entries.keySet().removeIf(filter.negate()))
+			dirty = true;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Reads the entries saved in the given file. Entries saved for another
+	 * generation of the content description cache are ignored.
+	 */
+	public synchronized void read(java.io.File location, long generation) throws IOException {
+		if (!location.exists())
+			return;
+		try (DataInputStream input = new DataInputStream(new SafeFileInputStream(location))) {
+			if (input.readInt() != VERSION || input.readLong() != generation) {
+				// written by another version or for obsolete content type settings
+				dirty = true;
+				return;
+			}
+			int size = input.readInt();
+			for (int i = 0; i < size; i++) {
+				IPath path = projectPath.append(input.readUTF());
+				long timestamp = input.readLong();
+				long localInfo = input.readLong();
+				String contentTypeId = input.readUTF();
+				String charset = readString(input);
+				String charsetProperty = readString(input);
+				byte[] byteOrderMark = null;
+				int length = input.readByte();
+				if (length >= 0) {
+					byteOrderMark = new byte[length];
+					input.readFully(byteOrderMark);
+				}
+				entries.put(path, new Entry(timestamp, localInfo, contentTypeId, charset, charsetProperty, byteOrderMark));
+			}
+		} catch (EOFException e) {
+			// a truncated file, start over
+			entries.clear();
+			dirty = true;
+		}
+	}
+
+	private static String readString(DataInputStream input) throws IOException {
+		return input.readBoolean() ? input.readUTF() : null;
+	}
+
+	/**
+	 * Saves the entries to the given file, for the given generation of the
+	 * content description cache. Deletes the file if there is no entry.
+	 */
+	public synchronized void write(java.io.File location, long generation) throws IOException {
+		if (entries.isEmpty()) {
+			location.delete();
+			dirty = false;
+			return;
+		}
+		try (DataOutputStream output = new DataOutputStream(new SafeFileOutputStream(location))) {
+			output.writeInt(VERSION);
+			output.writeLong(generation);
+			output.writeInt(entries.size());
+			for (Map.Entry<IPath, Entry> each : entries.entrySet()) {
+				Entry entry = each.getValue();
+				output.writeUTF(each.getKey().removeFirstSegments(projectPath.segmentCount()).toString());
+				output.writeLong(entry.timestamp);
+				output.writeLong(entry.localInfo);
+				output.writeUTF(entry.contentTypeId);
+				writeString(output, entry.charset);
+				writeString(output, entry.charsetProperty);
+				if (entry.byteOrderMark == null)
+					output.writeByte(-1);
+				else {
+					output.writeByte(entry.byteOrderMark.length);
+					output.write(entry.byteOrderMark);
+				}
+			}
+		}
+		dirty = false;
+	}
+
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		output.writeBoolean(value != null);
+		if (value != null)
+			output.writeUTF(value);
+	}
+}
@@ -37,11 +37,12 @@ import org.eclipse.core.internal.watson.*;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.resources.team.IMoveDeleteHook;
 import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.IHierarchicalSchedulingRule;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.MultiRule;
 import org.eclipse.osgi.util.NLS;
 
-public abstract class Resource extends PlatformObject implements IResource, ICoreConstants, Cloneable, IPathRequestor {
+public abstract class Resource extends PlatformObject implements IResource, ICoreConstants, Cloneable, IPathRequestor, IHierarchicalSchedulingRule {
 	final IPath path;
 	final Workspace workspace;
 
@@ -1261,6 +1262,11 @@ public abstract class Resource extends PlatformObject implements IResource, ICor
 		return exists();
 	}
 
+	@Override
+	public IPath getRulePath() {
+		return path;
+	}
+
 	@Override
 	public boolean isConflicting(ISchedulingRule rule) {
 		if (this == rule)
@@ -425,6 +425,8 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 				temp = new ObjectMap<>(5);
 			else
 				temp = (ObjectMap<QualifiedName, Object>) sessionProperties.clone();
+			if (value instanceof String)
+				value = StringPool.getShared().add((String) value);
 			temp.put(name, value);
 			sessionProperties = temp;
 		}
@@ -29,20 +29,21 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.zip.*;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.internal.dtree.DeltaDataTree;
 import org.eclipse.core.internal.events.*;
 import org.eclipse.core.internal.localstore.*;
 import org.eclipse.core.internal.utils.*;
 import org.eclipse.core.internal.watson.*;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
-import org.eclipse.core.runtime.jobs.ISchedulingRule;
-import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.*;
 import org.eclipse.osgi.util.NLS;
 
 public class SaveManager implements IElementInfoFlattener, IManager, IStringPoolParticipant {
@@ -107,6 +108,23 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 */
 	protected int operationCount = 0;
 
+	/**
+	 * Decides when the element trees are compacted, see {@link #compactTreesIfNeeded()}.
+	 */
+	private final TreeCompactionPolicy compactionPolicy = new TreeCompactionPolicy();
+
+	/**
+	 * The tree of the last snapshot whose delta chain the compaction policy
+	 * currently measures.
+	 */
+	private ElementTree compactionBase;
+
+	/**
+	 * The lookup statistics of the delta trees at the last compaction.
+	 */
+	private long lookupsAtCompaction;
+	private long layersSearchedAtCompaction;
+
 	// Count up the time taken for all saves/snaps on markers and sync info
 	protected long persistMarkers = 0l;
 	protected long persistSyncInfo = 0l;
@@ -129,6 +147,21 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 
 	protected final DelayedSnapshotJob snapshotJob;
 
+	protected final TreeCompactionJob compactionJob;
+
+	/**
+	 * The open projects whose markers and sync info have not been restored
+	 * yet, see {@link #PROP_DEFER_PROJECT_STATE}.
+	 */
+	private final Set<IProject> deferredProjects = ConcurrentHashMap.newKeySet();
+
+	protected final DeferredRestoreJob deferredRestoreJob;
+
+	/**
+	 * Whether the thread owning the workspace lock is restoring deferred state
+	 */
+	private boolean restoringDeferredState;
+
 	protected volatile boolean snapshotRequested;
 	private IStatus snapshotRequestor;
 	protected Workspace workspace;
@@ -140,10 +173,28 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	private static final String DEBUG_SNAPSHOT = "Snapshot: "; //$NON-NLS-1$
 	private static final int TREE_BUFFER_SIZE = 1024 * 64;//64KB buffer
 
+	/**
+	 * System property selecting the compact format for the saved trees.
+	 * Workspaces saved in this format cannot be read by older versions.
+	 * @see ElementTreeWriter#COMPACT_FORMAT
+	 */
+	public static final String PROP_COMPACT_TREE_FORMAT = "org.eclipse.core.resources.save.compactTreeFormat"; //$NON-NLS-1$
+
+	/**
+	 * System property deferring the restore of the markers and sync info of
+	 * the open projects on startup. The state of a project is restored by the
+	 * first operation whose scheduling rule conflicts with the project, the
+	 * first access to its markers or sync info, or a background job, whichever
+	 * comes first.
+	 */
+	public static final String PROP_DEFER_PROJECT_STATE = "org.eclipse.core.resources.restore.deferProjectState"; //$NON-NLS-1$
+
 	public SaveManager(Workspace workspace) {
 		this.workspace = workspace;
 		this.masterTable = new MasterTable();
 		this.snapshotJob = new DelayedSnapshotJob(this, workspace);
+		this.compactionJob = new TreeCompactionJob(this, workspace);
+		this.deferredRestoreJob = new DeferredRestoreJob(this, workspace);
 		snapshotRequested = false;
 		snapshotRequestor = null;
 		saveParticipants = Collections.synchronizedMap(new HashMap<>(10));
@@ -312,6 +363,10 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			}
 		}
 
+		//the tree of the last snapshot
+		if (lastSnap != null)
+			trees.add(lastSnap);
+
 		//no need to collapse if there are no trees at this point
 		if (trees.isEmpty())
 			return;
@@ -554,6 +609,15 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		return info;
 	}
 
+	/**
+	 * Returns a writer for the trees to save, in the format selected by the
+	 * {@link #PROP_COMPACT_TREE_FORMAT} system property.
+	 */
+	private ElementTreeWriter newTreeWriter() {
+		int format = Boolean.getBoolean(PROP_COMPACT_TREE_FORMAT) ? ElementTreeWriter.COMPACT_FORMAT : ElementTreeWriter.CURRENT_FORMAT;
+		return new ElementTreeWriter(this, format);
+	}
+
 	private void rememberSnapshotRequestor() {
 		if (Policy.DEBUG_SAVE)
 			Policy.debug(new RuntimeException("Scheduling workspace snapshot")); //$NON-NLS-1$
@@ -692,6 +756,110 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			resetSnapshots(project);
 	}
 
+	/**
+	 * Defers the restore of the markers and sync info of the open projects.
+	 * @see #PROP_DEFER_PROJECT_STATE
+	 */
+	private void deferProjectState() {
+		for (IProject project : workspace.getRoot().getProjects(IContainer.INCLUDE_HIDDEN))
+			if (project.isAccessible())
+				deferredProjects.add(project);
+	}
+
+	/**
+	 * Returns the projects whose markers and sync info have not been restored yet.
+	 */
+	protected IProject[] getDeferredProjects() {
+		return deferredProjects.toArray(new IProject[0]);
+	}
+
+	/**
+	 * Schedules the background restore of the markers and sync info of the
+	 * projects whose restore was deferred on startup.
+	 */
+	protected void scheduleDeferredRestore() {
+		if (!deferredProjects.isEmpty())
+			deferredRestoreJob.schedule();
+	}
+
+	/**
+	 * Restores the markers and sync info of the projects conflicting with the
+	 * given rule whose restore was deferred on startup. The state is restored
+	 * synchronously, under the workspace lock, which is acquired if the calling
+	 * thread does not own it yet. Unlike a scheduling rule, the workspace lock
+	 * is not held while clients run, and waiting for it is visible to the
+	 * deadlock detection of the job manager.
+	 * @see #PROP_DEFER_PROJECT_STATE
+	 */
+	public void restoreDeferredState(ISchedulingRule rule) {
+		if (rule == null || deferredProjects.isEmpty())
+			return;
+		List<IProject> projects = new ArrayList<>();
+		for (IProject project : deferredProjects)
+			if (rule.isConflicting(project))
+				projects.add(project);
+		if (projects.isEmpty())
+			return;
+		ILock lock;
+		try {
+			lock = workspace.getWorkManager().getLock();
+		} catch (CoreException e) {
+			Policy.log(e.getStatus());
+			return;
+		}
+		lock.acquire();
+		try {
+			restoreProjectState(projects);
+		} finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * Restores the markers and sync info of the given projects. The calling
+	 * thread must own the workspace lock.
+	 */
+	private void restoreProjectState(List<IProject> projects) {
+		if (restoringDeferredState)
+			return;
+		restoringDeferredState = true;
+		boolean immutable = workspace.getElementTree().isImmutable();
+		if (immutable)
+			workspace.newWorkingTree();
+		try {
+			for (IProject project : projects) {
+				if (!deferredProjects.contains(project))
+					continue;
+				try {
+					restoreMarkers(project, true, Policy.monitorFor(null));
+				} catch (CoreException e) {
+					Policy.log(e.getStatus());
+				}
+				try {
+					restoreSyncInfo(project, Policy.monitorFor(null));
+				} catch (CoreException e) {
+					Policy.log(e.getStatus());
+				}
+				deferredProjects.remove(project);
+			}
+		} finally {
+			if (immutable)
+				workspace.getElementTree().immutable();
+			restoringDeferredState = false;
+		}
+	}
+
+	/**
+	 * Restores the index of the directories synchronized by refreshes, unless
+	 * the workspace crashed, in which case the restored tree may not match it.
+	 */
+	protected void restoreFileInfoIndex() {
+		FileInfoIndex index = workspace.getFileSystemManager().getFileInfoIndex();
+		if (index == null || workspace.isCrashed())
+			return;
+		index.restore(workspace.getMetaArea().getFileInfoIndexLocation(), masterTable.getProperty(ROOT_SEQUENCE_NUMBER_KEY));
+	}
+
 	/**
 	 * Restores the state of this workspace by opening the projects
 	 * which were open when it was last saved.
@@ -714,6 +882,9 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				// restore the saved tree and overlay the snapshots if any
 				restoreTree(Policy.subMonitorFor(monitor, 10));
 				restoreSnapshots(Policy.subMonitorFor(monitor, 10));
+				restoreFileInfoIndex();
+				if (Boolean.getBoolean(PROP_DEFER_PROJECT_STATE) && !workspace.isCrashed())
+					deferProjectState();
 
 				// tolerate failure for non-critical information
 				// if startup fails, the entire workspace is shot
@@ -832,7 +1003,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		}
 		IProject[] projects = ((IWorkspaceRoot) resource).getProjects(IContainer.INCLUDE_HIDDEN);
 		for (IProject project : projects)
-			if (project.isAccessible())
+			if (project.isAccessible() && !deferredProjects.contains(project))
 				markerManager.restore(project, generateDeltas, monitor);
 		if (Policy.DEBUG_RESTORE_MARKERS) {
 			Policy.debug("Restore Markers for workspace: " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1020,7 +1191,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		}
 		IProject[] projects = ((IWorkspaceRoot) resource).getProjects(IContainer.INCLUDE_HIDDEN);
 		for (IProject project : projects)
-			if (project.isAccessible())
+			if (project.isAccessible() && !deferredProjects.contains(project))
 				synchronizer.restore(project, monitor);
 		if (Policy.DEBUG_RESTORE_SYNCINFO) {
 			Policy.debug("Restore SyncInfo for workspace: " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1173,6 +1344,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 						case ISaveContext.FULL_SAVE :
 							// save the complete tree and remember all of the required saved states
 							saveTree(contexts, Policy.subMonitorFor(monitor, 1));
+							saveFileInfoIndex(warnings);
 							// reset the snapshot state.
 							initSnap(null);
 							snapshotRequestor = null;
@@ -1296,6 +1468,8 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		long start = System.currentTimeMillis();
 		// save preferences (workspace description, path variables, etc)
 		ResourcesPlugin.getPlugin().savePluginPreferences();
+		// save the content descriptions read since the last save
+		workspace.getContentDescriptionManager().saveProjectCaches();
 		// save projects' meta info
 		IProject[] roots = workspace.getRoot().getProjects(IContainer.INCLUDE_HIDDEN);
 		for (IProject root : roots)
@@ -1403,6 +1577,23 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			Policy.debug("Save Workspace Tree: " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
+	/**
+	 * Writes the index of the directories synchronized by refreshes, tagged
+	 * with the sequence number of the tree that has just been saved.
+	 */
+	protected void saveFileInfoIndex(MultiStatus warnings) {
+		FileInfoIndex index = workspace.getFileSystemManager().getFileInfoIndex();
+		if (index == null)
+			return;
+		IPath location = workspace.getMetaArea().getFileInfoIndexLocation();
+		try {
+			index.save(location, masterTable.getProperty(ROOT_SEQUENCE_NUMBER_KEY));
+		} catch (IOException e) {
+			String msg = NLS.bind(Messages.resources_writeWorkspaceMeta, location);
+			warnings.add(new ResourceStatus(IStatus.WARNING, IResourceStatus.FAILED_WRITE_METADATA, null, msg, e));
+		}
+	}
+
 	/**
 	 * Should only be used for read purposes.
 	 */
@@ -1430,6 +1621,80 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			snapshotJob.run(SubMonitor.convert(monitor));
 		// cancel the snapshot job
 		snapshotJob.cancel();
+		compactionJob.cancel();
+		deferredRestoreJob.cancel();
+	}
+
+	/**
+	 * Collapses the element trees that are still in use onto each other, so
+	 * that lookups in older trees no longer search the layers created between
+	 * them that are not used anymore. Unlike a snapshot, nothing is written.
+	 */
+	protected void compactTrees(IProgressMonitor monitor) throws CoreException {
+		ISchedulingRule rule = workspace.getRoot();
+		try {
+			workspace.prepareOperation(rule, monitor);
+			workspace.beginOperation(false);
+			ElementTree snap = lastSnap;
+			if (snap == null)
+				return;
+			long start = System.currentTimeMillis();
+			int depth = snap.getChainDepth();
+			collapseTrees(Collections.emptyMap());
+			int compactedDepth = snap.getChainDepth();
+			getCompactionPolicy(snap).compacted(depth, compactedDepth);
+			if (Policy.DEBUG_SAVE_TREE)
+				Policy.debug("Compact Workspace Tree: depth " + depth + " -> " + compactedDepth + ", " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						+ getAverageLayersSearched() + " layers searched per lookup: " //$NON-NLS-1$
+						+ (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$
+			lookupsAtCompaction = DeltaDataTree.getLookupCount();
+			layersSearchedAtCompaction = DeltaDataTree.getLayersSearchedCount();
+		} finally {
+			workspace.endOperation(rule, false);
+		}
+	}
+
+	/**
+	 * Schedules the compaction of the element trees if the delta chain below
+	 * the tree of the last snapshot has grown by enough layers since the last
+	 * compaction, or if lookups have searched many layers since then. Layers pile up between
+	 * snapshots, and lookups in older trees, as done to compute deltas, have
+	 * to search all of them.
+	 * This should be called at the end of every top level operation.
+	 */
+	public void compactTreesIfNeeded() {
+		// a save collapses the trees anyway
+		if (isSaving || compactionJob.getState() != Job.NONE)
+			return;
+		ElementTree snap = lastSnap;
+		if (snap == null)
+			return;
+		if (getCompactionPolicy(snap).isCompactionNeeded(snap.getChainDepth(), getAverageLayersSearched()))
+			compactionJob.schedule();
+	}
+
+	/**
+	 * Returns the compaction policy, measuring the delta chain below the given
+	 * tree of the last snapshot.
+	 */
+	private TreeCompactionPolicy getCompactionPolicy(ElementTree snap) {
+		if (snap != compactionBase) {
+			// a snapshot started a new chain
+			compactionBase = snap;
+			compactionPolicy.reset();
+		}
+		return compactionPolicy;
+	}
+
+	/**
+	 * Returns the average number of tree layers searched per lookup since the
+	 * last compaction.
+	 */
+	private double getAverageLayersSearched() {
+		long lookups = DeltaDataTree.getLookupCount() - lookupsAtCompaction;
+		if (lookups <= 0)
+			return 0;
+		return (double) (DeltaDataTree.getLayersSearchedCount() - layersSearchedAtCompaction) / lookups;
 	}
 
 	/**
@@ -1480,7 +1745,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				return;
 			operationCount = 0;
 			IPath snapPath = workspace.getMetaArea().getSnapshotLocationFor(workspace.getRoot());
-			ElementTreeWriter writer = new ElementTreeWriter(this);
+			ElementTreeWriter writer = newTreeWriter();
 			java.io.File localFile = snapPath.toFile();
 			try {
 				SafeChunkyOutputStream safeStream = new SafeChunkyOutputStream(localFile);
@@ -1682,9 +1947,14 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		DataOutputStream o2 = null;
 		String message;
 
+		// only journal the changed markers, unless the journal should be folded into the saved markers
+		final boolean markersJournaled = markerManager.saveJournal(root);
+		final long markersSaveNumber = markerManager.newSaveNumber(root);
+
 		// Create the output streams
 		try {
-			o1 = new DataOutputStream(new SafeFileOutputStream(markersLocation.toOSString(), markersTempLocation.toOSString()));
+			if (!markersJournaled)
+				o1 = new DataOutputStream(new SafeFileOutputStream(markersLocation.toOSString(), markersTempLocation.toOSString()));
 			// we don't store the sync info for the workspace root so don't create
 			// an empty file
 			if (root.getType() != IResource.ROOT)
@@ -1709,12 +1979,14 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			ResourceInfo info = (ResourceInfo) elementContents;
 			if (info != null) {
 				try {
-					// save the markers
+					// save the markers, unless they have been journaled
 					long start = System.currentTimeMillis();
-					markerManager.save(info, requestor, markersOutput, writtenTypes);
-					long markerSaveTime = System.currentTimeMillis() - start;
-					saveTimes[0] += markerSaveTime;
-					persistMarkers += markerSaveTime;
+					if (markersOutput != null) {
+						markerManager.save(info, requestor, markersOutput, writtenTypes, markersSaveNumber);
+						long markerSaveTime = System.currentTimeMillis() - start;
+						saveTimes[0] += markerSaveTime;
+						persistMarkers += markerSaveTime;
+					}
 					// save the sync info - if we have the workspace root then the output stream will be null
 					if (syncInfoOutput != null) {
 						start = System.currentTimeMillis();
@@ -1742,14 +2014,18 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				Policy.debug("Save Markers for " + root.getFullPath() + ": " + saveTimes[0] + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			if (Policy.DEBUG_SAVE_SYNCINFO)
 				Policy.debug("Save SyncInfo for " + root.getFullPath() + ": " + saveTimes[1] + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-			removeGarbage(markersOutput, markersLocation, markersTempLocation);
+			if (markersOutput != null)
+				removeGarbage(markersOutput, markersLocation, markersTempLocation);
 			// if we have the workspace root the output stream will be null and we
 			// don't have to perform cleanup code
 			if (syncInfoOutput != null) {
 				removeGarbage(syncInfoOutput, syncInfoLocation, syncInfoTempLocation);
 				syncInfoOutput.close();
 			}
-			markersOutput.close();
+			if (markersOutput != null) {
+				markersOutput.close();
+				markerManager.markersSaved(root, markersSaveNumber);
+			}
 		} catch (IOException e) {
 			message = NLS.bind(Messages.resources_writeMeta, root.getFullPath());
 			throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, root.getFullPath(), message, e);
@@ -1922,6 +2198,15 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		}
 	}
 
+	/**
+	 * Writes out the wall time of the last run of the given builders, in
+	 * milliseconds, as a long for each builder, or -1 if unknown.
+	 */
+	private void writeBuildDurations(DataOutputStream output, List<BuilderPersistentInfo> builders) throws IOException {
+		for (BuilderPersistentInfo info : builders)
+			output.writeLong(info.getLastBuildDuration());
+	}
+
 	@Override
 	public void writeElement(IPath path, Object element, DataOutput output) throws IOException {
 		Assert.isNotNull(path);
@@ -1991,6 +2276,8 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 * <li> And since 3.7: </li>
 	 * <li> Builder info for all the builders of all the other project's buildConfigs </li>
 	 * <li> The names of the buildConfigs for each of the builders </li>
+	 * <li> And since 3.19: </li>
+	 * <li> The last build duration of each of the builders </li>
 	 * </ul>
 	 * This format is designed to work with WorkspaceTreeReader versions 2.
 	 *
@@ -2044,7 +2331,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			trees.add(current);
 
 			/* save the forest! */
-			ElementTreeWriter writer = new ElementTreeWriter(this);
+			ElementTreeWriter writer = newTreeWriter();
 			ElementTree[] treesToSave = trees.toArray(new ElementTree[trees.size()]);
 			writer.writeDeltaChain(treesToSave, Path.ROOT, ElementTreeWriter.D_INFINITE, output,
 					ResourceComparator.getSaveComparator());
@@ -2058,6 +2345,10 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				output.writeUTF(string);
 			for (String string : additionalConfigNames)
 				output.writeUTF(string);
+
+			// Since 3.19: Save the last build durations for the builders in the order they were saved
+			writeBuildDurations(output, builderInfos);
+			writeBuildDurations(output, additionalBuilderInfos);
 		} finally {
 			subMonitor.done();
 			if (!wasImmutable)
@@ -2076,6 +2367,8 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 * <li> Since 3.7: </li>
 	 * <li> Builder info for all the builders of all the other project's buildConfigs </li>
 	 * <li> Name of the project's buildConfigs </li>
+	 * <li> Since 3.19: </li>
+	 * <li> The last build duration of each of the builders </li>
 	 * </ul>
 	 * This format is designed to work with WorkspaceTreeReader versions 2.
 	 *
@@ -2116,7 +2409,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			trees.add(current);
 
 			// Save the trees
-			ElementTreeWriter writer = new ElementTreeWriter(this);
+			ElementTreeWriter writer = newTreeWriter();
 			ElementTree[] treesToSave = trees.toArray(new ElementTree[trees.size()]);
 			writer.writeDeltaChain(treesToSave, project.getFullPath(), ElementTreeWriter.D_INFINITE, output,
 					ResourceComparator.getSaveComparator());
@@ -2131,6 +2424,10 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				output.writeUTF(string);
 			for (String string : additionalConfigNames)
 				output.writeUTF(string);
+
+			// Since 3.19: Save the last build durations for the builders in the order they were saved
+			writeBuildDurations(output, builderInfos);
+			writeBuildDurations(output, additionalBuilderInfos);
 		} finally {
 			subMonitor.done();
 			if (!wasImmutable)
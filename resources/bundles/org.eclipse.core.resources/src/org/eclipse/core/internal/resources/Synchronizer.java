@@ -48,6 +48,7 @@ public class Synchronizer implements ISynchronizer {
 			throws CoreException {
 		Assert.isLegal(partner != null);
 		Assert.isLegal(resource != null);
+		workspace.getSaveManager().restoreDeferredState(resource);
 		Assert.isLegal(visitor != null);
 
 		// if we don't have sync info for the given identifier, then skip it
@@ -120,6 +121,7 @@ public class Synchronizer implements ISynchronizer {
 	public byte[] getSyncInfo(QualifiedName partner, IResource resource) throws CoreException {
 		Assert.isLegal(partner != null);
 		Assert.isLegal(resource != null);
+		workspace.getSaveManager().restoreDeferredState(resource);
 
 		if (!isRegistered(partner)) {
 			String message = NLS.bind(Messages.synchronizer_partnerNotRegistered, partner);
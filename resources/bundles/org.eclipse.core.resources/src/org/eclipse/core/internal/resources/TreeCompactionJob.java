@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Compacts the element trees of the workspace when their delta chains have
+ * grown deep between snapshots.
+ * @see SaveManager#compactTreesIfNeeded()
+ */
+public class TreeCompactionJob extends Job {
+
+	private final SaveManager saveManager;
+	private final Workspace workspace;
+
+	public TreeCompactionJob(SaveManager manager, Workspace workspace) {
+		super(Messages.resources_compactingTrees);
+		this.saveManager = manager;
+		this.workspace = workspace;
+		setRule(workspace.getRoot());
+		setPriority(DECORATE);
+		setSystem(true);
+	}
+
+	@Override
+	public IStatus run(IProgressMonitor monitor) {
+		if (monitor.isCanceled())
+			return Status.CANCEL_STATUS;
+		if (!workspace.isOpen())
+			return Status.OK_STATUS;
+		try {
+			saveManager.compactTrees(monitor);
+		} catch (CoreException e) {
+			return e.getStatus();
+		}
+		return Status.OK_STATUS;
+	}
+}
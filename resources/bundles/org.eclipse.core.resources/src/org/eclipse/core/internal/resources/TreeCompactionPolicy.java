@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+/**
+ * Decides when the element trees are compacted, based on the depth of the
+ * delta chain below the tree of the last snapshot. Only the layers added
+ * since the last compaction of that chain are counted: the layers a
+ * compaction left behind are still in use, and compacting them again would
+ * not change anything.
+ * <p>
+ * The number of new layers at which the trees are compacted adapts. It is
+ * doubled, up to {@link #MAX_COMPACTION_DEPTH}, while compactions fail to
+ * remove at least half of the new layers, and falls back to
+ * {@link #MIN_COMPACTION_DEPTH} once they do.
+ * </p>
+ * @see SaveManager#compactTreesIfNeeded()
+ */
+public class TreeCompactionPolicy {
+	/**
+	 * The bounds of the number of new layers at which the trees are compacted.
+	 */
+	public static final int MIN_COMPACTION_DEPTH = 32;
+	public static final int MAX_COMPACTION_DEPTH = 1024;
+
+	/**
+	 * The average number of tree layers searched per lookup above which the
+	 * trees are compacted as soon as there are the minimum number of new layers.
+	 */
+	public static final double SLOW_LOOKUP_LAYERS = 3.0;
+
+	/**
+	 * The number of new layers at which the trees are next compacted
+	 */
+	private int compactionDepth = MIN_COMPACTION_DEPTH;
+
+	/**
+	 * The depth of the chain left by the last compaction
+	 */
+	private int compactedDepth;
+
+	/**
+	 * Returns whether the trees should be compacted, given the current depth
+	 * of the chain and the average number of layers searched per lookup since
+	 * the last compaction.
+	 */
+	public synchronized boolean isCompactionNeeded(int depth, double layersSearched) {
+		int newLayers = depth - compactedDepth;
+		return newLayers >= compactionDepth || (newLayers >= MIN_COMPACTION_DEPTH && layersSearched > SLOW_LOOKUP_LAYERS);
+	}
+
+	/**
+	 * Records a compaction that shortened the chain from the given depth to
+	 * the given depth.
+	 */
+	public synchronized void compacted(int depth, int newDepth) {
+		int newLayers = depth - compactedDepth;
+		if (depth - newDepth < newLayers / 2)
+			// the new layers are still in use: wait for more of them before trying again
+			compactionDepth = Math.min(compactionDepth * 2, MAX_COMPACTION_DEPTH);
+		else
+			compactionDepth = MIN_COMPACTION_DEPTH;
+		compactedDepth = newDepth;
+	}
+
+	/**
+	 * Returns the number of new layers at which the trees are next compacted.
+	 */
+	public synchronized int getCompactionDepth() {
+		return compactionDepth;
+	}
+
+	/**
+	 * Forgets the last compaction, because a snapshot started a new chain.
+	 */
+	public synchronized void reset() {
+		compactedDepth = 0;
+	}
+}
@@ -33,6 +33,7 @@ import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.filesystem.URIUtil;
 import org.eclipse.core.internal.events.*;
+import org.eclipse.core.internal.localstore.FileInfoIndex;
 import org.eclipse.core.internal.localstore.FileSystemResourceManager;
 import org.eclipse.core.internal.preferences.PreferencesService;
 import org.eclipse.core.internal.properties.IPropertyManager;
@@ -150,11 +151,6 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 	 */
 	protected boolean shouldValidate = true;
 
-	/**
-	 * Job that performs periodic string pool canonicalization.
-	 */
-	private StringPoolJob stringPoolJob;
-
 	/**
 	 * The synchronizer
 	 */
@@ -335,6 +331,11 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		notificationManager.addListener(listener, eventMask);
 	}
 
+	@Override
+	public void addResourceChangeListener(IResourceChangeListener listener, int eventMask, ResourceChangeFilter filter) {
+		notificationManager.addListener(listener, eventMask, Objects.requireNonNull(filter));
+	}
+
 	/**
 	 * @deprecated Use {@link #addSaveParticipant(String, ISaveParticipant)} instead
 	 */
@@ -624,7 +625,8 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		SubMonitor newChild = subMonitor.newChild(1);
 		try {
 			try {
-				stringPoolJob.cancel();
+				if (Policy.DEBUG_STRINGS)
+					Policy.debug("String sharing saved " + StringPool.getShared().getSavedStringCount() + " bytes"); //$NON-NLS-1$ //$NON-NLS-2$
 				// stop accepting refresh tasks & doing refresh
 				refreshManager.shutdown(null);
 				//shutdown save manager now so a last snapshot can be taken before we close
@@ -1514,6 +1516,7 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 				broadcastPostChange();
 				// Request a snapshot if we are sufficiently out of date.
 				saveManager.snapshotIfNeeded(hasTreeChanges);
+				saveManager.compactTreesIfNeeded();
 			} finally {
 				// make sure the tree is immutable if we are ending a top-level operation.
 				if (depthOne) {
@@ -1525,8 +1528,16 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		} finally {
 			workManager.checkOut(rule);
 		}
-		if (depthOne)
+		if (depthOne) {
 			buildManager.endTopLevel(hasTreeChanges);
+			// write behind the property changes made during the operation
+			try {
+				propertyManager.flush();
+			} catch (CoreException e) {
+				// the changes are written again by the next flush
+				Policy.log(e.getStatus());
+			}
+		}
 	}
 
 	/**
@@ -2253,17 +2264,18 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		// restart the notification manager so it is initialized with the right tree
 		notificationManager.startup(null);
 		openFlag = true;
+		saveManager.scheduleDeferredRestore();
 		if (crashed || refreshRequested()) {
 			try {
+				FileInfoIndex fileInfoIndex = fileSystemManager.getFileInfoIndex();
+				if (fileInfoIndex != null && !crashed)
+					fileInfoIndex.requestStartupRefresh();
 				refreshManager.refresh(getRoot());
 			} catch (RuntimeException e) {
 				//don't fail entire open if refresh failed, just report as warning
 				return new ResourceStatus(IResourceStatus.INTERNAL_ERROR, Path.ROOT, Messages.resources_errorMultiRefresh, e);
 			}
 		}
-		//finally register a string pool participant
-		stringPoolJob = new StringPoolJob();
-		stringPoolJob.addStringPoolParticipant(saveManager, getRoot());
 		return Status.OK_STATUS;
 	}
 
@@ -2333,6 +2345,7 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 			String message = Messages.resources_workspaceClosed;
 			throw new ResourceException(IResourceStatus.OPERATION_FAILED, null, message, null);
 		}
+		saveManager.restoreDeferredState(rule);
 	}
 
 	protected boolean refreshRequested() {
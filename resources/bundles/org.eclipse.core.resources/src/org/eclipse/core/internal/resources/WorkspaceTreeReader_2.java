@@ -124,6 +124,12 @@ public class WorkspaceTreeReader_2 extends WorkspaceTreeReader_1 {
 					builderPersistentInfo.setConfigName(input.readUTF());
 			}
 
+			// Since 3.19: Read the last build durations if available
+			if (input.available() > 0) {
+				for (BuilderPersistentInfo builderPersistentInfo : builderInfos)
+					builderPersistentInfo.setLastBuildDuration(input.readLong());
+			}
+
 			// Set the builder infos on the projects
 			setBuilderInfos(builderInfos);
 
@@ -172,6 +178,12 @@ public class WorkspaceTreeReader_2 extends WorkspaceTreeReader_1 {
 					builderPersistentInfo.setConfigName(input.readUTF());
 			}
 
+			// Since 3.19: Read the last build durations if available
+			if (input.available() > 0) {
+				for (BuilderPersistentInfo builderPersistentInfo : builderInfos)
+					builderPersistentInfo.setLastBuildDuration(input.readLong());
+			}
+
 			// Set the builder info on the projects
 			setBuilderInfos(builderInfos);
 
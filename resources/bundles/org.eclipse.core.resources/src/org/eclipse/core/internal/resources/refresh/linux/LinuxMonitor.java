@@ -0,0 +1,469 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources.refresh.linux;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.internal.utils.Policy;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.resources.refresh.IRefreshMonitor;
+import org.eclipse.core.resources.refresh.IRefreshResult;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+import org.osgi.framework.Bundle;
+
+/**
+ * A monitor that works on Linux platforms. Every directory below a monitored
+ * root is registered with an inotify backed {@link WatchService}. Events are
+ * coalesced for a short period of time and then reported to the refresh
+ * manager as a minimal set of resources to refresh.
+ * <p>
+ * If the kernel runs out of watch descriptors while a root is installed, the
+ * root is rejected so that the polling monitor takes over. If that happens
+ * later on, for example because a large directory tree was created below a
+ * monitored root, the root is reported as failed to the refresh manager.
+ */
+class LinuxMonitor extends Job implements IRefreshMonitor {
+	/**
+	 * The delay between invocations of the monitor job.
+	 */
+	private static final long RESCHEDULE_DELAY = 1000;
+	/**
+	 * The time to wait for the first event of a batch.
+	 */
+	private static final long WAIT_FOR_EVENTS_TIMEOUT = 1000;
+	/**
+	 * The quiet period after which a batch of events is considered complete.
+	 */
+	private static final long COALESCE_DELAY = 100;
+	/**
+	 * The maximum time spent collecting a single batch of events.
+	 */
+	private static final long MAX_COALESCE_DURATION = 2000;
+	/**
+	 * The number of changed children of a single container above which the
+	 * container is refreshed instead of the individual children.
+	 */
+	private static final int MAX_CHANGED_CHILDREN = 64;
+	private static final String DEBUG_PREFIX = "LinuxRefreshMonitor: "; //$NON-NLS-1$
+
+	/**
+	 * Any errors that have occurred
+	 */
+	protected MultiStatus errors;
+	protected final IRefreshResult refreshResult;
+	/**
+	 * The watch service, or <code>null</code> if no resource is monitored.
+	 * This field is guarded by <code>this</code>.
+	 */
+	private WatchService watchService;
+	/**
+	 * Mapping of watch keys to the directory they have been registered for.
+	 * This field is guarded by <code>this</code>.
+	 */
+	private final Map<WatchKey, Path> watchedDirectories;
+	/**
+	 * Mapping of monitored root resources to their local location.
+	 * This field is guarded by <code>this</code>.
+	 */
+	private final Map<IResource, Path> roots;
+
+	/*
+	 * Creates a new monitor. @param result A result that will receive refresh
+	 * callbacks and error notifications
+	 */
+	public LinuxMonitor(IRefreshResult result) {
+		super(Messages.LM_jobName);
+		this.refreshResult = result;
+		setPriority(Job.DECORATE);
+		setSystem(true);
+		watchedDirectories = new HashMap<>();
+		roots = new HashMap<>(1);
+	}
+
+	/**
+	 * Logs an exception
+	 */
+	protected synchronized void addException(String message, Throwable exception) {
+		if (errors == null) {
+			String msg = Messages.LM_errors;
+			errors = new MultiStatus(ResourcesPlugin.PI_RESOURCES, 1, msg, null);
+		}
+		errors.add(new Status(IStatus.ERROR, ResourcesPlugin.PI_RESOURCES, 1, message, exception));
+	}
+
+	/**
+	 * Adds a resource to be monitored by this native monitor
+	 */
+	public boolean monitor(IResource resource) {
+		IPath location = resource.getLocation();
+		if (location == null) {
+			// cannot monitor remotely managed containers
+			return false;
+		}
+		Path root = location.toFile().toPath();
+		// synchronized: registration of the whole tree must be atomic
+		synchronized (this) {
+			if (roots.containsKey(resource))
+				return true;
+			List<WatchKey> added = new ArrayList<>();
+			try {
+				if (watchService == null)
+					watchService = FileSystems.getDefault().newWatchService();
+				registerTree(root, added);
+			} catch (IOException e) {
+				// most likely out of inotify watches: undo the partial
+				// registration, the polling monitor will take over
+				cancelKeys(added);
+				if (roots.isEmpty())
+					closeWatchService();
+				if (Policy.DEBUG_AUTO_REFRESH)
+					Policy.debug(DEBUG_PREFIX + " failed to monitor: " + resource + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+				return false;
+			}
+			roots.put(resource, root);
+		}
+		//make sure the job is running
+		schedule(RESCHEDULE_DELAY);
+		if (Policy.DEBUG_AUTO_REFRESH)
+			Policy.debug(DEBUG_PREFIX + " added monitor for: " + resource); //$NON-NLS-1$
+		return true;
+	}
+
+	/**
+	 * Registers the given directory and all directories below it with the
+	 * watch service. Keys that have not been registered before are added to
+	 * the given list. Directories that vanish or cannot be read while walking
+	 * the tree are skipped, any other failure aborts the registration.
+	 */
+	private void registerTree(Path start, final List<WatchKey> added) throws IOException {
+		Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				WatchKey key;
+				try {
+					key = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+				} catch (NoSuchFileException | AccessDeniedException e) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				if (watchedDirectories.put(key, dir) == null)
+					added.add(key);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException exc) {
+				// unreadable entries and symbolic link cycles are not monitored
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private void cancelKeys(Collection<WatchKey> keys) {
+		for (WatchKey key : keys) {
+			watchedDirectories.remove(key);
+			key.cancel();
+		}
+	}
+
+	private void closeWatchService() {
+		if (watchService == null)
+			return;
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			addException(NLS.bind(Messages.LM_errClose, e.getMessage()), e);
+		}
+		watchService = null;
+		watchedDirectories.clear();
+	}
+
+	/*
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		long start = -System.currentTimeMillis();
+		if (Policy.DEBUG_AUTO_REFRESH)
+			Policy.debug(DEBUG_PREFIX + "job started."); //$NON-NLS-1$
+		Changes changes = new Changes();
+		try {
+			WatchService service;
+			synchronized (this) {
+				service = watchService;
+			}
+			if (service != null)
+				collectChanges(service, changes, monitor);
+		} finally {
+			start += System.currentTimeMillis();
+			if (Policy.DEBUG_AUTO_REFRESH)
+				Policy.debug(DEBUG_PREFIX + "job finished in: " + start + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		changes.post();
+		//always reschedule the job - so it will come back after errors or cancelation
+		final Bundle bundle = Platform.getBundle(ResourcesPlugin.PI_RESOURCES);
+		//if the bundle is null then the framework has shutdown - just bail out completely (bug 98219)
+		if (bundle == null)
+			return Status.OK_STATUS;
+		//don't reschedule the job if the resources plugin has been shut down
+		if (bundle.getState() == Bundle.ACTIVE)
+			schedule(RESCHEDULE_DELAY);
+		MultiStatus result = errors;
+		errors = null;
+		//just log native refresh failures
+		if (result != null && !result.isOK())
+			ResourcesPlugin.getPlugin().getLog().log(result);
+		return Status.OK_STATUS;
+	}
+
+	/**
+	 * Waits for the first event and then keeps collecting events until no
+	 * event has arrived for {@link #COALESCE_DELAY} milliseconds, so that
+	 * event storms such as a branch switch end up in a single batch.
+	 */
+	private void collectChanges(WatchService service, Changes changes, IProgressMonitor monitor) {
+		try {
+			WatchKey key = service.poll(WAIT_FOR_EVENTS_TIMEOUT, TimeUnit.MILLISECONDS);
+			long deadline = System.currentTimeMillis() + MAX_COALESCE_DURATION;
+			while (key != null && !monitor.isCanceled()) {
+				processEvents(key, changes);
+				if (System.currentTimeMillis() > deadline)
+					break;
+				key = service.poll(COALESCE_DELAY, TimeUnit.MILLISECONDS);
+			}
+		} catch (InterruptedException e) {
+			// the job was interrupted, report what we have so far
+		} catch (ClosedWatchServiceException e) {
+			// all resources have been unmonitored concurrently
+		}
+	}
+
+	private void processEvents(WatchKey key, Changes changes) {
+		Path directory;
+		synchronized (this) {
+			directory = watchedDirectories.get(key);
+		}
+		List<WatchEvent<?>> events = key.pollEvents();
+		if (directory == null) {
+			// the key was cancelled concurrently
+			return;
+		}
+		for (WatchEvent<?> event : events) {
+			if (event.kind() == OVERFLOW) {
+				// events have been lost, refresh everything below the directory
+				changes.addOverflow(directory);
+				continue;
+			}
+			Path child = directory.resolve((Path) event.context());
+			if (event.kind() == ENTRY_CREATE && Files.isDirectory(child))
+				registerNewDirectory(child, changes);
+			changes.add(child);
+		}
+		if (!key.reset()) {
+			// the directory is no longer accessible
+			synchronized (this) {
+				watchedDirectories.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Registers a directory that has been created below a monitored root. If
+	 * the watch limit is reached, all roots containing the directory are
+	 * handed over to the polling monitor.
+	 */
+	private void registerNewDirectory(Path directory, Changes changes) {
+		List<IResource> failed = new ArrayList<>(1);
+		synchronized (this) {
+			if (watchService == null)
+				return;
+			List<WatchKey> added = new ArrayList<>();
+			try {
+				registerTree(directory, added);
+			} catch (IOException e) {
+				cancelKeys(added);
+				for (Map.Entry<IResource, Path> entry : roots.entrySet()) {
+					if (directory.startsWith(entry.getValue()))
+						failed.add(entry.getKey());
+				}
+				addException(NLS.bind(Messages.LM_errRegister, directory, e.getMessage()), e);
+			}
+		}
+		for (IResource root : failed) {
+			if (Policy.DEBUG_AUTO_REFRESH)
+				Policy.debug(DEBUG_PREFIX + " falling back to polling for: " + root); //$NON-NLS-1$
+			unmonitor(root);
+			refreshResult.monitorFailed(this, root);
+			// changes may have been missed while registering
+			changes.addRoot(root);
+		}
+	}
+
+	@Override
+	public synchronized boolean shouldRun() {
+		return watchService != null && !roots.isEmpty();
+	}
+
+	@Override
+	public void unmonitor(IResource resource) {
+		// synchronized: removal of the keys must be atomic
+		synchronized (this) {
+			if (resource == null) {
+				// resource == null means stop monitoring all resources
+				roots.clear();
+			} else {
+				Path root = roots.remove(resource);
+				if (root != null) {
+					List<WatchKey> obsolete = new ArrayList<>();
+					for (Map.Entry<WatchKey, Path> entry : watchedDirectories.entrySet()) {
+						Path directory = entry.getValue();
+						// keep keys that are shared with another (nested or overlapping) root
+						if (directory.startsWith(root) && !isMonitored(directory))
+							obsolete.add(entry.getKey());
+					}
+					cancelKeys(obsolete);
+				}
+			}
+			if (!roots.isEmpty())
+				return;
+			closeWatchService();
+		}
+		//stop the job if there are no more roots
+		cancel();
+	}
+
+	private boolean isMonitored(Path directory) {
+		for (Path root : roots.values()) {
+			if (directory.startsWith(root))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Converts a local path to the resources of all monitored roots that
+	 * contain the path. Deleted paths are resolved against the workspace tree,
+	 * and paths that are unknown to both are ignored.
+	 */
+	synchronized List<IResource> getResources(Path path) {
+		List<IResource> result = new ArrayList<>(1);
+		for (Map.Entry<IResource, Path> entry : roots.entrySet()) {
+			Path root = entry.getValue();
+			if (!path.startsWith(root))
+				continue;
+			IResource rootResource = entry.getKey();
+			Path relative = root.relativize(path);
+			if (relative.toString().isEmpty()) {
+				result.add(rootResource);
+				continue;
+			}
+			IPath fullPath = rootResource.getFullPath().append(relative.toString());
+			IWorkspaceRoot workspaceRoot = rootResource.getWorkspace().getRoot();
+			if (Files.isDirectory(path)) {
+				result.add(workspaceRoot.getFolder(fullPath));
+			} else if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+				result.add(workspaceRoot.getFile(fullPath));
+			} else {
+				IResource member = workspaceRoot.findMember(fullPath);
+				if (member != null)
+					result.add(member);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A batch of changed resources that is reduced to a minimal set of
+	 * refresh requests before it is posted to the refresh manager.
+	 */
+	private class Changes {
+		/**
+		 * Changed resources grouped by their parent.
+		 */
+		private final Map<IContainer, Set<IResource>> changed = new LinkedHashMap<>();
+		/**
+		 * Resources whose local state is unknown and that are therefore
+		 * refreshed without checking synchronization first.
+		 */
+		private final Set<IResource> unknown = new LinkedHashSet<>();
+
+		void add(Path path) {
+			for (IResource resource : getResources(path)) {
+				IContainer parent = resource.getParent();
+				if (parent == null || resource.getType() == IResource.PROJECT)
+					unknown.add(resource);
+				else
+					changed.computeIfAbsent(parent, p -> new LinkedHashSet<>()).add(resource);
+			}
+		}
+
+		void addOverflow(Path directory) {
+			unknown.addAll(getResources(directory));
+		}
+
+		void addRoot(IResource root) {
+			unknown.add(root);
+		}
+
+		/**
+		 * Posts the collected changes. Containers with many changed children
+		 * are refreshed as a whole, and requests below other requests are
+		 * dropped.
+		 */
+		void post() {
+			if (changed.isEmpty() && unknown.isEmpty())
+				return;
+			List<IResource> requests = new ArrayList<>(unknown);
+			for (Map.Entry<IContainer, Set<IResource>> entry : changed.entrySet()) {
+				Set<IResource> children = entry.getValue();
+				if (children.size() > MAX_CHANGED_CHILDREN)
+					requests.add(entry.getKey());
+				else
+					requests.addAll(children);
+			}
+			// process parents before their children
+			requests.sort(Comparator.comparingInt(r -> r.getFullPath().segmentCount()));
+			List<IPath> posted = new ArrayList<>(requests.size());
+			outer: for (IResource resource : requests) {
+				IPath path = resource.getFullPath();
+				for (IPath prefix : posted) {
+					if (prefix.isPrefixOf(path))
+						continue outer;
+				}
+				posted.add(path);
+				postRefreshRequest(resource, !unknown.contains(resource));
+			}
+			if (Policy.DEBUG_AUTO_REFRESH)
+				Policy.debug(DEBUG_PREFIX + "posted " + posted.size() + " refresh requests for " + requests.size() + " changes."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+
+		private void postRefreshRequest(IResource resource, boolean checkSynchronized) {
+			//native callback occurs even if resource was changed within workspace
+			if (checkSynchronized) {
+				int depth = resource.getType() == IResource.FILE ? IResource.DEPTH_ZERO : IResource.DEPTH_ONE;
+				if (resource.isSynchronized(depth))
+					return;
+			}
+			refreshResult.refresh(resource);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources.refresh.linux;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.refresh.*;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * The <code>LinuxRefreshProvider</code> creates monitors that use the
+ * inotify backed {@link java.nio.file.WatchService} of the JDK to monitor
+ * local directories on Linux platforms.
+ *
+ * @see RefreshProvider
+ */
+public class LinuxRefreshProvider extends RefreshProvider {
+	private LinuxMonitor monitor;
+
+	/**
+	 * Creates a standard Linux monitor if the given resource is local and
+	 * the workspace is running on Linux. Returns <code>null</code> if the
+	 * resource cannot be monitored natively, for example because the
+	 * inotify watch limit has been reached, so that the polling monitor takes
+	 * over.
+	 *
+	 * @see RefreshProvider#installMonitor(IResource,IRefreshResult, IProgressMonitor)
+	 */
+	@Override
+	public IRefreshMonitor installMonitor(IResource resource, IRefreshResult result, IProgressMonitor progressMonitor) {
+		if (!Platform.OS_LINUX.equals(Platform.getOS()))
+			return null;
+		if (resource.getLocation() == null || !resource.exists() || resource.getType() == IResource.FILE)
+			return null;
+		synchronized (this) {
+			if (monitor == null)
+				monitor = new LinuxMonitor(result);
+		}
+		if (monitor.monitor(resource))
+			return monitor;
+		return null;
+	}
+}
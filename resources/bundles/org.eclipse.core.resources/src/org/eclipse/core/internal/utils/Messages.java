@@ -44,6 +44,7 @@ public class Messages extends NLS {
 	public static String events_skippingBuilder;
 	public static String events_unknown;
 
+	public static String history_compacting;
 	public static String history_copyToNull;
 	public static String history_copyToSelf;
 	public static String history_errorContentDescription;
@@ -149,6 +150,7 @@ public class Messages extends NLS {
 	public static String properties_couldNotClose;
 	public static String properties_qualifierIsNull;
 	public static String properties_readProperties;
+	public static String properties_saving;
 	public static String properties_valueTooLong;
 
 	// auto-refresh
@@ -167,6 +169,7 @@ public class Messages extends NLS {
 	public static String resources_charsetUpdating;
 	public static String resources_closing_0;
 	public static String resources_closing_1;
+	public static String resources_compactingTrees;
 	public static String resources_copyDestNotSub;
 	public static String resources_copying;
 	public static String resources_copying_0;
@@ -272,6 +275,7 @@ public class Messages extends NLS {
 	public static String resources_refreshingRoot;
 	public static String resources_resetMarkers;
 	public static String resources_resetSync;
+	public static String resources_restoringDeferred;
 	public static String resources_resourcePath;
 	public static String resources_saveOp;
 	public static String resources_saveProblem;
@@ -314,7 +318,6 @@ public class Messages extends NLS {
 
 	// utils
 	public static String utils_clone;
-	public static String utils_stringJobName;
 	// watson
 	public static String watson_elementNotFound;
 	public static String watson_illegalSubtree;
@@ -333,6 +336,12 @@ public class Messages extends NLS {
 	public static String WM_nativeErr;
 	public static String WM_mutexAbandoned;
 
+	// auto-refresh linux native
+	public static String LM_errClose;
+	public static String LM_errors;
+	public static String LM_errRegister;
+	public static String LM_jobName;
+
 	public static String updateUnknownNatureMarkers;
 
 	static {
@@ -15,7 +15,10 @@
  *******************************************************************************/
 package org.eclipse.core.internal.utils;
 
-import java.util.HashMap;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A string pool is used for sharing strings in a way that eliminates duplicate
@@ -23,6 +26,13 @@ import java.util.HashMap;
  * of time, or used as a temporary structure during a string sharing pass over
  * a data structure.
  * <p>
+ * A string pool may be used concurrently. Its strings are divided into shards
+ * by hash code, each guarded by its own lock, and are only weakly referenced,
+ * so that the pool does not keep alive the strings that are no longer used
+ * elsewhere. The {@link #getShared() shared} pool is used to share strings as
+ * they are read or created, rather than in a later sharing pass.
+ * </p>
+ * <p>
  * This class is not intended to be subclassed by clients.
  * </p>
  *
@@ -30,14 +40,31 @@ import java.util.HashMap;
  * @since 3.1
  */
 public final class StringPool {
-	private int savings;
-	private final HashMap<String, String> map = new HashMap<>();
+	private static final int SHARD_COUNT = 32;
+	private static final StringPool SHARED = new StringPool();
+
+	private final LongAdder savings = new LongAdder();
+	private final Map<String, WeakReference<String>>[] shards;
 
 	/**
 	 * Creates a new string pool.
 	 */
+	@SuppressWarnings("unchecked")
 	public StringPool() {
 		super();
+		shards = new Map[SHARD_COUNT];
+		for (int i = 0; i < SHARD_COUNT; i++)
+			shards[i] = new WeakHashMap<>();
+	}
+
+	/**
+	 * Returns the string pool shared by the data structures of the workspace,
+	 * in which strings are added as they are read or created.
+	 *
+	 * @return the shared string pool
+	 */
+	public static StringPool getShared() {
+		return SHARED;
 	}
 
 	/**
@@ -49,14 +76,20 @@ public final class StringPool {
 	public String add(String string) {
 		if (string == null)
 			return string;
-		String result = map.putIfAbsent(string, string);
-		if (result != null) {
-			if (result != string) {
-				// XXX that number is wrong since String implementation changed to LATIN1
-				// encoding, also interned String may have become externed:
-				savings += 44 + 2 * string.length();
+		int hash = string.hashCode();
+		Map<String, WeakReference<String>> shard = shards[(hash ^ (hash >>> 16)) & (SHARD_COUNT - 1)];
+		synchronized (shard) {
+			WeakReference<String> reference = shard.get(string);
+			String result = reference == null ? null : reference.get();
+			if (result != null) {
+				if (result != string) {
+					// XXX that number is wrong since String implementation changed to LATIN1
+					// encoding, also interned String may have become externed:
+					savings.add(44 + 2 * string.length());
+				}
+				return result;
 			}
-			return result;
+			shard.put(string, new WeakReference<>(string));
 		}
 		return string;
 	}
@@ -76,6 +109,6 @@ public final class StringPool {
 	 * is only the size of a single copy of S2.
 	 */
 	public int getSavedStringCount() {
-		return savings;
+		return (int) Math.min(savings.sum(), Integer.MAX_VALUE);
 	}
 }
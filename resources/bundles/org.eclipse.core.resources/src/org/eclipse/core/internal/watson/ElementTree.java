@@ -17,6 +17,8 @@ package org.eclipse.core.internal.watson;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 import org.eclipse.core.internal.dtree.*;
 import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.internal.utils.StringPool;
@@ -117,6 +119,15 @@ public class ElementTree {
 	/** synchronized access **/
 	private volatile DataTreeLookup lookupCacheIgnoreCase = null;
 
+	/**
+	 * Held for writing, in addition to the monitor of this tree, while the
+	 * representation of this tree is being modified. The lookups that do not
+	 * take the monitor of this tree read it optimistically, and are done again
+	 * holding the monitor if it has been modified meanwhile. Once this tree is
+	 * immutable, its representation is only modified when it is collapsed.
+	 */
+	private final StampedLock modificationLock = new StampedLock();
+
 	private final static AtomicInteger treeCounter = new AtomicInteger();
 	private final int treeStamp;
 
@@ -180,7 +191,12 @@ public class ElementTree {
 			return this;
 		}
 		//collapse my tree to be a forward delta of the parent's tree.
-		tree.collapseTo(parent.tree, DefaultElementComparator.getComparator());
+		long stamp = modificationLock.writeLock();
+		try {
+			tree.collapseTo(parent.tree, DefaultElementComparator.getComparator());
+		} finally {
+			modificationLock.unlockWrite(stamp);
+		}
 		return this;
 	}
 
@@ -203,10 +219,13 @@ public class ElementTree {
 		childIDsCache = null;
 
 		IPath parent = key.removeLastSegments(1);
+		long stamp = modificationLock.writeLock();
 		try {
 			tree.createChild(parent, key.lastSegment(), data);
 		} catch (ObjectNotFoundException e) {
 			throw createElementNotFoundException(parent);
+		} finally {
+			modificationLock.unlockWrite(stamp);
 		}
 		// Set the lookup to be this newly created object.
 		lookupCache = DataTreeLookup.newLookup(key, true, data, true);
@@ -245,7 +264,12 @@ public class ElementTree {
 			DataTreeNode node = (DataTreeNode) subtree.tree.copyCompleteSubtree(children[0]);
 
 			/* insert the subtree in this tree */
-			tree.createSubtree(key, node);
+			long stamp = modificationLock.writeLock();
+			try {
+				tree.createSubtree(key, node);
+			} finally {
+				modificationLock.unlockWrite(stamp);
+			}
 
 		} catch (ObjectNotFoundException e) {
 			throw createElementNotFoundException(key);
@@ -267,10 +291,13 @@ public class ElementTree {
 		// Clear the lookup cache, in case the element being deleted is the same
 		// as for the last lookup.
 		lookupCache = lookupCacheIgnoreCase = null;
+		long stamp = modificationLock.writeLock();
 		try {
 			tree.deleteChild(key.removeLastSegments(1), key.lastSegment());
 		} catch (ObjectNotFoundException e) {
 			throw createElementNotFoundException(key);
+		} finally {
+			modificationLock.unlockWrite(stamp);
 		}
 	}
 
@@ -327,14 +354,23 @@ public class ElementTree {
 		return -1;
 	}
 
+	/**
+	 * Returns the number of layers that lookups in this tree may have to search
+	 * below its complete ancestor.
+	 * @see DeltaDataTree#getChainDepth()
+	 */
+	public int getChainDepth() {
+		return tree.getChainDepth();
+	}
+
 	/**
 	 * Returns the number of children of the element
 	 * specified by the given path.
 	 * The given element must be present in this tree.
 	 */
-	public synchronized int getChildCount(IPath key) {
+	public int getChildCount(IPath key) {
 		Assert.isNotNull(key);
-		return getChildIDs(key).length;
+		return getChildren(key).length;
 	}
 
 	/**
@@ -362,8 +398,22 @@ public class ElementTree {
 	 * specified by the given path.
 	 * The given element must be present in this tree.
 	 */
-	public synchronized IPath[] getChildren(IPath key) {
+	public IPath[] getChildren(IPath key) {
 		Assert.isNotNull(key);
+		IPath[] children = readOptimistically(() -> {
+			ChildIDsCache cache = childIDsCache;
+			if (cache != null && cache.path == key)
+				return cache.childPaths;
+			return tree.getChildren(key);
+		});
+		if (children == null)
+			return lockedGetChildIDs(key);
+		if (isImmutable())
+			childIDsCache = new ChildIDsCache(key, children);
+		return children;
+	}
+
+	private synchronized IPath[] lockedGetChildIDs(IPath key) {
 		return getChildIDs(key);
 	}
 
@@ -378,13 +428,11 @@ public class ElementTree {
 	 * Returns the element data for the given element identifier.
 	 * The given element must be present in this tree.
 	 */
-	public synchronized Object getElementData(IPath key) {
+	public Object getElementData(IPath key) {
 		/* don't allow modification of the implicit root */
 		if (key.isRoot())
 			return null;
-		DataTreeLookup lookup = lookupCache; // Grab it in case it's replaced concurrently.
-		if (lookup == null || lookup.key != key)
-			lookupCache = lookup = tree.lookup(key);
+		DataTreeLookup lookup = lookup(key, false);
 		if (lookup.isPresent)
 			return lookup.data;
 		throw createElementNotFoundException(key);
@@ -394,13 +442,11 @@ public class ElementTree {
 	 * Returns the element data for the given element identifier.
 	 * The given element must be present in this tree.
 	 */
-	public synchronized Object getElementDataIgnoreCase(IPath key) {
+	public Object getElementDataIgnoreCase(IPath key) {
 		/* don't allow modification of the implicit root */
 		if (key.isRoot())
 			return null;
-		DataTreeLookup lookup = lookupCacheIgnoreCase; // Grab it in case it's replaced concurrently.
-		if (lookup == null || lookup.key != key)
-			lookupCacheIgnoreCase = lookup = tree.lookupIgnoreCase(key);
+		DataTreeLookup lookup = lookup(key, true);
 		if (lookup.isPresent)
 			return lookup.data;
 		throw createElementNotFoundException(key);
@@ -411,10 +457,15 @@ public class ElementTree {
 	 * The specified element must exist in the tree.
 	 * If the specified element is null, returns the root element path.
 	 */
-	public synchronized String[] getNamesOfChildren(IPath key) {
+	public String[] getNamesOfChildren(IPath key) {
+		if (key == null)
+			return new String[] {""}; //$NON-NLS-1$
+		String[] names = readOptimistically(() -> tree.getNamesOfChildren(key));
+		return names != null ? names : lockedGetNamesOfChildren(key);
+	}
+
+	private synchronized String[] lockedGetNamesOfChildren(IPath key) {
 		try {
-			if (key == null)
-				return new String[] {""}; //$NON-NLS-1$
 			return tree.getNamesOfChildren(key);
 		} catch (ObjectNotFoundException e) {
 			throw createElementNotFoundException(key);
@@ -525,12 +576,17 @@ public class ElementTree {
 	 */
 	public synchronized void immutable() {
 		if (!tree.isImmutable()) {
-			tree.immutable();
-			/* need to clear the lookup cache since it reports whether results were found
-			 in the topmost delta, and the order of deltas is changing */
-			lookupCache = lookupCacheIgnoreCase = null;
-			/* reroot the delta chain at this tree */
-			tree.reroot();
+			long stamp = modificationLock.writeLock();
+			try {
+				tree.immutable();
+				/* need to clear the lookup cache since it reports whether results were found
+				 in the topmost delta, and the order of deltas is changing */
+				lookupCache = lookupCacheIgnoreCase = null;
+				/* reroot the delta chain at this tree */
+				tree.reroot();
+			} finally {
+				modificationLock.unlockWrite(stamp);
+			}
 		}
 	}
 
@@ -538,24 +594,71 @@ public class ElementTree {
 	 * Returns true if this element tree includes an element with the given
 	 * key, false otherwise.
 	 */
-	public synchronized boolean includes(IPath key) {
-		DataTreeLookup lookup = lookupCache; // Grab it in case it's replaced concurrently.
-		if (lookup == null || lookup.key != key) {
-			lookupCache = lookup = tree.lookup(key);
-		}
-		return lookup.isPresent;
+	public boolean includes(IPath key) {
+		return lookup(key, false).isPresent;
 	}
 
 	/**
 	 * Returns true if this element tree includes an element with the given
 	 * key, ignoring the case of the key, and false otherwise.
 	 */
-	public synchronized boolean includesIgnoreCase(IPath key) {
-		DataTreeLookup lookup = lookupCacheIgnoreCase; // Grab it in case it's replaced concurrently.
+	public boolean includesIgnoreCase(IPath key) {
+		return lookup(key, true).isPresent;
+	}
+
+	/**
+	 * Looks up the given key in this tree, reading it optimistically without
+	 * taking its monitor, unless it is being modified.
+	 */
+	private DataTreeLookup lookup(IPath key, boolean ignoreCase) {
+		DataTreeLookup lookup = readOptimistically(() -> {
+			DataTreeLookup cached = ignoreCase ? lookupCacheIgnoreCase : lookupCache;
+			if (cached != null && cached.key == key)
+				return cached;
+			return ignoreCase ? tree.lookupIgnoreCase(key) : tree.lookup(key);
+		});
+		if (lookup == null)
+			return lockedLookup(key, ignoreCase);
+		// the lookups of a mutable tree are only cached holding its monitor,
+		// since it may be modified once read
+		if (isImmutable()) {
+			if (ignoreCase)
+				lookupCacheIgnoreCase = lookup;
+			else
+				lookupCache = lookup;
+		}
+		return lookup;
+	}
+
+	private synchronized DataTreeLookup lockedLookup(IPath key, boolean ignoreCase) {
+		DataTreeLookup lookup = ignoreCase ? lookupCacheIgnoreCase : lookupCache; // Grab it in case it's replaced concurrently.
 		if (lookup == null || lookup.key != key) {
-			lookupCacheIgnoreCase = lookup = tree.lookupIgnoreCase(key);
+			lookup = ignoreCase ? tree.lookupIgnoreCase(key) : tree.lookup(key);
+			if (ignoreCase)
+				lookupCacheIgnoreCase = lookup;
+			else
+				lookupCache = lookup;
+		}
+		return lookup;
+	}
+
+	/**
+	 * Reads this tree without taking its monitor. Returns the result of the
+	 * given read, or <code>null</code> if this tree was modified while it was
+	 * read, or the read failed, in which case the read must be done again
+	 * holding the monitor of this tree.
+	 */
+	private <T> T readOptimistically(Supplier<T> read) {
+		long stamp = modificationLock.tryOptimisticRead();
+		if (stamp == 0)
+			return null;
+		try {
+			T result = read.get();
+			return modificationLock.validate(stamp) ? result : null;
+		} catch (RuntimeException e) {
+			// concurrently modified, or not found: let the locked read report it
+			return null;
 		}
-		return lookup.isPresent;
 	}
 
 	/**
@@ -660,6 +763,7 @@ public class ElementTree {
 			 */
 			IElementTreeData oldData = (IElementTreeData) lookup.data;
 			if (oldData != null) {
+				long stamp = modificationLock.writeLock();
 				try {
 					Object newData = oldData.clone();
 					tree.setData(key, newData);
@@ -667,6 +771,8 @@ public class ElementTree {
 					return newData;
 				} catch (ObjectNotFoundException e) {
 					throw createElementNotFoundException(key);
+				} finally {
+					modificationLock.unlockWrite(stamp);
 				}
 			}
 		} else {
@@ -689,11 +795,14 @@ public class ElementTree {
 		Assert.isNotNull(key);
 		// Clear the lookup cache, in case the element being modified is the same
 		// as for the last lookup.
-		lookupCache = lookupCacheIgnoreCase = null;
+		long stamp = modificationLock.writeLock();
 		try {
+			lookupCache = lookupCacheIgnoreCase = null;
 			tree.setData(key, data);
 		} catch (ObjectNotFoundException e) {
 			throw createElementNotFoundException(key);
+		} finally {
+			modificationLock.unlockWrite(stamp);
 		}
 	}
 
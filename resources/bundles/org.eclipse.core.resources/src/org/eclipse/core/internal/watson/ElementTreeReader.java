@@ -69,7 +69,14 @@ public class ElementTreeReader {
 				return null;
 			}
 		};
-		dataTreeReader = new DataTreeReader(f);
+		dataTreeReader = createDataTreeReader(f);
+	}
+
+	/**
+	 * Creates the reader for the data trees of the format read by this reader.
+	 */
+	protected DataTreeReader createDataTreeReader(IDataFlattener flattener) {
+		return new DataTreeReader(flattener);
 	}
 
 	/**
@@ -78,6 +85,8 @@ public class ElementTreeReader {
 	public ElementTreeReader getReader(int formatVersion) throws IOException {
 		if (formatVersion == 1)
 			return new ElementTreeReaderImpl_1(elementInfoFlattener);
+		if (formatVersion == 2)
+			return new ElementTreeReaderImpl_2(elementInfoFlattener);
 		throw new IOException(Messages.watson_unknown);
 	}
 
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.watson;
+
+import org.eclipse.core.internal.dtree.*;
+
+/** <code>ElementTreeReaderImpl_2</code> is an implementation
+ * of the <code>ElementTreeReader</code> for format version 2,
+ * the compact format written by {@link CompactDataTreeWriter}.
+ *
+ * <p>The element trees themselves are laid out as in format 1,
+ * only the data trees are written in a different format.
+ *
+ * @see ElementTreeWriter#COMPACT_FORMAT
+ */
+/* package */class ElementTreeReaderImpl_2 extends ElementTreeReaderImpl_1 {
+
+	/**
+	 * Constructs a new element tree reader that works for
+	 * the given element info factory.
+	 */
+	ElementTreeReaderImpl_2(IElementInfoFlattener factory) {
+		super(factory);
+	}
+
+	@Override
+	protected DataTreeReader createDataTreeReader(IDataFlattener flattener) {
+		return new CompactDataTreeReader(flattener);
+	}
+}
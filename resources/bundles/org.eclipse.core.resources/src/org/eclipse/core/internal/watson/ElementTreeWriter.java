@@ -43,6 +43,14 @@ public class ElementTreeWriter {
 	 */
 	public static final int CURRENT_FORMAT = 1;
 
+	/**
+	 * The version number of the compact format, in which the subtree of each
+	 * child of the root is written as a separate section with its own table
+	 * of node names.
+	 * @see CompactDataTreeWriter
+	 */
+	public static final int COMPACT_FORMAT = 2;
+
 	/**
 	 * Constant representing infinite depth
 	 */
@@ -53,11 +61,27 @@ public class ElementTreeWriter {
 	 */
 	protected DataTreeWriter dataTreeWriter;
 
+	/**
+	 * The format version number written by this writer
+	 */
+	protected final int format;
+
 	/**
 	 * Constructs a new element tree writer that works for
 	 * the given element info flattener.
 	 */
 	public ElementTreeWriter(final IElementInfoFlattener flattener) {
+		this(flattener, CURRENT_FORMAT);
+	}
+
+	/**
+	 * Constructs a new element tree writer that works for
+	 * the given element info flattener and writes the given format,
+	 * either {@link #CURRENT_FORMAT} or {@link #COMPACT_FORMAT}.
+	 */
+	public ElementTreeWriter(final IElementInfoFlattener flattener, int format) {
+		Assert.isLegal(format == CURRENT_FORMAT || format == COMPACT_FORMAT);
+		this.format = format;
 
 		/* wrap the IElementInfoFlattener in an IDataFlattener */
 		IDataFlattener f = new IDataFlattener() {
@@ -75,7 +99,7 @@ public class ElementTreeWriter {
 				return null;
 			}
 		};
-		dataTreeWriter = new DataTreeWriter(f);
+		dataTreeWriter = format == COMPACT_FORMAT ? new CompactDataTreeWriter(f) : new DataTreeWriter(f);
 	}
 
 	/**
@@ -119,7 +143,7 @@ public class ElementTreeWriter {
 	public void writeDelta(ElementTree olderTree, ElementTree newerTree, IPath path, int depth, final DataOutput output, IElementComparator comparator) throws IOException {
 
 		/* write the version number */
-		writeNumber(CURRENT_FORMAT, output);
+		writeNumber(format, output);
 
 		/**
 		 * Note that in current ElementTree usage, the newest
@@ -147,7 +171,7 @@ public class ElementTreeWriter {
 	 */
 	public void writeDeltaChain(ElementTree[] trees, IPath path, int depth, DataOutput output, IElementComparator comparator) throws IOException {
 		/* Write the format version number */
-		writeNumber(CURRENT_FORMAT, output);
+		writeNumber(format, output);
 
 		/* Write the number of trees */
 		int treeCount = trees.length;
@@ -188,8 +212,8 @@ public class ElementTreeWriter {
 
 	/**
 	 * Writes all or some of an element tree to an output stream.
-	 * This always writes the most current version of the element tree
-	 * file format, whereas the reader supports multiple versions.
+	 * This always writes the format version of this writer, whereas
+	 * the reader supports multiple versions.
 	 *
 	 * @param tree The tree to write
 	 * @param path The path of the subtree to write.  All nodes on the path above
@@ -201,7 +225,7 @@ public class ElementTreeWriter {
 	public void writeTree(ElementTree tree, IPath path, int depth, final DataOutput output) throws IOException {
 
 		/* Write the format version number. */
-		writeNumber(CURRENT_FORMAT, output);
+		writeNumber(format, output);
 
 		/* This actually just copies the root node, which is what we want */
 		DeltaDataTree subtree = new DeltaDataTree(tree.getDataTree().copyCompleteSubtree(Path.ROOT));
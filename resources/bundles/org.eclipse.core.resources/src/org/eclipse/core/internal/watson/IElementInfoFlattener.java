@@ -23,6 +23,8 @@ import org.eclipse.core.runtime.IPath;
 public interface IElementInfoFlattener {
 	/**
 	 * Reads an element info from the given input stream.
+	 * <p> N.B. Trees in the compact format are read concurrently, so
+	 * this method may be called from several threads at once.
 	 * @param elementPath the path of the element to be read
 	 * @param input the stream from which the element info should be read.
 	 * @return the object associated with the given elementPath,
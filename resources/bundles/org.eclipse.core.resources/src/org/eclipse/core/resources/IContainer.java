@@ -14,6 +14,7 @@
  *******************************************************************************/
 package org.eclipse.core.resources;
 
+import java.util.Map;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.runtime.*;
 
@@ -227,6 +228,41 @@ public interface IContainer extends IResource, IAdaptable {
 	 */
 	IResource findMember(IPath path, boolean includePhantoms);
 
+	/**
+	 * Returns the charsets of the files in this container, up to the given depth.
+	 * <p>
+	 * The charset of each file is the one {@link IFile#getCharset()} returns. Tools
+	 * that need the charsets of many files should prefer this method: the charset
+	 * preferences are looked up once per folder, and the contents of the files
+	 * whose charset is not known yet are described in parallel.
+	 * </p><p>
+	 * Files that do not exist locally are omitted. Team private and hidden
+	 * files are included.
+	 * </p>
+	 * <p>
+	 * Note that this method does not check whether the results are supported
+	 * charset names. Callers should be prepared to handle
+	 * <code>UnsupportedEncodingException</code> where these charsets are used.
+	 * </p>
+	 *
+	 * @param depth the depth of the files to return the charsets of; one of
+	 * {@link IResource#DEPTH_ONE} or {@link IResource#DEPTH_INFINITE}
+	 * @param monitor a progress monitor, or <code>null</code> if progress
+	 * reporting is not desired
+	 * @return the name of the charset encoding of each file
+	 * @exception CoreException if this method fails. Reasons include:
+	 * <ul>
+	 * <li> This container does not exist.</li>
+	 * <li> This container is a project that is not open.</li>
+	 * <li> The contents of a file could not be read.</li>
+	 * </ul>
+	 * @exception OperationCanceledException if the operation is canceled.
+	 * Cancelation can occur even if no progress monitor is provided.
+	 * @see IFile#getCharset()
+	 * @since 3.19
+	 */
+	Map<IFile, String> getCharsets(int depth, IProgressMonitor monitor) throws CoreException;
+
 	/**
 	 * Returns the default charset for resources in this container.
 	 * <p>
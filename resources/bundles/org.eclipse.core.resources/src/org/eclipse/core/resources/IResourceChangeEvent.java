@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.core.resources;
 
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 
 /**
@@ -179,6 +180,24 @@ public interface IResourceChangeEvent {
 	 */
 	int PRE_REFRESH = 32;
 
+	/**
+	 * Registration flag (bit mask) that can be combined with the event types
+	 * passed to {@link IWorkspace#addResourceChangeListener(IResourceChangeListener, int)}
+	 * to indicate that the listener may be notified of {@link #POST_CHANGE}
+	 * events concurrently with other listeners. Such a listener is notified on
+	 * a background thread, without holding up the operation that caused the
+	 * changes, so the workspace may have changed further by the time the
+	 * listener runs. The listener is still notified of one event at a time, in
+	 * the order the events occurred. All other event types are delivered as
+	 * usual.
+	 * <p>
+	 * This flag is not an event type and never returned by {@link #getType()}.
+	 * </p>
+	 *
+	 * @since 3.19
+	 */
+	int CONCURRENT_NOTIFICATION = 1 << 16;
+
 	/**
 	 * Returns all marker deltas of the specified type that are associated
 	 * with resource deltas for this event. If <code>includeSubtypes</code>
@@ -264,4 +283,27 @@ public interface IResourceChangeEvent {
 	 * @see #PRE_REFRESH
 	 */
 	int getType();
+
+	/**
+	 * Visits the resource delta of this event with the given visitor, as
+	 * {@link IResourceDelta#accept(IResourceDeltaVisitor, int)} would. Does
+	 * nothing if this type of event has no delta.
+	 * <p>
+	 * Instead of a resource delta object, the visitor is given a cursor
+	 * describing each visited delta in turn. Unless {@link #getDelta()} has
+	 * been called for this event, post-change deltas are then visited without
+	 * creating objects for the deltas, which reduces the garbage produced by
+	 * listeners that are notified of large changes.
+	 * </p>
+	 *
+	 * @param visitor the visitor
+	 * @param memberFlags bit-wise or of member flag constants
+	 *   ({@link IContainer#INCLUDE_PHANTOMS}, {@link IContainer#INCLUDE_HIDDEN}
+	 *   and {@link IContainer#INCLUDE_TEAM_PRIVATE_MEMBERS}) indicating which
+	 *   members are of interest
+	 * @exception CoreException if the visitor failed with this exception.
+	 * @see IResourceDeltaCursorVisitor
+	 * @since 3.19
+	 */
+	void visitDelta(IResourceDeltaCursorVisitor visitor, int memberFlags) throws CoreException;
 }
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.resources;
+
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * A cursor positioned on one resource delta during a visit by an
+ * {@link IResourceDeltaCursorVisitor}. The same cursor is moved from one
+ * delta to the next, so it is only valid during the call to the visitor
+ * and must not be kept.
+ * <p>
+ * The methods returning the kind, flags, name, type and depth of the current
+ * delta do not allocate any objects. The other methods create the objects
+ * they return, and should only be called for the deltas of interest.
+ * </p>
+ * <p>
+ * The values returned by this interface have the same meaning as those
+ * returned by the corresponding methods of {@link IResourceDelta}.
+ * </p>
+ *
+ * @see IResourceChangeEvent#visitDelta(IResourceDeltaCursorVisitor, int)
+ * @noimplement This interface is not intended to be implemented by clients.
+ * @noextend This interface is not intended to be extended by clients.
+ * @since 3.19
+ */
+public interface IResourceDeltaCursor {
+	/**
+	 * Returns the kind of the current delta.
+	 *
+	 * @return the kind of the delta
+	 * @see IResourceDelta#getKind()
+	 */
+	int getKind();
+
+	/**
+	 * Returns flags which describe in more detail how the resource of the
+	 * current delta has been affected.
+	 *
+	 * @return the flags of the delta
+	 * @see IResourceDelta#getFlags()
+	 */
+	int getFlags();
+
+	/**
+	 * Returns the name of the resource of the current delta, or
+	 * <code>null</code> for the workspace root.
+	 *
+	 * @return the name of the resource
+	 */
+	String getName();
+
+	/**
+	 * Returns the type of the resource of the current delta.
+	 *
+	 * @return one of {@link IResource#FILE}, {@link IResource#FOLDER},
+	 * {@link IResource#PROJECT} or {@link IResource#ROOT}
+	 */
+	int getResourceType();
+
+	/**
+	 * Returns the number of segments of the full path of the resource of the
+	 * current delta, that is 0 for the workspace root and 1 for projects.
+	 *
+	 * @return the depth of the resource
+	 */
+	int getDepth();
+
+	/**
+	 * Returns the full path of the resource of the current delta.
+	 *
+	 * @return the full path of the resource
+	 * @see IResourceDelta#getFullPath()
+	 */
+	IPath getFullPath();
+
+	/**
+	 * Returns a handle for the resource of the current delta.
+	 *
+	 * @return the resource
+	 * @see IResourceDelta#getResource()
+	 */
+	IResource getResource();
+
+	/**
+	 * Returns the full path from which the resource of the current delta was
+	 * moved, or <code>null</code> if it was not moved.
+	 *
+	 * @return the path the resource was moved from, or <code>null</code>
+	 * @see IResourceDelta#getMovedFromPath()
+	 */
+	IPath getMovedFromPath();
+
+	/**
+	 * Returns the full path to which the resource of the current delta was
+	 * moved, or <code>null</code> if it was not moved.
+	 *
+	 * @return the path the resource was moved to, or <code>null</code>
+	 * @see IResourceDelta#getMovedToPath()
+	 */
+	IPath getMovedToPath();
+
+	/**
+	 * Returns the changes to markers on the resource of the current delta.
+	 *
+	 * @return the marker deltas
+	 * @see IResourceDelta#getMarkerDeltas()
+	 */
+	IMarkerDelta[] getMarkerDeltas();
+}
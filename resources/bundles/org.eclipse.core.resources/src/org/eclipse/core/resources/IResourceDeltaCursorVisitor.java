@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.resources;
+
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * An object that visits resource deltas through a reusable cursor, without
+ * requiring an {@link IResourceDelta} object for each delta.
+ * <p>
+ * Usage:
+ * </p>
+ * <pre>
+ * event.visitDelta(cursor -&gt; {
+ *     if (cursor.getKind() == IResourceDelta.ADDED &amp;&amp; cursor.getResourceType() == IResource.FILE)
+ *         handleAdded(cursor.getFullPath());
+ *     return true;
+ * }, IResource.NONE);
+ * </pre>
+ * <p>
+ * Clients may implement this interface.
+ * </p>
+ *
+ * @see IResourceChangeEvent#visitDelta(IResourceDeltaCursorVisitor, int)
+ * @see IResourceDeltaVisitor
+ * @since 3.19
+ */
+public interface IResourceDeltaCursorVisitor {
+	/**
+	 * Visits the resource delta the given cursor is positioned on. The
+	 * cursor is only valid during this call.
+	 *
+	 * @param cursor the cursor positioned on the visited delta
+	 * @return <code>true</code> if the resource delta's children should
+	 *		be visited; <code>false</code> if they should be skipped.
+	 * @exception CoreException if the visit fails for some reason.
+	 */
+	boolean visit(IResourceDeltaCursor cursor) throws CoreException;
+}
@@ -176,16 +176,46 @@ public interface IWorkspace extends IAdaptable {
 	 * the same resource change shows up in multiple notifications. Clients are
 	 * guaranteed to receive only the events for which they are registered.
 	 * </p>
+	 * <p>
+	 * Listeners that can process post-change events on a background thread
+	 * may add {@link IResourceChangeEvent#CONCURRENT_NOTIFICATION} to the mask.
+	 * </p>
 	 *
 	 * @param listener the listener
 	 * @param eventMask the bit-wise OR of all event types of interest to the
-	 * listener
+	 * listener, optionally with {@link IResourceChangeEvent#CONCURRENT_NOTIFICATION}
 	 * @see IResourceChangeListener
 	 * @see IResourceChangeEvent
 	 * @see #removeResourceChangeListener(IResourceChangeListener)
 	 */
 	void addResourceChangeListener(IResourceChangeListener listener, int eventMask);
 
+	/**
+	 * Adds the given listener for the specified resource change events to this
+	 * workspace, and restricts the resource deltas it is notified of to the
+	 * changes selected by the given filter. Otherwise behaves like
+	 * {@link #addResourceChangeListener(IResourceChangeListener, int)}; a
+	 * listener registered again without a filter is notified of all changes.
+	 * <p>
+	 * The filter applies to the events carrying a resource delta, that is
+	 * {@link IResourceChangeEvent#POST_CHANGE},
+	 * {@link IResourceChangeEvent#PRE_BUILD} and
+	 * {@link IResourceChangeEvent#POST_BUILD} events. Post-change events that
+	 * do not affect any resource selected by the filter are not delivered to
+	 * the listener. Notifying filtered listeners of a change does not require
+	 * computing the deltas of the changes they are not interested in.
+	 * </p>
+	 *
+	 * @param listener the listener
+	 * @param eventMask the bit-wise OR of all event types of interest to the
+	 * listener, optionally with {@link IResourceChangeEvent#CONCURRENT_NOTIFICATION}
+	 * @param filter the filter selecting the changes of interest to the listener
+	 * @see ResourceChangeFilter
+	 * @see #removeResourceChangeListener(IResourceChangeListener)
+	 * @since 3.19
+	 */
+	void addResourceChangeListener(IResourceChangeListener listener, int eventMask, ResourceChangeFilter filter);
+
 	/**
 	 * Registers the given plug-in's workspace save participant, and returns an
 	 * object describing the workspace state at the time of the last save in
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.resources;
+
+import java.util.Arrays;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * A filter restricting the resource deltas a resource change listener is
+ * notified of to the changes it is interested in.
+ * <p>
+ * A filter selects the changed resources that are located at or below one of
+ * its paths and that either have one of its file extensions, or have changed
+ * markers of one of its marker types or their subtypes. A filter without
+ * paths selects resources anywhere in the workspace, and a filter without
+ * extensions and marker types selects all changed resources below its paths.
+ * </p>
+ * <p>
+ * The deltas given to a filtered listener only contain the selected
+ * resources and their parents, and are computed without allocating deltas for
+ * other changes. The delta of a selected resource is complete, but moves
+ * between selected and other resources are reported as plain additions and
+ * removals. Post-change events that do not affect any selected resource are
+ * not delivered.
+ * </p>
+ * <p>
+ * Filters are immutable. For example, the following filter selects the
+ * changed Java files of a project, and its resources with changed problem
+ * markers:
+ * </p>
+ * <pre>
+ * ResourceChangeFilter.create()
+ *     .withPaths(project.getFullPath())
+ *     .withExtensions("java")
+ *     .withMarkerTypes(IMarker.PROBLEM);
+ * </pre>
+ *
+ * @see IWorkspace#addResourceChangeListener(IResourceChangeListener, int, ResourceChangeFilter)
+ * @since 3.19
+ */
+public final class ResourceChangeFilter {
+	private static final ResourceChangeFilter ALL = new ResourceChangeFilter(new IPath[0], new String[0], new String[0]);
+
+	private final IPath[] paths;
+	private final String[] extensions;
+	private final String[] markerTypes;
+
+	private ResourceChangeFilter(IPath[] paths, String[] extensions, String[] markerTypes) {
+		this.paths = paths;
+		this.extensions = extensions;
+		this.markerTypes = markerTypes;
+	}
+
+	/**
+	 * Returns a filter that selects all changed resources.
+	 *
+	 * @return a filter selecting all changes
+	 */
+	public static ResourceChangeFilter create() {
+		return ALL;
+	}
+
+	/**
+	 * Returns a filter like this one that only selects resources located at
+	 * or below one of the given paths.
+	 *
+	 * @param newPaths the full paths of the resources of interest
+	 * @return the new filter
+	 */
+	public ResourceChangeFilter withPaths(IPath... newPaths) {
+		IPath[] copy = newPaths.clone();
+		for (int i = 0; i < copy.length; i++)
+			copy[i] = copy[i].makeAbsolute().removeTrailingSeparator();
+		return new ResourceChangeFilter(copy, extensions, markerTypes);
+	}
+
+	/**
+	 * Returns a filter like this one that selects resources with one of the
+	 * given file extensions.
+	 *
+	 * @param newExtensions the file extensions of interest, without the dot
+	 * @return the new filter
+	 * @see IResource#getFileExtension()
+	 */
+	public ResourceChangeFilter withExtensions(String... newExtensions) {
+		return new ResourceChangeFilter(paths, newExtensions.clone(), markerTypes);
+	}
+
+	/**
+	 * Returns a filter like this one that selects resources with changed
+	 * markers of one of the given types, or their subtypes.
+	 *
+	 * @param newMarkerTypes the marker types of interest
+	 * @return the new filter
+	 */
+	public ResourceChangeFilter withMarkerTypes(String... newMarkerTypes) {
+		return new ResourceChangeFilter(paths, extensions, newMarkerTypes.clone());
+	}
+
+	/**
+	 * Returns the full paths of the resources selected by this filter, or an
+	 * empty array if it selects resources anywhere in the workspace.
+	 *
+	 * @return the paths of this filter
+	 */
+	public IPath[] getPaths() {
+		return paths.clone();
+	}
+
+	/**
+	 * Returns the file extensions selected by this filter.
+	 *
+	 * @return the file extensions of this filter
+	 */
+	public String[] getExtensions() {
+		return extensions.clone();
+	}
+
+	/**
+	 * Returns the marker types selected by this filter.
+	 *
+	 * @return the marker types of this filter
+	 */
+	public String[] getMarkerTypes() {
+		return markerTypes.clone();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + Arrays.hashCode(extensions);
+		result = prime * result + Arrays.hashCode(markerTypes);
+		result = prime * result + Arrays.hashCode(paths);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ResourceChangeFilter other = (ResourceChangeFilter) obj;
+		return Arrays.equals(extensions, other.extensions) && Arrays.equals(markerTypes, other.markerTypes) && Arrays.equals(paths, other.paths);
+	}
+
+	@Override
+	public String toString() {
+		return "ResourceChangeFilter [paths=" + Arrays.toString(paths) + ", extensions=" + Arrays.toString(extensions) + ", markerTypes=" + Arrays.toString(markerTypes) + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+}
@@ -411,6 +411,49 @@ public class FileStoreTest extends LocalStoreTest {
 		temp.delete(EFS.NONE, null);
 	}
 
+	/**
+	 * Tests that fetching the child infos in bulk yields the same information
+	 * as fetching the info of each child separately.
+	 */
+	public void testChildInfosBulkFetch() throws Throwable {
+		IFileStore temp = createDir(getWorkspace().getRoot().getLocation().append("" + new Date().getTime()).toString(), true);
+		try {
+			createDir(temp.getChild("folder"), true);
+			createFile(temp.getChild("empty"), "");
+			createFile(temp.getChild("file.txt"), getRandomString());
+			IFileStore readOnly = temp.getChild("readOnly");
+			createFile(readOnly, getRandomString());
+			setReadOnly(readOnly, true);
+			int count = 4;
+			if (canCreateSymLinks()) {
+				// symbolic links are fetched one by one, they must keep their name
+				createSymLink(temp.toLocalFile(EFS.NONE, getMonitor()), "link", "file.txt", false);
+				count++;
+			}
+
+			IFileInfo[] infos = temp.childInfos(EFS.BULK_FETCH, getMonitor());
+			assertEquals("1.0", count, infos.length);
+			Set<String> names = new HashSet<>();
+			for (IFileInfo info : infos) {
+				assertTrue("1.1." + info.getName(), names.add(info.getName()));
+				IFileInfo expected = temp.getChild(info.getName()).fetchInfo();
+				assertEquals("2.0." + info.getName(), expected.exists(), info.exists());
+				assertEquals("2.1." + info.getName(), expected.isDirectory(), info.isDirectory());
+				assertEquals("2.2." + info.getName(), expected.getLength(), info.getLength());
+				assertEquals("2.3." + info.getName(), expected.getLastModified(), info.getLastModified());
+				assertEquals("2.4." + info.getName(), expected.getAttribute(EFS.ATTRIBUTE_READ_ONLY), info.getAttribute(EFS.ATTRIBUTE_READ_ONLY));
+				assertEquals("2.5." + info.getName(), expected.getAttribute(EFS.ATTRIBUTE_SYMLINK), info.getAttribute(EFS.ATTRIBUTE_SYMLINK));
+			}
+			assertEquals("3.0", count > 4, names.contains("link"));
+			setReadOnly(readOnly, false);
+
+			// a missing directory has no children
+			assertEquals("4.0", 0, temp.getChild("missing").childInfos(EFS.BULK_FETCH, getMonitor()).length);
+		} finally {
+			temp.delete(EFS.NONE, null);
+		}
+	}
+
 	public void testMove() throws Throwable {
 		/* build scenario */
 		IFileStore tempC = createDir(getWorkspace().getRoot().getLocation().append("temp").toString(), true);
@@ -701,6 +701,35 @@ public class BasicAliasTest extends ResourceTest {
 		assertNull("Unexpected aliases: " + Arrays.toString(aliases), aliases);
 	}
 
+	/**
+	 * Tests that aliases are only found under links to the same location or its
+	 * parents, and not under links to locations that share a name prefix.
+	 */
+	public void testComputeAliasesNamePrefix() throws CoreException {
+		IFolder folder = pNoOverlap.getFolder("folder");
+		IFolder folderSibling = pNoOverlap.getFolder("folder2");
+		IFile folderChild = folder.getFile("Child.txt");
+		IFolder link = pLinked.getFolder("FolderLink");
+		IFolder siblingLink = pLinked.getFolder("SiblingLink");
+		IFolder parentLink = pLinked.getFolder("ParentLink");
+		ensureExistsInWorkspace(new IResource[] {folder, folderSibling, folderChild}, true);
+		link.createLink(folder.getLocationURI(), IResource.NONE, getMonitor());
+		siblingLink.createLink(folderSibling.getLocationURI(), IResource.NONE, getMonitor());
+		parentLink.createLink(pNoOverlap.getLocationURI(), IResource.NONE, getMonitor());
+
+		AliasManager aliasManager = ((Workspace) getWorkspace()).getAliasManager();
+		IResource[] aliases = aliasManager.computeAliases(folderChild, ((Resource) folderChild).getStore());
+		assertNotNull("1.0", aliases);
+		List<IResource> aliasList = Arrays.asList(aliases);
+		assertEquals("1.1", 2, aliases.length);
+		assertTrue("1.2", aliasList.contains(link.getFile(folderChild.getName())));
+		assertTrue("1.3", aliasList.contains(parentLink.getFolder(folder.getName()).getFile(folderChild.getName())));
+
+		link.delete(IResource.NONE, getMonitor());
+		parentLink.delete(IResource.NONE, getMonitor());
+		assertNull("2.0", aliasManager.computeAliases(folderChild, ((Resource) folderChild).getStore()));
+	}
+
 	public void testCreateOpenProject() throws CoreException {
 		//test creating a project whose location is within an existing link
 		IProject newProject = getWorkspace().getRoot().getProject("createOpenProject");
@@ -289,6 +289,46 @@ public class ParallelBuildChainTest extends AbstractBuilderTest {
 		assertEquals(sequentialBuildEvents(allProjects), TimerBuilder.events);
 	}
 
+	/**
+	 * Tests that the project at the head of the longest chain of dependent
+	 * builds is built first.
+	 */
+	public void testCriticalPathBuildsFirst() throws Exception {
+		IWorkspaceRoot root = getWorkspace().getRoot();
+		IProject projectLongBuild1 = root.getProject("projectLongBuild1");
+		IProject projectLongBuild2 = root.getProject("projectLongBuild2");
+		IProject projectLongBuild3 = root.getProject("projectLongBuild3");
+		IProjectDescription desc = projectLongBuild2.getDescription();
+		desc.setReferencedProjects(new IProject[] {projectLongBuild1});
+		projectLongBuild2.setDescription(desc, getMonitor());
+		desc = projectLongBuild3.getDescription();
+		desc.setReferencedProjects(new IProject[] {projectLongBuild2});
+		projectLongBuild3.setDescription(desc, getMonitor());
+		IWorkspaceDescription description = getWorkspace().getDescription();
+		description.setMaxConcurrentBuilds(2);
+		getWorkspace().setDescription(description);
+		setTimerBuilderSchedulingRuleForAllProjects(RuleType.NO_CONFLICT, getMonitor());
+		Job job = new Job("Workspace Build") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					getWorkspace().build(IncrementalProjectBuilder.INCREMENTAL_BUILD, getMonitor());
+					return Status.OK_STATUS;
+				} catch (CoreException e) {
+					return new Status(IStatus.ERROR, "org.eclipse.core.tests.resources", e.getMessage(), e);
+				}
+			}
+		};
+		job.schedule();
+		Assert.assertTrue("Timeout, most likely a deadlock", job.join(5000, getMonitor()));
+		assertEquals(root.getProjects().length, TimerBuilder.getTotalBuilds());
+		assertTrue(TimerBuilder.getMaxSimultaneousBuilds() <= 2);
+		// the builds started first are the first two in the order of their critical paths
+		List<Object> starts = new ArrayList<>(TimerBuilder.events);
+		starts.removeIf(event -> event.toString().startsWith("Compete"));
+		assertTrue(starts.toString(), starts.subList(0, 2).contains(TimerBuilder.buildStartEvent(projectLongBuild1)));
+	}
+
 	private List<Object> sequentialBuildEvents(IProject[] allProjects) {
 		List<Object> res = new ArrayList<>(allProjects.length * 2);
 		for (IProject project : allProjects) {
@@ -143,6 +143,38 @@ public class DeltaDataTreeTest {
 		tree2.makeComplete();
 	}
 
+	/**
+	 * Tests the depth of delta chains, and the number of layers their lookups search.
+	 */
+	@Test
+	public void testChainDepth() {
+		final int NUM_DELTAS = 10;
+		tree.immutable();
+		assertEquals(0, tree.getChainDepth());
+		DeltaDataTree delta = tree;
+		for (int i = 0; i < NUM_DELTAS; i++) {
+			delta = delta.newEmptyDeltaTree();
+			delta.createChild(leftKey, "delta" + i);
+			delta.immutable();
+		}
+		assertEquals(NUM_DELTAS, delta.getChainDepth());
+
+		/* a lookup of an element of the complete tree searches all layers */
+		long lookups = DeltaDataTree.getLookupCount();
+		long layers = DeltaDataTree.getLayersSearchedCount();
+		assertTrue(delta.lookup(leftKey.append("one")).isPresent);
+		assertTrue(DeltaDataTree.getLookupCount() > lookups);
+		assertTrue(DeltaDataTree.getLayersSearchedCount() - layers >= NUM_DELTAS + 1);
+
+		/* collapsing the chain makes lookups search at most two layers */
+		delta.collapseTo(tree, DefaultElementComparator.getComparator());
+		assertEquals(1, delta.getChainDepth());
+		assertTree(delta);
+		for (int i = 0; i < NUM_DELTAS; i++) {
+			assertTrue(delta.includes(leftKey.append("delta" + i)));
+		}
+	}
+
 	@Test
 	public void testCompareWithPath() {
 		// setup data:
@@ -1056,6 +1088,32 @@ public class DeltaDataTreeTest {
 
 	}
 
+	/**
+	 * Tests looking up the children of a node with many children, whose names
+	 * are hashed rather than binary searched.
+	 */
+	@Test
+	public void testWideNode() {
+		final int WIDTH = 200;
+		for (int i = 0; i < WIDTH; i += 2) {
+			tree.createChild(rightKey, "child" + i, Integer.valueOf(i));
+		}
+		for (int i = 0; i < WIDTH; i++) {
+			/* look up by a name that is equal, but not identical, to the child name */
+			IPath key = Path.forPosix(rightKey.toString() + "/child" + i);
+			assertEquals(key.toString(), i % 2 == 0, tree.includes(key));
+		}
+
+		/* the children of a node are replaced when a child is added or deleted */
+		tree.createChild(rightKey, "child1", "added");
+		tree.deleteChild(rightKey, "child0");
+		assertEquals("added", tree.getData(rightKey.append("child1")));
+		assertFalse(tree.includes(rightKey.append("child0")));
+		assertEquals(Integer.valueOf(WIDTH - 2), tree.getData(rightKey.append("child" + (WIDTH - 2))));
+		assertTrue(tree.includes(rightKey.append("rightOfRight")));
+		assertEquals(WIDTH / 2 + 1, tree.getChildCount(rightKey));
+	}
+
 	/**
 	 * Tests that the setUp() method is doing what it should
 	 */
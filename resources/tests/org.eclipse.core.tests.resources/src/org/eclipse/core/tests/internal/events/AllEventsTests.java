@@ -17,6 +17,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({ BuildProjectFromMultipleJobsTest.class })
+@Suite.SuiteClasses({ BuildProjectFromMultipleJobsTest.class, ConcurrentNotificationTest.class,
+		ResourceChangeFilterTest.class, ResourceDeltaCursorTest.class })
 public class AllEventsTests {
 }
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ *  Copyright (c) 2023 IBM Corporation and others.
+ *
+ *  This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License 2.0
+ *  which accompanies this distribution, and is available at
+ *  https://www.eclipse.org/legal/epl-2.0/
+ *
+ *  SPDX-License-Identifier: EPL-2.0
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.events;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.internal.events.ListenerStats;
+import org.eclipse.core.internal.resources.Workspace;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.tests.resources.ResourceTest;
+
+/**
+ * Tests resource change listeners registered for concurrent notification.
+ */
+public class ConcurrentNotificationTest extends ResourceTest {
+
+	private final List<IResourceChangeListener> listeners = new ArrayList<>();
+
+	private void addListener(IResourceChangeListener listener, int eventMask) {
+		listeners.add(listener);
+		getWorkspace().addResourceChangeListener(listener, eventMask);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (IResourceChangeListener listener : listeners)
+			getWorkspace().removeResourceChangeListener(listener);
+		super.tearDown();
+	}
+
+	private ListenerStats getStats(IResourceChangeListener listener) {
+		for (ListenerStats stats : ((Workspace) getWorkspace()).getNotificationManager().getListenerStats())
+			if (stats.getListener() == listener)
+				return stats;
+		return null;
+	}
+
+	public void testOperationsNotBlocked() throws Exception {
+		IProject project = getWorkspace().getRoot().getProject(getUniqueString());
+		ensureExistsInWorkspace(project, true);
+
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(2);
+		List<IPath> added = Collections.synchronizedList(new ArrayList<>());
+		Thread testThread = Thread.currentThread();
+		List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+		addListener(event -> {
+			threads.add(Thread.currentThread());
+			try {
+				release.await(30, TimeUnit.SECONDS);
+				event.getDelta().accept(delta -> {
+					if (delta.getKind() == IResourceDelta.ADDED && delta.getResource().getType() == IResource.FOLDER)
+						added.add(delta.getFullPath());
+					return true;
+				});
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+			done.countDown();
+		}, IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.CONCURRENT_NOTIFICATION);
+
+		// the listener does not handle events until released
+		IFolder first = project.getFolder("first");
+		IFolder second = project.getFolder("second");
+		ensureExistsInWorkspace(first, true);
+		ensureExistsInWorkspace(second, true);
+		assertEquals("1.0", 2, done.getCount());
+
+		release.countDown();
+		assertTrue("2.0", done.await(30, TimeUnit.SECONDS));
+		assertEquals("2.1", Arrays.asList(first.getFullPath(), second.getFullPath()), added);
+		for (Thread thread : threads)
+			assertNotSame("2.2", testThread, thread);
+	}
+
+	public void testListenerStats() throws Exception {
+		List<IResourceChangeEvent> events = Collections.synchronizedList(new ArrayList<>());
+		IResourceChangeListener listener = events::add;
+		addListener(listener, IResourceChangeEvent.POST_CHANGE);
+		IProject project = getWorkspace().getRoot().getProject(getUniqueString());
+		ensureExistsInWorkspace(project, true);
+
+		ListenerStats stats = getStats(listener);
+		assertNotNull("1.0", stats);
+		assertEquals("1.1", events.size(), stats.getNotificationCount());
+		assertTrue("1.2", stats.getMaxTime() <= stats.getTotalTime());
+
+		// registering the listener again for other events keeps its statistics
+		addListener(listener, IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_DELETE);
+		assertSame("2.0", stats, getStats(listener));
+	}
+}
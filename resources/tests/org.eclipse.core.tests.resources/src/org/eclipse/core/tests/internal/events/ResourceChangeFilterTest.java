@@ -0,0 +1,148 @@
+/*******************************************************************************
+ *  Copyright (c) 2023 IBM Corporation and others.
+ *
+ *  This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License 2.0
+ *  which accompanies this distribution, and is available at
+ *  https://www.eclipse.org/legal/epl-2.0/
+ *
+ *  SPDX-License-Identifier: EPL-2.0
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.events;
+
+import java.util.*;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.tests.resources.ResourceTest;
+
+/**
+ * Tests resource change listeners registered with a {@link ResourceChangeFilter}.
+ */
+public class ResourceChangeFilterTest extends ResourceTest {
+
+	/**
+	 * Records the paths of the resources in the deltas it is notified of.
+	 */
+	static class DeltaRecorder implements IResourceChangeListener {
+		final List<Set<IPath>> events = new ArrayList<>();
+
+		@Override
+		public void resourceChanged(IResourceChangeEvent event) {
+			Set<IPath> paths = new HashSet<>();
+			try {
+				event.getDelta().accept(delta -> paths.add(delta.getFullPath()));
+			} catch (CoreException e) {
+				throw new RuntimeException(e);
+			}
+			events.add(paths);
+		}
+
+		Set<IPath> last() {
+			return events.get(events.size() - 1);
+		}
+	}
+
+	private final DeltaRecorder recorder = new DeltaRecorder();
+	private IProject project1;
+	private IProject project2;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		project1 = getWorkspace().getRoot().getProject("Project1");
+		project2 = getWorkspace().getRoot().getProject("Project2");
+		ensureExistsInWorkspace(new IResource[] {project1, project2}, true);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		getWorkspace().removeResourceChangeListener(recorder);
+		super.tearDown();
+	}
+
+	private void addListener(ResourceChangeFilter filter) {
+		getWorkspace().addResourceChangeListener(recorder, IResourceChangeEvent.POST_CHANGE, filter);
+	}
+
+	private static Set<IPath> paths(IResource... resources) {
+		Set<IPath> result = new HashSet<>();
+		result.add(Path.ROOT);
+		for (IResource resource : resources)
+			result.add(resource.getFullPath());
+		return result;
+	}
+
+	public void testPathFilter() throws CoreException {
+		IFile file1 = project1.getFile("file.txt");
+		IFile file2 = project2.getFile("file.txt");
+		addListener(ResourceChangeFilter.create().withPaths(project1.getFullPath()));
+
+		// changes outside of the filter are not delivered
+		ensureExistsInWorkspace(file2, true);
+		assertEquals("1.0", 0, recorder.events.size());
+
+		getWorkspace().run((IWorkspaceRunnable) monitor -> {
+			ensureExistsInWorkspace(file1, true);
+			file2.setContents(getRandomContents(), IResource.NONE, null);
+		}, null);
+		assertEquals("2.0", 1, recorder.events.size());
+		assertEquals("2.1", paths(project1, file1), recorder.last());
+	}
+
+	public void testExtensionFilter() throws CoreException {
+		IFolder folder = project1.getFolder("src");
+		IFile javaFile = folder.getFile("A.java");
+		IFile textFile = folder.getFile("a.txt");
+		IFile otherJavaFile = project2.getFile("B.java");
+		addListener(ResourceChangeFilter.create().withExtensions("java"));
+
+		getWorkspace().run((IWorkspaceRunnable) monitor -> ensureExistsInWorkspace(new IResource[] {folder, javaFile, textFile, otherJavaFile}, true), null);
+		assertEquals("1.0", 1, recorder.events.size());
+		assertEquals("1.1", paths(project1, folder, javaFile, project2, otherJavaFile), recorder.last());
+
+		// changes to other resources only are not delivered
+		textFile.setContents(getRandomContents(), IResource.NONE, null);
+		assertEquals("2.0", 1, recorder.events.size());
+	}
+
+	public void testMarkerTypeFilter() throws CoreException {
+		IFile file1 = project1.getFile("file1.txt");
+		IFile file2 = project1.getFile("file2.txt");
+		ensureExistsInWorkspace(new IResource[] {file1, file2}, true);
+		addListener(ResourceChangeFilter.create().withMarkerTypes(IMarker.PROBLEM));
+
+		file1.createMarker(IMarker.TASK);
+		assertEquals("1.0", 0, recorder.events.size());
+
+		getWorkspace().run((IWorkspaceRunnable) monitor -> {
+			file2.createMarker(IMarker.PROBLEM);
+			file1.setContents(getRandomContents(), IResource.NONE, null);
+		}, null);
+		assertEquals("2.0", 1, recorder.events.size());
+		assertEquals("2.1", paths(project1, file2), recorder.last());
+	}
+
+	public void testRegisterAgainWithoutFilter() throws CoreException {
+		IFile file = project2.getFile("file.txt");
+		addListener(ResourceChangeFilter.create().withPaths(project1.getFullPath()));
+		ensureExistsInWorkspace(file, true);
+		assertEquals("1.0", 0, recorder.events.size());
+
+		getWorkspace().addResourceChangeListener(recorder, IResourceChangeEvent.POST_CHANGE);
+		file.setContents(getRandomContents(), IResource.NONE, null);
+		assertEquals("2.0", 1, recorder.events.size());
+		assertEquals("2.1", paths(project2, file), recorder.last());
+	}
+
+	public void testFilterEquality() {
+		ResourceChangeFilter filter = ResourceChangeFilter.create().withPaths(project1.getFullPath()).withExtensions("java");
+		assertEquals("1.0", filter, ResourceChangeFilter.create().withExtensions("java").withPaths(project1.getFullPath()));
+		assertFalse("1.1", filter.equals(ResourceChangeFilter.create().withPaths(project1.getFullPath())));
+		assertEquals("1.2", 0, ResourceChangeFilter.create().getPaths().length);
+	}
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ *  Copyright (c) 2023 IBM Corporation and others.
+ *
+ *  This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License 2.0
+ *  which accompanies this distribution, and is available at
+ *  https://www.eclipse.org/legal/epl-2.0/
+ *
+ *  SPDX-License-Identifier: EPL-2.0
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.core.internal.events.LazyResourceDelta;
+import org.eclipse.core.internal.resources.Workspace;
+import org.eclipse.core.internal.watson.ElementTree;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.tests.resources.ResourceTest;
+
+/**
+ * Tests that visiting a delta with a cursor reports the same deltas as
+ * visiting the resource delta objects.
+ */
+public class ResourceDeltaCursorTest extends ResourceTest {
+
+	private static final int[] MEMBER_FLAGS = {IResource.NONE, IContainer.INCLUDE_PHANTOMS | IContainer.INCLUDE_HIDDEN | IContainer.INCLUDE_TEAM_PRIVATE_MEMBERS};
+
+	/**
+	 * Computes the delta of each post-change event since the previous one,
+	 * and records the deltas visited with a cursor and those visited through
+	 * the delta objects.
+	 */
+	class Recorder implements IResourceChangeListener {
+		final List<String> cursorVisits = new ArrayList<>();
+		final List<String> deltaVisits = new ArrayList<>();
+		private ElementTree oldTree;
+		private long markerId;
+
+		/**
+		 * Takes the current state of the workspace as the old state of the
+		 * next delta.
+		 */
+		void reset() {
+			Workspace workspace = (Workspace) getWorkspace();
+			oldTree = workspace.getElementTree();
+			markerId = workspace.getMarkerManager().getChangeId();
+		}
+
+		@Override
+		public void resourceChanged(IResourceChangeEvent event) {
+			Workspace workspace = (Workspace) getWorkspace();
+			LazyResourceDelta lazyDelta = new LazyResourceDelta(workspace, oldTree, workspace.getElementTree(), markerId + 1);
+			try {
+				for (int memberFlags : MEMBER_FLAGS)
+					lazyDelta.accept(cursor -> cursorVisits.add(describe(cursor)), memberFlags);
+				for (int memberFlags : MEMBER_FLAGS)
+					((IResourceDelta) lazyDelta.getDelta()).accept(delta -> deltaVisits.add(describe(delta)), memberFlags);
+			} catch (CoreException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		private String describe(IResourceDeltaCursor cursor) {
+			return cursor.getFullPath() + " kind=" + cursor.getKind() + " flags=" + cursor.getFlags() + " type=" + cursor.getResourceType() + " name=" + cursor.getName() + " depth=" + cursor.getDepth() + " from=" + cursor.getMovedFromPath() + " to=" + cursor.getMovedToPath() + " markers=" + cursor.getMarkerDeltas().length + " resource=" + cursor.getResource();
+		}
+
+		private String describe(IResourceDelta delta) {
+			IPath path = delta.getFullPath();
+			return path + " kind=" + delta.getKind() + " flags=" + delta.getFlags() + " type=" + delta.getResource().getType() + " name=" + path.lastSegment() + " depth=" + path.segmentCount() + " from=" + delta.getMovedFromPath() + " to=" + delta.getMovedToPath() + " markers=" + delta.getMarkerDeltas().length + " resource=" + delta.getResource();
+		}
+	}
+
+	private final Recorder recorder = new Recorder();
+	private IProject project;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = getWorkspace().getRoot().getProject("Project");
+		ensureExistsInWorkspace(project, true);
+		recorder.reset();
+		getWorkspace().addResourceChangeListener(recorder, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		getWorkspace().removeResourceChangeListener(recorder);
+		super.tearDown();
+	}
+
+	private void assertSameVisits() {
+		assertFalse("no delta visited", recorder.deltaVisits.isEmpty());
+		assertEquals(recorder.deltaVisits, recorder.cursorVisits);
+		recorder.cursorVisits.clear();
+		recorder.deltaVisits.clear();
+		recorder.reset();
+	}
+
+	public void testAddChangeRemove() throws CoreException {
+		IFolder folder = project.getFolder("folder");
+		IFile file = folder.getFile("file.txt");
+		ensureExistsInWorkspace(new IResource[] {folder, file}, true);
+		assertSameVisits();
+
+		file.setContents(getRandomContents(), IResource.NONE, null);
+		assertSameVisits();
+
+		folder.delete(true, null);
+		assertSameVisits();
+	}
+
+	public void testMoves() throws CoreException {
+		IFolder folder = project.getFolder("folder");
+		IFile file = folder.getFile("file.txt");
+		IFile other = project.getFile("other.txt");
+		ensureExistsInWorkspace(new IResource[] {folder, file, other}, true);
+		assertSameVisits();
+
+		file.move(project.getFile("moved.txt").getFullPath(), true, null);
+		assertSameVisits();
+
+		getWorkspace().run((IWorkspaceRunnable) monitor -> {
+			folder.move(project.getFolder("movedFolder").getFullPath(), true, null);
+			other.setContents(getRandomContents(), IResource.NONE, null);
+		}, null);
+		assertSameVisits();
+	}
+
+	public void testMarkers() throws CoreException {
+		IFile file = project.getFile("file.txt");
+		IFile added = project.getFile("added.txt");
+		ensureExistsInWorkspace(file, true);
+		assertSameVisits();
+
+		getWorkspace().run((IWorkspaceRunnable) monitor -> {
+			file.createMarker(IMarker.PROBLEM);
+			ensureExistsInWorkspace(added, true);
+			added.createMarker(IMarker.TASK);
+			getWorkspace().getRoot().createMarker(IMarker.BOOKMARK);
+		}, null);
+		assertSameVisits();
+
+		getWorkspace().run((IWorkspaceRunnable) monitor -> {
+			added.delete(true, null);
+			getWorkspace().getRoot().deleteMarkers(IMarker.BOOKMARK, false, IResource.DEPTH_ZERO);
+		}, null);
+		assertSameVisits();
+	}
+
+	public void testProjects() throws CoreException {
+		IProject other = getWorkspace().getRoot().getProject("Other");
+		ensureExistsInWorkspace(other, true);
+		assertSameVisits();
+
+		other.close(null);
+		assertSameVisits();
+
+		other.open(null);
+		assertSameVisits();
+	}
+
+	public void testHiddenAndTeamPrivate() throws CoreException {
+		IFolder hidden = project.getFolder("hidden");
+		IFolder teamPrivate = project.getFolder("team");
+		getWorkspace().run((IWorkspaceRunnable) monitor -> {
+			hidden.create(IResource.HIDDEN, true, null);
+			hidden.getFile("file.txt").create(getRandomContents(), true, null);
+			teamPrivate.create(true, true, null);
+			teamPrivate.setTeamPrivateMember(true);
+			teamPrivate.getFile("file.txt").create(getRandomContents(), true, null);
+		}, null);
+		assertSameVisits();
+	}
+
+	public void testSkipChildren() throws CoreException {
+		IFolder folder = project.getFolder("folder");
+		getWorkspace().removeResourceChangeListener(recorder);
+		ensureExistsInWorkspace(new IResource[] {folder, folder.getFile("file.txt")}, true);
+
+		List<String> visited = new ArrayList<>();
+		IResourceChangeListener listener = event -> {
+			try {
+				event.visitDelta(cursor -> {
+					visited.add(cursor.getName());
+					return cursor.getResourceType() != IResource.PROJECT;
+				}, IResource.NONE);
+			} catch (CoreException e) {
+				throw new RuntimeException(e);
+			}
+		};
+		getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		try {
+			folder.getFile("file.txt").setContents(getRandomContents(), IResource.NONE, null);
+		} finally {
+			getWorkspace().removeResourceChangeListener(listener);
+		}
+		List<String> expected = new ArrayList<>();
+		expected.add(null);
+		expected.add("Project");
+		assertEquals(expected, visited);
+	}
+}
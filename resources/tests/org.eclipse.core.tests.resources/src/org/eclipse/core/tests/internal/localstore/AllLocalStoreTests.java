@@ -19,8 +19,8 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ BlobStoreTest.class, BucketTreeTests.class, CaseSensitivityTest.class, CopyTest.class,
-		DeleteTest.class, FileSystemResourceManagerTest.class, HistoryBucketTest.class, HistoryStoreTest.class,
-		LocalSyncTest.class, MoveTest.class, PrefixPoolTest.class, RefreshLocalTest.class,
+		DeleteTest.class, FileInfoIndexTest.class, FileSystemResourceManagerTest.class, HistoryBucketTest.class,
+		HistoryStoreTest.class, LocalSyncTest.class, MoveTest.class, PrefixPoolTest.class, RefreshLocalTest.class,
 		SafeChunkyInputOutputStreamTest.class, SafeFileInputOutputStreamTest.class, SymlinkResourceTest.class,
 		UnifiedTreeTest.class })
 public class AllLocalStoreTests {
@@ -13,11 +13,14 @@
  *******************************************************************************/
 package org.eclipse.core.tests.internal.localstore;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.Random;
 import org.eclipse.core.filesystem.*;
 import org.eclipse.core.internal.localstore.BlobStore;
 import org.eclipse.core.internal.utils.UniversalUniqueIdentifier;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 
 //
@@ -171,4 +174,137 @@ public class BlobStoreTest extends LocalStoreTest {
 		}
 		assertTrue("2.5", compareContent(getContents(content), input));
 	}
+
+	public void testContentAddressed() throws CoreException {
+		IFileStore root = createStore();
+		BlobStore store = new BlobStore(root, 64, true);
+		assertTrue("1.0", store.isContentAddressed());
+
+		/* identical contents are stored once */
+		IFileStore first = root.getChild("first");
+		IFileStore second = root.getChild("second");
+		IFileStore other = root.getChild("other");
+		createFile(first, "some contents");
+		createFile(second, "some contents");
+		createFile(other, "other contents");
+		UniversalUniqueIdentifier firstId = store.addBlob(first, false);
+		UniversalUniqueIdentifier secondId = store.addBlob(second, true);
+		UniversalUniqueIdentifier otherId = store.addBlob(other, true);
+		assertEquals("2.0", firstId, secondId);
+		assertFalse("2.1", firstId.equals(otherId));
+		assertTrue("2.2", first.fetchInfo().exists());
+		assertFalse("2.3", second.fetchInfo().exists());
+		assertTrue("2.4", compareContent(getContents("some contents"), store.getBlob(firstId)));
+		assertTrue("2.5", compareContent(getContents("other contents"), store.getBlob(otherId)));
+
+		/* the store remains content-addressed */
+		assertTrue("3.0", new BlobStore(root, 64).isContentAddressed());
+		assertFalse("3.1", new BlobStore(createStore(), 64).isContentAddressed());
+	}
+
+	public void testPacked() throws CoreException {
+		IFileStore root = createStore();
+		BlobStore store = new BlobStore(root, 64, true, true);
+		assertTrue("1.0", store.isPacked());
+
+		/* blobs are read back from the packs, identical contents are stored once */
+		IFileStore first = root.getChild("first");
+		IFileStore second = root.getChild("second");
+		createFile(first, "some contents");
+		createFile(second, "some contents");
+		UniversalUniqueIdentifier firstId = store.addBlob(first, true);
+		UniversalUniqueIdentifier secondId = store.addBlob(second, false);
+		assertEquals("2.0", firstId, secondId);
+		assertFalse("2.1", first.fetchInfo().exists());
+		assertTrue("2.2", second.fetchInfo().exists());
+		assertFalse("2.3", store.fileFor(firstId).fetchInfo().exists());
+		assertTrue("2.4", store.exists(firstId));
+		assertTrue("2.5", compareContent(getContents("some contents"), store.getBlob(firstId)));
+
+		/* large blobs fill the first pack, the next blob goes to a new pack */
+		Random random = new Random();
+		byte[] large1 = new byte[5 << 20];
+		byte[] large2 = new byte[5 << 20];
+		random.nextBytes(large1);
+		random.nextBytes(large2);
+		IFileStore target = root.getChild("target");
+		createFileInFileSystem(target, new ByteArrayInputStream(large1));
+		UniversalUniqueIdentifier large1Id = store.addBlob(target, true);
+		createFileInFileSystem(target, new ByteArrayInputStream(large2));
+		UniversalUniqueIdentifier large2Id = store.addBlob(target, true);
+		createFile(target, "other contents");
+		UniversalUniqueIdentifier otherId = store.addBlob(target, true);
+		IFileStore packs = root.getChild(BlobStore.PACKS_DIRECTORY);
+		assertEquals("3.0", 2, countPacks(packs));
+
+		/* the store remains packed, and the blobs are found after reopening it */
+		store.close();
+		store = new BlobStore(root, 64);
+		assertTrue("4.0", store.isPacked());
+		assertTrue("4.1", compareContent(new ByteArrayInputStream(large2), store.getBlob(large2Id)));
+		assertTrue("4.2", compareContent(getContents("other contents"), store.getBlob(otherId)));
+
+		/* compaction drops the pack whose blobs were deleted */
+		store.deleteBlob(large1Id);
+		store.deleteBlob(large2Id);
+		assertFalse("5.0", store.exists(large1Id));
+		store.compact(new NullProgressMonitor());
+		assertEquals("5.1", 1, countPacks(packs));
+		assertTrue("5.2", compareContent(getContents("some contents"), store.getBlob(firstId)));
+		assertTrue("5.3", compareContent(getContents("other contents"), store.getBlob(otherId)));
+		store.close();
+	}
+
+	public void testPackedDeletions() throws CoreException {
+		IFileStore root = createStore();
+		IFileStore target = root.getChild("target");
+		createFile(target, "loose contents");
+		UniversalUniqueIdentifier looseId = new BlobStore(root, 64, true).addBlob(target, true);
+		BlobStore store = new BlobStore(root, 64, true, true);
+		createFile(target, "some contents");
+		UniversalUniqueIdentifier firstId = store.addBlob(target, true);
+		createFile(target, "other contents");
+		UniversalUniqueIdentifier otherId = store.addBlob(target, true);
+
+		/* the blob added before the store was packed is deleted too */
+		assertTrue("1.0", store.exists(looseId));
+		store.deleteBlob(looseId);
+		assertFalse("1.1", store.exists(looseId));
+		assertFalse("1.2", store.fileFor(looseId).fetchInfo().exists());
+
+		/* deleted blobs do not reappear when the store was not closed */
+		store.deleteBlob(firstId);
+		store = new BlobStore(root, 64);
+		assertFalse("2.0", store.exists(firstId));
+		assertTrue("2.1", compareContent(getContents("other contents"), store.getBlob(otherId)));
+
+		/* a blob added again after its deletion is kept */
+		createFile(target, "some contents");
+		assertEquals("3.0", firstId, store.addBlob(target, true));
+		store = new BlobStore(root, 64);
+		assertTrue("3.1", compareContent(getContents("some contents"), store.getBlob(firstId)));
+
+		/* the newest pack is compacted once it mostly holds deleted blobs */
+		assertFalse("4.0", store.needsCompaction());
+		store.deleteBlob(firstId);
+		store.deleteBlob(otherId);
+		assertTrue("4.1", store.needsCompaction());
+		store.compact(new NullProgressMonitor());
+		assertFalse("4.2", store.needsCompaction());
+		store.close();
+		store = new BlobStore(root, 64);
+		assertFalse("4.3", store.exists(firstId));
+		assertFalse("4.4", store.exists(otherId));
+		// only the new pack, which is empty, remains
+		assertEquals("4.5", 1, countPacks(root.getChild(BlobStore.PACKS_DIRECTORY)));
+		store.close();
+	}
+
+	private int countPacks(IFileStore packs) throws CoreException {
+		int count = 0;
+		for (String name : packs.childNames(EFS.NONE, null))
+			if (name.endsWith(".pack"))
+				count++;
+		return count;
+	}
 }
@@ -17,6 +17,9 @@ package org.eclipse.core.tests.internal.localstore;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.core.internal.localstore.Bucket;
 import org.eclipse.core.internal.localstore.BucketTree;
 import org.eclipse.core.internal.resources.Workspace;
@@ -125,9 +128,7 @@ public class BucketTreeTests extends ResourceTest {
 	public void testVisitor() {
 		IPath baseLocation = getRandomLocation();
 		try {
-			// keep the reference around - it is the same returned by tree.getCurrent()
-			SimpleBucket bucket = new SimpleBucket();
-			BucketTree tree = new BucketTree((Workspace) getWorkspace(), bucket);
+			BucketTree tree = new BucketTree((Workspace) getWorkspace(), SimpleBucket::new);
 			IProject proj1 = getWorkspace().getRoot().getProject("proj1");
 			IProject proj2 = getWorkspace().getRoot().getProject("proj2");
 			IFile file1 = proj1.getFile("file1.txt");
@@ -136,16 +137,19 @@ public class BucketTreeTests extends ResourceTest {
 			ensureExistsInWorkspace(new IResource[] {file1, file2, proj2}, true);
 			IPath[] paths = {Path.ROOT, proj1.getFullPath(), file1.getFullPath(), folder1.getFullPath(), file2.getFullPath(), proj2.getFullPath()};
 			for (int i = 0; i < paths.length; i++) {
+				IPath path = paths[i];
 				try {
-					tree.loadBucketFor(paths[i]);
+					tree.applyToBucketFor(path, bucket -> {
+						((SimpleBucket) bucket).set(path, "path", path.toString());
+						((SimpleBucket) bucket).set(path, "segments", Integer.toString(path.segmentCount()));
+						return null;
+					});
 				} catch (CoreException e) {
 					fail("0.1." + i, e);
 				}
-				bucket.set(paths[i], "path", paths[i].toString());
-				bucket.set(paths[i], "segments", Integer.toString(paths[i].segmentCount()));
 			}
 			try {
-				bucket.save();
+				tree.close();
 			} catch (CoreException e) {
 				fail("0.2", e);
 			}
@@ -173,6 +177,146 @@ public class BucketTreeTests extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Tests that threads writing to the buckets of a tree, while another thread
+	 * visits it, do not lose any change. There are more buckets than are kept
+	 * in memory, so that buckets are also evicted concurrently.
+	 */
+	public void testConcurrentAccess() throws Exception {
+		IProject project = getWorkspace().getRoot().getProject("proj1");
+		IFolder[] folders = new IFolder[40];
+		for (int i = 0; i < folders.length; i++)
+			folders[i] = project.getFolder("folder" + i);
+		ensureExistsInWorkspace(folders, true);
+		BucketTree tree = new BucketTree((Workspace) getWorkspace(), SimpleBucket::new);
+		int threadCount = 4;
+		List<IPath> expected = Collections.synchronizedList(new ArrayList<>());
+		List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+		AtomicBoolean writing = new AtomicBoolean(true);
+		Thread visitor = new Thread(() -> {
+			try {
+				while (writing.get())
+					tree.accept(new SimpleBucket.Visitor() {
+						@Override
+						public int visit(org.eclipse.core.internal.localstore.Bucket.Entry entry) {
+							return CONTINUE;
+						}
+					}, project.getFullPath(), BucketTree.DEPTH_INFINITE);
+			} catch (Throwable e) {
+				errors.add(e);
+			}
+		});
+		Thread[] writers = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			String fileName = "file" + t + ".txt";
+			writers[t] = new Thread(() -> {
+				try {
+					for (int round = 0; round < 5; round++)
+						for (IFolder folder : folders) {
+							IPath path = folder.getFile(fileName).getFullPath();
+							tree.applyToBucketFor(path, bucket -> {
+								((SimpleBucket) bucket).set(path, "path", path.toString());
+								((SimpleBucket) bucket).set(path, "segments", Integer.toString(path.segmentCount()));
+								return null;
+							});
+							if (round == 0)
+								expected.add(path);
+						}
+				} catch (Throwable e) {
+					errors.add(e);
+				}
+			});
+		}
+		visitor.start();
+		for (Thread writer : writers)
+			writer.start();
+		for (Thread writer : writers)
+			writer.join();
+		writing.set(false);
+		visitor.join();
+		assertEquals("1.0", Collections.emptyList(), errors);
+		tree.close();
+		verify(new BucketTree((Workspace) getWorkspace(), SimpleBucket::new), "2.0", project.getFullPath(), BucketTree.DEPTH_INFINITE, expected);
+	}
+
+	/**
+	 * Tests that a change made to a bucket that is evicted while the change
+	 * waits for its lock is not lost.
+	 */
+	public void testEvictionDuringAcquire() throws Exception {
+		IProject project = getWorkspace().getRoot().getProject("proj1");
+		IFolder[] folders = new IFolder[40];
+		for (int i = 0; i < folders.length; i++)
+			folders[i] = project.getFolder("folder" + i);
+		ensureExistsInWorkspace(folders, true);
+		IPath first = folders[0].getFile("file.txt").getFullPath();
+		IPath late = folders[0].getFile("late.txt").getFullPath();
+		CountDownLatch saving = new CountDownLatch(1);
+		CountDownLatch resume = new CountDownLatch(1);
+		AtomicBoolean blocked = new AtomicBoolean();
+		// the eviction of the first bucket waits in save() while holding its lock
+		BucketTree tree = new BucketTree((Workspace) getWorkspace(), () -> new SimpleBucket() {
+			@Override
+			public void save() throws CoreException {
+				if (getEntryValue(first.toString()) != null && getEntryValue(late.toString()) == null && blocked.compareAndSet(false, true)) {
+					saving.countDown();
+					try {
+						resume.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				super.save();
+			}
+		});
+		List<IPath> expected = Collections.synchronizedList(new ArrayList<>());
+		List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+		Thread writer = new Thread(() -> {
+			try {
+				for (IFolder folder : folders) {
+					IPath path = folder.getFile("file.txt").getFullPath();
+					write(tree, path);
+					expected.add(path);
+				}
+			} catch (Throwable e) {
+				errors.add(e);
+			}
+		});
+		Thread lateWriter = new Thread(() -> {
+			try {
+				write(tree, late);
+				expected.add(late);
+			} catch (Throwable e) {
+				errors.add(e);
+			}
+		});
+		writer.start();
+		try {
+			assertTrue("1.0", saving.await(30, TimeUnit.SECONDS));
+			lateWriter.start();
+			// wait until the late writer waits for the lock of the bucket being evicted
+			long timeout = System.currentTimeMillis() + 30000;
+			while (lateWriter.getState() != Thread.State.WAITING && System.currentTimeMillis() < timeout)
+				Thread.sleep(10);
+			assertEquals("1.1", Thread.State.WAITING, lateWriter.getState());
+		} finally {
+			resume.countDown();
+		}
+		writer.join();
+		lateWriter.join();
+		assertEquals("2.0", Collections.emptyList(), errors);
+		tree.close();
+		verify(new BucketTree((Workspace) getWorkspace(), SimpleBucket::new), "3.0", project.getFullPath(), BucketTree.DEPTH_INFINITE, expected);
+	}
+
+	private static void write(BucketTree tree, IPath path) throws CoreException {
+		tree.applyToBucketFor(path, bucket -> {
+			((SimpleBucket) bucket).set(path, "path", path.toString());
+			((SimpleBucket) bucket).set(path, "segments", Integer.toString(path.segmentCount()));
+			return null;
+		});
+	}
+
 	public void verify(BucketTree tree, final String tag, IPath root, int depth, final Collection<IPath> expected) {
 		final Set<IPath> visited = new HashSet<>();
 		SimpleBucket.Visitor verifier = new SimpleBucket.Visitor() {
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ *  Copyright (c) 2023 IBM Corporation and others.
+ *
+ *  This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License 2.0
+ *  which accompanies this distribution, and is available at
+ *  https://www.eclipse.org/legal/epl-2.0/
+ *
+ *  SPDX-License-Identifier: EPL-2.0
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.localstore;
+
+import org.eclipse.core.internal.localstore.*;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Tests for the index of directory states used to prune the refresh on startup.
+ */
+public class FileInfoIndexTest extends LocalStoreTest {
+
+	/**
+	 * Sets the modification time of the given containers into the past, so
+	 * that they are old enough to be recorded.
+	 */
+	private void makeOld(IContainer... containers) {
+		for (IContainer container : containers)
+			assertTrue(container.getLocation().toFile().setLastModified(System.currentTimeMillis() - 60000));
+	}
+
+	private void refresh(IProject project, FileInfoIndex index, boolean pruneUnchanged) throws CoreException {
+		getWorkspace().run((IWorkspaceRunnable) monitor -> {
+			UnifiedTree tree = new UnifiedTree(project);
+			tree.setFileInfoIndex(index, pruneUnchanged);
+			tree.accept(new RefreshLocalVisitor(monitor));
+		}, null);
+	}
+
+	public void testPruneUnchangedDirectories() throws CoreException {
+		IProject project = projects[0];
+		IFolder unchanged = project.getFolder("unchanged");
+		IFolder changed = project.getFolder("changed");
+		IFile file = unchanged.getFile("file.txt");
+		ensureExistsInWorkspace(new IResource[] {unchanged, changed, file}, true);
+		makeOld(project, unchanged, changed);
+
+		FileInfoIndex index = new FileInfoIndex();
+		refresh(project, index, false);
+		assertEquals("1.0", 3, index.size());
+
+		// add a file to one directory and modify a file in place in the other
+		IFile added = changed.getFile("added.txt");
+		createFileInFileSystem(added.getLocation());
+		assertTrue("2.0", file.getLocation().toFile().setLastModified(System.currentTimeMillis() - 120000));
+
+		refresh(project, index, true);
+		assertTrue("3.0", added.exists());
+		// the unchanged directory was taken from the workspace tree
+		assertFalse("3.1", file.isSynchronized(IResource.DEPTH_ZERO));
+
+		// a regular refresh still finds the modification
+		refresh(project, index, false);
+		assertTrue("4.0", file.isSynchronized(IResource.DEPTH_ZERO));
+	}
+
+	public void testRecentlyModifiedDirectoriesNotRecorded() throws CoreException {
+		IProject project = projects[0];
+		IFolder folder = project.getFolder("folder");
+		ensureExistsInWorkspace(folder, true);
+		makeOld(project);
+
+		FileInfoIndex index = new FileInfoIndex();
+		refresh(project, index, false);
+		// the folder has just been created
+		assertEquals("1.0", 1, index.size());
+	}
+
+	public void testSaveAndRestore() throws Exception {
+		IProject project = projects[0];
+		IFolder folder = project.getFolder("folder");
+		ensureExistsInWorkspace(folder, true);
+		makeOld(project, folder);
+
+		FileInfoIndex index = new FileInfoIndex();
+		refresh(project, index, false);
+		assertEquals("1.0", 2, index.size());
+
+		IPath location = getRandomLocation();
+		deleteOnTearDown(location);
+		index.save(location, "5");
+
+		FileInfoIndex restored = new FileInfoIndex();
+		restored.restore(location, "5");
+		assertEquals("2.0", 2, restored.size());
+
+		// an index saved with a different tree is discarded
+		restored.restore(location, "6");
+		assertEquals("3.0", 0, restored.size());
+	}
+}
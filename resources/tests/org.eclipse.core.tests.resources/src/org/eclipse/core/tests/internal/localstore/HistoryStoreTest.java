@@ -16,8 +16,10 @@ package org.eclipse.core.tests.internal.localstore;
 
 import java.io.*;
 import java.util.*;
+import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.filesystem.provider.FileInfo;
+import org.eclipse.core.internal.localstore.HistoryStore2;
 import org.eclipse.core.internal.localstore.IHistoryStore;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.internal.utils.UniversalUniqueIdentifier;
@@ -2072,4 +2074,58 @@ public class HistoryStoreTest extends ResourceTest {
 			fail("9.3", e);
 		}
 	}
+
+	/**
+	 * Tests that the states of a content-addressed history store share the
+	 * blobs of identical contents, and that cleaning the store keeps the blobs
+	 * that are still referenced.
+	 */
+	public void testContentAddressedStates() throws CoreException {
+		IFileStore location = getTempStore();
+		location.mkdir(EFS.NONE, getMonitor());
+		System.setProperty(HistoryStore2.PROP_CONTENT_ADDRESSED, Boolean.TRUE.toString());
+		HistoryStore2 store;
+		try {
+			store = new HistoryStore2((Workspace) getWorkspace(), location, 256);
+		} finally {
+			System.clearProperty(HistoryStore2.PROP_CONTENT_ADDRESSED);
+		}
+		IPath first = new Path("/ContentAddressedProject/first.txt");
+		IPath second = new Path("/ContentAddressedProject/second.txt");
+		long now = System.currentTimeMillis();
+		try {
+			IFileState firstState = addState(store, first, "same contents", now - 1000);
+			IFileState secondState = addState(store, second, "same contents", now - 1000);
+			assertEquals("1.0", ((FileState) firstState).getUUID(), ((FileState) secondState).getUUID());
+
+			// keep a single state per file, so that the shared blob is no longer referenced by the first file
+			setMaxFileStates(1);
+			IFileState newState = addState(store, first, "new contents", now);
+			store.clean(getMonitor());
+			assertEquals("2.0", 1, store.getStates(first, getMonitor()).length);
+			assertEquals("2.1", newState, store.getStates(first, getMonitor())[0]);
+			assertTrue("2.2", store.exists(secondState));
+			assertTrue("2.3", compareContent(getContents("same contents"), store.getContents(secondState)));
+
+			// the blob is removed once it is no longer referenced at all
+			store.remove(second, getMonitor());
+			store.removeGarbage();
+			assertFalse("3.0", store.exists(secondState));
+			assertTrue("3.1", store.exists(newState));
+		} finally {
+			store.remove(Path.ROOT, getMonitor());
+			store.removeGarbage();
+			store.shutdown(getMonitor());
+		}
+	}
+
+	private IFileState addState(IHistoryStore store, IPath key, String contents, long lastModified) {
+		IFileStore file = getTempStore();
+		createFileInFileSystem(file, getContents(contents));
+		FileInfo info = new FileInfo(file.getName());
+		info.setExists(true);
+		info.setLength(contents.length());
+		info.setLastModified(lastModified);
+		return store.addState(key, file, info, true);
+	}
 }
@@ -16,7 +16,9 @@ package org.eclipse.core.tests.internal.localstore;
 
 import java.io.*;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.List;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.internal.localstore.IUnifiedTreeVisitor;
@@ -231,6 +233,40 @@ public class UnifiedTreeTest extends LocalStoreTest {
 		assertTrue("2.0", set.isEmpty());
 	}
 
+	/**
+	 * Creates some resources in the file system and some in the workspace. After that,
+	 * makes sure a parallel traversal visits them in the same order as a sequential one.
+	 */
+	public void testParallelTraverseMechanismInProject() throws Throwable {
+		IProject project = projects[0];
+		Hashtable<String, String> set = new Hashtable<>();
+		createResourcesInWorkspace(project, set);
+		createResourcesInFileSystem(((Resource) project).getStore(), set);
+		for (int i = 0; i < limit; i++) {
+			createResourcesInFileSystem(((Resource) project).getStore().getChild("fsFolder" + i), set);
+		}
+
+		List<String> expected = new ArrayList<>();
+		UnifiedTree tree = new UnifiedTree(project);
+		tree.setParallelism(1);
+		tree.accept(node -> {
+			expected.add(node.getResource().getFullPath() + " " + node.existsInFileSystem() + " " + node.existsInWorkspace());
+			return true;
+		});
+
+		for (int parallelism : new int[] {2, 4, 16}) {
+			List<String> actual = new ArrayList<>();
+			tree = new UnifiedTree(project);
+			tree.setParallelism(parallelism);
+			assertEquals("1." + parallelism, parallelism, tree.getParallelism());
+			tree.accept(node -> {
+				actual.add(node.getResource().getFullPath() + " " + node.existsInFileSystem() + " " + node.existsInWorkspace());
+				return true;
+			});
+			assertEquals("2." + parallelism, expected, actual);
+		}
+	}
+
 	/**
 	 * Regression test for 342968 - Resource layers asks IFileTree for info of linked resources
 	 */
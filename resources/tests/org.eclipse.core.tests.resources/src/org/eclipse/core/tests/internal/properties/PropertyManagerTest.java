@@ -218,6 +218,42 @@ public class PropertyManagerTest extends LocalStoreTest {
 		assertSame(hint + "1.6", propValue, manager.getProperty(sourceFile, propName));
 	}
 
+	/**
+	 * Tests that the property changes written behind are replayed from the
+	 * journal when the buckets have not been saved.
+	 */
+	public void testJournal() throws Throwable {
+		IPropertyManager manager = new PropertyManager2((Workspace) ResourcesPlugin.getWorkspace());
+		IProject source = projects[0];
+		IFolder sourceFolder = source.getFolder("myfolder");
+		IResource sourceFile = sourceFolder.getFile("myfile.txt");
+		QualifiedName propName = new QualifiedName("test", "prop");
+		QualifiedName removedName = new QualifiedName("test", "removed");
+		String propValue = "this is the property value";
+
+		ensureExistsInWorkspace(new IResource[] { source, sourceFolder, sourceFile }, true);
+
+		manager.setProperty(source, propName, propValue);
+		manager.setProperty(sourceFolder, propName, propValue);
+		manager.setProperty(sourceFile, propName, propValue);
+		manager.setProperty(sourceFile, removedName, propValue);
+		manager.setProperty(sourceFile, removedName, null);
+		// the pending changes are visible before being written
+		assertEquals("1.0", propValue, manager.getProperty(sourceFile, propName));
+		assertNull("1.1", manager.getProperty(sourceFile, removedName));
+		manager.flush();
+
+		// another manager only finds the changes in the journal
+		IPropertyManager other = new PropertyManager2((Workspace) ResourcesPlugin.getWorkspace());
+		other.startup(getMonitor());
+		assertEquals("2.0", propValue, other.getProperty(source, propName));
+		assertEquals("2.1", propValue, other.getProperty(sourceFolder, propName));
+		assertEquals("2.2", propValue, other.getProperty(sourceFile, propName));
+		assertNull("2.3", other.getProperty(sourceFile, removedName));
+		other.shutdown(getMonitor());
+		manager.shutdown(getMonitor());
+	}
+
 	public void testOOME() throws Throwable {
 		IPropertyManager manager = new PropertyManager2((Workspace) ResourcesPlugin.getWorkspace());
 		IProject source = projects[0];
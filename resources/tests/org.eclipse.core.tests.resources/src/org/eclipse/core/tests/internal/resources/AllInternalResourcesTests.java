@@ -25,6 +25,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({ ModelObjectReaderWriterTest.class, ProjectPreferencesTest.class,
 		ResourceInfoTest.class,
 		WorkspaceConcurrencyTest.class, WorkspacePreferencesTest.class, ProjectReferencesTest.class,
-		ProjectDynamicReferencesTest.class, ProjectBuildConfigsTest.class, Bug544975Test.class, })
+		ProjectDynamicReferencesTest.class, ProjectBuildConfigsTest.class, Bug544975Test.class,
+		ProjectDescriptionCacheTest.class, TreeCompactionPolicyTest.class, })
 public class AllInternalResourcesTests {
 }
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.resources;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import org.eclipse.core.internal.resources.ProjectDescriptionCache;
+import org.eclipse.core.internal.resources.ProjectDescriptionCache.Entry;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.content.IContentDescription;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the content descriptions kept per project across sessions.
+ */
+public class ProjectDescriptionCacheTest {
+	private static final IPath PROJECT = new Path("/project");
+	private static final IPath XML_FILE = PROJECT.append("folder/file.xml");
+	private static final IPath TEXT_FILE = PROJECT.append("file.txt");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ProjectDescriptionCache createCache() {
+		ProjectDescriptionCache cache = new ProjectDescriptionCache(PROJECT);
+		cache.put(XML_FILE, new Entry(10, 100, "org.eclipse.core.runtime.xml", "ISO-8859-1", "ISO-8859-1", null));
+		cache.put(TEXT_FILE, new Entry(20, 200, "org.eclipse.core.runtime.text", "UTF-8", null, IContentDescription.BOM_UTF_8));
+		return cache;
+	}
+
+	@Test
+	public void testEntryValidity() {
+		ProjectDescriptionCache cache = createCache();
+		assertNotNull(cache.get(XML_FILE, 10, 100));
+		// the contents changed
+		assertNull(cache.get(XML_FILE, 11, 100));
+		// the file changed on disk
+		assertNull(cache.get(XML_FILE, 10, 101));
+		assertNull(cache.get(PROJECT.append("other.xml"), 10, 100));
+	}
+
+	@Test
+	public void testWriteAndRead() throws Exception {
+		File location = new File(folder.getRoot(), "descriptions");
+		ProjectDescriptionCache cache = createCache();
+		assertTrue(cache.isDirty());
+		cache.write(location, 3);
+		assertFalse(cache.isDirty());
+
+		ProjectDescriptionCache read = new ProjectDescriptionCache(PROJECT);
+		read.read(location, 3);
+		assertEquals(2, read.size());
+		assertFalse(read.isDirty());
+		Entry xml = read.get(XML_FILE, 10, 100);
+		assertNotNull(xml);
+		assertEquals("org.eclipse.core.runtime.xml", xml.getContentTypeId());
+		assertEquals("ISO-8859-1", xml.getCharset());
+		assertEquals("ISO-8859-1", xml.getCharsetProperty());
+		assertNull(xml.getByteOrderMark());
+		Entry text = read.get(TEXT_FILE, 20, 200);
+		assertNotNull(text);
+		assertEquals("UTF-8", text.getCharset());
+		assertNull(text.getCharsetProperty());
+		assertArrayEquals(IContentDescription.BOM_UTF_8, text.getByteOrderMark());
+	}
+
+	@Test
+	public void testObsoleteGeneration() throws Exception {
+		File location = new File(folder.getRoot(), "descriptions");
+		createCache().write(location, 3);
+
+		ProjectDescriptionCache read = new ProjectDescriptionCache(PROJECT);
+		read.read(location, 4);
+		assertTrue(read.isEmpty());
+		// the obsolete file gets deleted on the next write
+		assertTrue(read.isDirty());
+		read.write(location, 4);
+		assertFalse(location.exists());
+	}
+
+	/**
+	 * A loaded cache is written again for a new generation, after the file it
+	 * was read from became obsolete.
+	 */
+	@Test
+	public void testNewGeneration() throws Exception {
+		File location = new File(folder.getRoot(), "descriptions");
+		createCache().write(location, 3);
+		ProjectDescriptionCache loaded = new ProjectDescriptionCache(PROJECT);
+		loaded.read(location, 3);
+		assertFalse(loaded.isDirty());
+		loaded.setDirty();
+		assertTrue(loaded.isDirty());
+		loaded.write(location, 4);
+
+		ProjectDescriptionCache obsolete = new ProjectDescriptionCache(PROJECT);
+		obsolete.read(location, 3);
+		assertTrue(obsolete.isEmpty());
+		ProjectDescriptionCache read = new ProjectDescriptionCache(PROJECT);
+		read.read(location, 4);
+		assertEquals(2, read.size());
+	}
+
+	@Test
+	public void testRemove() {
+		ProjectDescriptionCache cache = createCache();
+		cache.removeIf(entry -> entry.getContentTypeId().equals("org.eclipse.core.runtime.xml"));
+		assertNull(cache.get(XML_FILE, 10, 100));
+		assertNotNull(cache.get(TEXT_FILE, 20, 200));
+		cache.retainPaths(path -> !path.equals(TEXT_FILE));
+		assertTrue(cache.isEmpty());
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.resources;
+
+import static org.eclipse.core.internal.resources.TreeCompactionPolicy.MAX_COMPACTION_DEPTH;
+import static org.eclipse.core.internal.resources.TreeCompactionPolicy.MIN_COMPACTION_DEPTH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.core.internal.resources.TreeCompactionPolicy;
+import org.junit.Test;
+
+/**
+ * Tests the policy deciding when the element trees are compacted.
+ */
+public class TreeCompactionPolicyTest {
+
+	@Test
+	public void testCompactionDepth() {
+		TreeCompactionPolicy policy = new TreeCompactionPolicy();
+		assertFalse(policy.isCompactionNeeded(MIN_COMPACTION_DEPTH - 1, 0));
+		assertTrue(policy.isCompactionNeeded(MIN_COMPACTION_DEPTH, 0));
+	}
+
+	@Test
+	public void testSlowLookups() {
+		TreeCompactionPolicy policy = new TreeCompactionPolicy();
+		policy.compacted(MIN_COMPACTION_DEPTH, MIN_COMPACTION_DEPTH);
+		int depth = MIN_COMPACTION_DEPTH * 2;
+		assertFalse(policy.isCompactionNeeded(depth, 1));
+		// slow lookups compact the trees before the compaction depth is reached
+		assertTrue(policy.isCompactionNeeded(depth, TreeCompactionPolicy.SLOW_LOOKUP_LAYERS + 1));
+		assertFalse(policy.isCompactionNeeded(depth - 1, TreeCompactionPolicy.SLOW_LOOKUP_LAYERS + 1));
+	}
+
+	/**
+	 * The compaction depth doubles up to the maximum while compactions cannot
+	 * remove the layers, and falls back to the minimum once they can.
+	 */
+	@Test
+	public void testAdaptiveDepth() {
+		TreeCompactionPolicy policy = new TreeCompactionPolicy();
+		int depth = 0;
+		int expected = MIN_COMPACTION_DEPTH;
+		while (expected < MAX_COMPACTION_DEPTH) {
+			assertEquals(expected, policy.getCompactionDepth());
+			depth += expected;
+			assertTrue(policy.isCompactionNeeded(depth, 0));
+			policy.compacted(depth, depth);
+			expected *= 2;
+		}
+		assertEquals(MAX_COMPACTION_DEPTH, policy.getCompactionDepth());
+		depth += MAX_COMPACTION_DEPTH;
+		policy.compacted(depth, depth);
+		assertEquals(MAX_COMPACTION_DEPTH, policy.getCompactionDepth());
+
+		// removing half of the new layers is enough
+		depth += MAX_COMPACTION_DEPTH;
+		policy.compacted(depth, depth - MAX_COMPACTION_DEPTH / 2);
+		assertEquals(MIN_COMPACTION_DEPTH, policy.getCompactionDepth());
+	}
+
+	/**
+	 * A compaction that could not remove the layers is not repeated before
+	 * enough new layers are added.
+	 */
+	@Test
+	public void testNoProgress() {
+		TreeCompactionPolicy policy = new TreeCompactionPolicy();
+		int depth = 5000;
+		assertTrue(policy.isCompactionNeeded(depth, 0));
+		policy.compacted(depth, depth);
+		assertFalse(policy.isCompactionNeeded(depth, TreeCompactionPolicy.SLOW_LOOKUP_LAYERS + 1));
+		assertFalse(policy.isCompactionNeeded(depth + policy.getCompactionDepth() - 1, 0));
+		assertTrue(policy.isCompactionNeeded(depth + policy.getCompactionDepth(), 0));
+
+		// a snapshot starts a new chain
+		policy.reset();
+		assertFalse(policy.isCompactionNeeded(MIN_COMPACTION_DEPTH, 0));
+		assertTrue(policy.isCompactionNeeded(policy.getCompactionDepth(), 0));
+	}
+}
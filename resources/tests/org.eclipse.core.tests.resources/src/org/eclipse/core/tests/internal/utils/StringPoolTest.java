@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.*;
+import org.eclipse.core.internal.utils.StringPool;
+import org.junit.Test;
+
+public class StringPoolTest {
+	@Test
+	public void testAdd() {
+		StringPool pool = new StringPool();
+		assertNull("1.0", pool.add(null));
+		String first = new String("hello");
+		String second = new String("hello");
+		assertSame("1.1", first, pool.add(first));
+		assertSame("1.2", first, pool.add(second));
+		assertSame("1.3", first, pool.add(first));
+		assertEquals("1.4", 44 + 2 * 5, pool.getSavedStringCount());
+	}
+
+	@Test
+	public void testConcurrentAdd() throws Exception {
+		StringPool pool = new StringPool();
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			Future<String[]>[] results = new Future[threads];
+			for (int i = 0; i < threads; i++) {
+				results[i] = executor.submit(() -> {
+					String[] strings = new String[1000];
+					for (int j = 0; j < strings.length; j++)
+						strings[j] = pool.add(new String("string" + j));
+					return strings;
+				});
+			}
+			String[] first = results[0].get();
+			for (int i = 1; i < threads; i++) {
+				String[] strings = results[i].get();
+				for (int j = 0; j < strings.length; j++)
+					assertSame("1." + j, first[j], strings[j]);
+			}
+			assertTrue("2.0", pool.getSavedStringCount() > 0);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testShared() {
+		assertSame("1.0", StringPool.getShared(), StringPool.getShared());
+		String string = StringPool.getShared().add(new String("org.eclipse.core.tests.shared"));
+		assertSame("1.1", string, StringPool.getShared().add(new String("org.eclipse.core.tests.shared")));
+	}
+}
@@ -18,8 +18,9 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
-		DeltaChainFlatteningTest.class, DeltaFlatteningTest.class, ElementTreeDeltaChainTest.class,
-		ElementTreeIteratorTest.class, ElementTreeHasChangesTest.class, TreeFlatteningTest.class
+		CompactTreeFlatteningTest.class, DeltaChainFlatteningTest.class, DeltaFlatteningTest.class, ElementTreeDeltaChainTest.class,
+		ElementTreeIteratorTest.class, ElementTreeHasChangesTest.class, ElementTreeConcurrentReadTest.class,
+		TreeFlatteningTest.class
 })
 public class AllWatsonTests {
 
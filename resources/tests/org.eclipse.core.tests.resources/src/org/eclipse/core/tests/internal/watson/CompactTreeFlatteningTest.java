@@ -0,0 +1,124 @@
+/*******************************************************************************
+ *  Copyright (c) 2023 IBM Corporation and others.
+ *
+ *  This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License 2.0
+ *  which accompanies this distribution, and is available at
+ *  https://www.eclipse.org/legal/epl-2.0/
+ *
+ *  SPDX-License-Identifier: EPL-2.0
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.watson;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.*;
+import org.eclipse.core.internal.watson.*;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.junit.Test;
+
+/**
+ * Tests for writing and reading element trees in the compact format.
+ */
+public class CompactTreeFlatteningTest extends ElementTreeSerializationTest {
+
+	@Override
+	public Object doRead(ElementTreeReader reader, DataInputStream input) throws IOException {
+		return reader.readTree(input);
+	}
+
+	@Override
+	public void doTest(IPath path, int depth) {
+		fSubtreePath = path;
+		fDepth = depth;
+		ElementTree newTree = (ElementTree) doRoundTrip(ElementTreeWriter.COMPACT_FORMAT);
+		TestUtil.assertEqualTrees(this.getClass() + "test0", fTree, newTree, fSubtreePath, fDepth);
+	}
+
+	@Override
+	public void doWrite(ElementTreeWriter writer, DataOutputStream output) throws IOException {
+		writer.writeTree(fTree, fSubtreePath, fDepth, output);
+	}
+
+	/**
+	 * Writes the tree in the given format to memory and reads it back.
+	 */
+	private Object doRoundTrip(int format) {
+		try {
+			byte[] bytes = write(format);
+			return doRead(new ElementTreeReader(getFlattener()), new DataInputStream(new ByteArrayInputStream(bytes)));
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private byte[] write(int format) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			doWrite(new ElementTreeWriter(getFlattener(), format), output);
+		}
+		return bytes.toByteArray();
+	}
+
+	@Test
+	public void test0() {
+		doExhaustiveTests();
+	}
+
+	@Test
+	public void testDeltaChain() throws IOException {
+		ElementTree[] chain = TestUtil.doManyRoutineOperations(fTree, project1);
+		TestUtil.scramble(chain);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			new ElementTreeWriter(getFlattener(), ElementTreeWriter.COMPACT_FORMAT).writeDeltaChain(chain, Path.ROOT, ElementTreeWriter.D_INFINITE, output, DefaultElementComparator.getComparator());
+		}
+		ElementTree[] refried = new ElementTreeReader(getFlattener()).readDeltaChain(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals(chain.length, refried.length);
+		for (int i = 0; i < chain.length; i++) {
+			TestUtil.assertEqualTrees("Same after delta chain serialize", chain[i], refried[i]);
+		}
+	}
+
+	@Test
+	public void testSeveralProjects() {
+		fTree = new ElementTree();
+		for (int i = 0; i < 20; i++) {
+			IPath project = Path.ROOT.append("project" + i);
+			fTree.createElement(project, project.lastSegment());
+			for (String name : new String[] {"src", "bin", ".project"}) {
+				fTree.createElement(project.append(name), name);
+			}
+			fTree.createElement(project.append("src").append("Main.java"), "Main" + i);
+		}
+		fTree.immutable();
+		fSubtreePath = Path.ROOT;
+		fDepth = ElementTreeWriter.D_INFINITE;
+
+		ElementTree newTree = (ElementTree) doRoundTrip(ElementTreeWriter.COMPACT_FORMAT);
+		TestUtil.assertEqualTrees(this.getClass() + "testSeveralProjects", fTree, newTree);
+
+		doTest(Path.ROOT.append("project3").append("src"), ElementTreeWriter.D_INFINITE);
+		doTest(Path.ROOT.append("project3"), 1);
+	}
+
+	@Test
+	public void testSmallerThanFormat1() throws IOException {
+		fTree = new ElementTree();
+		IPath project = Path.ROOT.append("project");
+		fTree.createElement(project, "project");
+		for (int i = 0; i < 50; i++) {
+			IPath folder = project.append("folder" + i);
+			fTree.createElement(folder, "folder");
+			fTree.createElement(folder.append("AbstractResourceDescription.java"), null);
+		}
+		fSubtreePath = Path.ROOT;
+		fDepth = ElementTreeWriter.D_INFINITE;
+		assertTrue(write(ElementTreeWriter.COMPACT_FORMAT).length < write(ElementTreeWriter.CURRENT_FORMAT).length);
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.watson;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.eclipse.core.internal.watson.ElementTree;
+import org.eclipse.core.runtime.IPath;
+import org.junit.Test;
+
+/**
+ * Tests that the lookups of an element tree, which do not take its monitor,
+ * see consistent contents while the tree is modified concurrently.
+ */
+public class ElementTreeConcurrentReadTest implements IPathConstants {
+
+	private static final int MODIFICATIONS = 20000;
+
+	/**
+	 * Reads the elements of a tree that are not modified while other elements are
+	 * created, deleted and changed.
+	 */
+	@Test
+	public void testReadWhileModified() throws Exception {
+		ElementTree tree = TestUtil.createTestElementTree().newEmptyDelta();
+		IPath changing = project1.append("changing");
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread[] readers = new Thread[4];
+		for (int i = 0; i < readers.length; i++) {
+			readers[i] = new Thread(() -> {
+				try {
+					while (!done.get()) {
+						assertEquals("project2", tree.getElementData(project2));
+						assertTrue(tree.includes(file3));
+						assertEquals("file1", tree.getElementDataIgnoreCase(file1.removeLastSegments(1).append("FILE1")));
+						assertArrayEquals(new IPath[] {file1, folder1, folder2}, tree.getChildren(project2));
+						assertEquals(3, tree.getChildCount(folder1));
+						int children = tree.getNamesOfChildren(project1).length;
+						assertTrue(String.valueOf(children), children <= 1);
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			readers[i].start();
+		}
+		try {
+			for (int i = 0; i < MODIFICATIONS; i++) {
+				tree.createElement(changing, "created");
+				tree.setElementData(changing, "changed");
+				tree.deleteElement(changing);
+			}
+		} finally {
+			done.set(true);
+			for (Thread reader : readers)
+				reader.join();
+		}
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		assertFalse(tree.includes(changing));
+	}
+
+	/**
+	 * Reads an immutable tree while it is collapsed to a later tree, and while
+	 * trees derived from that one are made immutable.
+	 */
+	@Test
+	public void testReadWhileCollapsed() throws Exception {
+		ElementTree[] trees = new ElementTree[50];
+		ElementTree current = TestUtil.createTestElementTree();
+		for (int i = 0; i < trees.length; i++) {
+			current = current.newEmptyDelta();
+			current.createElement(project1.append("file" + i), Integer.valueOf(i));
+			current.immutable();
+			trees[i] = current;
+		}
+		ElementTree last = trees[trees.length - 1];
+		ElementTree read = trees[10];
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			try {
+				while (!done.get()) {
+					for (int i = 0; i <= 10; i++) {
+						assertEquals(Integer.valueOf(i), read.getElementData(project1.append("file" + i)));
+					}
+					assertFalse(read.includes(project1.append("file11")));
+					assertEquals(11, read.getChildCount(project1));
+				}
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+			}
+		});
+		reader.start();
+		try {
+			read.collapseTo(last);
+			ElementTree next = last;
+			for (int i = 0; i < 100; i++) {
+				next = next.newEmptyDelta();
+				next.immutable();
+			}
+		} finally {
+			done.set(true);
+			reader.join();
+		}
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		assertEquals(11, read.getChildCount(project1));
+		assertEquals(trees.length, last.getChildCount(project1));
+	}
+}
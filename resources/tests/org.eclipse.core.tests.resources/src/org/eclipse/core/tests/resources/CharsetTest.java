@@ -1201,6 +1201,49 @@ public class CharsetTest extends ResourceTest {
 		}
 	}
 
+	/**
+	 * The charsets of many files resolved at once are the ones resolved file by file.
+	 */
+	public void testGetCharsets() throws CoreException {
+		IWorkspace workspace = getWorkspace();
+		IProject project = workspace.getRoot().getProject("MyProject");
+		try {
+			IFolder folder = project.getFolder("folder");
+			IFile explicit = project.getFile("explicit.txt");
+			IFile text = folder.getFile("file.txt");
+			IFile isoXML = folder.getFile("iso.xml");
+			IFile asciiXML = project.getFile("ascii.xml");
+			IFile bomXML = folder.getFolder("nested").getFile("bom.xml");
+			ensureExistsInWorkspace(new IResource[] {explicit, text}, true);
+			ensureExistsInWorkspace(isoXML, new ByteArrayInputStream(SAMPLE_XML_ISO_8859_1_ENCODING.getBytes(StandardCharsets.ISO_8859_1)));
+			ensureExistsInWorkspace(asciiXML, new ByteArrayInputStream(SAMPLE_XML_US_ASCII_ENCODING.getBytes(StandardCharsets.UTF_8)));
+			String bom = new String(IContentDescription.BOM_UTF_16LE, StandardCharsets.ISO_8859_1);
+			ensureExistsInWorkspace(bomXML, new ByteArrayInputStream((bom + SAMPLE_XML_DEFAULT_ENCODING).getBytes(StandardCharsets.ISO_8859_1)));
+			project.setDefaultCharset("PROJECT_CHARSET", getMonitor());
+			folder.setDefaultCharset("FOLDER_CHARSET", getMonitor());
+			explicit.setCharset("FOO", getMonitor());
+
+			Map<IFile, String> charsets = project.getCharsets(IResource.DEPTH_INFINITE, getMonitor());
+			for (IFile file : new IFile[] {explicit, text, isoXML, asciiXML, bomXML, project.getFile(IProjectDescription.DESCRIPTION_FILE_NAME)})
+				assertTrue("1.0." + file.getName(), charsets.containsKey(file));
+			for (Map.Entry<IFile, String> entry : charsets.entrySet())
+				assertEquals("1.1." + entry.getKey().getName(), entry.getKey().getCharset(), entry.getValue());
+			assertEquals("1.2", "FOO", charsets.get(explicit));
+			assertEquals("1.3", "FOLDER_CHARSET", charsets.get(text));
+			assertEquals("1.4", "ISO-8859-1", charsets.get(isoXML));
+			assertEquals("1.5", "US-ASCII", charsets.get(asciiXML));
+			assertEquals("1.6", "UTF-16", charsets.get(bomXML));
+
+			// only the files directly in the container
+			charsets = folder.getCharsets(IResource.DEPTH_ONE, getMonitor());
+			assertEquals("2.0", 2, charsets.size());
+			assertEquals("2.1", "FOLDER_CHARSET", charsets.get(text));
+			assertEquals("2.2", "ISO-8859-1", charsets.get(isoXML));
+		} finally {
+			clearAllEncodings(project);
+		}
+	}
+
 	/**
 	 * See enhancement request 60636.
 	 */
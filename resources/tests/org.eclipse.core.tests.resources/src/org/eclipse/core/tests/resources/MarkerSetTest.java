@@ -14,8 +14,7 @@
  *******************************************************************************/
 package org.eclipse.core.tests.resources;
 
-import java.util.Arrays;
-import java.util.Map;
+import java.util.*;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.resources.IMarker;
 
@@ -151,4 +150,38 @@ public class MarkerSetTest extends ResourceTest {
 		map2.put(null, 1); // allowed for clients using IMarker.getAttributes()
 		map2.put("0", null);// allowed for clients
 	}
+
+	public void testMarkerAttributeMapPrimitives() {
+		MarkerAttributeMap map = new MarkerAttributeMap();
+		map.put(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		map.put(IMarker.CHAR_START, 1000);
+		map.put(IMarker.TRANSIENT, Boolean.TRUE);
+		map.put(IMarker.MESSAGE, "message");
+		map.put("other", 1000);
+		assertEquals(5, map.size());
+		assertEquals(IMarker.SEVERITY_ERROR, map.getInt(IMarker.SEVERITY, -1));
+		assertEquals(1000, map.get(IMarker.CHAR_START));
+		assertEquals(1000, map.getInt("other", -1));
+		assertTrue(map.getBoolean(IMarker.TRANSIENT, false));
+		assertEquals(-1, map.getInt(IMarker.MESSAGE, -1));
+
+		// well known attributes may have values of other types
+		map.put(IMarker.SEVERITY, "error");
+		assertEquals("error", map.get(IMarker.SEVERITY));
+		assertEquals(-1, map.getInt(IMarker.SEVERITY, -1));
+		assertEquals(5, map.size());
+
+		MarkerAttributeMap copy = new MarkerAttributeMap(map);
+		assertEquals(1000, map.remove(IMarker.CHAR_START));
+		assertNull(map.get(IMarker.CHAR_START));
+		assertEquals(4, map.size());
+		assertEquals(1000, copy.get(IMarker.CHAR_START));
+
+		Map<String, Object> expected = new HashMap<>();
+		expected.put(IMarker.SEVERITY, "error");
+		expected.put(IMarker.TRANSIENT, Boolean.TRUE);
+		expected.put(IMarker.MESSAGE, "message");
+		expected.put("other", 1000);
+		assertEquals(expected, map.toMap());
+	}
 }
@@ -16,6 +16,7 @@ package org.eclipse.core.tests.resources;
 
 import java.io.*;
 import java.io.File;
+import java.nio.file.Files;
 import java.util.*;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.internal.watson.IPathRequestor;
@@ -914,6 +915,57 @@ public class MarkerTest extends ResourceTest {
 
 	}
 
+	/**
+	 * Tests that the marker index follows the markers as they are changed, and
+	 * as their resources are moved and deleted.
+	 */
+	public void testFindMarkersIndexed() throws CoreException {
+		MarkerManager manager = ((Workspace) getWorkspace()).getMarkerManager();
+		final IWorkspaceRoot root = getWorkspace().getRoot();
+		IProject project = root.getProject("testFindMarkersIndexed");
+		IFolder folder = project.getFolder("top");
+		IFolder sub = folder.getFolder("sub");
+		IFile topFile = folder.getFile("a.txt");
+		IFile subFile = sub.getFile("b.txt");
+		ensureExistsInWorkspace(new IResource[] {project, folder, sub, topFile, subFile}, true);
+
+		IMarker problem = subFile.createMarker(IMarker.PROBLEM);
+		IMarker task = topFile.createMarker(IMarker.TASK);
+		IMarker bookmark = sub.createMarker(IMarker.BOOKMARK);
+		assertEquals("1.0", new IMarker[] {problem}, project.findMarkers(IMarker.PROBLEM, false, IResource.DEPTH_INFINITE));
+		assertEquals("1.1", new IMarker[] {task}, project.findMarkers(IMarker.TASK, true, IResource.DEPTH_INFINITE));
+		assertEquals("1.2", new IMarker[] {task, bookmark, problem}, project.findMarkers(IMarker.MARKER, true, IResource.DEPTH_INFINITE));
+		assertEquals("1.3", new IMarker[] {task, bookmark}, folder.findMarkers(IMarker.MARKER, true, IResource.DEPTH_ONE));
+		assertEquals("1.4", 0, folder.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ONE).length);
+
+		// severity changes
+		assertEquals("2.0", -1, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		problem.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		assertEquals("2.1", IMarker.SEVERITY_ERROR, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("2.2", new IMarker[] {problem}, manager.findMarkers(project, IMarker.PROBLEM, true, IMarker.SEVERITY, IMarker.SEVERITY_ERROR, IResource.DEPTH_INFINITE));
+		problem.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+		assertEquals("2.3", IMarker.SEVERITY_WARNING, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("2.4", 0, manager.findMarkers(project, IMarker.PROBLEM, true, IMarker.SEVERITY, IMarker.SEVERITY_ERROR, IResource.DEPTH_INFINITE).length);
+
+		// attributes indexed on demand
+		task.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
+		manager.addAttributeIndex(IMarker.PRIORITY);
+		assertEquals("3.0", new IMarker[] {task}, manager.findMarkers(root, null, false, IMarker.PRIORITY, IMarker.PRIORITY_HIGH, IResource.DEPTH_INFINITE));
+		task.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_LOW);
+		assertEquals("3.1", 0, manager.findMarkers(root, null, false, IMarker.PRIORITY, IMarker.PRIORITY_HIGH, IResource.DEPTH_INFINITE).length);
+
+		// moves and deletions
+		IFolder moved = folder.getFolder("moved");
+		sub.move(moved.getFullPath(), true, getMonitor());
+		IMarker[] found = project.findMarkers(IMarker.PROBLEM, false, IResource.DEPTH_INFINITE);
+		assertEquals("4.0", 1, found.length);
+		assertEquals("4.1", moved.getFile("b.txt"), found[0].getResource());
+		assertEquals("4.2", 0, sub.findMarkers(IMarker.PROBLEM, false, IResource.DEPTH_INFINITE).length);
+		topFile.delete(true, getMonitor());
+		assertEquals("4.3", 0, project.findMarkers(IMarker.TASK, false, IResource.DEPTH_INFINITE).length);
+		assertEquals("4.4", 0, folder.findMarkers(IMarker.TASK, false, IResource.DEPTH_ONE).length);
+	}
+
 	/**
 	 * Tests public API method IMarker#isSubTypeOf
 	 */
@@ -1587,6 +1639,70 @@ public class MarkerTest extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Tests that a save only journals the changed markers, that the journal is
+	 * folded into the saved markers once it has grown, and that a journal that
+	 * was not deleted then is not applied to the new saved markers.
+	 */
+	public void testMarkerSaveJournal() throws CoreException, IOException {
+		Workspace workspace = (Workspace) getWorkspace();
+		IProject project = getWorkspace().getRoot().getProject("testMarkerSaveJournal");
+		IFile file1 = project.getFile("a.txt");
+		IFile file2 = project.getFile("b.txt");
+		IFile file3 = project.getFile("c.txt");
+		IResource[] files = new IResource[] {file1, file2, file3};
+		ensureExistsInWorkspace(project, true);
+		ensureExistsInWorkspace(files, true);
+		IMarker marker1 = file1.createMarker(IMarker.PROBLEM);
+		IMarker marker2 = file2.createMarker(IMarker.PROBLEM);
+		IMarker marker3 = file3.createMarker(IMarker.TASK);
+		getWorkspace().save(true, getMonitor());
+		File saved = workspace.getMetaArea().getMarkersLocationFor(project).toFile();
+		File journal = workspace.getMetaArea().getMarkersJournalLocationFor(project).toFile();
+		assertTrue("1.0", saved.exists());
+		assertFalse("1.1", journal.exists());
+		long savedLength = saved.length();
+
+		// only the changed markers are journaled
+		marker1.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		marker2.delete();
+		getWorkspace().save(true, getMonitor());
+		assertEquals("2.0", savedLength, saved.length());
+		assertTrue("2.1", journal.exists());
+		byte[] staleJournal = Files.readAllBytes(journal.toPath());
+
+		// the saved markers and the journal give back the current markers
+		for (IResource file : files)
+			((Resource) file).getResourceInfo(false, true).setMarkers(null);
+		workspace.getMarkerManager().restore(project, false, getMonitor());
+		assertEquals("3.0", IMarker.SEVERITY_ERROR, marker1.getAttribute(IMarker.SEVERITY, -1));
+		assertFalse("3.1", marker2.exists());
+		assertTrue("3.2", marker3.exists());
+
+		// the journal is folded into the saved markers
+		marker1.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+		for (int i = 0; journal.exists() && i < 20; i++) {
+			marker3.setAttribute(IMarker.MESSAGE, "message " + i);
+			getWorkspace().save(true, getMonitor());
+		}
+		assertFalse("4.0", journal.exists());
+		for (IResource file : files)
+			((Resource) file).getResourceInfo(false, true).setMarkers(null);
+		workspace.getMarkerManager().restore(project, false, getMonitor());
+		assertTrue("4.1", marker1.exists());
+		assertFalse("4.2", marker2.exists());
+		assertTrue("4.3", marker3.getAttribute(IMarker.MESSAGE, "").startsWith("message"));
+		assertEquals("4.4", IMarker.SEVERITY_WARNING, marker1.getAttribute(IMarker.SEVERITY, -1));
+
+		// the journal left by a crash before it was deleted is ignored, and deleted
+		Files.write(journal.toPath(), staleJournal);
+		for (IResource file : files)
+			((Resource) file).getResourceInfo(false, true).setMarkers(null);
+		workspace.getMarkerManager().restore(project, false, getMonitor());
+		assertEquals("5.0", IMarker.SEVERITY_WARNING, marker1.getAttribute(IMarker.SEVERITY, -1));
+		assertFalse("5.1", journal.exists());
+	}
+
 	public void testMarkerSave() {
 		debug("TestMarkerSave");
 
@@ -1635,7 +1751,7 @@ public class MarkerTest extends ResourceTest {
 						return resource.getName();
 					}
 				};
-				manager.save(info, requestor, output, list);
+				manager.save(info, requestor, output, list, manager.newSaveNumber(getWorkspace().getRoot()));
 			} catch (IOException e) {
 				fail("2.1", e);
 			}
@@ -1764,7 +1880,7 @@ public class MarkerTest extends ResourceTest {
 						return resource.getName();
 					}
 				};
-				manager.save(info, requestor, output, list);
+				manager.save(info, requestor, output, list, manager.newSaveNumber(getWorkspace().getRoot()));
 			} catch (IOException e) {
 				fail("2.1", e);
 			}
@@ -102,6 +102,37 @@ public class BenchElementTree extends OldCorePerformanceTest {
 		stopBench("benchGetElementData", repeat * files.length);
 	}
 
+	/**
+	 * Tests the performance of the getElementData operation on the children
+	 * of a folder with many children, looked up by equal but not identical paths.
+	 */
+	public void benchGetElementDataWideFolder() {
+		final int repeat = 50;
+		final int width = 5000;
+
+		ElementTree tree = createTestTree(false);
+		Object data = new Object();
+		for (int i = 0; i < width; i++) {
+			tree.createElement(folder.append("Unit" + i + ".java"), data);
+		}
+		IPath[] paths = new IPath[width];
+		for (int i = 0; i < width; i++) {
+			paths[i] = Path.fromPortableString(folder.toPortableString() + "/Unit" + i + ".java");
+		}
+		tree.immutable();
+		tree = tree.newEmptyDelta();
+
+		startBench();
+
+		for (int rep = repeat; --rep >= 0;) {
+			for (IPath path : paths) {
+				tree.getElementData(path);
+			}
+		}
+
+		stopBench("benchGetElementDataWideFolder", repeat * width);
+	}
+
 	/**
 	 * Tests the performance of the mergeDeltaChain operation.
 	 */
@@ -13,11 +13,14 @@
  *******************************************************************************/
 package org.eclipse.core.tests.resources.perf;
 
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.filesystem.provider.FileInfo;
+import org.eclipse.core.internal.localstore.HistoryStore2;
 import org.eclipse.core.internal.localstore.IHistoryStore;
 import org.eclipse.core.internal.resources.Workspace;
 import org.eclipse.core.resources.*;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.*;
 import org.eclipse.core.tests.harness.PerformanceTestRunner;
 import org.eclipse.core.tests.internal.localstore.HistoryStoreTest;
 import org.eclipse.core.tests.resources.ResourceTest;
@@ -68,6 +71,36 @@ public class LocalHistoryPerformanceTest extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Adds a state with random contents for the given path to the given store.
+	 */
+	void addState(IHistoryStore store, IPath path) {
+		IFileStore file = getTempStore();
+		createFileInFileSystem(file, getRandomContents());
+		FileInfo info = new FileInfo(file.getName());
+		info.setExists(true);
+		info.setLength(file.fetchInfo().getLength());
+		info.setLastModified(System.currentTimeMillis());
+		store.addState(path, file, info, true);
+	}
+
+	/**
+	 * Creates a history store whose blobs are packed, outside of the workspace.
+	 */
+	HistoryStore2 createPackedStore() {
+		IFileStore location = getTempStore();
+		System.setProperty(HistoryStore2.PROP_PACKED, Boolean.TRUE.toString());
+		try {
+			location.mkdir(EFS.NONE, getMonitor());
+			return new HistoryStore2((Workspace) getWorkspace(), location, 256);
+		} catch (CoreException e) {
+			fail("#createPackedStore", e);
+			return null;
+		} finally {
+			System.clearProperty(HistoryStore2.PROP_PACKED);
+		}
+	}
+
 	IWorkspaceDescription setMaxFileStates(String failureMessage, int maxFileStates) {
 		IWorkspaceDescription currentDescription = getWorkspace().getDescription();
 		IWorkspaceDescription testDescription = getWorkspace().getDescription();
@@ -346,4 +379,70 @@ public class LocalHistoryPerformanceTest extends ResourceTest {
 	public void testHistoryCleanUp20x20() {
 		testHistoryCleanUp(20, 20);
 	}
+
+	public void testPackedAddState() throws CoreException {
+		setMaxFileStates("0.01", 100);
+		final HistoryStore2 store = createPackedStore();
+		final IPath path = new Path("/proj1/file.txt");
+		try {
+			new PerformanceTestRunner() {
+				@Override
+				protected void tearDown() {
+					store.remove(path, getMonitor());
+					store.removeGarbage();
+				}
+
+				@Override
+				protected void test() {
+					addState(store, path);
+				}
+			}.run(this, 10, 30);
+		} finally {
+			store.shutdown(getMonitor());
+		}
+	}
+
+	private void testPackedHistoryCleanUp(final int files, final int statesPerFile) throws CoreException {
+		final HistoryStore2 store = createPackedStore();
+		try {
+			new PerformanceTestRunner() {
+				private IWorkspaceDescription original;
+
+				@Override
+				protected void setUp() {
+					original = setMaxFileStates("0.1", 1);
+					for (int i = 0; i < files; i++) {
+						IPath path = new Path("/proj1/base/file" + i);
+						for (int j = 0; j < statesPerFile; j++) {
+							addState(store, path);
+						}
+					}
+				}
+
+				@Override
+				protected void tearDown() throws CoreException {
+					store.remove(Path.ROOT, getMonitor());
+					store.removeGarbage();
+					if (original != null) {
+						getWorkspace().setDescription(original);
+					}
+				}
+
+				@Override
+				protected void test() {
+					store.clean(getMonitor());
+				}
+			}.run(this, 5, 1);
+		} finally {
+			store.shutdown(getMonitor());
+		}
+	}
+
+	public void testPackedHistoryCleanUp100x4() throws CoreException {
+		testPackedHistoryCleanUp(100, 4);
+	}
+
+	public void testPackedHistoryCleanUp20x20() throws CoreException {
+		testPackedHistoryCleanUp(20, 20);
+	}
 }
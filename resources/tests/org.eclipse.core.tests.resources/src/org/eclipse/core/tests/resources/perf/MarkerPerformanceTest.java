@@ -72,6 +72,79 @@ public class MarkerPerformanceTest extends ResourceTest {
 		}.run(this, 1, 1);
 	}
 
+	/**
+	 * Creates a tree of files, with a problem on every tenth file and a bookmark
+	 * on every other file.
+	 */
+	private IFolder createMarkedTree() throws CoreException {
+		IFolder root = project.getFolder("tree");
+		IWorkspaceRunnable runnable = monitor -> {
+			root.create(true, true, null);
+			for (int i = 0; i < 20; i++) {
+				IFolder folder = root.getFolder("folder" + i);
+				folder.create(true, true, null);
+				for (int j = 0; j < 100; j++) {
+					IFile child = folder.getFile("file" + j + ".txt");
+					child.create(getRandomContents(), true, null);
+					if (j % 10 == 0)
+						child.createMarker(IMarker.PROBLEM).setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+					else
+						child.createMarker(IMarker.BOOKMARK);
+				}
+			}
+		};
+		getWorkspace().run(runnable, null);
+		return root;
+	}
+
+	public void testFindMarkersByType() throws CoreException {
+		//benchmark a search for a type, answered from the marker index
+		IFolder root = createMarkedTree();
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				try {
+					for (int i = 0; i < REPEAT; i++)
+						assertEquals(200, root.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE).length);
+				} catch (CoreException e) {
+					fail("2.0", e);
+				}
+			}
+		}.run(this, 1, 1);
+	}
+
+	public void testFindAllMarkers() throws CoreException {
+		//benchmark a search for all types, walking the tree, to compare with testFindMarkersByType
+		IFolder root = createMarkedTree();
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				try {
+					for (int i = 0; i < REPEAT; i++)
+						assertEquals(2000, root.findMarkers(null, true, IResource.DEPTH_INFINITE).length);
+				} catch (CoreException e) {
+					fail("2.0", e);
+				}
+			}
+		}.run(this, 1, 1);
+	}
+
+	public void testFindMaxProblemSeverity() throws CoreException {
+		//benchmark a search for the max severity, where no problem is an error
+		IFolder root = createMarkedTree();
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				try {
+					for (int i = 0; i < REPEAT; i++)
+						assertEquals(IMarker.SEVERITY_WARNING, root.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+				} catch (CoreException e) {
+					fail("2.0", e);
+				}
+			}
+		}.run(this, 1, 1);
+	}
+
 	/**
 	 * @see ResourceTest#setUp()
 	 */
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ *  Copyright (c) 2023 IBM Corporation and others.
+ *
+ *  This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License 2.0
+ *  which accompanies this distribution, and is available at
+ *  https://www.eclipse.org/legal/epl-2.0/
+ *
+ *  SPDX-License-Identifier: EPL-2.0
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.perf;
+
+import java.io.*;
+import org.eclipse.core.internal.localstore.UnifiedTree;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.tests.harness.PerformanceTestRunner;
+import org.eclipse.core.tests.resources.ResourceTest;
+
+/**
+ * Compares refreshing a large project with a sequential traversal of the
+ * file system against traversals that fetch directory listings in parallel.
+ */
+public class ParallelRefreshPerformanceTest extends ResourceTest {
+	private static final int FOLDERS_PER_LEVEL = 8;
+	private static final int FILES_PER_FOLDER = 20;
+	private static final int LEVELS = 3;
+
+	private IProject project;
+	private String originalParallelism;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		originalParallelism = System.getProperty(UnifiedTree.PROP_PARALLELISM);
+		project = getWorkspace().getRoot().getProject("ParallelRefreshPerformanceTest");
+		ensureExistsInWorkspace(project, true);
+		createTree(project.getLocation().toFile(), LEVELS);
+		project.refreshLocal(IResource.DEPTH_INFINITE, getMonitor());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (originalParallelism == null)
+			System.clearProperty(UnifiedTree.PROP_PARALLELISM);
+		else
+			System.setProperty(UnifiedTree.PROP_PARALLELISM, originalParallelism);
+		super.tearDown();
+	}
+
+	private void createTree(File folder, int levels) throws IOException {
+		for (int i = 0; i < FILES_PER_FOLDER; i++) {
+			try (OutputStream out = new FileOutputStream(new File(folder, "file" + i + ".txt"))) {
+				out.write(i);
+			}
+		}
+		if (levels == 0)
+			return;
+		for (int i = 0; i < FOLDERS_PER_LEVEL; i++) {
+			File child = new File(folder, "folder" + i);
+			child.mkdir();
+			createTree(child, levels - 1);
+		}
+	}
+
+	private void refreshWithWorkers(int workers) {
+		System.setProperty(UnifiedTree.PROP_PARALLELISM, Integer.toString(workers));
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				try {
+					project.refreshLocal(IResource.DEPTH_INFINITE, getMonitor());
+				} catch (CoreException e) {
+					fail("1.0", e);
+				}
+			}
+		}.run(this, 10, 1);
+	}
+
+	public void testRefresh1Worker() {
+		refreshWithWorkers(1);
+	}
+
+	public void testRefresh4Workers() {
+		refreshWithWorkers(4);
+	}
+
+	public void testRefresh16Workers() {
+		refreshWithWorkers(16);
+	}
+}
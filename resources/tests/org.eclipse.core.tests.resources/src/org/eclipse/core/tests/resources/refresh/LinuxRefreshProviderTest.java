@@ -0,0 +1,99 @@
+/*******************************************************************************
+ *  Copyright (c) 2023 IBM Corporation and others.
+ *
+ *  This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License 2.0
+ *  which accompanies this distribution, and is available at
+ *  https://www.eclipse.org/legal/epl-2.0/
+ *
+ *  SPDX-License-Identifier: EPL-2.0
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.refresh;
+
+import java.io.File;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.core.tests.resources.ResourceTest;
+
+/**
+ * Tests that changes made outside of the workspace are picked up by the
+ * native refresh monitor on Linux.
+ */
+public class LinuxRefreshProviderTest extends ResourceTest {
+
+	private static final long TIMEOUT = 30000;
+
+	private boolean originalRefreshSetting;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		//turn on autorefresh
+		IEclipsePreferences prefs = InstanceScope.INSTANCE.getNode(ResourcesPlugin.PI_RESOURCES);
+		originalRefreshSetting = prefs.getBoolean(ResourcesPlugin.PREF_AUTO_REFRESH, false);
+		prefs.putBoolean(ResourcesPlugin.PREF_AUTO_REFRESH, true);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		//turn off autorefresh
+		IEclipsePreferences prefs = InstanceScope.INSTANCE.getNode(ResourcesPlugin.PI_RESOURCES);
+		prefs.putBoolean(ResourcesPlugin.PREF_AUTO_REFRESH, originalRefreshSetting);
+	}
+
+	public void testExternalFileCreation() throws Exception {
+		if (!Platform.OS_LINUX.equals(Platform.getOS()))
+			return;
+		IProject project = getWorkspace().getRoot().getProject(getUniqueString());
+		IFolder folder = project.getFolder("folder");
+		ensureExistsInWorkspace(folder, true);
+		waitForRefresh();
+		IFile file = folder.getFile("file.txt");
+		createFileInFileSystem(file.getLocation());
+		assertTrue("1.0", waitForExistence(file, true));
+	}
+
+	public void testExternalDirectoryCreation() throws Exception {
+		if (!Platform.OS_LINUX.equals(Platform.getOS()))
+			return;
+		IProject project = getWorkspace().getRoot().getProject(getUniqueString());
+		ensureExistsInWorkspace(project, true);
+		waitForRefresh();
+		IFolder folder = project.getFolder("folder");
+		assertTrue("1.0", folder.getLocation().toFile().mkdir());
+		assertTrue("1.1", waitForExistence(folder, true));
+		// files created in the new directory are picked up as well
+		IFile file = folder.getFile("file.txt");
+		createFileInFileSystem(file.getLocation());
+		assertTrue("1.2", waitForExistence(file, true));
+	}
+
+	public void testExternalFileDeletion() throws Exception {
+		if (!Platform.OS_LINUX.equals(Platform.getOS()))
+			return;
+		IProject project = getWorkspace().getRoot().getProject(getUniqueString());
+		IFile file = project.getFolder("folder").getFile("file.txt");
+		ensureExistsInWorkspace(file, true);
+		waitForRefresh();
+		File localFile = file.getLocation().toFile();
+		assertTrue("1.0", localFile.delete());
+		assertTrue("1.1", waitForExistence(file, false));
+	}
+
+	private boolean waitForExistence(IResource resource, boolean exists) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		while (System.currentTimeMillis() - start < TIMEOUT) {
+			waitForRefresh();
+			if (resource.exists() == exists)
+				return true;
+			Thread.sleep(100);
+		}
+		return false;
+	}
+}
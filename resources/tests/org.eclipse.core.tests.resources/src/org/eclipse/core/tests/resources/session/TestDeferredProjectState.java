@@ -0,0 +1,77 @@
+/*******************************************************************************
+ *  Copyright (c) 2023 IBM Corporation and others.
+ *
+ *  This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License 2.0
+ *  which accompanies this distribution, and is available at
+ *  https://www.eclipse.org/legal/epl-2.0/
+ *
+ *  SPDX-License-Identifier: EPL-2.0
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.session;
+
+import java.util.Arrays;
+import junit.framework.Test;
+import org.eclipse.core.internal.resources.SaveManager;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.core.tests.resources.AutomatedResourceTests;
+import org.eclipse.core.tests.session.SetupManager.SetupException;
+import org.eclipse.core.tests.session.WorkspaceSessionTestSuite;
+
+/**
+ * Tests that the markers and sync info of projects whose restore is deferred
+ * on startup are restored when they are accessed, and survive a save.
+ */
+public class TestDeferredProjectState extends WorkspaceSerializationTest {
+	private static final QualifiedName PARTNER = new QualifiedName("org.eclipse.core.tests.resources", "partner");
+	private static final byte[] SYNC_INFO = "sync".getBytes();
+
+	private void assertStateRestored() throws Exception {
+		IProject project = workspace.getRoot().getProject(PROJECT);
+		IFile file = project.getFolder(FOLDER).getFile(FILE);
+		IMarker[] markers = file.findMarkers(IMarker.PROBLEM, false, IResource.DEPTH_ZERO);
+		assertEquals("1.0", 1, markers.length);
+		assertEquals("1.1", "message", markers[0].getAttribute(IMarker.MESSAGE));
+
+		workspace.getSynchronizer().add(PARTNER);
+		assertTrue("2.0", Arrays.equals(SYNC_INFO, workspace.getSynchronizer().getSyncInfo(PARTNER, file)));
+	}
+
+	public void test1() throws Exception {
+		IProject project = workspace.getRoot().getProject(PROJECT);
+		IFolder folder = project.getFolder(FOLDER);
+		IFile file = folder.getFile(FILE);
+		ensureExistsInWorkspace(new IResource[] {project, folder, file}, true);
+		IMarker marker = file.createMarker(IMarker.PROBLEM);
+		marker.setAttribute(IMarker.MESSAGE, "message");
+		workspace.getSynchronizer().add(PARTNER);
+		workspace.getSynchronizer().setSyncInfo(PARTNER, file, SYNC_INFO);
+
+		workspace.save(true, getMonitor());
+	}
+
+	public void test2() throws Exception {
+		assertStateRestored();
+		workspace.save(true, getMonitor());
+	}
+
+	public void test3() throws Exception {
+		// the project is restored by the background job or the save, never written empty
+		workspace.save(true, getMonitor());
+		assertStateRestored();
+	}
+
+	public static Test suite() {
+		WorkspaceSessionTestSuite suite = new WorkspaceSessionTestSuite(AutomatedResourceTests.PI_RESOURCES_TESTS, TestDeferredProjectState.class);
+		try {
+			suite.getSetup().setSystemProperty(SaveManager.PROP_DEFER_PROJECT_STATE, "true");
+		} catch (SetupException e) {
+			// ignore, the test will fail for us
+		}
+		return suite;
+	}
+}
@@ -164,6 +164,18 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	 */
 	private final HashSet<InternalJob> running;
 
+	/**
+	 * The running jobs indexed by scheduling rule. Should only be modified from changeState
+	 * @GuardedBy("lock")
+	 */
+	private final RuleIndex runningRules;
+
+	/**
+	 * The blocked jobs indexed by scheduling rule. Should only be modified from changeState
+	 * @GuardedBy("lock")
+	 */
+	private final RuleIndex blockedRules;
+
 	/**
 	 * Jobs that are currently yielding. Should only be modified from changeState
 	 * @GuardedBy("lock")
@@ -295,6 +307,8 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 			waitingThreadJobs = new JobQueue(false, false);
 			sleeping = new JobQueue(true);
 			running = new HashSet<>(10);
+			runningRules = new RuleIndex();
+			blockedRules = new RuleIndex();
 			yielding = new HashSet<>(10);
 			pool = new WorkerPool(this);
 		}
@@ -407,6 +421,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 			case InternalJob.BLOCKED:
 				// remove this job from the linked list of blocked jobs
 				job.remove();
+				blockedRules.remove(job);
 				break;
 			case Job.WAITING:
 				try {
@@ -425,6 +440,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 			case Job.RUNNING:
 			case InternalJob.ABOUT_TO_RUN:
 				running.remove(job);
+				runningRules.remove(job);
 				// add any blocked jobs back to the wait queue
 				InternalJob blocked = job.previous();
 				job.remove();
@@ -444,7 +460,9 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 				job.setStartTime(InternalJob.T_NONE);
 				job.setWaitQueueStamp(InternalJob.T_NONE);
 				job.setRunCanceled(false);
+				break;
 			case InternalJob.BLOCKED:
+				blockedRules.add(job);
 				break;
 			case Job.WAITING:
 				waiting.enqueue(job);
@@ -462,6 +480,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 				job.setStartTime(InternalJob.T_NONE);
 				job.setWaitQueueStamp(InternalJob.T_NONE);
 				running.add(job);
+				runningRules.add(job);
 				break;
 			case InternalJob.YIELDING:
 				yielding.add(job);
@@ -709,6 +728,8 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 		synchronized (lock) {
 			//discard reference to any jobs still running at this point
 			running.clear();
+			runningRules.clear();
+			blockedRules.clear();
 		}
 
 		pool.shutdown();
@@ -797,28 +818,12 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 			if (running.isEmpty())
 				return null;
 			//check the running jobs
-			boolean hasBlockedJobs = false;
-			for (InternalJob job : running) {
-				if (waitingJob.isConflicting(job))
-					return job;
-				if (!hasBlockedJobs)
-					hasBlockedJobs = job.previous() != null;
-			}
-			//there are no blocked jobs, so we are done
-			if (!hasBlockedJobs)
-				return null;
+			InternalJob job = runningRules.findConflicting(waitingJob);
+			if (job != null)
+				return job;
 			//check all jobs blocked by running jobs
-			for (InternalJob job : running) {
-				while (true) {
-					job = job.previous();
-					if (job == null)
-						break;
-					if (waitingJob.isConflicting(job))
-						return job;
-				}
-			}
+			return blockedRules.findConflicting(waitingJob);
 		}
-		return null;
 	}
 
 	/**
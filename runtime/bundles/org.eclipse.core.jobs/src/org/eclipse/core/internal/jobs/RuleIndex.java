@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.jobs;
+
+import java.util.*;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.jobs.*;
+
+/**
+ * An index of jobs by scheduling rule, used to find a job whose rule conflicts
+ * with the rule of another job.
+ * <p>
+ * Jobs whose rule is an {@link IHierarchicalSchedulingRule}, or a
+ * {@link MultiRule} of such rules, are kept in a tree keyed by the segments of
+ * the rule paths. Since hierarchical rules can only conflict when the path of
+ * one of them is a prefix of the path of the other, finding the jobs
+ * conflicting with a hierarchical rule only asks the jobs on the path of the
+ * rule and below it. Jobs with other rules are always asked.
+ * </p>
+ * <p>
+ * This class is not thread safe, it is guarded by the lock of the job manager.
+ * </p>
+ */
+class RuleIndex {
+	private static final class Node {
+		final Node parent;
+		final String name;
+		/** the child nodes by segment, or <code>null</code> */
+		HashMap<String, Node> children;
+		/** the jobs whose rule has the path of this node, or <code>null</code> */
+		ArrayList<InternalJob> jobs;
+
+		Node(Node parent, String name) {
+			this.parent = parent;
+			this.name = name;
+		}
+
+		Node getChild(String segment, boolean create) {
+			Node child = children == null ? null : children.get(segment);
+			if (child == null && create) {
+				if (children == null)
+					children = new HashMap<>();
+				child = new Node(this, segment);
+				children.put(segment, child);
+			}
+			return child;
+		}
+
+		boolean isEmpty() {
+			return (jobs == null || jobs.isEmpty()) && (children == null || children.isEmpty());
+		}
+	}
+
+	private final Node root = new Node(null, null);
+
+	/**
+	 * The indexed jobs, mapped to the paths they are indexed under, or to
+	 * <code>null</code> for the jobs whose rule is not hierarchical.
+	 */
+	private final HashMap<InternalJob, IPath[]> jobs = new HashMap<>();
+
+	/**
+	 * The jobs whose rule is not hierarchical.
+	 */
+	private final HashSet<InternalJob> others = new HashSet<>();
+
+	/**
+	 * Returns the paths of the given rule, or <code>null</code> if the rule is
+	 * not hierarchical.
+	 */
+	private static IPath[] getRulePaths(ISchedulingRule rule) {
+		if (rule instanceof IHierarchicalSchedulingRule)
+			return new IPath[] {((IHierarchicalSchedulingRule) rule).getRulePath()};
+		if (rule == null || rule.getClass() != MultiRule.class)
+			return null;
+		ISchedulingRule[] children = ((MultiRule) rule).getChildren();
+		IPath[] paths = new IPath[children.length];
+		for (int i = 0; i < children.length; i++) {
+			if (!(children[i] instanceof IHierarchicalSchedulingRule))
+				return null;
+			paths[i] = ((IHierarchicalSchedulingRule) children[i]).getRulePath();
+		}
+		return paths;
+	}
+
+	/**
+	 * Adds the given job to this index. Jobs without a rule are not added, since
+	 * they cannot conflict with any other job.
+	 */
+	void add(InternalJob job) {
+		ISchedulingRule rule = job.getRule();
+		if (rule == null || jobs.containsKey(job))
+			return;
+		IPath[] paths = getRulePaths(rule);
+		jobs.put(job, paths);
+		if (paths == null) {
+			others.add(job);
+			return;
+		}
+		for (IPath path : paths) {
+			Node node = root;
+			for (int i = 0, count = path.segmentCount(); i < count; i++)
+				node = node.getChild(path.segment(i), true);
+			if (node.jobs == null)
+				node.jobs = new ArrayList<>(2);
+			node.jobs.add(job);
+		}
+	}
+
+	/**
+	 * Removes the given job from this index, if it is in it.
+	 */
+	void remove(InternalJob job) {
+		if (!jobs.containsKey(job))
+			return;
+		IPath[] paths = jobs.remove(job);
+		if (paths == null) {
+			others.remove(job);
+			return;
+		}
+		for (IPath path : paths) {
+			Node node = root;
+			for (int i = 0, count = path.segmentCount(); node != null && i < count; i++)
+				node = node.getChild(path.segment(i), false);
+			if (node == null || node.jobs == null)
+				continue;
+			node.jobs.remove(job);
+			// discard the nodes that are no longer needed
+			while (node.parent != null && node.isEmpty()) {
+				node.parent.children.remove(node.name);
+				node = node.parent;
+			}
+		}
+	}
+
+	void clear() {
+		jobs.clear();
+		others.clear();
+		root.children = null;
+		root.jobs = null;
+	}
+
+	boolean isEmpty() {
+		return jobs.isEmpty();
+	}
+
+	/**
+	 * Returns a job of this index whose rule conflicts with the rule of the
+	 * given job, or <code>null</code> if there is none.
+	 */
+	InternalJob findConflicting(InternalJob waitingJob) {
+		if (jobs.isEmpty())
+			return null;
+		IPath[] paths = getRulePaths(waitingJob.getRule());
+		if (paths == null) {
+			for (InternalJob job : jobs.keySet())
+				if (waitingJob.isConflicting(job))
+					return job;
+			return null;
+		}
+		for (IPath path : paths) {
+			InternalJob job = findConflicting(waitingJob, path);
+			if (job != null)
+				return job;
+		}
+		for (InternalJob job : others)
+			if (waitingJob.isConflicting(job))
+				return job;
+		return null;
+	}
+
+	/**
+	 * Returns a job indexed on the given path, on a prefix of it or below it,
+	 * whose rule conflicts with the rule of the given job.
+	 */
+	private InternalJob findConflicting(InternalJob waitingJob, IPath path) {
+		Node node = root;
+		for (int i = 0, count = path.segmentCount();; i++) {
+			InternalJob job = findConflicting(waitingJob, node.jobs);
+			if (job != null)
+				return job;
+			if (i == count)
+				return findConflictingBelow(waitingJob, node);
+			node = node.getChild(path.segment(i), false);
+			if (node == null)
+				return null;
+		}
+	}
+
+	private static InternalJob findConflictingBelow(InternalJob waitingJob, Node node) {
+		if (node.children == null)
+			return null;
+		for (Node child : node.children.values()) {
+			InternalJob job = findConflicting(waitingJob, child.jobs);
+			if (job == null)
+				job = findConflictingBelow(waitingJob, child);
+			if (job != null)
+				return job;
+		}
+		return null;
+	}
+
+	private static InternalJob findConflicting(InternalJob waitingJob, List<InternalJob> candidates) {
+		if (candidates != null)
+			for (InternalJob job : candidates)
+				if (waitingJob.isConflicting(job))
+					return job;
+		return null;
+	}
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.runtime.jobs;
+
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * A scheduling rule for a node of a hierarchy, such as a resource in a
+ * workspace. Such a rule is identified by the path of its node, and it can
+ * only conflict with another hierarchical rule if the path of one of the rules
+ * is a prefix of the path of the other.
+ * <p>
+ * The job manager relies on this to find the running jobs conflicting with a
+ * hierarchical rule by looking at the jobs on the path of the rule only,
+ * instead of asking every running job. The rules are still asked whether they
+ * actually conflict, and rules that are not hierarchical are always asked.
+ * </p>
+ * <p>
+ * Clients may implement this interface.
+ * </p>
+ *
+ * @since 3.14
+ */
+public interface IHierarchicalSchedulingRule extends ISchedulingRule {
+	/**
+	 * Returns the path of this rule in its hierarchy. The path must not change
+	 * as long as the rule is in use.
+	 * <p>
+	 * Implementations of {@link #isConflicting(ISchedulingRule)} must return
+	 * <code>false</code> for any hierarchical rule whose path is neither a prefix
+	 * of this path nor prefixed by it.
+	 * </p>
+	 *
+	 * @return the path of this rule
+	 */
+	IPath getRulePath();
+}
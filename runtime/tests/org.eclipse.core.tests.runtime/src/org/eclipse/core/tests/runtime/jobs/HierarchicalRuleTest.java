@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2023 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.runtime.jobs;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.*;
+
+/**
+ * Tests the scheduling of jobs whose rules are hierarchical, mixed with jobs
+ * whose rules are not.
+ */
+public class HierarchicalRuleTest extends AbstractJobManagerTest {
+	private static final long BLOCKED_DELAY = 300;
+	private static final long TIMEOUT = 10000;
+
+	private Job newJob(String name, ISchedulingRule rule) {
+		Job job = new Job(name) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return Status.OK_STATUS;
+			}
+		};
+		job.setRule(rule);
+		return job;
+	}
+
+	private void assertBlocked(Job job) throws InterruptedException {
+		assertFalse(job + " was not blocked", job.join(BLOCKED_DELAY, null));
+	}
+
+	private void assertCompletes(Job job) throws InterruptedException {
+		assertTrue(job + " did not complete", job.join(TIMEOUT, null));
+	}
+
+	public void testDisjointRules() throws InterruptedException {
+		ISchedulingRule held = new PathRule("/a/b");
+		manager.beginRule(held, null);
+		Job sibling = newJob("sibling", new PathRule("/a/c"));
+		Job child = newJob("child", new PathRule("/a/b/c"));
+		Job parent = newJob("parent", new PathRule("/a"));
+		try {
+			sibling.schedule();
+			child.schedule();
+			parent.schedule();
+			assertCompletes(sibling);
+			assertBlocked(child);
+			assertBlocked(parent);
+		} finally {
+			manager.endRule(held);
+		}
+		assertCompletes(child);
+		assertCompletes(parent);
+	}
+
+	public void testMultiRules() throws InterruptedException {
+		ISchedulingRule held = new MultiRule(new ISchedulingRule[] {new PathRule("/a"), new PathRule("/b/c")});
+		manager.beginRule(held, null);
+		Job disjoint = newJob("disjoint", new MultiRule(new ISchedulingRule[] {new PathRule("/b/d"), new PathRule("/c")}));
+		Job conflicting = newJob("conflicting", new MultiRule(new ISchedulingRule[] {new PathRule("/b"), new PathRule("/c")}));
+		try {
+			disjoint.schedule();
+			conflicting.schedule();
+			assertCompletes(disjoint);
+			assertBlocked(conflicting);
+		} finally {
+			manager.endRule(held);
+		}
+		assertCompletes(conflicting);
+	}
+
+	public void testMixedRules() throws InterruptedException {
+		IdentityRule identity = new IdentityRule();
+		ISchedulingRule held = new MultiRule(new ISchedulingRule[] {identity, new PathRule("/a")});
+		manager.beginRule(held, null);
+		Job identityJob = newJob("identity", identity);
+		Job pathJob = newJob("path", new PathRule("/a/b"));
+		Job otherJob = newJob("other", new PathRule("/b"));
+		try {
+			identityJob.schedule();
+			pathJob.schedule();
+			otherJob.schedule();
+			assertCompletes(otherJob);
+			assertBlocked(identityJob);
+			assertBlocked(pathJob);
+		} finally {
+			manager.endRule(held);
+		}
+		assertCompletes(identityJob);
+		assertCompletes(pathJob);
+	}
+
+	public void testBlockedJobs() throws InterruptedException {
+		ISchedulingRule held = new PathRule("/a");
+		manager.beginRule(held, null);
+		// blocked by the held rule, and then blocking the second job
+		Job first = newJob("first", new MultiRule(new ISchedulingRule[] {new PathRule("/a/b"), new PathRule("/c")}));
+		Job second = newJob("second", new PathRule("/c/d"));
+		try {
+			first.schedule();
+			assertBlocked(first);
+			second.schedule();
+			assertBlocked(second);
+		} finally {
+			manager.endRule(held);
+		}
+		assertCompletes(first);
+		assertCompletes(second);
+	}
+}